@@ -1,5 +1,9 @@
 package com.liveroom.anchor.config;
 
+import common.config.CompactRedisSerializer;
+import common.config.RedisProperties;
+import common.config.RedisTypeRegistry;
+import common.service.MessageService;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -8,8 +12,9 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -27,10 +32,11 @@ public class RedisConfig {
 
     /**
      * 配置RedisTemplate
-     * 使用String序列化器（key）和JSON序列化器（value）
+     * 使用String序列化器（key）和与缓存管理器相同的紧凑序列化器（value）
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisProperties redisProperties) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
@@ -39,32 +45,53 @@ public class RedisConfig {
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
 
-        // 使用GenericJackson2JsonRedisSerializer序列化value
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // value 使用紧凑序列化（spring.redis.cache-serializer=json 可切回 JSON）
+        RedisSerializer<Object> valueSerializer =
+                CompactRedisSerializer.forCache(redisProperties, RedisTypeRegistry.defaults());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * 配置Redis消息监听容器
+     * 用于订阅直播间状态变更
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     /**
      * 配置缓存管理器
      * 设置默认缓存过期时间为30分钟
+     * 缓存值默认使用紧凑二进制序列化（spring.redis.cache-serializer=json 可切回 JSON）
+     * 事务内的缓存清除延迟到提交后执行，避免并发读在提交前回源旧值并重新写入缓存
+     * 观众弹幕页写入弹幕时不清除，使用短过期时间（MessageService.AUDIENCE_CACHE_TTL_SECONDS）
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, RedisProperties redisProperties) {
+        RedisSerializer<Object> valueSerializer =
+                CompactRedisSerializer.forCache(redisProperties, RedisTypeRegistry.defaults());
+
         // 默认缓存配置
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))  // 默认30分钟过期
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                        .fromSerializer(valueSerializer))
                 .disableCachingNullValues();  // 不缓存空值
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
+                .withCacheConfiguration(MessageService.CACHE_AUDIENCE,
+                        defaultConfig.entryTtl(Duration.ofSeconds(MessageService.AUDIENCE_CACHE_TTL_SECONDS)))
+                .transactionAware()
                 .build();
     }
 }
@@ -2,7 +2,9 @@ package com.liveroom.anchor.controller;
 
 import com.liveroom.anchor.dto.AnchorDTO;
 import com.liveroom.anchor.service.AnchorService;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.response.BaseResponse;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
@@ -14,6 +16,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.math.BigDecimal;
 
@@ -101,12 +104,33 @@ public class AnchorController {
         return ResponseUtil.success(anchors);
     }
 
+    /**
+     * 搜索主播（昵称或用户名，支持前缀和错别字模糊匹配）
+     * GET /api/v1/anchors/search?keyword=xxx&limit=20
+     */
+    @GetMapping("/search")
+    @Log("搜索主播")
+    public BaseResponse<java.util.List<AnchorDTO>> searchAnchors(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) Integer limit) {
+
+        if (keyword == null || keyword.trim().isEmpty()) {
+            throw new ValidationException("搜索关键词不能为空");
+        }
+        if (keyword.length() > 50) {
+            throw new ValidationException("搜索关键词长度不能超过50");
+        }
+
+        return ResponseUtil.success(anchorService.searchAnchors(keyword.trim(), limit));
+    }
+
     /**
      * 查询TOP主播（按粉丝数）
      * GET /api/v1/anchors/top/fans?limit=10
      */
     @GetMapping("/top/fans")
     @Log("查询TOP主播（按粉丝数）")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<java.util.List<AnchorDTO>> listTopAnchorsByFans(
             @RequestParam(defaultValue = "10") @Min(1) Integer limit) {
 
@@ -120,6 +144,7 @@ public class AnchorController {
      */
     @GetMapping("/top/earnings")
     @Log("查询TOP主播（按收益）")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<java.util.List<AnchorDTO>> listTopAnchorsByEarnings(
             @RequestParam(defaultValue = "10") @Min(1) Integer limit) {
 
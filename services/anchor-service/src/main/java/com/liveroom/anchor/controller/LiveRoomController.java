@@ -4,6 +4,7 @@ import com.liveroom.anchor.dto.LiveRoomDTO;
 import com.liveroom.anchor.service.LiveRoomService;
 import common.annotation.Log;
 import common.response.BaseResponse;
+import common.response.CursorPageResponse;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
 import common.response.ResponseUtil;
@@ -14,6 +15,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.math.BigDecimal;
 
@@ -142,6 +144,20 @@ public class LiveRoomController {
         return ResponseUtil.success(liveRooms);
     }
 
+    /**
+     * 按游标分页查询正在直播的直播间
+     * GET /api/v1/live-rooms/live/scroll?cursor=xxx&size=20
+     * 首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/live/scroll")
+    @Log("游标查询正在直播的直播间")
+    public BaseResponse<CursorPageResponse<LiveRoomDTO>> scrollLiveRooms(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) Integer size) {
+
+        return ResponseUtil.success(liveRoomService.scrollLiveRooms(cursor, size));
+    }
+
     /**
      * 按分类查询直播间列表
      * GET /api/v1/live-rooms/category/{category}?page=1&size=20
@@ -1,21 +1,34 @@
 package com.liveroom.anchor.controller;
 
+import com.liveroom.anchor.service.DanmakuIngestionPipeline;
+import com.liveroom.anchor.service.LiveRoomLeaderboardService;
 import com.liveroom.anchor.service.LiveRoomRealtimeService;
+import com.liveroom.anchor.service.RoomSnapshotPushService;
+import com.liveroom.anchor.service.ViewerSessionTracker;
 import com.liveroom.anchor.vo.LiveRoomRealtimeVO;
+import com.liveroom.anchor.vo.RechargeVO;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
 import common.response.BaseResponse;
 import common.response.ResponseUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 直播间实时数据Controller
@@ -28,11 +41,24 @@ import java.math.BigDecimal;
 @RequestMapping("/api/v1/live-rooms/realtime")
 @Slf4j
 @Validated
+@Bulkhead(BulkheadType.REALTIME)
 public class LiveRoomRealtimeController {
 
     @Autowired
     private LiveRoomRealtimeService liveRoomRealtimeService;
 
+    @Autowired
+    private DanmakuIngestionPipeline danmakuIngestionPipeline;
+
+    @Autowired
+    private LiveRoomLeaderboardService liveRoomLeaderboardService;
+
+    @Autowired
+    private RoomSnapshotPushService roomSnapshotPushService;
+
+    @Autowired
+    private ViewerSessionTracker viewerSessionTracker;
+
     /**
      * 观众进入直播间
      * POST /api/v1/live-rooms/realtime/viewer-enter
@@ -69,6 +95,29 @@ public class LiveRoomRealtimeController {
         return ResponseUtil.success("观众离开成功");
     }
 
+    /**
+     * 观众心跳（维持观看会话）
+     * POST /api/v1/live-rooms/realtime/viewer-heartbeat
+     */
+    @PostMapping("/viewer-heartbeat")
+    public BaseResponse<String> viewerHeartbeat(
+            @RequestParam @NotNull(message = "直播间ID不能为空") Long liveRoomId,
+            @RequestParam @NotNull(message = "观众ID不能为空") Long audienceId) {
+
+        liveRoomRealtimeService.viewerHeartbeat(liveRoomId, audienceId);
+
+        return ResponseUtil.success("心跳成功");
+    }
+
+    /**
+     * 查询观看会话跟踪器监控指标
+     * GET /api/v1/live-rooms/realtime/sessions/metrics
+     */
+    @GetMapping("/sessions/metrics")
+    public BaseResponse<Map<String, Object>> getSessionMetrics() {
+        return ResponseUtil.success(viewerSessionTracker.getMetrics());
+    }
+
     /**
      * 观众发送弹幕
      * POST /api/v1/live-rooms/realtime/danmaku
@@ -93,6 +142,15 @@ public class LiveRoomRealtimeController {
         return ResponseUtil.success("弹幕发送成功");
     }
 
+    /**
+     * 查询弹幕落库管道监控指标
+     * GET /api/v1/live-rooms/realtime/danmaku/metrics
+     */
+    @GetMapping("/danmaku/metrics")
+    public BaseResponse<Map<String, Object>> getDanmakuMetrics() {
+        return ResponseUtil.success(danmakuIngestionPipeline.getMetrics());
+    }
+
     /**
      * 观众打赏（只更新直播间数据，主播数据查询财务服务）
      * POST /api/v1/live-rooms/realtime/reward
@@ -140,4 +198,41 @@ public class LiveRoomRealtimeController {
 
         return ResponseUtil.success(vo);
     }
+
+    /**
+     * 查询直播间本场贡献榜
+     * GET /api/v1/live-rooms/realtime/{liveRoomId}/leaderboard
+     */
+    @GetMapping("/{liveRoomId}/leaderboard")
+    public BaseResponse<List<RechargeVO.Top10AudienceVO>> getLeaderboard(
+            @PathVariable Long liveRoomId,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer limit) {
+
+        if (liveRoomId == null || liveRoomId <= 0) {
+            throw new ValidationException("直播间ID不合法");
+        }
+
+        return ResponseUtil.success(liveRoomLeaderboardService.getTopContributors(liveRoomId, limit));
+    }
+
+    /**
+     * 订阅直播间实时数据推送（SSE），替代轮询实时数据接口
+     * GET /api/v1/live-rooms/realtime/{liveRoomId}/stream
+     */
+    @GetMapping(value = "/{liveRoomId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveRoomRealtimeData(@PathVariable Long liveRoomId) {
+        if (liveRoomId == null || liveRoomId <= 0) {
+            throw new ValidationException("直播间ID不合法");
+        }
+        return roomSnapshotPushService.subscribe(liveRoomId);
+    }
+
+    /**
+     * 查询实时推送监控指标
+     * GET /api/v1/live-rooms/realtime/stream/metrics
+     */
+    @GetMapping("/stream/metrics")
+    public BaseResponse<Map<String, Object>> getStreamMetrics() {
+        return ResponseUtil.success(roomSnapshotPushService.getMetrics());
+    }
 }
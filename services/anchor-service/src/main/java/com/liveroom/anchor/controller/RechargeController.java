@@ -2,7 +2,9 @@ package com.liveroom.anchor.controller;
 
 import com.liveroom.anchor.service.RechargeService;
 import com.liveroom.anchor.vo.RechargeVO;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.bean.ApiResponse;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
@@ -40,6 +42,7 @@ public class RechargeController {
      */
     @GetMapping("/anchor/{anchorId}")
     @Log("查询主播打赏记录")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<Object> getRechargesByAnchor(
             @PathVariable Long anchorId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
@@ -67,6 +70,7 @@ public class RechargeController {
      */
     @GetMapping("/live-room/{liveRoomId}")
     @Log("查询直播间打赏记录")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<Object> getRechargesByLiveRoom(
             @PathVariable Long liveRoomId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
@@ -113,6 +117,7 @@ public class RechargeController {
      */
     @GetMapping("/anchor/{anchorId}/total")
     @Log("统计主播打赏总额")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<Object> getTotalRechargeByAnchor(
             @PathVariable Long anchorId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
@@ -136,6 +141,7 @@ public class RechargeController {
      */
     @GetMapping("/anchor/{anchorId}/top10")
     @Log("查询TOP10打赏观众")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<List<RechargeVO.Top10AudienceVO>> getTop10Audiences(
             @PathVariable Long anchorId,
             @RequestParam(defaultValue = "all") String period) {
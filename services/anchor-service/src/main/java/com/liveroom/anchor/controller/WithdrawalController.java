@@ -2,7 +2,9 @@ package com.liveroom.anchor.controller;
 
 import com.liveroom.anchor.feign.FinanceServiceClient;
 import com.liveroom.anchor.service.WithdrawalService;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
 import common.response.BaseResponse;
@@ -40,6 +42,7 @@ public class WithdrawalController {
      */
     @PostMapping("/apply")
     @Log("主播申请提现")
+    @Bulkhead(BulkheadType.TRANSACTIONAL)
     public BaseResponse<FinanceServiceClient.WithdrawalVO> applyWithdrawal(
             @RequestParam @NotNull(message = "主播ID不能为空") Long anchorId,
             @RequestParam @NotNull(message = "提现金额不能为空")
@@ -73,6 +76,7 @@ public class WithdrawalController {
      */
     @GetMapping("/list/{anchorId}")
     @Log("查询提现记录")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<Object> listWithdrawals(
             @PathVariable Long anchorId,
             @RequestParam(required = false) Integer status,
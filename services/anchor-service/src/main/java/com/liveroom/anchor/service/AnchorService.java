@@ -9,9 +9,14 @@ import common.constant.StatusConstants;
 import common.exception.BusinessException;
 import common.logger.TraceLogger;
 import common.service.DataAccessFacade;
+import common.service.query.UserSearchIndexService;
 import common.util.BeanUtil;
+import common.util.NgramIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -161,6 +166,46 @@ public class AnchorService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    /**
+     * 按昵称或用户名搜索主播（进程内搜索索引，按相关度排序）
+     * 索引尚未加载完成时回退到 LIKE 查询
+     */
+    public java.util.List<AnchorDTO> searchAnchors(String keyword, int limit) {
+        TraceLogger.debug("AnchorService", "searchAnchors",
+            String.format("搜索主播: keyword=%s, limit=%d", keyword, limit));
+
+        Optional<java.util.List<NgramIndex.Hit>> hits = facade.userSearchIndex().searchAnchors(keyword, limit);
+        java.util.List<Anchor> anchors = hits.isPresent()
+                ? facade.anchor().findBatch(hits.get().stream()
+                        .map(NgramIndex.Hit::getId)
+                        .collect(java.util.stream.Collectors.toList()))
+                : facade.anchor().searchByKeyword(keyword, limit);
+
+        return anchors.stream()
+                .map(anchor -> BeanUtil.convert(anchor, AnchorDTO.class))
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    /**
+     * 启动后在后台加载主播搜索索引，加载完成前搜索走数据库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpSearchIndex() {
+        facade.userSearchIndex().buildAsync(UserSearchIndexService.UserKind.ANCHOR);
+    }
+
+    /**
+     * 定时追加主播昵称修改和新注册主播到搜索索引（只处理已加载的索引）
+     */
+    @Scheduled(fixedDelayString = "${anchor.search.poll-interval-ms:10000}")
+    public void refreshSearchIndex() {
+        try {
+            facade.userSearchIndex().applyChanges();
+        } catch (Exception e) {
+            TraceLogger.error("AnchorService", "refreshSearchIndex", "追加主播搜索索引修改失败", e);
+        }
+    }
+
     /**
      * 查询粉丝数最多的主播
      */
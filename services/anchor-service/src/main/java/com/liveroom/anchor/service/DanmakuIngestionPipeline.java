@@ -0,0 +1,190 @@
+package com.liveroom.anchor.service;
+
+import common.constant.ErrorConstants;
+import common.exception.BusinessException;
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import common.service.MessageService.MessageRecord;
+import common.util.MpscRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 弹幕异步落库管道
+ *
+ * 请求线程只做一次无锁入队；单独的落库线程从环形缓冲区批量取出弹幕，
+ * 通过多行 INSERT 写入 message 表（只写直播间ID和观众ID，不加载实体）。
+ *
+ * 缓冲区满时的处理策略（anchor.danmaku.overflow-policy）：
+ * - DROP：直接丢弃并计数（默认，弹幕允许有损）
+ * - REJECT：抛出业务异常，由客户端稍后重试
+ * - CALLER_RUNS：在请求线程同步写入单条弹幕
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class DanmakuIngestionPipeline {
+
+    /**
+     * 缓冲区溢出策略
+     */
+    public enum OverflowPolicy {
+        DROP, REJECT, CALLER_RUNS
+    }
+
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
+    @Value("${anchor.danmaku.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${anchor.danmaku.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${anchor.danmaku.max-flush-delay-ms:50}")
+    private long maxFlushDelayMs;
+
+    @Value("${anchor.danmaku.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy;
+
+    private MpscRingBuffer<MessageRecord> buffer;
+    private Thread drainer;
+    private volatile boolean running;
+
+    // 监控指标
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        buffer = new MpscRingBuffer<>(bufferCapacity);
+        running = true;
+        drainer = new Thread(this::drainLoop, "danmaku-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        TraceLogger.info("DanmakuIngestionPipeline", "start",
+                String.format("弹幕落库管道已启动: capacity=%d, batchSize=%d, overflowPolicy=%s",
+                        buffer.capacity(), batchSize, overflowPolicy));
+    }
+
+    /**
+     * 提交一条弹幕（请求线程调用，只做入队）
+     */
+    public void submit(Long liveRoomId, Long audienceId, String content) {
+        MessageRecord record = new MessageRecord(liveRoomId, audienceId, content, LocalDateTime.now());
+        if (buffer.offer(record)) {
+            enqueued.increment();
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case REJECT:
+                rejected.increment();
+                throw new BusinessException(ErrorConstants.SERVICE_UNAVAILABLE, "弹幕发送过于频繁，请稍后再试");
+            case CALLER_RUNS:
+                callerRuns.increment();
+                persist(List.of(record));
+                break;
+            case DROP:
+            default:
+                dropped.increment();
+                TraceLogger.debug("DanmakuIngestionPipeline", "submit",
+                        "弹幕缓冲区已满，丢弃弹幕: liveRoomId=" + liveRoomId);
+        }
+    }
+
+    /**
+     * 获取管道监控指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("bufferSize", buffer.size());
+        metrics.put("bufferCapacity", buffer.capacity());
+        metrics.put("overflowPolicy", overflowPolicy.name());
+        metrics.put("enqueued", enqueued.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("callerRuns", callerRuns.sum());
+        metrics.put("persisted", persisted.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("batches", batches.sum());
+        return metrics;
+    }
+
+    /**
+     * 落库线程主循环：攒够一批或等待超过 maxFlushDelayMs 即写库
+     */
+    private void drainLoop() {
+        List<MessageRecord> batch = new ArrayList<>(batchSize);
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxFlushDelayMs);
+        long batchStart = 0L;
+
+        while (running || !buffer.isEmpty()) {
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (drained > 0 && batchStart == 0L) {
+                batchStart = System.nanoTime();
+            }
+
+            boolean full = batch.size() >= batchSize;
+            boolean expired = !batch.isEmpty() && System.nanoTime() - batchStart >= maxDelayNanos;
+            if (full || expired || (!running && !batch.isEmpty())) {
+                persist(batch);
+                batch = new ArrayList<>(batchSize);
+                batchStart = 0L;
+                continue;
+            }
+
+            if (drained == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            persist(batch);
+        }
+    }
+
+    private void persist(List<MessageRecord> batch) {
+        try {
+            int inserted = dataAccessFacade.message().batchInsertMessages(batch);
+            persisted.add(inserted);
+            // 发送者或直播间不存在的记录被跳过
+            failed.add(batch.size() - inserted);
+            batches.increment();
+        } catch (Exception e) {
+            failed.add(batch.size());
+            TraceLogger.error("DanmakuIngestionPipeline", "persist",
+                    "弹幕批量落库失败: count=" + batch.size(), e);
+        }
+    }
+
+    /**
+     * 停机时停止接收并写完缓冲区中剩余的弹幕
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+        TraceLogger.info("DanmakuIngestionPipeline", "stop", "弹幕落库管道已停止: " + getMetrics());
+    }
+}
@@ -0,0 +1,221 @@
+package com.liveroom.anchor.service;
+
+import com.liveroom.anchor.vo.RechargeVO;
+import common.bean.liveroom.LiveRoom;
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import common.service.LiveRoomService.RankEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直播间实时贡献榜服务
+ *
+ * 每个直播间一个 Redis 有序集合 live:room:rank:{liveRoomId}，成员为观众ID，分值为本场累计打赏金额（分）。
+ * - 打赏时 ZINCRBY，整数分避免浮点累加误差
+ * - 查询榜单 ZREVRANGE WITHSCORES，不再经 Feign 调用观众服务
+ * - 关播事务提交后将榜单快照写入 live_room_rank_snapshot 表并删除有序集合
+ * - 定时按 recharge 表对账：观众服务在打赏事务提交后才通知主播服务，Redis 只可能少计，
+ *   因此对账只把偏低的分值抬到数据库值，不会覆盖对账期间新到的打赏；
+ *   对账任务通过 Redis 锁保证每个周期只有一个实例执行
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class LiveRoomLeaderboardService {
+
+    private static final String LIVE_ROOM_RANK_KEY = "live:room:rank:";
+    private static final long REDIS_EXPIRE_HOURS = 24;
+    private static final String RECONCILE_LOCK_KEY = "lock:anchor:leaderboard:reconcile";
+
+    /**
+     * 对账脚本：ARGV[1] 为过期秒数，之后按 (分值, 成员) 成对传入；
+     * 仅当 Redis 中分值低于数据库分值时覆盖，返回修正的成员数
+     */
+    private static final DefaultRedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "local fixed = 0\n" +
+            "for i = 2, #ARGV, 2 do\n" +
+            "  local current = tonumber(redis.call('ZSCORE', KEYS[1], ARGV[i + 1]) or '0')\n" +
+            "  local expected = tonumber(ARGV[i])\n" +
+            "  if current < expected then\n" +
+            "    redis.call('ZADD', KEYS[1], expected, ARGV[i + 1])\n" +
+            "    fixed = fixed + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "if fixed > 0 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end\n" +
+            "return fixed",
+            Long.class);
+
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${anchor.leaderboard.snapshot-size:100}")
+    private int snapshotSize;
+
+    @Value("${anchor.leaderboard.reconcile-interval-ms:60000}")
+    private long reconcileIntervalMs;
+
+    /** 本实例的锁标识 */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * 记录一笔打赏（打赏写入路径调用）
+     */
+    public void recordTip(Long liveRoomId, Long audienceId, BigDecimal amount) {
+        String key = LIVE_ROOM_RANK_KEY + liveRoomId;
+        stringRedisTemplate.opsForZSet().incrementScore(key, audienceId.toString(), toCents(amount));
+        stringRedisTemplate.expire(key, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * 查询直播间贡献榜前N名
+     */
+    public List<RechargeVO.Top10AudienceVO> getTopContributors(Long liveRoomId, int limit) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .reverseRangeWithScores(LIVE_ROOM_RANK_KEY + liveRoomId, 0, limit - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<RechargeVO.Top10AudienceVO> result = new ArrayList<>(tuples.size());
+        int rank = 1;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            result.add(RechargeVO.Top10AudienceVO.builder()
+                    .rank(rank++)
+                    .audienceId(Long.valueOf(tuple.getValue()))
+                    .totalRechargeAmount(fromCents(tuple.getScore()))
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * 关播时保存榜单快照并清除有序集合
+     * 在关播事务内调用时推迟到事务提交后执行：快照表外键引用 live_room，
+     * 关播事务持有直播间行锁期间写快照会等待自身的锁
+     * 快照失败时保留有序集合（24小时后自动过期），不影响关播
+     *
+     * @param liveRoom 关播前的直播间信息（需要开播时间）
+     */
+    public void snapshotAndClear(LiveRoom liveRoom) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doSnapshotAndClear(liveRoom);
+                }
+            });
+        } else {
+            doSnapshotAndClear(liveRoom);
+        }
+    }
+
+    private void doSnapshotAndClear(LiveRoom liveRoom) {
+        Long liveRoomId = liveRoom.getLiveRoomId();
+        if (liveRoom.getStartTime() == null) {
+            stringRedisTemplate.delete(LIVE_ROOM_RANK_KEY + liveRoomId);
+            return;
+        }
+
+        try {
+            reconcile(liveRoom);
+
+            List<RankEntry> entries = new ArrayList<>();
+            for (RechargeVO.Top10AudienceVO vo : getTopContributors(liveRoomId, snapshotSize)) {
+                entries.add(new RankEntry(vo.getRank(), vo.getAudienceId(), vo.getTotalRechargeAmount()));
+            }
+            dataAccessFacade.liveRoom().saveRankSnapshot(liveRoomId, liveRoom.getStartTime(), entries);
+            stringRedisTemplate.delete(LIVE_ROOM_RANK_KEY + liveRoomId);
+        } catch (Exception e) {
+            TraceLogger.error("LiveRoomLeaderboardService", "snapshotAndClear", liveRoomId, e);
+        }
+    }
+
+    /**
+     * 定时任务：正在直播的直播间按数据库对账
+     * 多实例部署时每个周期只由抢到锁的一个实例执行；锁不主动释放，按周期自然过期，
+     * 避免各实例定时器错开时同一周期内重复对账
+     */
+    @Scheduled(fixedDelayString = "${anchor.leaderboard.reconcile-interval-ms:60000}")
+    public void reconcileLiveRooms() {
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(
+                RECONCILE_LOCK_KEY, instanceId, Math.max(reconcileIntervalMs - 1000, 1000), TimeUnit.MILLISECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            TraceLogger.debug("LiveRoomLeaderboardService", "reconcileLiveRooms", "其他实例正在对账，跳过本周期");
+            return;
+        }
+
+        int fixedTotal = 0;
+        for (LiveRoom liveRoom : dataAccessFacade.liveRoom().getLiveRooms()) {
+            try {
+                fixedTotal += reconcile(liveRoom);
+            } catch (Exception e) {
+                TraceLogger.error("LiveRoomLeaderboardService", "reconcileLiveRooms",
+                        liveRoom.getLiveRoomId(), e);
+            }
+        }
+        if (fixedTotal > 0) {
+            TraceLogger.warn("LiveRoomLeaderboardService", "reconcileLiveRooms",
+                    "贡献榜对账修正成员数: " + fixedTotal);
+        }
+    }
+
+    /**
+     * 单个直播间对账
+     *
+     * @return 修正的成员数
+     */
+    private int reconcile(LiveRoom liveRoom) {
+        if (liveRoom.getStartTime() == null) {
+            return 0;
+        }
+        Map<Long, BigDecimal> expected = dataAccessFacade.recharge()
+                .sumRechargeByAudienceForLiveRoom(liveRoom.getLiveRoomId(), liveRoom.getStartTime());
+        if (expected.isEmpty()) {
+            return 0;
+        }
+
+        List<String> args = new ArrayList<>(expected.size() * 2 + 1);
+        args.add(String.valueOf(TimeUnit.HOURS.toSeconds(REDIS_EXPIRE_HOURS)));
+        for (Map.Entry<Long, BigDecimal> entry : expected.entrySet()) {
+            args.add(String.valueOf(toCents(entry.getValue())));
+            args.add(entry.getKey().toString());
+        }
+
+        Long fixed = stringRedisTemplate.execute(RECONCILE_SCRIPT,
+                Collections.singletonList(LIVE_ROOM_RANK_KEY + liveRoom.getLiveRoomId()),
+                args.toArray());
+        return fixed != null ? fixed.intValue() : 0;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromCents(Double cents) {
+        return cents == null ? BigDecimal.ZERO : BigDecimal.valueOf(cents.longValue(), 2);
+    }
+}
@@ -2,31 +2,51 @@ package com.liveroom.anchor.service;
 
 import com.liveroom.anchor.vo.LiveRoomRealtimeVO;
 import common.bean.liveroom.LiveRoom;
-import common.bean.liveroom.Message;
+import common.bean.liveroom.LiveRoomRealtime;
 import common.constant.ErrorConstants;
 import common.exception.BusinessException;
 import common.logger.TraceLogger;
 import common.service.DataAccessFacade;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 直播间实时数据服务
  * 处理观众进入/离开、弹幕、打赏等实时消息
- * 使用Redis缓存热点数据，定量批量更新数据库
- * 
+ * 使用Redis缓存热点数据，定时批量更新数据库
+ *
  * 重构说明：已改为通过 DataAccessFacade 统一访问数据库
  *
+ * 计数刷新协议（无锁、不丢计数）：
+ * 1. 待落库的增量记在每个直播间一个 Hash（live:room:delta:{liveRoomId}）中，写入同时把直播间加入脏集合
+ * 2. 刷新时用 Lua 脚本原子地把 Hash RENAME 为本次刷新独占的排空 key，之后的增量写入新的 Hash
+ * 3. 排空 key 中的值落库成功后删除；落库失败则原子地合并回 Hash，下个周期重试
+ * 4. 落库事务同时写入 live_room_delta_flush 记录并清除 liveRoom::id 缓存（提交后生效），
+ *    查询时数据库累计值与剩余增量不会出现“倒退”
+ * 5. 排空 key 登记在 live:room:delta:draining（ZSET，分值为交换时间）中；实例在交换后、提交前宕机遗留的排空 key，
+ *    由之后的刷新按落库记录判断：已提交则删除，未提交则合并回 Hash 重放
+ * 多个实例同时刷新时，只有一个能 RENAME 成功，其余拿到空结果，不会重复落库
+ *
  * @author Team
- * @version 2.0.0
+ * @version 2.1.0
  */
 @Service
 @Slf4j
@@ -36,19 +56,119 @@ public class LiveRoomRealtimeService {
     private DataAccessFacade dataAccessFacade;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DanmakuIngestionPipeline danmakuIngestionPipeline;
+
+    @Autowired
+    private LiveRoomLeaderboardService liveRoomLeaderboardService;
+
+    @Autowired
+    private LiveRoomStatusRegistry liveRoomStatusRegistry;
+
+    @Autowired
+    private ViewerSessionTracker viewerSessionTracker;
 
     // Redis key前缀
     private static final String LIVE_ROOM_VIEWERS_KEY = "live:room:viewers:";  // 当前在线观众数
-    private static final String LIVE_ROOM_TOTAL_VIEWERS_KEY = "live:room:total_viewers:";  // 累计观看人次
-    private static final String LIVE_ROOM_EARNINGS_KEY = "live:room:earnings:";  // 本次营收
-    private static final String LIVE_ROOM_MESSAGE_COUNT_KEY = "live:room:message_count:";  // 弹幕数
-    private static final String LIVE_ROOM_RECHARGE_COUNT_KEY = "live:room:recharge_count:";  // 打赏次数
-    private static final String LIVE_ROOM_UPDATE_COUNTER_KEY = "live:room:update_counter:";  // 更新计数器
+    private static final String LIVE_ROOM_DELTA_KEY = "live:room:delta:";  // 待落库增量（Hash）
+    private static final String LIVE_ROOM_DELTA_DIRTY_KEY = "live:room:delta:dirty";  // 有待落库增量的直播间
+    private static final String DRAIN_KEY_INFIX = ":drain:";  // 排空 key：live:room:delta:{id}:drain:{uuid}
+    private static final String LIVE_ROOM_DRAINING_KEY = "live:room:delta:draining";  // 处理中的排空 key（ZSET）
+
+    // 增量 Hash 字段
+    private static final String FIELD_TOTAL_VIEWERS = "total_viewers";  // 累计观看人次
+    private static final String FIELD_EARNINGS_CENTS = "earnings_cents";  // 本次营收（分）
+    private static final String FIELD_MESSAGE_COUNT = "message_count";  // 弹幕数
+    private static final String FIELD_RECHARGE_COUNT = "recharge_count";  // 打赏次数
 
     // 配置参数
-    private static final int UPDATE_THRESHOLD = 100;  // 累计100次操作后批量更新数据库
     private static final long REDIS_EXPIRE_HOURS = 24;  // Redis数据过期时间24小时
+    private static final String REDIS_EXPIRE_SECONDS = String.valueOf(TimeUnit.HOURS.toSeconds(REDIS_EXPIRE_HOURS));
+
+    /**
+     * 累加增量：KEYS[1] 增量Hash，KEYS[2] 脏集合；ARGV[1] 过期秒数，ARGV[2] 直播间ID，之后为 (字段, 增量) 对
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 3, #ARGV, 2 do\n" +
+            "  redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[2])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 观众离开：不小于0的递减；KEYS[1] 在线观众数，ARGV[1] 过期秒数
+     */
+    private static final DefaultRedisScript<Long> LEAVE_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "if current <= 0 then return 0 end\n" +
+            "local remaining = redis.call('DECR', KEYS[1])\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "return remaining",
+            Long.class);
+
+    /**
+     * 交换增量Hash：KEYS[1] 增量Hash，KEYS[2] 排空key，KEYS[3] 脏集合，KEYS[4] 处理中集合；
+     * ARGV[1] 直播间ID，ARGV[2] 过期秒数，ARGV[3] 当前时间（毫秒）
+     * 返回排空key中的 HGETALL 结果
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SWAP_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SREM', KEYS[3], ARGV[1])\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end\n" +
+            "redis.call('RENAME', KEYS[1], KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2])\n" +
+            "redis.call('ZADD', KEYS[4], ARGV[3], KEYS[2])\n" +
+            "return redis.call('HGETALL', KEYS[2])",
+            List.class);
+
+    /**
+     * 落库失败或遗留未落库时合并回增量Hash：KEYS/ARGV 同 SWAP_SCRIPT（不使用 ARGV[3]）
+     * 排空key已不存在时什么也不做，多个实例重复执行不会重复合并
+     */
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "local data = redis.call('HGETALL', KEYS[2])\n" +
+            "for i = 1, #data, 2 do\n" +
+            "  redis.call('HINCRBY', KEYS[1], data[i], data[i + 1])\n" +
+            "end\n" +
+            "redis.call('DEL', KEYS[2])\n" +
+            "redis.call('ZREM', KEYS[4], KEYS[2])\n" +
+            "if #data > 0 then\n" +
+            "  redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "  redis.call('SADD', KEYS[3], ARGV[1])\n" +
+            "end\n" +
+            "return #data / 2",
+            Long.class);
+
+    /**
+     * 落库成功后删除排空key：KEYS[1] 排空key，KEYS[2] 处理中集合
+     */
+    private static final DefaultRedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREM', KEYS[2], KEYS[1])\n" +
+            "return redis.call('DEL', KEYS[1])",
+            Long.class);
+
+    /** 排空key交换后超过该时间仍未完成视为遗留（须远大于落库事务超时） */
+    @Value("${anchor.realtime.orphan-drain-after-ms:300000}")
+    private long orphanDrainAfterMs;
+
+    /** 落库事务超时（秒） */
+    @Value("${anchor.realtime.flush-timeout-seconds:30}")
+    private int flushTimeoutSeconds;
+
+    private TransactionTemplate flushTransaction;
+
+    @PostConstruct
+    public void init() {
+        flushTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        flushTransaction.setTimeout(flushTimeoutSeconds);
+    }
 
     /**
      * 观众进入直播间
@@ -62,19 +182,17 @@ public class LiveRoomRealtimeService {
 
         // 2. 增加当前在线观众数（Redis）
         String viewersKey = LIVE_ROOM_VIEWERS_KEY + liveRoomId;
-        redisTemplate.opsForValue().increment(viewersKey, 1);
-        redisTemplate.expire(viewersKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
+        Long currentViewers = stringRedisTemplate.opsForValue().increment(viewersKey, 1);
+        stringRedisTemplate.expire(viewersKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
 
-        // 3. 增加累计观看人次（Redis）
-        String totalViewersKey = LIVE_ROOM_TOTAL_VIEWERS_KEY + liveRoomId;
-        redisTemplate.opsForValue().increment(totalViewersKey, 1);
-        redisTemplate.expire(totalViewersKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
+        // 3. 增加累计观看人次（待落库增量）
+        incrementDeltas(liveRoomId, FIELD_TOTAL_VIEWERS, 1L);
 
-        // 4. 增加更新计数器
-        incrementUpdateCounter(liveRoomId);
+        // 4. 开始观看会话（离开或心跳超时后批量写入 live_session_audience）
+        viewerSessionTracker.enter(liveRoomId, audienceId);
 
         TraceLogger.debug("LiveRoomRealtimeService", "viewerEnter",
-                "观众进入成功，当前在线: " + getCurrentViewers(liveRoomId));
+                "观众进入成功，当前在线: " + currentViewers);
     }
 
     /**
@@ -84,26 +202,30 @@ public class LiveRoomRealtimeService {
         TraceLogger.info("LiveRoomRealtimeService", "viewerLeave",
                 String.format("观众离开直播间: liveRoomId=%d, audienceId=%d", liveRoomId, audienceId));
 
-        // 1. 减少当前在线观众数（Redis，不能小于0）
-        String viewersKey = LIVE_ROOM_VIEWERS_KEY + liveRoomId;
-        Long currentViewers = (Long) redisTemplate.opsForValue().get(viewersKey);
-        
-        if (currentViewers != null && currentViewers > 0) {
-            redisTemplate.opsForValue().decrement(viewersKey, 1);
-            redisTemplate.expire(viewersKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
-        }
+        // 减少当前在线观众数（Lua脚本原子判断，不会小于0）
+        Long currentViewers = stringRedisTemplate.execute(LEAVE_SCRIPT,
+                List.of(LIVE_ROOM_VIEWERS_KEY + liveRoomId), REDIS_EXPIRE_SECONDS);
 
-        // 2. 增加更新计数器
-        incrementUpdateCounter(liveRoomId);
+        // 结束观看会话
+        viewerSessionTracker.leave(liveRoomId, audienceId);
 
         TraceLogger.debug("LiveRoomRealtimeService", "viewerLeave",
-                "观众离开成功，当前在线: " + getCurrentViewers(liveRoomId));
+                "观众离开成功，当前在线: " + currentViewers);
+    }
+
+    /**
+     * 观众心跳
+     * 只刷新内存中的观看会话，不访问 Redis 和数据库；客户端应以小于 anchor.sessions.heartbeat-timeout-seconds 的间隔调用
+     */
+    public void viewerHeartbeat(Long liveRoomId, Long audienceId) {
+        validateLiveRoom(liveRoomId);
+        viewerSessionTracker.heartbeat(liveRoomId, audienceId);
     }
 
     /**
      * 观众发送弹幕
+     * 弹幕只入队到异步落库管道，由落库线程批量写入message表
      */
-    @Transactional
     public void viewerDanmaku(Long liveRoomId, Long audienceId, String content) {
         TraceLogger.debug("LiveRoomRealtimeService", "viewerDanmaku",
                 String.format("观众发送弹幕: liveRoomId=%d, audienceId=%d, content=%s",
@@ -112,19 +234,11 @@ public class LiveRoomRealtimeService {
         // 1. 验证直播间存在且正在直播
         validateLiveRoom(liveRoomId);
 
-        // 2. 保存弹幕到message表（通过DataAccessFacade）
-        Message message = dataAccessFacade.message().saveMessage(liveRoomId, audienceId, content);
-
-        TraceLogger.debug("LiveRoomRealtimeService", "viewerDanmaku",
-                "弹幕已保存到数据库: messageId=" + message.getMessageId());
-
-        // 3. Redis递增弹幕计数（用于定量更新live_room_realtime表）
-        String messageCountKey = LIVE_ROOM_MESSAGE_COUNT_KEY + liveRoomId;
-        redisTemplate.opsForValue().increment(messageCountKey, 1);
-        redisTemplate.expire(messageCountKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
+        // 2. 提交到弹幕落库管道（无锁入队，不访问数据库）
+        danmakuIngestionPipeline.submit(liveRoomId, audienceId, content);
 
-        // 4. 增加更新计数器
-        incrementUpdateCounter(liveRoomId);
+        // 3. 弹幕计数（待落库增量，用于更新live_room_realtime表）
+        incrementDeltas(liveRoomId, FIELD_MESSAGE_COUNT, 1L);
     }
 
     /**
@@ -138,21 +252,11 @@ public class LiveRoomRealtimeService {
         // 1. 验证直播间存在且正在直播
         validateLiveRoom(liveRoomId);
 
-        // 2. 增加本次直播总营收（Redis）
-        String earningsKey = LIVE_ROOM_EARNINGS_KEY + liveRoomId;
-        redisTemplate.opsForValue().increment(earningsKey, amount.doubleValue());
-        redisTemplate.expire(earningsKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
+        // 2. 本次营收和打赏次数（待落库增量，营收按分记整数）
+        incrementDeltas(liveRoomId, FIELD_EARNINGS_CENTS, toCents(amount), FIELD_RECHARGE_COUNT, 1L);
 
-        // 3. Redis递增打赏次数（用于定量更新live_room_realtime表）
-        String rechargeCountKey = LIVE_ROOM_RECHARGE_COUNT_KEY + liveRoomId;
-        redisTemplate.opsForValue().increment(rechargeCountKey, 1);
-        redisTemplate.expire(rechargeCountKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        // 4. 增加更新计数器
-        incrementUpdateCounter(liveRoomId);
-
-        TraceLogger.info("LiveRoomRealtimeService", "viewerReward",
-                String.format("打赏成功，直播间总营收: %s", getTotalEarnings(liveRoomId)));
+        // 3. 更新本场贡献榜（Redis有序集合）
+        liveRoomLeaderboardService.recordTip(liveRoomId, audienceId, amount);
 
         // 注：主播的累计收益和可提现金额由财务服务管理，不在这里更新
     }
@@ -170,10 +274,18 @@ public class LiveRoomRealtimeService {
             throw new BusinessException(ErrorConstants.RESOURCE_NOT_FOUND, "直播间不存在");
         }
 
-        // 2. 从Redis获取实时数据
+        // 2. 从Redis获取实时数据：数据库累计值 + 尚未落库的增量
         Long currentViewers = getCurrentViewers(liveRoomId);
-        Long totalViewers = getTotalViewers(liveRoomId);
-        BigDecimal totalEarnings = getTotalEarnings(liveRoomId);
+        Map<String, Long> pending = getPendingDeltas(liveRoomId);
+        long totalViewers = (liveRoom.getTotalViewers() != null ? liveRoom.getTotalViewers() : 0L)
+                + pending.getOrDefault(FIELD_TOTAL_VIEWERS, 0L);
+        BigDecimal totalEarnings = (liveRoom.getTotalEarnings() != null ? liveRoom.getTotalEarnings() : BigDecimal.ZERO)
+                .add(fromCents(pending.getOrDefault(FIELD_EARNINGS_CENTS, 0L)));
+        LiveRoomRealtime realtime = dataAccessFacade.liveRoomRealtime().findByLiveRoomId(liveRoomId).orElse(null);
+        long messageCount = (realtime != null && realtime.getMessageCount() != null ? realtime.getMessageCount() : 0L)
+                + pending.getOrDefault(FIELD_MESSAGE_COUNT, 0L);
+        long rechargeCount = (realtime != null && realtime.getRechargeCount() != null ? realtime.getRechargeCount() : 0L)
+                + pending.getOrDefault(FIELD_RECHARGE_COUNT, 0L);
 
         // 3. 构建VO
         LiveRoomRealtimeVO vo = LiveRoomRealtimeVO.builder()
@@ -181,8 +293,10 @@ public class LiveRoomRealtimeService {
                 .anchorId(liveRoom.getAnchorId())
                 .anchorName(liveRoom.getAnchorName())
                 .currentViewers(currentViewers)
-                .totalViewers(totalViewers != null ? totalViewers : liveRoom.getTotalViewers())
-                .totalEarnings(totalEarnings != null ? totalEarnings : liveRoom.getTotalEarnings())
+                .totalViewers(totalViewers)
+                .totalEarnings(totalEarnings)
+                .messageCount(messageCount)
+                .rechargeCount(rechargeCount)
                 .roomStatus(liveRoom.getRoomStatus())
                 .startTime(liveRoom.getStartTime())
                 .queryTime(LocalDateTime.now())
@@ -192,106 +306,181 @@ public class LiveRoomRealtimeService {
     }
 
     /**
-     * 定时任务：批量同步Redis数据到数据库
-     * 每5分钟执行一次
+     * 定时任务：批量同步Redis增量到数据库
+     * 默认每5秒执行一次
      */
-    @Scheduled(cron = "0 */5 * * * ?")
-    @Transactional(rollbackFor = Exception.class)
+    @Scheduled(fixedDelayString = "${anchor.realtime.flush-interval-ms:5000}")
     public void syncRealtimeDataToDB() {
-        TraceLogger.info("LiveRoomRealtimeService", "syncRealtimeDataToDB",
-                "开始同步直播间实时数据到数据库");
+        try {
+            replayOrphanedDrains();
+        } catch (Exception e) {
+            TraceLogger.error("LiveRoomRealtimeService", "replayOrphanedDrains", "处理遗留排空key失败", e);
+        }
 
-        // 查询所有正在直播的直播间（通过DataAccessFacade）
-        var liveRooms = dataAccessFacade.liveRoom().getLiveRooms();
+        Set<String> dirtyRooms = stringRedisTemplate.opsForSet().members(LIVE_ROOM_DELTA_DIRTY_KEY);
+        if (dirtyRooms == null || dirtyRooms.isEmpty()) {
+            return;
+        }
 
         int syncCount = 0;
-        for (LiveRoom liveRoom : liveRooms) {
+        for (String roomId : dirtyRooms) {
+            Long liveRoomId = Long.valueOf(roomId);
             try {
-                syncSingleLiveRoom(liveRoom.getLiveRoomId());
-                syncCount++;
+                if (syncSingleLiveRoom(liveRoomId)) {
+                    syncCount++;
+                }
             } catch (Exception e) {
-                TraceLogger.error("LiveRoomRealtimeService", "syncRealtimeDataToDB",
-                        liveRoom.getLiveRoomId(), e);
+                TraceLogger.error("LiveRoomRealtimeService", "syncRealtimeDataToDB", liveRoomId, e);
             }
         }
 
-        TraceLogger.info("LiveRoomRealtimeService", "syncRealtimeDataToDB",
+        TraceLogger.debug("LiveRoomRealtimeService", "syncRealtimeDataToDB",
                 String.format("同步完成，共同步%d个直播间", syncCount));
     }
 
     /**
-     * 同步单个直播间的数据到数据库
+     * 同步单个直播间的增量到数据库
+     *
+     * @return 是否有增量落库
      */
-    private void syncSingleLiveRoom(Long liveRoomId) {
-        // 1. 从Redis获取增量数据
-        String totalViewersKey = LIVE_ROOM_TOTAL_VIEWERS_KEY + liveRoomId;
-        String earningsKey = LIVE_ROOM_EARNINGS_KEY + liveRoomId;
-        String messageCountKey = LIVE_ROOM_MESSAGE_COUNT_KEY + liveRoomId;
-        String rechargeCountKey = LIVE_ROOM_RECHARGE_COUNT_KEY + liveRoomId;
-
-        Object totalViewersObj = redisTemplate.opsForValue().get(totalViewersKey);
-        Object earningsObj = redisTemplate.opsForValue().get(earningsKey);
-        Object messageCountObj = redisTemplate.opsForValue().get(messageCountKey);
-        Object rechargeCountObj = redisTemplate.opsForValue().get(rechargeCountKey);
-
-        // 如果没有任何增量数据，直接返回
-        if (totalViewersObj == null && earningsObj == null && 
-            messageCountObj == null && rechargeCountObj == null) {
-            return;
-        }
-
-        // 转换增量数据
-        long totalViewersDelta = totalViewersObj != null ? 
-            ((Number) totalViewersObj).longValue() : 0L;
-        BigDecimal earningsDelta = earningsObj != null ? 
-            new BigDecimal(earningsObj.toString()) : BigDecimal.ZERO;
-        long messageCountDelta = messageCountObj != null ? 
-            ((Number) messageCountObj).longValue() : 0L;
-        long rechargeCountDelta = rechargeCountObj != null ? 
-            ((Number) rechargeCountObj).longValue() : 0L;
-
-        // 2. 更新live_room表（累计观看人次、累计收益）通过DataAccessFacade
-        if (totalViewersDelta > 0) {
-            dataAccessFacade.liveRoom().addViewers(liveRoomId, totalViewersDelta);
-        }
-        if (earningsDelta.compareTo(BigDecimal.ZERO) > 0) {
-            dataAccessFacade.liveRoom().addRoomEarnings(liveRoomId, earningsDelta);
-        }
-
-        // 3. 更新live_room_realtime表（弹幕数、打赏数、当前场次收益）通过DataAccessFacade
-        if (messageCountDelta > 0) {
-            dataAccessFacade.liveRoomRealtime().incrementMessageCount(liveRoomId, messageCountDelta);
+    private boolean syncSingleLiveRoom(Long liveRoomId) {
+        String deltaKey = LIVE_ROOM_DELTA_KEY + liveRoomId;
+        String drainKey = deltaKey + DRAIN_KEY_INFIX + UUID.randomUUID();
+        List<String> keys = drainKeys(liveRoomId, drainKey);
+
+        // 1. 原子交换：之后的增量写入新的Hash，本次只处理排空key中的值
+        @SuppressWarnings("unchecked")
+        List<Object> drained = stringRedisTemplate.execute(SWAP_SCRIPT, keys, roomIdArg(liveRoomId), REDIS_EXPIRE_SECONDS,
+                String.valueOf(System.currentTimeMillis()));
+        if (drained == null || drained.isEmpty()) {
+            return false;
         }
-        if (rechargeCountDelta > 0) {
-            dataAccessFacade.liveRoomRealtime().incrementRechargeCount(liveRoomId, rechargeCountDelta);
-        }
-        if (earningsDelta.compareTo(BigDecimal.ZERO) > 0) {
-            dataAccessFacade.liveRoomRealtime().incrementCurrentRevenue(liveRoomId, earningsDelta);
+        Map<String, Long> deltas = toDeltaMap(drained);
+
+        long totalViewersDelta = deltas.getOrDefault(FIELD_TOTAL_VIEWERS, 0L);
+        BigDecimal earningsDelta = fromCents(deltas.getOrDefault(FIELD_EARNINGS_CENTS, 0L));
+        long messageCountDelta = deltas.getOrDefault(FIELD_MESSAGE_COUNT, 0L);
+        long rechargeCountDelta = deltas.getOrDefault(FIELD_RECHARGE_COUNT, 0L);
+
+        // 2. 同一事务内更新live_room表和live_room_realtime表，并记录排空key已落库
+        //    addViewers / addRoomEarnings 清除 liveRoom::id 缓存，缓存管理器在提交后执行清除
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                if (totalViewersDelta > 0) {
+                    dataAccessFacade.liveRoom().addViewers(liveRoomId, totalViewersDelta);
+                }
+                if (earningsDelta.signum() > 0) {
+                    dataAccessFacade.liveRoom().addRoomEarnings(liveRoomId, earningsDelta);
+                }
+                if (messageCountDelta > 0 || rechargeCountDelta > 0 || earningsDelta.signum() > 0) {
+                    dataAccessFacade.liveRoomRealtime().upsertIncrements(
+                            liveRoomId, messageCountDelta, rechargeCountDelta, earningsDelta);
+                }
+                dataAccessFacade.liveRoomRealtime().recordDeltaFlush(drainKey, liveRoomId);
+            });
+        } catch (RuntimeException e) {
+            // 异常也可能来自提交之后（如提交后的缓存清除），先按落库记录判断是否已提交：
+            // 已提交则只删除排空key，未提交才把增量合并回Hash，下个周期重试；
+            // 查询落库记录失败时保留排空key，由 replayOrphanedDrains 稍后按同样的规则处理
+            boolean flushed;
+            try {
+                flushed = dataAccessFacade.liveRoomRealtime().isDeltaFlushRecorded(drainKey);
+            } catch (RuntimeException checkFailure) {
+                e.addSuppressed(checkFailure);
+                throw e;
+            }
+            if (flushed) {
+                stringRedisTemplate.execute(FINISH_SCRIPT, Arrays.asList(drainKey, LIVE_ROOM_DRAINING_KEY));
+            } else {
+                stringRedisTemplate.execute(RESTORE_SCRIPT, keys, roomIdArg(liveRoomId), REDIS_EXPIRE_SECONDS, "0");
+            }
+            throw e;
         }
 
-        // 4. 清除Redis增量计数器
-        redisTemplate.delete(totalViewersKey);
-        redisTemplate.delete(earningsKey);
-        redisTemplate.delete(messageCountKey);
-        redisTemplate.delete(rechargeCountKey);
-        redisTemplate.delete(LIVE_ROOM_UPDATE_COUNTER_KEY + liveRoomId);
+        // 3. 删除排空key（删除失败也不会重复落库：遗留的排空key有落库记录，之后只会被删除）
+        stringRedisTemplate.execute(FINISH_SCRIPT, Arrays.asList(drainKey, LIVE_ROOM_DRAINING_KEY));
 
         TraceLogger.debug("LiveRoomRealtimeService", "syncSingleLiveRoom",
                 String.format("同步直播间数据成功: liveRoomId=%d, totalViewersDelta=%d, " +
                     "earningsDelta=%s, messageCountDelta=%d, rechargeCountDelta=%d",
                     liveRoomId, totalViewersDelta, earningsDelta, messageCountDelta, rechargeCountDelta));
+        return true;
+    }
+
+    /**
+     * 处理遗留的排空key：交换后超过 orphan-drain-after-ms 仍未完成的排空key，
+     * 有落库记录则删除，否则合并回增量Hash，由本次或下次刷新重新落库
+     */
+    private void replayOrphanedDrains() {
+        long deadline = System.currentTimeMillis() - orphanDrainAfterMs;
+        Set<String> orphans = stringRedisTemplate.opsForZSet()
+                .rangeByScore(LIVE_ROOM_DRAINING_KEY, 0, deadline);
+        if (orphans == null || orphans.isEmpty()) {
+            return;
+        }
+
+        int replayed = 0;
+        for (String drainKey : orphans) {
+            Long liveRoomId = parseDrainRoomId(drainKey);
+            if (liveRoomId == null) {
+                stringRedisTemplate.opsForZSet().remove(LIVE_ROOM_DRAINING_KEY, drainKey);
+                continue;
+            }
+            if (dataAccessFacade.liveRoomRealtime().isDeltaFlushRecorded(drainKey)) {
+                stringRedisTemplate.execute(FINISH_SCRIPT, Arrays.asList(drainKey, LIVE_ROOM_DRAINING_KEY));
+            } else {
+                Long fields = stringRedisTemplate.execute(RESTORE_SCRIPT, drainKeys(liveRoomId, drainKey),
+                        roomIdArg(liveRoomId), REDIS_EXPIRE_SECONDS, "0");
+                if (fields != null && fields > 0) {
+                    replayed++;
+                }
+            }
+        }
+        TraceLogger.warn("LiveRoomRealtimeService", "replayOrphanedDrains",
+                String.format("处理遗留排空key: %d 个，重放 %d 个", orphans.size(), replayed));
+    }
+
+    /**
+     * 定时清理超过排空key有效期的落库记录
+     */
+    @Scheduled(fixedDelayString = "${anchor.realtime.flush-log-purge-interval-ms:3600000}")
+    public void purgeDeltaFlushLog() {
+        try {
+            dataAccessFacade.liveRoomRealtime().purgeDeltaFlushLog(LocalDateTime.now().minusHours(REDIS_EXPIRE_HOURS * 2));
+        } catch (Exception e) {
+            TraceLogger.error("LiveRoomRealtimeService", "purgeDeltaFlushLog", "清理落库记录失败", e);
+        }
+    }
+
+    private static List<String> drainKeys(Long liveRoomId, String drainKey) {
+        return Arrays.asList(LIVE_ROOM_DELTA_KEY + liveRoomId, drainKey, LIVE_ROOM_DELTA_DIRTY_KEY, LIVE_ROOM_DRAINING_KEY);
+    }
+
+    /**
+     * 从排空key（live:room:delta:{id}:drain:{uuid}）中解析直播间ID
+     */
+    private static Long parseDrainRoomId(String drainKey) {
+        int end = drainKey.indexOf(DRAIN_KEY_INFIX);
+        if (!drainKey.startsWith(LIVE_ROOM_DELTA_KEY) || end < 0) {
+            return null;
+        }
+        try {
+            return Long.valueOf(drainKey.substring(LIVE_ROOM_DELTA_KEY.length(), end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     /**
-     * 验证直播间存在且正在直播
+     * 验证直播间存在且正在直播（读本地状态表，未命中才回源）
      */
     private void validateLiveRoom(Long liveRoomId) {
-        LiveRoom liveRoom = dataAccessFacade.liveRoom().getLiveRoomInfo(liveRoomId);
-        if (liveRoom == null) {
+        LiveRoomStatusRegistry.RoomState state = liveRoomStatusRegistry.getState(liveRoomId);
+        if (state == null) {
             throw new BusinessException(ErrorConstants.RESOURCE_NOT_FOUND, "直播间不存在");
         }
 
-        if (liveRoom.getRoomStatus() != 1) {
+        if (!state.isLive()) {
             throw new BusinessException(ErrorConstants.BUSINESS_ERROR, "直播间未在直播中");
         }
     }
@@ -300,45 +489,53 @@ public class LiveRoomRealtimeService {
      * 获取当前在线观众数
      */
     private Long getCurrentViewers(Long liveRoomId) {
-        String key = LIVE_ROOM_VIEWERS_KEY + liveRoomId;
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? ((Number) value).longValue() : 0L;
+        String value = stringRedisTemplate.opsForValue().get(LIVE_ROOM_VIEWERS_KEY + liveRoomId);
+        return value != null ? Long.parseLong(value) : 0L;
     }
 
     /**
-     * 获取累计观看人次（增量）
+     * 获取尚未落库的增量
      */
-    private Long getTotalViewers(Long liveRoomId) {
-        String key = LIVE_ROOM_TOTAL_VIEWERS_KEY + liveRoomId;
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? ((Number) value).longValue() : null;
+    private Map<String, Long> getPendingDeltas(Long liveRoomId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(LIVE_ROOM_DELTA_KEY + liveRoomId);
+        Map<String, Long> deltas = new HashMap<>();
+        entries.forEach((field, value) -> deltas.put(field.toString(), Long.parseLong(value.toString())));
+        return deltas;
     }
 
     /**
-     * 获取本次总营收（增量）
+     * 累加待落库增量并标记直播间为脏（一次往返）
+     *
+     * @param fieldDeltas (字段, 增量) 对
      */
-    private BigDecimal getTotalEarnings(Long liveRoomId) {
-        String key = LIVE_ROOM_EARNINGS_KEY + liveRoomId;
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? new BigDecimal(value.toString()) : null;
+    private void incrementDeltas(Long liveRoomId, Object... fieldDeltas) {
+        Object[] args = new Object[fieldDeltas.length + 2];
+        args[0] = REDIS_EXPIRE_SECONDS;
+        args[1] = roomIdArg(liveRoomId);
+        for (int i = 0; i < fieldDeltas.length; i++) {
+            args[i + 2] = fieldDeltas[i].toString();
+        }
+        stringRedisTemplate.execute(INCREMENT_SCRIPT,
+                Arrays.asList(LIVE_ROOM_DELTA_KEY + liveRoomId, LIVE_ROOM_DELTA_DIRTY_KEY), args);
     }
 
-    /**
-     * 增加更新计数器，达到阈值时触发数据库更新
-     */
-    private void incrementUpdateCounter(Long liveRoomId) {
-        String counterKey = LIVE_ROOM_UPDATE_COUNTER_KEY + liveRoomId;
-        Long counter = redisTemplate.opsForValue().increment(counterKey, 1);
-        redisTemplate.expire(counterKey, REDIS_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        // 达到阈值，触发批量更新
-        if (counter != null && counter >= UPDATE_THRESHOLD) {
-            try {
-                syncSingleLiveRoom(liveRoomId);
-            } catch (Exception e) {
-                TraceLogger.error("LiveRoomRealtimeService", "incrementUpdateCounter",
-                        liveRoomId, e);
-            }
+    private static Map<String, Long> toDeltaMap(List<Object> flat) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            deltas.put(flat.get(i).toString(), Long.parseLong(flat.get(i + 1).toString()));
         }
+        return deltas;
+    }
+
+    private static String roomIdArg(Long liveRoomId) {
+        return liveRoomId.toString();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
     }
 }
@@ -7,6 +7,7 @@ import common.bean.user.Anchor;
 import common.constant.ErrorConstants;
 import common.exception.BusinessException;
 import common.logger.TraceLogger;
+import common.response.CursorPageResponse;
 import common.service.DataAccessFacade;
 import common.util.BeanUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +39,15 @@ public class LiveRoomService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private LiveRoomLeaderboardService liveRoomLeaderboardService;
+
+    @Autowired
+    private LiveRoomStatusRegistry liveRoomStatusRegistry;
+
+    @Autowired
+    private ViewerSessionTracker viewerSessionTracker;
+
     /**
      * 查询直播间信息（带缓存）
      */
@@ -98,6 +108,7 @@ public class LiveRoomService {
 
         // 4. 使用Facade开启直播
         facade.liveRoom().startBroadcast(liveRoomId);
+        liveRoomStatusRegistry.publish(liveRoomId, 1, liveRoom.getAnchorId());
         LiveRoom updated = facade.liveRoom().getLiveRoomInfo(liveRoomId);
 
         long endTime = System.currentTimeMillis();
@@ -129,6 +140,7 @@ public class LiveRoomService {
 
         // 3. 使用Facade结束直播
         facade.liveRoom().endBroadcast(liveRoomId);
+        liveRoomStatusRegistry.publish(liveRoomId, 2, liveRoom.getAnchorId());
         LiveRoom updated = facade.liveRoom().getLiveRoomInfo(liveRoomId);
 
         // 4. 更新主播的累计收益
@@ -136,6 +148,12 @@ public class LiveRoomService {
             facade.anchor().incrementEarnings(liveRoom.getAnchorId(), liveRoom.getTotalEarnings());
         }
 
+        // 5. 保存本场贡献榜快照（关播事务提交后执行）
+        liveRoomLeaderboardService.snapshotAndClear(liveRoom);
+
+        // 6. 结束本场所有观众的观看会话（关播事务提交后执行）
+        viewerSessionTracker.closeRoom(liveRoomId);
+
         long endTime = System.currentTimeMillis();
         TraceLogger.info("LiveRoomService", "endLive", 
             String.format("关播成功: liveRoomId=%d, 本次营收=%s, 耗时=%dms",
@@ -192,6 +210,17 @@ public class LiveRoomService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    /**
+     * 按游标分页查询正在直播的直播间（观众数倒序）
+     */
+    public CursorPageResponse<LiveRoomDTO> scrollLiveRooms(String cursor, Integer size) {
+        TraceLogger.debug("LiveRoomService", "scrollLiveRooms",
+            String.format("游标查询正在直播的直播间: cursor=%s, size=%d", cursor, size));
+
+        return facade.liveRoom().seekLiveRooms(cursor, size)
+                .map(liveRoom -> BeanUtil.convert(liveRoom, LiveRoomDTO.class));
+    }
+
     /**
      * 按分类查询直播间列表
      */
@@ -0,0 +1,327 @@
+package com.liveroom.anchor.service;
+
+import common.bean.liveroom.LiveRoom;
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 直播间状态本地注册表
+ *
+ * 实时事件（进入、离开、弹幕、打赏）只需要知道直播间是否存在、是否在直播，
+ * 该注册表在进程内保存 直播间ID → (状态, 主播ID)，校验时不再访问 Redis 缓存或数据库。
+ *
+ * 多实例一致性：
+ * 1. 开播/关播提交后，通过 Lua 脚本原子地递增全局版本号并发布到 live:room:status 频道
+ * 2. 各实例订阅该频道更新本地表；每条状态带版本号，合并时保留版本号较高的一条，
+ *    乱序到达的旧消息不会覆盖新状态；版本号不连续时说明漏了消息，交给后台线程全量重建
+ * 3. 定时比对 Redis 中的全局版本号，不一致时全量重建（覆盖订阅断线、漏收消息等情况）
+ * 4. 本地未命中时回源数据库并写入本地表；不存在的直播间ID短时间负缓存，避免无效ID反复打到数据库
+ *
+ * 只有经 {@link #publish} 的状态变更（目前是本服务的开播/关播）会递增版本号。
+ * 绕过本服务修改 room_status 的写入（如 LiveRoomService.banLiveRoom、batchUpdateStatus 或直接改库）
+ * 不会被版本比对发现，已缓存的直播间要等到其他变更触发全量重建或实例重启才会纠正；
+ * 新增状态写入路径时应在事务提交后调用 {@link #publish}
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class LiveRoomStatusRegistry implements MessageListener {
+
+    private static final String STATUS_CHANNEL = "live:room:status";
+    private static final String STATUS_VERSION_KEY = "live:room:status:version";
+
+    /**
+     * 递增版本号并发布变更：KEYS[1] 为版本号key，ARGV[1] 为频道，ARGV[2] 为 "直播间ID,状态,主播ID"
+     * 消息格式为 "直播间ID,状态,主播ID,版本号"
+     */
+    private static final DefaultRedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('INCR', KEYS[1])\n" +
+            "redis.call('PUBLISH', ARGV[1], ARGV[2] .. ',' .. version)\n" +
+            "return version",
+            Long.class);
+
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${anchor.room-status.negative-ttl-ms:5000}")
+    private long negativeTtlMs;
+
+    @Value("${anchor.room-status.negative-max-size:100000}")
+    private int negativeMaxSize;
+
+    private final ConcurrentHashMap<Long, RoomState> states = new ConcurrentHashMap<>();
+
+    /** 不存在的直播间ID → 负缓存过期时间（毫秒） */
+    private final ConcurrentHashMap<Long, Long> missing = new ConcurrentHashMap<>();
+
+    /** 本地已应用的全局版本号 */
+    private volatile long appliedVersion = -1L;
+
+    /** 全量重建在后台线程执行，不占用 Redis 订阅线程；多次触发合并为一次 */
+    private final AtomicBoolean resyncPending = new AtomicBoolean();
+    private final Object resyncLock = new Object();
+    private ExecutorService resyncExecutor;
+
+    @PostConstruct
+    public void init() {
+        resyncExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "room-status-resync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(STATUS_CHANNEL));
+        try {
+            resync();
+        } catch (Exception e) {
+            // 启动时 Redis/数据库不可用不阻塞启动，未命中时回源，定时任务会再次重建
+            TraceLogger.error("LiveRoomStatusRegistry", "init", "直播间状态表初始化失败", e);
+        }
+    }
+
+    /**
+     * 查询直播间状态，本地未命中时回源数据库
+     *
+     * @return 直播间不存在时返回 null
+     */
+    public RoomState getState(Long liveRoomId) {
+        RoomState state = states.get(liveRoomId);
+        if (state != null) {
+            return state;
+        }
+        Long missingUntil = missing.get(liveRoomId);
+        if (missingUntil != null) {
+            if (missingUntil > System.currentTimeMillis()) {
+                return null;
+            }
+            missing.remove(liveRoomId, missingUntil);
+        }
+
+        // 先取版本号再读库，数据库结果不会比该版本旧
+        long version = appliedVersion;
+        LiveRoom liveRoom = dataAccessFacade.liveRoom().getLiveRoomInfo(liveRoomId);
+        if (liveRoom == null) {
+            if (missing.size() >= negativeMaxSize) {
+                missing.clear();
+            }
+            missing.put(liveRoomId, System.currentTimeMillis() + negativeTtlMs);
+            return null;
+        }
+        return apply(liveRoomId, RoomState.of(liveRoom, version));
+    }
+
+    /**
+     * 发布直播间状态变更，存在事务时在提交后发布
+     */
+    public void publish(Long liveRoomId, int status, Long anchorId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doPublish(liveRoomId, status, anchorId);
+                }
+            });
+        } else {
+            doPublish(liveRoomId, status, anchorId);
+        }
+    }
+
+    private void doPublish(Long liveRoomId, int status, Long anchorId) {
+        long owner = anchorId != null ? anchorId : 0L;
+        try {
+            Long version = stringRedisTemplate.execute(PUBLISH_SCRIPT,
+                    Collections.singletonList(STATUS_VERSION_KEY),
+                    STATUS_CHANNEL, liveRoomId + "," + status + "," + owner);
+            // 本实例立即生效，随后收到自己发布的消息时版本相同，重复应用无副作用
+            apply(liveRoomId, new RoomState(status, owner, version != null ? version : appliedVersion));
+        } catch (Exception e) {
+            // 发布失败时仍更新本实例；其他实例会在下一次版本比对或本地未命中时纠正
+            apply(liveRoomId, new RoomState(status, owner, appliedVersion));
+            TraceLogger.error("LiveRoomStatusRegistry", "publish", liveRoomId, e);
+        }
+    }
+
+    /**
+     * 合并状态：保留版本号较高的一条（相同时取新值）
+     */
+    private RoomState apply(Long liveRoomId, RoomState state) {
+        missing.remove(liveRoomId);
+        return states.merge(liveRoomId, state,
+                (current, incoming) -> incoming.version >= current.version ? incoming : current);
+    }
+
+    /**
+     * 订阅回调：应用变更，版本号不连续时全量重建
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(",");
+        if (parts.length != 4) {
+            TraceLogger.warn("LiveRoomStatusRegistry", "onMessage", "无法解析的状态消息: " + body);
+            return;
+        }
+
+        long liveRoomId = Long.parseLong(parts[0]);
+        int status = Integer.parseInt(parts[1]);
+        long anchorId = Long.parseLong(parts[2]);
+        long version = Long.parseLong(parts[3]);
+
+        apply(liveRoomId, new RoomState(status, anchorId, version));
+
+        synchronized (this) {
+            if (version == appliedVersion + 1) {
+                appliedVersion = version;
+                return;
+            }
+            if (version <= appliedVersion) {
+                return;
+            }
+        }
+        TraceLogger.warn("LiveRoomStatusRegistry", "onMessage",
+                String.format("状态版本不连续: local=%d, received=%d，全量重建", appliedVersion, version));
+        requestResync();
+    }
+
+    /**
+     * 提交后台全量重建，已有待执行的重建时不重复提交
+     */
+    private void requestResync() {
+        if (!resyncPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            resyncExecutor.execute(() -> {
+                resyncPending.set(false);
+                try {
+                    resync();
+                } catch (Exception e) {
+                    TraceLogger.error("LiveRoomStatusRegistry", "resync", "直播间状态表重建失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            resyncPending.set(false);
+        }
+    }
+
+    /**
+     * 定时比对全局版本号
+     */
+    @Scheduled(fixedDelayString = "${anchor.room-status.resync-check-interval-ms:30000}")
+    public void checkVersion() {
+        long remote = readRemoteVersion();
+        if (remote != appliedVersion) {
+            TraceLogger.info("LiveRoomStatusRegistry", "checkVersion",
+                    String.format("状态版本不一致: local=%d, remote=%d，全量重建", appliedVersion, remote));
+            requestResync();
+        }
+    }
+
+    /**
+     * 全量重建：先读版本号再读数据库，保证重建期间的变更会被下一次比对发现
+     * 重建期间通过订阅到达的更高版本状态不会被数据库结果覆盖；
+     * 重建之间用单独的锁串行，查询数据库期间不阻塞订阅线程更新版本号
+     */
+    public void resync() {
+        synchronized (resyncLock) {
+            doResync();
+        }
+    }
+
+    private void doResync() {
+        long version = readRemoteVersion();
+        List<LiveRoom> liveRooms = dataAccessFacade.liveRoom().getAllLiveRooms();
+
+        Map<Long, RoomState> fresh = new HashMap<>(liveRooms.size() * 2);
+        for (LiveRoom liveRoom : liveRooms) {
+            fresh.put(liveRoom.getLiveRoomId(), RoomState.of(liveRoom, version));
+        }
+        // 删除数据库中已不存在的直播间（重建期间新发布的除外）
+        states.entrySet().removeIf(e -> !fresh.containsKey(e.getKey()) && e.getValue().version <= version);
+        fresh.forEach(this::apply);
+        missing.clear();
+        synchronized (this) {
+            appliedVersion = Math.max(appliedVersion, version);
+        }
+
+        TraceLogger.info("LiveRoomStatusRegistry", "resync",
+                String.format("直播间状态表已重建: rooms=%d, version=%d", fresh.size(), version));
+    }
+
+    @PreDestroy
+    public void stop() {
+        resyncExecutor.shutdownNow();
+    }
+
+    private long readRemoteVersion() {
+        String value = stringRedisTemplate.opsForValue().get(STATUS_VERSION_KEY);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * 直播间状态（不可变），version 为产生该状态时的全局版本号
+     */
+    public static final class RoomState {
+        private final int status;
+        private final long anchorId;
+        private final long version;
+
+        RoomState(int status, long anchorId, long version) {
+            this.status = status;
+            this.anchorId = anchorId;
+            this.version = version;
+        }
+
+        static RoomState of(LiveRoom liveRoom, long version) {
+            return new RoomState(
+                    liveRoom.getRoomStatus() != null ? liveRoom.getRoomStatus() : 0,
+                    liveRoom.getAnchorId() != null ? liveRoom.getAnchorId() : 0L,
+                    version);
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getAnchorId() {
+            return anchorId;
+        }
+
+        public boolean isLive() {
+            return status == 1;
+        }
+    }
+}
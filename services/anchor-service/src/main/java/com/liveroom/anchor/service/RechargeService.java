@@ -2,10 +2,13 @@ package com.liveroom.anchor.service;
 
 import com.liveroom.anchor.feign.AudienceServiceClient;
 import com.liveroom.anchor.vo.RechargeVO;
+import common.bean.user.Audience;
 import common.constant.ErrorConstants;
 import common.exception.BusinessException;
 import common.logger.TraceLogger;
 import common.response.BaseResponse;
+import common.service.DataAccessFacade;
+import common.service.RechargeService.AudienceRechargeSum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -13,12 +16,15 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 打赏记录服务
- * 通过Feign调用audience-service查询打赏记录
+ * 通过Feign调用audience-service查询打赏记录，TOP10打赏观众直接查询本地 recharge 表
  * 
  * @author Team
  * @version 1.0.0
@@ -32,6 +38,9 @@ public class RechargeService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
     private static final String TOP10_CACHE_PREFIX = "anchor:top10:";
 
     /**
@@ -163,11 +172,31 @@ public class RechargeService {
         LocalDateTime startTime = calculateStartTime(period);
 
         try {
-            List<RechargeVO.Top10AudienceVO> result = 
-                    audienceServiceClient.getTop10Audiences(anchorId, startTime, endTime);
+            // 直接在本地 recharge 读模型上聚合，不再经 Feign 调用观众服务
+            List<AudienceRechargeSum> sums = dataAccessFacade.recharge()
+                    .findTopAudiencesByAnchor(anchorId, startTime, endTime, 10);
+            Map<Long, Audience> audiences = dataAccessFacade.audience()
+                    .findBatch(sums.stream().map(AudienceRechargeSum::getAudienceId).collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(Audience::getUserId, a -> a, (a, b) -> a));
+
+            List<RechargeVO.Top10AudienceVO> result = new ArrayList<>(sums.size());
+            int rank = 1;
+            for (AudienceRechargeSum sum : sums) {
+                Audience audience = audiences.get(sum.getAudienceId());
+                result.add(RechargeVO.Top10AudienceVO.builder()
+                        .rank(rank++)
+                        .audienceId(sum.getAudienceId())
+                        .audienceNickname(audience != null ? audience.getNickname() : null)
+                        .totalRechargeAmount(sum.getTotalAmount())
+                        .rechargeCount(sum.getCount())
+                        .lastRechargeTime(sum.getLastRechargeTime())
+                        .vipLevel(audience != null ? audience.getVipLevel() : null)
+                        .build());
+            }
 
             // 缓存结果
-            if (result != null && !result.isEmpty()) {
+            if (!result.isEmpty()) {
                 long ttl = getCacheTTL(period);
                 redisTemplate.opsForValue().set(cacheKey, result, ttl, TimeUnit.HOURS);
                 TraceLogger.debug("RechargeService", "getTop10Audiences",
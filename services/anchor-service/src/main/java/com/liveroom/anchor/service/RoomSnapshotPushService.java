@@ -0,0 +1,374 @@
+package com.liveroom.anchor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liveroom.anchor.vo.LiveRoomRealtimeVO;
+import common.logger.TraceLogger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 直播间实时数据推送服务（SSE）
+ *
+ * 替代客户端轮询 getLiveRoomRealtimeData：
+ * 1. 每个有订阅者的直播间每个周期（默认250ms）只计算一次快照，所有订阅者共享
+ * 2. 与上一次快照比较，只推送变化的字段（delta 帧），无变化不推送
+ * 3. 每个订阅者最多一个待发送帧：发送未完成时新帧与待发送帧合并（字段取最新值），
+ *    慢客户端只会丢失中间状态，不会积压；心跳也走同一个待发送槽位，不单独排队
+ * 4. 发送线程池使用有界队列，队列满时断开新排队的订阅者；单次发送超过 send-timeout-ms
+ *    仍未完成的订阅者在心跳时断开，阻塞的慢客户端不会长期占用发送线程
+ *
+ * 帧格式：
+ * - snapshot：订阅时发送的全量快照
+ * - delta：{"seq": 序号, 变化字段...}
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class RoomSnapshotPushService {
+
+    @Autowired
+    private LiveRoomRealtimeService liveRoomRealtimeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${anchor.push.tick-ms:250}")
+    private long tickMs;
+
+    @Value("${anchor.push.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${anchor.push.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${anchor.push.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${anchor.push.sender-queue-size:10000}")
+    private int senderQueueSize;
+
+    @Value("${anchor.push.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    /** 心跳帧：只在没有待发送帧时占用槽位 */
+    private static final Frame PING = new Frame("ping", null, null);
+
+    /** 因发送队列满或发送超时被断开的订阅者数 */
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final ConcurrentHashMap<Long, RoomChannel> channels = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "room-snapshot-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(senderQueueSize), r -> {
+                    Thread thread = new Thread(r, "room-snapshot-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 订阅直播间实时数据，立即推送一次全量快照
+     * 先登记订阅者再取当前快照，两步与周期任务在同一把通道锁内完成：
+     * 订阅者收到的全量快照之后的每个 delta 都基于该快照，不会漏掉或倒退
+     */
+    public SseEmitter subscribe(Long liveRoomId) {
+        // 直播间不存在时抛出业务异常
+        Map<String, Object> initial = toFields(liveRoomRealtimeService.getLiveRoomRealtimeData(liveRoomId));
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        Runnable remove = () -> unsubscribe(liveRoomId, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        while (true) {
+            RoomChannel channel = channels.computeIfAbsent(liveRoomId, id -> new RoomChannel());
+            synchronized (channel) {
+                // 最后一个订阅者退出时通道会被移除，此时重新获取
+                if (channels.get(liveRoomId) != channel) {
+                    continue;
+                }
+                channel.subscribers.add(subscriber);
+                channel.lastSnapshot.compareAndSet(null, initial);
+                Map<String, Object> snapshot = channel.lastSnapshot.get();
+                subscriber.offer(new Frame("snapshot", snapshot, serialize(snapshot)));
+                TraceLogger.debug("RoomSnapshotPushService", "subscribe",
+                        String.format("订阅直播间实时数据: liveRoomId=%d, 订阅数=%d", liveRoomId, channel.subscribers.size()));
+            }
+            return emitter;
+        }
+    }
+
+    /**
+     * 获取推送监控指标
+     */
+    public Map<String, Object> getMetrics() {
+        int subscribers = channels.values().stream().mapToInt(c -> c.subscribers.size()).sum();
+        long coalesced = channels.values().stream()
+                .flatMap(c -> c.subscribers.stream())
+                .mapToLong(s -> s.coalesced.get())
+                .sum();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("rooms", channels.size());
+        metrics.put("subscribers", subscribers);
+        metrics.put("coalescedFrames", coalesced);
+        metrics.put("evictedSubscribers", evicted.get());
+        metrics.put("senderQueueSize", ((ThreadPoolExecutor) sender).getQueue().size());
+        return metrics;
+    }
+
+    private void unsubscribe(Long liveRoomId, Subscriber subscriber) {
+        RoomChannel channel = channels.get(liveRoomId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            channel.subscribers.remove(subscriber);
+            if (channel.subscribers.isEmpty()) {
+                channels.remove(liveRoomId, channel);
+            }
+        }
+    }
+
+    /**
+     * 断开订阅者（发送队列满、发送超时）
+     */
+    private void evict(Subscriber subscriber, String reason) {
+        evicted.incrementAndGet();
+        subscriber.closed = true;
+        try {
+            subscriber.emitter.completeWithError(new IllegalStateException(reason));
+        } catch (Exception ignored) {
+            // 连接已关闭
+        }
+        TraceLogger.debug("RoomSnapshotPushService", "evict", "断开订阅者: " + reason);
+    }
+
+    /**
+     * 周期任务：每个直播间计算一次快照并向所有订阅者推送变化字段
+     */
+    private void tick() {
+        for (Map.Entry<Long, RoomChannel> entry : channels.entrySet()) {
+            Long liveRoomId = entry.getKey();
+            RoomChannel channel = entry.getValue();
+            if (channel.subscribers.isEmpty()) {
+                continue;
+            }
+            try {
+                Map<String, Object> current = toFields(liveRoomRealtimeService.getLiveRoomRealtimeData(liveRoomId));
+                // 更新快照和分发在通道锁内完成，与 subscribe 互斥（offer 不阻塞）
+                synchronized (channel) {
+                    Map<String, Object> previous = channel.lastSnapshot.getAndSet(current);
+
+                    Map<String, Object> delta = new LinkedHashMap<>();
+                    for (Map.Entry<String, Object> field : current.entrySet()) {
+                        if (previous == null || !Objects.equals(previous.get(field.getKey()), field.getValue())) {
+                            delta.put(field.getKey(), field.getValue());
+                        }
+                    }
+                    if (delta.isEmpty()) {
+                        continue;
+                    }
+                    delta.put("seq", channel.seq.incrementAndGet());
+
+                    Frame frame = new Frame("delta", delta, serialize(delta));
+                    for (Subscriber subscriber : channel.subscribers) {
+                        subscriber.offer(frame);
+                    }
+                }
+            } catch (Exception e) {
+                TraceLogger.error("RoomSnapshotPushService", "tick", liveRoomId, e);
+            }
+        }
+    }
+
+    /**
+     * 心跳：发送 SSE 注释，及时发现已断开的连接；同时断开发送超时的订阅者
+     * 心跳帧占用订阅者的待发送槽位，已有待发送帧时不再追加
+     */
+    private void heartbeat() {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        long now = System.nanoTime();
+        for (Map.Entry<Long, RoomChannel> entry : channels.entrySet()) {
+            for (Subscriber subscriber : entry.getValue().subscribers) {
+                long started = subscriber.sendStartNanos;
+                if (started != 0L && now - started > timeoutNanos) {
+                    evict(subscriber, "send timeout");
+                    unsubscribe(entry.getKey(), subscriber);
+                    continue;
+                }
+                subscriber.offer(PING);
+            }
+        }
+    }
+
+    private Map<String, Object> toFields(LiveRoomRealtimeVO vo) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("liveRoomId", vo.getLiveRoomId());
+        fields.put("roomStatus", vo.getRoomStatus());
+        fields.put("currentViewers", vo.getCurrentViewers());
+        fields.put("totalViewers", vo.getTotalViewers());
+        fields.put("totalEarnings", vo.getTotalEarnings());
+        fields.put("messageCount", vo.getMessageCount());
+        fields.put("rechargeCount", vo.getRechargeCount());
+        fields.put("liveDuration", vo.getLiveDuration());
+        return fields;
+    }
+
+    private String serialize(Map<String, Object> fields) {
+        try {
+            return objectMapper.writeValueAsString(fields);
+        } catch (Exception e) {
+            throw new IllegalStateException("推送帧序列化失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        sender.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(s -> s.emitter.complete()));
+        channels.clear();
+    }
+
+    /**
+     * 单个直播间的推送通道
+     */
+    private static final class RoomChannel {
+        private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Map<String, Object>> lastSnapshot = new AtomicReference<>();
+        private final AtomicLong seq = new AtomicLong();
+    }
+
+    /**
+     * 推送帧（JSON 在帧创建时序列化一次，所有订阅者共享）
+     */
+    private static final class Frame {
+        private final String event;
+        private final Map<String, Object> fields;
+        private final String json;
+
+        Frame(String event, Map<String, Object> fields, String json) {
+            this.event = event;
+            this.fields = fields;
+            this.json = json;
+        }
+    }
+
+    /**
+     * 订阅者：最多一个待发送帧，发送中到达的帧合并为最新状态
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<Frame> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+        private final AtomicLong coalesced = new AtomicLong();
+
+        /** 当前发送开始时间（nanoTime），0 表示空闲 */
+        private volatile long sendStartNanos;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            if (closed) {
+                return;
+            }
+            pending.accumulateAndGet(frame, (older, newer) -> {
+                if (older == null || older == PING) {
+                    return newer;
+                }
+                if (newer == PING) {
+                    return older;
+                }
+                coalesced.incrementAndGet();
+                Map<String, Object> merged = new LinkedHashMap<>(older.fields);
+                merged.putAll(newer.fields);
+                // 未发出的全量快照与增量合并后仍是全量快照
+                String event = "snapshot".equals(older.event) ? older.event : newer.event;
+                return new Frame(event, merged, null);
+            });
+            schedule();
+        }
+
+        private void schedule() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 发送队列已满：断开该订阅者，由客户端重连后重新拿全量快照
+                sending.set(false);
+                evict(this, "sender queue full");
+            }
+        }
+
+        private void drain() {
+            try {
+                Frame frame;
+                while (!closed && (frame = pending.getAndSet(null)) != null) {
+                    sendStartNanos = System.nanoTime();
+                    if (frame == PING) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        String json = frame.json != null ? frame.json : serialize(frame.fields);
+                        emitter.send(SseEmitter.event().name(frame.event).data(json, MediaType.APPLICATION_JSON));
+                    }
+                    sendStartNanos = 0L;
+                }
+            } catch (Exception e) {
+                closed = true;
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sendStartNanos = 0L;
+                sending.set(false);
+            }
+            // 释放发送标记后可能有新帧到达
+            if (pending.get() != null) {
+                schedule();
+            }
+        }
+    }
+}
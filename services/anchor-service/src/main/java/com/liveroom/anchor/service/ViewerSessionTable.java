@@ -0,0 +1,285 @@
+package com.liveroom.anchor.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在线观看会话表（观众会话跟踪器内部使用）
+ *
+ * 以 (直播间ID, 观众ID) 为键，记录进入时间和最近一次心跳时间。
+ * 为了在单节点 10 万级在线观众下保持内存可控，不使用 HashMap + 对象：
+ * - 按哈希高位分成若干段，每段一把锁，互不影响
+ * - 每段是开放寻址（线性探测）的并列基本类型数组，删除时回移后继元素，不留墓碑
+ * - 时间以相对跟踪器启动时刻的秒数存为 int
+ *
+ * 每个槽位 25 字节，装载因子不超过 0.5，约 50 字节/会话；总会话数由 maxSessions 封顶。
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+final class ViewerSessionTable {
+
+    /**
+     * 会话被移出表时的回调
+     */
+    @FunctionalInterface
+    interface SessionConsumer {
+        void accept(long liveRoomId, long audienceId, int joinSecond, int lastSeenSecond);
+    }
+
+    /** touch 的返回值：新建会话 */
+    static final int STARTED = 1;
+    /** touch 的返回值：已有会话，刷新心跳 */
+    static final int REFRESHED = 0;
+    /** touch 的返回值：会话数已达上限，未记录 */
+    static final int FULL = -1;
+
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int maxSessions;
+    private final AtomicInteger size = new AtomicInteger();
+
+    ViewerSessionTable(int stripeCount, int maxSessions) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * 进入或心跳：会话不存在时以 nowSecond 为进入时间新建，已存在时只刷新心跳时间
+     *
+     * @return STARTED / REFRESHED / FULL
+     */
+    int touch(long liveRoomId, long audienceId, int nowSecond) {
+        long hash = hash(liveRoomId, audienceId);
+        Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(liveRoomId, audienceId, hash);
+            if (slot >= 0) {
+                stripe.lastSeen[slot] = nowSecond;
+                return REFRESHED;
+            }
+            if (size.incrementAndGet() > maxSessions) {
+                size.decrementAndGet();
+                return FULL;
+            }
+            stripe.insert(liveRoomId, audienceId, hash, nowSecond);
+            return STARTED;
+        }
+    }
+
+    /**
+     * 离开：移除会话
+     *
+     * @return 进入时间（秒），会话不存在时返回 -1
+     */
+    int remove(long liveRoomId, long audienceId) {
+        long hash = hash(liveRoomId, audienceId);
+        Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(liveRoomId, audienceId, hash);
+            if (slot < 0) {
+                return -1;
+            }
+            int joinSecond = stripe.joins[slot];
+            stripe.delete(slot);
+            size.decrementAndGet();
+            return joinSecond;
+        }
+    }
+
+    /**
+     * 移除最近心跳早于 deadlineSecond 的会话
+     *
+     * @return 移除的会话数
+     */
+    int expire(int deadlineSecond, SessionConsumer consumer) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                removed += stripe.removeIf(consumer, (room, seen) -> seen < deadlineSecond);
+            }
+        }
+        size.addAndGet(-removed);
+        return removed;
+    }
+
+    /**
+     * 移除某个直播间的全部会话（下播时调用）
+     *
+     * @return 移除的会话数
+     */
+    int removeRoom(long liveRoomId, SessionConsumer consumer) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                removed += stripe.removeIf(consumer, (room, seen) -> room == liveRoomId);
+            }
+        }
+        size.addAndGet(-removed);
+        return removed;
+    }
+
+    /**
+     * 移除全部会话（停机时调用）
+     *
+     * @return 移除的会话数
+     */
+    int removeAll(SessionConsumer consumer) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                removed += stripe.removeIf(consumer, (room, seen) -> true);
+            }
+        }
+        size.addAndGet(-removed);
+        return removed;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * 当前已分配的槽位总数（用于估算内存）
+     */
+    int slotCount() {
+        int slots = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                slots += stripe.rooms.length;
+            }
+        }
+        return slots;
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    private static long hash(long liveRoomId, long audienceId) {
+        long h = liveRoomId * 0x9E3779B97F4A7C15L + audienceId;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    @FunctionalInterface
+    private interface SlotFilter {
+        boolean test(long liveRoomId, int lastSeenSecond);
+    }
+
+    /**
+     * 单个分段：调用方持有分段锁
+     */
+    private static final class Stripe {
+        long[] rooms = new long[INITIAL_STRIPE_CAPACITY];
+        long[] audiences = new long[INITIAL_STRIPE_CAPACITY];
+        int[] joins = new int[INITIAL_STRIPE_CAPACITY];
+        int[] lastSeen = new int[INITIAL_STRIPE_CAPACITY];
+        boolean[] used = new boolean[INITIAL_STRIPE_CAPACITY];
+        int count;
+
+        int find(long room, long audience, long hash) {
+            int mask = rooms.length - 1;
+            for (int i = (int) hash & mask; used[i]; i = (i + 1) & mask) {
+                if (rooms[i] == room && audiences[i] == audience) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void insert(long room, long audience, long hash, int nowSecond) {
+            if ((count + 1) << 1 > rooms.length) {
+                resize(rooms.length << 1);
+            }
+            int mask = rooms.length - 1;
+            int i = (int) hash & mask;
+            while (used[i]) {
+                i = (i + 1) & mask;
+            }
+            put(i, room, audience, nowSecond, nowSecond);
+            count++;
+        }
+
+        /**
+         * 删除槽位并把后继元素回移，保证线性探测链不断
+         */
+        void delete(int slot) {
+            int mask = rooms.length - 1;
+            int hole = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                if (!used[i]) {
+                    break;
+                }
+                int home = (int) hash(rooms[i], audiences[i]) & mask;
+                // home 不在 (hole, i] 区间内的元素可以回移到空位
+                boolean between = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+                if (!between) {
+                    put(hole, rooms[i], audiences[i], joins[i], lastSeen[i]);
+                    hole = i;
+                }
+            }
+            used[hole] = false;
+            count--;
+        }
+
+        int removeIf(SessionConsumer consumer, SlotFilter filter) {
+            int removed = 0;
+            int i = 0;
+            // 删除会把后继元素回移到当前位置，所以删除后不前进
+            while (i < rooms.length && count > 0) {
+                if (used[i] && filter.test(rooms[i], lastSeen[i])) {
+                    consumer.accept(rooms[i], audiences[i], joins[i], lastSeen[i]);
+                    delete(i);
+                    removed++;
+                } else {
+                    i++;
+                }
+            }
+            return removed;
+        }
+
+        private void put(int i, long room, long audience, int joinSecond, int lastSeenSecond) {
+            rooms[i] = room;
+            audiences[i] = audience;
+            joins[i] = joinSecond;
+            lastSeen[i] = lastSeenSecond;
+            used[i] = true;
+        }
+
+        private void resize(int capacity) {
+            long[] oldRooms = rooms;
+            long[] oldAudiences = audiences;
+            int[] oldJoins = joins;
+            int[] oldLastSeen = lastSeen;
+            boolean[] oldUsed = used;
+
+            rooms = new long[capacity];
+            audiences = new long[capacity];
+            joins = new int[capacity];
+            lastSeen = new int[capacity];
+            used = new boolean[capacity];
+
+            int mask = capacity - 1;
+            for (int j = 0; j < oldRooms.length; j++) {
+                if (!oldUsed[j]) {
+                    continue;
+                }
+                int i = (int) hash(oldRooms[j], oldAudiences[j]) & mask;
+                while (used[i]) {
+                    i = (i + 1) & mask;
+                }
+                put(i, oldRooms[j], oldAudiences[j], oldJoins[j], oldLastSeen[j]);
+            }
+        }
+    }
+}
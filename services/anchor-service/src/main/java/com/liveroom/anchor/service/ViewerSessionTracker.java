@@ -0,0 +1,277 @@
+package com.liveroom.anchor.service;
+
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import common.service.LiveSessionAudienceService.SessionRecord;
+import common.util.MpscRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 观众观看会话跟踪器
+ *
+ * 在内存中记录每个观众在每个直播间的在线会话（进入时间、最近心跳时间），
+ * 离开、心跳超时或下播时结束会话并计算观看时长，放入环形缓冲区；
+ * 定时任务每隔 flush-interval-ms 把已结束的会话批量写入 live_session_audience 表。
+ *
+ * - 心跳超时的会话以最后一次心跳时间作为离开时间，不把掉线后的时间算进观看时长；
+ *   下播、停机批量结束会话时，已超过心跳超时的会话同样取最后一次心跳时间
+ * - 在线会话数达到 max-sessions 时不再记录新会话（只影响时长统计，不影响进房）
+ * - 缓冲区满时：单个离开的会话丢弃并计数；下播、超时清理、停机批量结束的会话在调用线程直接写库
+ * - 下播在关播事务提交后才结束会话：会话表外键引用 live_room，关播事务持有直播间行锁期间写库会等待自身的锁
+ *
+ * 会话只保存在本节点内存中：多节点部署时进入、心跳、离开请求需要按直播间路由到同一节点，
+ * 否则离开请求落到别的节点只能等心跳超时结束会话。
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class ViewerSessionTracker {
+
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
+    @Value("${anchor.sessions.max-sessions:200000}")
+    private int maxSessions;
+
+    @Value("${anchor.sessions.stripes:64}")
+    private int stripes;
+
+    @Value("${anchor.sessions.heartbeat-timeout-seconds:90}")
+    private int heartbeatTimeoutSeconds;
+
+    @Value("${anchor.sessions.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${anchor.sessions.batch-size:1000}")
+    private int batchSize;
+
+    /** 会话时间的基准（秒），表里存相对这个时刻的秒数 */
+    private final long epochSecond = Instant.now().getEpochSecond();
+
+    private ViewerSessionTable sessions;
+    private MpscRingBuffer<SessionRecord> completed;
+
+    // 监控指标
+    private final LongAdder started = new LongAdder();
+    private final LongAdder ended = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        sessions = new ViewerSessionTable(stripes, maxSessions);
+        completed = new MpscRingBuffer<>(bufferCapacity);
+        TraceLogger.info("ViewerSessionTracker", "start",
+                String.format("观看会话跟踪器已启动: maxSessions=%d, heartbeatTimeout=%ds, capacity=%d",
+                        maxSessions, heartbeatTimeoutSeconds, completed.capacity()));
+    }
+
+    /**
+     * 观众进入直播间：开始会话（已在线时视为一次心跳）
+     */
+    public void enter(Long liveRoomId, Long audienceId) {
+        touch(liveRoomId, audienceId);
+    }
+
+    /**
+     * 观众心跳：刷新最近在线时间；会话不存在（如超时后恢复、节点重启）时重新开始会话
+     */
+    public void heartbeat(Long liveRoomId, Long audienceId) {
+        touch(liveRoomId, audienceId);
+    }
+
+    /**
+     * 观众离开直播间：结束会话
+     */
+    public void leave(Long liveRoomId, Long audienceId) {
+        int now = nowSecond();
+        int joinSecond = sessions.remove(liveRoomId, audienceId);
+        if (joinSecond < 0) {
+            return;
+        }
+        ended.increment();
+        if (!completed.offer(toRecord(liveRoomId, audienceId, joinSecond, now))) {
+            dropped.increment();
+            TraceLogger.debug("ViewerSessionTracker", "leave",
+                    "会话缓冲区已满，丢弃会话: liveRoomId=" + liveRoomId);
+        }
+    }
+
+    /**
+     * 下播：结束该直播间的全部会话
+     * 在关播事务内调用时推迟到事务提交后执行，事务回滚则会话保持在线
+     */
+    public void closeRoom(Long liveRoomId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doCloseRoom(liveRoomId);
+                }
+            });
+        } else {
+            doCloseRoom(liveRoomId);
+        }
+    }
+
+    private void doCloseRoom(Long liveRoomId) {
+        int now = nowSecond();
+        List<SessionRecord> closed = new ArrayList<>();
+        sessions.removeRoom(liveRoomId, (room, audience, joinSecond, lastSeenSecond) ->
+                closed.add(toRecord(room, audience, joinSecond, leaveSecond(lastSeenSecond, now))));
+        if (!closed.isEmpty()) {
+            enqueueAll(closed);
+            TraceLogger.info("ViewerSessionTracker", "closeRoom", liveRoomId, "closed", closed.size());
+        }
+    }
+
+    /**
+     * 结束心跳超时的会话，离开时间取最后一次心跳时间
+     */
+    @Scheduled(fixedDelayString = "${anchor.sessions.sweep-interval-ms:10000}")
+    public void expireIdleSessions() {
+        int deadline = nowSecond() - heartbeatTimeoutSeconds;
+        List<SessionRecord> timedOut = new ArrayList<>();
+        sessions.expire(deadline,
+                (room, audience, joinSecond, lastSeenSecond) -> timedOut.add(toRecord(room, audience, joinSecond, lastSeenSecond)));
+        if (!timedOut.isEmpty()) {
+            expired.add(timedOut.size());
+            enqueueAll(timedOut);
+            TraceLogger.debug("ViewerSessionTracker", "expireIdleSessions", "心跳超时结束会话: " + timedOut.size());
+        }
+    }
+
+    /**
+     * 把已结束的会话批量写库
+     * 同步方法：环形缓冲区只允许单个消费者，定时任务和停机时的最后一次写库不能并发
+     */
+    @Scheduled(fixedDelayString = "${anchor.sessions.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        List<SessionRecord> batch = new ArrayList<>(batchSize);
+        while (completed.drainTo(batch, batchSize) > 0) {
+            persist(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * 获取跟踪器监控指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("onlineSessions", sessions.size());
+        metrics.put("maxSessions", maxSessions);
+        metrics.put("allocatedSlots", sessions.slotCount());
+        metrics.put("bufferSize", completed.size());
+        metrics.put("bufferCapacity", completed.capacity());
+        metrics.put("started", started.sum());
+        metrics.put("ended", ended.sum());
+        metrics.put("expired", expired.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("persisted", persisted.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("batches", batches.sum());
+        return metrics;
+    }
+
+    private void touch(Long liveRoomId, Long audienceId) {
+        int result = sessions.touch(liveRoomId, audienceId, nowSecond());
+        if (result == ViewerSessionTable.STARTED) {
+            started.increment();
+        } else if (result == ViewerSessionTable.FULL) {
+            rejected.increment();
+            TraceLogger.debug("ViewerSessionTracker", "touch",
+                    "在线会话数已达上限，不记录会话: liveRoomId=" + liveRoomId);
+        }
+    }
+
+    /**
+     * 批量结束时的离开时间：心跳已超时的会话取最后一次心跳时间，与超时清理一致
+     */
+    private int leaveSecond(int lastSeenSecond, int nowSecond) {
+        return lastSeenSecond < nowSecond - heartbeatTimeoutSeconds ? lastSeenSecond : nowSecond;
+    }
+
+    private SessionRecord toRecord(long liveRoomId, long audienceId, int joinSecond, int leaveSecond) {
+        int leave = Math.max(joinSecond, leaveSecond);
+        return new SessionRecord(liveRoomId, audienceId,
+                toDateTime(joinSecond), toDateTime(leave), (long) (leave - joinSecond));
+    }
+
+    /**
+     * 批量结束的会话入队，放不下的部分在调用线程直接写库
+     */
+    private void enqueueAll(List<SessionRecord> records) {
+        ended.add(records.size());
+        List<SessionRecord> overflow = null;
+        for (SessionRecord record : records) {
+            if (!completed.offer(record)) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(record);
+            }
+        }
+        if (overflow != null) {
+            persist(overflow);
+        }
+    }
+
+    private void persist(List<SessionRecord> batch) {
+        try {
+            dataAccessFacade.liveSessionAudience().batchInsertSessions(batch);
+            persisted.add(batch.size());
+            batches.increment();
+        } catch (Exception e) {
+            failed.add(batch.size());
+            TraceLogger.error("ViewerSessionTracker", "persist",
+                    "观看会话批量落库失败: count=" + batch.size(), e);
+        }
+    }
+
+    private int nowSecond() {
+        return (int) (Instant.now().getEpochSecond() - epochSecond);
+    }
+
+    private LocalDateTime toDateTime(int second) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond + second), ZoneId.systemDefault());
+    }
+
+    /**
+     * 停机时以当前时间（心跳已超时的取最后一次心跳时间）结束全部在线会话并写完缓冲区
+     */
+    @PreDestroy
+    public void stop() {
+        int now = nowSecond();
+        List<SessionRecord> open = new ArrayList<>();
+        sessions.removeAll((room, audience, joinSecond, lastSeenSecond) ->
+                open.add(toRecord(room, audience, joinSecond, leaveSecond(lastSeenSecond, now))));
+        enqueueAll(open);
+        flush();
+        TraceLogger.info("ViewerSessionTracker", "stop", "观看会话跟踪器已停止: " + getMetrics());
+    }
+}
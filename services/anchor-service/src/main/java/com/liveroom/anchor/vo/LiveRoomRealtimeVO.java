@@ -41,6 +41,12 @@ public class LiveRoomRealtimeVO implements Serializable {
     /** 本次直播总营收 */
     private BigDecimal totalEarnings;
 
+    /** 本场弹幕数 */
+    private Long messageCount;
+
+    /** 本场打赏次数 */
+    private Long rechargeCount;
+
     /** 直播间状态：0-未开播、1-直播中、2-直播结束、3-被封禁 */
     private Integer roomStatus;
 
@@ -0,0 +1,151 @@
+package com.liveroom.anchor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在线观看会话表与 HashMap 模型的对照测试
+ *
+ * 随机执行 touch / remove / removeRoom / expire，每一步的返回值、回调的会话和 size() 都应与模型一致，
+ * 最后 removeAll 取出的全部会话与模型相同。键空间很小、分段数很少，
+ * 线性探测链会频繁跨越数组末尾，覆盖扩容和删除回移的各种情况。
+ */
+class ViewerSessionTableTest {
+
+    private static final int ROOMS = 6;
+    private static final int AUDIENCES = 120;
+
+    @Test
+    void singleStripeMatchesHashMap() {
+        runAgainstModel(1, Integer.MAX_VALUE, 1);
+    }
+
+    @Test
+    void stripedTableMatchesHashMap() {
+        runAgainstModel(4, Integer.MAX_VALUE, 2);
+    }
+
+    @Test
+    void maxSessionsCapsNewSessions() {
+        runAgainstModel(8, 150, 3);
+    }
+
+    private void runAgainstModel(int stripes, int maxSessions, long seed) {
+        Random random = new Random(seed);
+        ViewerSessionTable table = new ViewerSessionTable(stripes, maxSessions);
+        Map<Key, int[]> model = new HashMap<>();
+
+        for (int now = 1; now <= 60_000; now++) {
+            Key key = new Key(1 + random.nextInt(ROOMS), 1 + random.nextInt(AUDIENCES));
+            int op = random.nextInt(100);
+            if (op < 60) {
+                int[] session = model.get(key);
+                int expected;
+                if (session != null) {
+                    session[1] = now;
+                    expected = ViewerSessionTable.REFRESHED;
+                } else if (model.size() >= maxSessions) {
+                    expected = ViewerSessionTable.FULL;
+                } else {
+                    model.put(key, new int[] {now, now});
+                    expected = ViewerSessionTable.STARTED;
+                }
+                assertEquals(expected, table.touch(key.room, key.audience, now), "touch " + key);
+            } else if (op < 90) {
+                int[] session = model.remove(key);
+                assertEquals(session == null ? -1 : session[0], table.remove(key.room, key.audience), "remove " + key);
+            } else if (op < 95) {
+                int deadline = now - random.nextInt(400);
+                Map<Key, int[]> expected = new HashMap<>();
+                Iterator<Map.Entry<Key, int[]>> it = model.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Key, int[]> entry = it.next();
+                    if (entry.getValue()[1] < deadline) {
+                        expected.put(entry.getKey(), entry.getValue());
+                        it.remove();
+                    }
+                }
+                Map<Key, int[]> removed = new HashMap<>();
+                assertEquals(expected.size(), table.expire(deadline, collectInto(removed)));
+                assertSameSessions(expected, removed);
+            } else if (op < 96) {
+                Map<Key, int[]> expected = new HashMap<>();
+                Iterator<Map.Entry<Key, int[]>> it = model.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Key, int[]> entry = it.next();
+                    if (entry.getKey().room == key.room) {
+                        expected.put(entry.getKey(), entry.getValue());
+                        it.remove();
+                    }
+                }
+                Map<Key, int[]> removed = new HashMap<>();
+                assertEquals(expected.size(), table.removeRoom(key.room, collectInto(removed)));
+                assertSameSessions(expected, removed);
+            }
+            assertEquals(model.size(), table.size(), "size after step " + now);
+        }
+
+        Map<Key, int[]> remaining = new HashMap<>();
+        assertEquals(model.size(), table.removeAll(collectInto(remaining)));
+        assertSameSessions(model, remaining);
+        assertEquals(0, table.size());
+    }
+
+    private static ViewerSessionTable.SessionConsumer collectInto(Map<Key, int[]> sink) {
+        return (room, audience, joinSecond, lastSeenSecond) -> {
+            int[] previous = sink.put(new Key(room, audience), new int[] {joinSecond, lastSeenSecond});
+            assertEquals(null, previous, "同一会话只回调一次: " + room + "/" + audience);
+        };
+    }
+
+    private static void assertSameSessions(Map<Key, int[]> expected, Map<Key, int[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        List<String> mismatches = new ArrayList<>();
+        for (Map.Entry<Key, int[]> entry : expected.entrySet()) {
+            int[] got = actual.get(entry.getKey());
+            if (got[0] != entry.getValue()[0] || got[1] != entry.getValue()[1]) {
+                mismatches.add(entry.getKey() + " expected " + entry.getValue()[0] + "/" + entry.getValue()[1]
+                    + " got " + got[0] + "/" + got[1]);
+            }
+        }
+        assertEquals(List.of(), mismatches, "进入时间/最近心跳时间");
+    }
+
+    private static final class Key {
+        final long room;
+        final long audience;
+
+        Key(long room, long audience) {
+            this.room = room;
+            this.audience = audience;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return room == other.room && audience == other.audience;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(room, audience);
+        }
+
+        @Override
+        public String toString() {
+            return room + "/" + audience;
+        }
+    }
+}
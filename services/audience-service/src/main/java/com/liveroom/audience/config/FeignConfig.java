@@ -1,14 +1,17 @@
 package com.liveroom.audience.config;
 
+import common.feign.FeignTransportConfig;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 /**
  * Feign客户端配置
- * 开启OpenFeign服务调用功能
+ * 开启OpenFeign服务调用功能，并引入公共的连接池化传输配置（本服务不扫描 common 包）
  */
 @Configuration
 @EnableFeignClients(basePackages = "com.liveroom.audience.feign")
+@Import(FeignTransportConfig.class)
 public class FeignConfig {
     // Feign客户端配置
 }
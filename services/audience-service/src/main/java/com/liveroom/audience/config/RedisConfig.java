@@ -0,0 +1,48 @@
+package com.liveroom.audience.config;
+
+import common.config.CompactRedisSerializer;
+import common.config.RedisProperties;
+import common.config.RedisTypeRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * Redis配置类
+ * 观众服务只扫描 com.liveroom，common 的 Redis 配置需要在这里引入；
+ * RedisTemplate 与其他服务一致：key 使用 String，value 使用紧凑序列化
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Configuration
+@Import(RedisProperties.class)
+public class RedisConfig {
+
+    /**
+     * 配置RedisTemplate
+     * 替换 Spring Boot 默认的 RedisTemplate&lt;Object, Object&gt;（JDK 序列化）
+     */
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisProperties redisProperties) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        template.setKeySerializer(stringSerializer);
+        template.setHashKeySerializer(stringSerializer);
+
+        RedisSerializer<Object> valueSerializer =
+                CompactRedisSerializer.forCache(redisProperties, RedisTypeRegistry.defaults());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+
+        template.afterPropertiesSet();
+        return template;
+    }
+}
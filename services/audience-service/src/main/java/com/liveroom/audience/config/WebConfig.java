@@ -1,14 +1,18 @@
 package com.liveroom.audience.config;
 
+import common.bulkhead.BulkheadConfig;
+import common.limiter.ConcurrencyLimitConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Web配置类
- * 提供Web相关的Bean配置
+ * 提供Web相关的Bean配置，并引入公共的舱壁隔离和自适应并发限流配置（本服务不扫描 common 包）
  */
 @Configuration
+@Import({BulkheadConfig.class, ConcurrencyLimitConfig.class})
 public class WebConfig {
 
     /**
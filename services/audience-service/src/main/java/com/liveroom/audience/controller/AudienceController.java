@@ -5,12 +5,16 @@ import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.*;
+import common.annotation.Bulkhead;
 import common.annotation.Idempotent;
 import common.annotation.Log;
 import common.annotation.ValidateParam;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.response.BaseResponse;
+import common.response.CursorPageResponse;
 import common.response.PageResponse;
 import common.response.ResponseUtil;
 import common.logger.TraceLogger;
@@ -95,6 +99,7 @@ public class AudienceController {
      */
     @GetMapping
     @Log("查询观众列表")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<AudienceDTO>> listAudiences(
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "20") Integer size,
@@ -119,6 +124,7 @@ public class AudienceController {
 
     /**
      * 搜索观众
+     * 结果按相关度排序，不统计总数：total 和 totalPages 为 -1，翻页依据 hasNext
      */
     @GetMapping("/search")
     @Log("搜索观众")
@@ -140,11 +146,36 @@ public class AudienceController {
             throw new ValidationException("每页大小必须在1-100之间");
         }
 
-        Page<AudienceDTO> pageResult = audienceService.searchAudiences(keyword.trim(), page, size);
-        if (pageResult.getContent().isEmpty()) {
+        Slice<AudienceDTO> sliceResult = audienceService.searchAudiences(keyword.trim(), page, size);
+        if (sliceResult.getContent().isEmpty()) {
             TraceLogger.info("AudienceController", "searchAudiences", "搜索无结果: " + keyword);
         }
-        return ResponseUtil.success(PageResponse.of(pageResult.getContent(), pageResult.getTotalElements(), page, size));
+        return ResponseUtil.success(PageResponse.ofSlice(sliceResult.getContent(), sliceResult.hasNext(), page, size));
+    }
+
+    /**
+     * 按游标分页查询观众
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；翻页深度不影响查询耗时
+     */
+    @GetMapping("/scroll")
+    @Log("游标查询观众列表")
+    public BaseResponse<CursorPageResponse<AudienceDTO>> scrollAudiences(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) Integer consumptionLevel,
+            @RequestParam(required = false) String keyword) {
+        if (size == null || size < 1 || size > 100) {
+            throw new ValidationException("每页大小必须在1-100之间");
+        }
+        if (consumptionLevel != null && (consumptionLevel < 0 || consumptionLevel > 2)) {
+            throw new ValidationException("消费等级只能是0、1、2");
+        }
+        if (keyword != null && keyword.length() > 50) {
+            throw new ValidationException("搜索关键词长度不能超过50");
+        }
+
+        String trimmed = keyword == null ? null : keyword.trim();
+        return ResponseUtil.success(audienceService.scrollAudiences(consumptionLevel, trimmed, cursor, size));
     }
 
     /**
@@ -152,6 +183,7 @@ public class AudienceController {
      */
     @GetMapping("/{audienceId}/consumption-stats")
     @Log("查询观众消费统计")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<ConsumptionStatsDTO> getConsumptionStats(@PathVariable Long audienceId) {
         if (audienceId == null || audienceId <= 0) {
             throw new ValidationException("观众ID不合法");
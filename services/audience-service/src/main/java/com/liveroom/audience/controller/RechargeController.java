@@ -6,11 +6,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.web.bind.annotation.*;
+import common.annotation.Bulkhead;
 import common.annotation.Idempotent;
 import common.annotation.Log;
 import common.annotation.ValidateParam;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.response.BaseResponse;
+import common.response.CursorPageResponse;
 import common.response.PageResponse;
 import common.response.ResponseUtil;
 import common.logger.TraceLogger;
@@ -37,6 +40,7 @@ public class RechargeController {
     @Log("创建打赏记录")
     @ValidateParam
     @Idempotent(key = "#rechargeDTO.traceId", timeout = 60)
+    @Bulkhead(BulkheadType.REALTIME)
     public BaseResponse<RechargeDTO> createRecharge(@Valid @RequestBody RechargeDTO rechargeDTO) {
         RechargeDTO result = rechargeService.createRecharge(rechargeDTO);
         return ResponseUtil.success("打赏成功", result);
@@ -84,6 +88,7 @@ public class RechargeController {
      */
     @GetMapping("/anchor/{anchorId}")
     @Log("查询主播的打赏列表")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<RechargeDTO>> listAnchorRecharges(
             @PathVariable Long anchorId,
             @RequestParam(defaultValue = "1") Integer page,
@@ -106,6 +111,7 @@ public class RechargeController {
      */
     @GetMapping("/audience/{audienceId}")
     @Log("查询观众的打赏历史")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<RechargeDTO>> listAudienceRecharges(
             @PathVariable Long audienceId,
             @RequestParam(defaultValue = "1") Integer page,
@@ -121,11 +127,50 @@ public class RechargeController {
         return ResponseUtil.success(PageResponse.of(pageResult.getContent(), pageResult.getTotalElements(), page, size));
     }
 
+    /**
+     * 按游标分页查询主播的打赏列表
+     * 首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/anchor/{anchorId}/scroll")
+    @Log("游标查询主播的打赏列表")
+    public BaseResponse<CursorPageResponse<RechargeDTO>> scrollAnchorRecharges(
+            @PathVariable Long anchorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size) {
+        if (anchorId == null || anchorId <= 0) {
+            throw new ValidationException("主播ID不合法");
+        }
+        if (size == null || size < 1 || size > 100) {
+            throw new ValidationException("每页大小必须在1-100之间");
+        }
+        return ResponseUtil.success(rechargeService.scrollAnchorRecharges(anchorId, cursor, size));
+    }
+
+    /**
+     * 按游标分页查询观众的打赏历史
+     * 首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/audience/{audienceId}/scroll")
+    @Log("游标查询观众的打赏历史")
+    public BaseResponse<CursorPageResponse<RechargeDTO>> scrollAudienceRecharges(
+            @PathVariable Long audienceId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size) {
+        if (audienceId == null || audienceId <= 0) {
+            throw new ValidationException("观众ID不合法");
+        }
+        if (size == null || size < 1 || size > 100) {
+            throw new ValidationException("每页大小必须在1-100之间");
+        }
+        return ResponseUtil.success(rechargeService.scrollAudienceRecharges(audienceId, cursor, size));
+    }
+
     /**
      * 查询直播间的打赏列表
      */
     @GetMapping("/live-room/{liveRoomId}")
     @Log("查询直播间的打赏列表")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<RechargeDTO>> listLiveRoomRecharges(
             @PathVariable Long liveRoomId,
             @RequestParam(defaultValue = "1") Integer page,
@@ -148,6 +193,7 @@ public class RechargeController {
      */
     @GetMapping("/top10")
     @Log("查询主播的TOP10打赏观众")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<List<Top10AudienceVO>> getTop10Audiences(
             @RequestParam Long anchorId,
             @RequestParam(defaultValue = "all") String period) {
@@ -4,18 +4,29 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import common.bean.ApiResponse;
+import common.codec.RechargeBatchCodec;
 import com.liveroom.audience.service.SyncService.BatchRechargeDTO;
 
 /**
  * 财务服务Feign客户端
  * 用于调用财务服务的批量同步接口
  */
-@FeignClient(name = "finance-service", fallback = FinanceServiceClientFallback.class)
+@FeignClient(name = "finance-service", path = "/finance/internal/sync",
+        fallbackFactory = FinanceServiceClientFallbackFactory.class,
+        configuration = FinanceServiceClientConfig.class)
 public interface FinanceServiceClient {
 
     /**
-     * 批量同步打赏数据到财务服务
+     * 批量同步打赏数据到财务服务（JSON）
+     * POST /finance/internal/sync/recharges
      */
-    @PostMapping("/api/finance/sync/batch")
+    @PostMapping("/recharges")
     ApiResponse<String> receiveBatchRecharges(@RequestBody BatchRechargeDTO batchDTO);
+
+    /**
+     * 批量同步打赏数据到财务服务（二进制格式，见 RechargeBatchCodec）
+     * 财务服务不支持时返回 415，调用方回退到 JSON
+     */
+    @PostMapping(value = "/recharges", consumes = RechargeBatchCodec.MEDIA_TYPE_VALUE)
+    ApiResponse<String> receiveBatchRechargesBinary(@RequestBody BatchRechargeDTO batchDTO);
 }
@@ -0,0 +1,24 @@
+package com.liveroom.audience.feign;
+
+import feign.codec.Encoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 财务服务Feign客户端专用配置
+ * 不加 @Configuration，避免被组件扫描后作用于所有 Feign 客户端
+ */
+public class FinanceServiceClientConfig {
+
+    /**
+     * 批量打赏二进制编码器，其余请求仍交给 SpringEncoder 按 JSON 编码
+     */
+    @Bean
+    public Encoder feignEncoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                @Value("${audience.sync.binary.compress:false}") boolean compress) {
+        return new RechargeBatchBinaryEncoder(new SpringEncoder(messageConverters), compress);
+    }
+}
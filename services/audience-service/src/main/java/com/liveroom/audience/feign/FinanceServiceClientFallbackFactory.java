@@ -0,0 +1,40 @@
+package com.liveroom.audience.feign;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+import common.bean.ApiResponse;
+import common.logger.TraceLogger;
+import com.liveroom.audience.service.SyncService.BatchRechargeDTO;
+
+/**
+ * 财务服务Feign客户端降级工厂
+ * 415（不支持二进制格式）不降级，原样抛给调用方，由 SyncService 回退 JSON
+ */
+@Component
+@Slf4j
+public class FinanceServiceClientFallbackFactory implements FallbackFactory<FinanceServiceClient> {
+
+    @Override
+    public FinanceServiceClient create(Throwable cause) {
+        return new FinanceServiceClient() {
+            @Override
+            public ApiResponse<String> receiveBatchRecharges(BatchRechargeDTO batchDTO) {
+                TraceLogger.error("FinanceServiceClientFallback", "receiveBatchRecharges",
+                        "财务服务调用失败，批次ID: " + batchDTO.getBatchId(), cause);
+
+                // 返回失败响应，触发重试机制
+                return ApiResponse.error(500, "财务服务不可用");
+            }
+
+            @Override
+            public ApiResponse<String> receiveBatchRechargesBinary(BatchRechargeDTO batchDTO) {
+                if (cause instanceof FeignException.UnsupportedMediaType) {
+                    throw (FeignException.UnsupportedMediaType) cause;
+                }
+                return receiveBatchRecharges(batchDTO);
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.liveroom.audience.feign;
+
+import com.liveroom.audience.service.SyncService.BatchRechargeDTO;
+import common.codec.RechargeBatchCodec;
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 批量打赏二进制编码器
+ * 请求 Content-Type 为 application/x-recharge-batch 时按 RechargeBatchCodec 编码，否则交给默认编码器
+ */
+public class RechargeBatchBinaryEncoder implements Encoder {
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    private final Encoder delegate;
+    private final boolean compress;
+
+    public RechargeBatchBinaryEncoder(Encoder delegate, boolean compress) {
+        this.delegate = delegate;
+        this.compress = compress;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        if (!(object instanceof BatchRechargeDTO) || !isBinaryRequest(template)) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        try {
+            template.body(RechargeBatchCodec.encode(toBatch((BatchRechargeDTO) object), compress), null);
+        } catch (IllegalArgumentException e) {
+            throw new EncodeException("批量打赏二进制编码失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isBinaryRequest(RequestTemplate template) {
+        Collection<String> contentTypes = template.headers().get(CONTENT_TYPE);
+        if (contentTypes == null) {
+            return false;
+        }
+        for (String contentType : contentTypes) {
+            if (contentType.startsWith(RechargeBatchCodec.MEDIA_TYPE_VALUE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RechargeBatchCodec.Batch toBatch(BatchRechargeDTO dto) {
+        List<RechargeBatchCodec.Item> items = new ArrayList<>(dto.getRecharges().size());
+        for (BatchRechargeDTO.RechargeItemDTO source : dto.getRecharges()) {
+            RechargeBatchCodec.Item item = new RechargeBatchCodec.Item();
+            item.setRechargeId(source.getRechargeId());
+            item.setTraceId(source.getTraceId());
+            item.setAnchorId(source.getAnchorId());
+            item.setAnchorName(source.getAnchorName());
+            item.setAudienceId(source.getAudienceId());
+            item.setAudienceName(source.getAudienceName());
+            item.setRechargeAmount(source.getRechargeAmount());
+            item.setRechargeTime(source.getRechargeTime());
+            item.setRechargeType(source.getRechargeType());
+            item.setLiveRoomId(source.getLiveRoomId());
+            items.add(item);
+        }
+
+        RechargeBatchCodec.Batch batch = new RechargeBatchCodec.Batch();
+        batch.setBatchId(dto.getBatchId());
+        batch.setSourceService(dto.getSourceService());
+        batch.setBatchTime(dto.getBatchTime());
+        batch.setTotalAmount(dto.getTotalAmount());
+        batch.setTotalCount(dto.getTotalCount());
+        batch.setItems(items);
+        return batch;
+    }
+}
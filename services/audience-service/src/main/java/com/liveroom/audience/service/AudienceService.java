@@ -1,11 +1,18 @@
 package com.liveroom.audience.service;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import common.bean.user.Audience;
@@ -13,10 +20,12 @@ import common.constant.ErrorConstants;
 import common.exception.BusinessException;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
+import common.response.CursorPageResponse;
 import common.service.DataAccessFacade;
 import common.util.BeanUtil;
 import common.util.DateTimeUtil;
 import common.util.IdGeneratorUtil;
+import common.util.NgramIndex;
 import com.liveroom.audience.dto.AudienceDTO;
 import com.liveroom.audience.dto.ConsumptionStatsDTO;
 
@@ -35,6 +44,31 @@ public class AudienceService {
     @Autowired
     private DataAccessFacade dataAccessFacade;
 
+    @Autowired
+    private ConsumptionStatsAggregator consumptionStatsAggregator;
+
+    /** 消费统计是否使用写后合并（false 则每笔打赏执行一次原子 UPDATE） */
+    @Value("${audience.consumption-stats.write-behind:true}")
+    private boolean writeBehindEnabled;
+
+    /** 写后合并模式下已确认存在的观众ID缓存容量和有效期 */
+    @Value("${audience.consumption-stats.exists-cache-size:100000}")
+    private int existsCacheSize;
+
+    @Value("${audience.consumption-stats.exists-cache-ttl-seconds:600}")
+    private long existsCacheTtlSeconds;
+
+    /** 已确认存在的观众ID -> 过期时间（毫秒），只缓存存在的结果，新注册观众不受影响 */
+    private final ConcurrentHashMap<Long, Long> knownAudiences = new ConcurrentHashMap<>();
+
+    /** 观众搜索是否走进程内搜索索引（false 则回退到 LIKE 查询） */
+    @Value("${audience.search.index-enabled:true}")
+    private boolean searchIndexEnabled;
+
+    /** 搜索索引最多返回的结果数（page * size 不能超过该值） */
+    @Value("${audience.search.max-results:1000}")
+    private int searchMaxResults;
+
     /**
      * 创建观众（注册用户）
      */
@@ -221,8 +255,10 @@ public class AudienceService {
 
     /**
      * 搜索观众（按昵称关键词）
+     * 按相关度排序的结果只知道是否还有下一页，不统计总数；
+     * 搜索索引关闭或尚未加载完成时回退到 LIKE 查询
      */
-    public Page<AudienceDTO> searchAudiences(String keyword, Integer page, Integer size) {
+    public Slice<AudienceDTO> searchAudiences(String keyword, Integer page, Integer size) {
         try {
             if (keyword == null || keyword.trim().isEmpty()) {
                 throw new ValidationException("搜索关键词不能为空");
@@ -235,9 +271,30 @@ public class AudienceService {
             }
 
             Pageable pageable = PageRequest.of(page - 1, size);
-            // 通过DataAccessFacade搜索观众
-            Page<Audience> audiences = dataAccessFacade.audience().searchByKeyword(keyword, pageable);
-            return audiences.map(a -> BeanUtil.convert(a, AudienceDTO.class));
+            if (searchIndexEnabled && (long) page * size > searchMaxResults) {
+                throw new ValidationException("搜索结果最多返回" + searchMaxResults + "条，请输入更精确的关键词");
+            }
+
+            // 多取一条用于判断是否还有下一页；结果按相关度排序，再按ID批量回表
+            Optional<List<NgramIndex.Hit>> indexed = searchIndexEnabled
+                ? dataAccessFacade.userSearchIndex().searchAudiences(keyword, page * size + 1)
+                : Optional.empty();
+            if (indexed.isEmpty()) {
+                // 通过DataAccessFacade搜索观众
+                Slice<Audience> audiences = dataAccessFacade.audience().sliceByKeyword(keyword, pageable);
+                return audiences.map(a -> BeanUtil.convert(a, AudienceDTO.class));
+            }
+
+            List<NgramIndex.Hit> hits = indexed.get();
+            int from = Math.min((page - 1) * size, hits.size());
+            int to = Math.min(from + size, hits.size());
+            List<Long> ids = hits.subList(from, to).stream()
+                .map(NgramIndex.Hit::getId)
+                .collect(Collectors.toList());
+            List<AudienceDTO> content = dataAccessFacade.audience().findBatch(ids).stream()
+                .map(a -> BeanUtil.convert(a, AudienceDTO.class))
+                .collect(Collectors.toList());
+            return new SliceImpl<>(content, pageable, hits.size() > to);
         } catch (ValidationException e) {
             throw e;
         } catch (Exception e) {
@@ -246,6 +303,26 @@ public class AudienceService {
         }
     }
 
+    /**
+     * 按游标分页查询观众（按用户ID升序）
+     * keyword 不为空时按关键词搜索，否则按消费等级过滤（为空查询全部）
+     */
+    public CursorPageResponse<AudienceDTO> scrollAudiences(Integer consumptionLevel, String keyword,
+                                                           String cursor, Integer size) {
+        try {
+            if (size == null || size < 1 || size > 100) {
+                throw new ValidationException("每页大小必须在1-100之间");
+            }
+            return dataAccessFacade.audience().seekAudiences(consumptionLevel, keyword, cursor, size)
+                .map(a -> BeanUtil.convert(a, AudienceDTO.class));
+        } catch (ValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            TraceLogger.error("AudienceService", "scrollAudiences", "系统异常: 游标查询观众列表失败", e);
+            throw new BusinessException(ErrorConstants.SYSTEM_ERROR, "查询观众列表失败", e);
+        }
+    }
+
     /**
      * 获取观众的消费统计信息
      */
@@ -280,6 +357,10 @@ public class AudienceService {
 
     /**
      * 更新观众消费统计（打赏后调用）
+     *
+     * 不再加载并保存整个 Audience 实体，避免高频打赏时串行等待行锁和并发丢失更新：
+     * - write-behind 模式（默认）：只在内存中累加增量，由 ConsumptionStatsAggregator 定时批量刷新
+     * - atomic 模式：单条原子 UPDATE 累加金额和次数，并在 SQL 中重算消费等级和粉丝等级
      */
     public void updateConsumptionStats(Long audienceId, BigDecimal rechargeAmount) {
         try {
@@ -290,35 +371,24 @@ public class AudienceService {
                 throw new ValidationException("打赏金额必须大于0");
             }
 
-            // 通过DataAccessFacade查询
-            Audience audience = dataAccessFacade.audience().findById(audienceId)
-                .orElseThrow(() -> new BusinessException(
-                    ErrorConstants.AUDIENCE_NOT_FOUND, "观众不存在"));
-
-            // 更新消费金额和次数
-            audience.setTotalRechargeAmount(audience.getTotalRechargeAmount().add(rechargeAmount));
-            audience.setTotalRechargeCount(audience.getTotalRechargeCount() + 1);
-            audience.setLastRechargeTime(DateTimeUtil.now());
-
-            // 更新消费等级（规则：>5000为高消费，>1000为中消费）
-            if (audience.getTotalRechargeAmount().compareTo(new BigDecimal("5000")) >= 0) {
-                audience.setConsumptionLevel(2);  // 高消费
-            } else if (audience.getTotalRechargeAmount().compareTo(new BigDecimal("1000")) >= 0) {
-                audience.setConsumptionLevel(1);  // 中消费
-            } else {
-                audience.setConsumptionLevel(0);  // 低消费
+            if (writeBehindEnabled) {
+                // 入队前校验观众存在，与 atomic 模式一致返回 AUDIENCE_NOT_FOUND
+                checkAudienceExists(audienceId);
+                consumptionStatsAggregator.record(audienceId, rechargeAmount, DateTimeUtil.now());
+                TraceLogger.debug("AudienceService", "updateConsumptionStats",
+                    "观众消费增量已记录: " + audienceId + ", 金额: " + rechargeAmount);
+                return;
             }
 
-            // 更新粉丝等级（基于消费金额和次数）
-            audience.setVipLevel(calculateVipLevel(audience.getTotalRechargeAmount(), audience.getTotalRechargeCount()));
-
-            audience.setUpdateTime(DateTimeUtil.now());
-
-            // 通过DataAccessFacade更新
-            dataAccessFacade.audience().updateAudience(audience);
+            // 通过DataAccessFacade原子累加
+            boolean updated = dataAccessFacade.audience()
+                .incrementConsumptionStats(audienceId, rechargeAmount, 1L, DateTimeUtil.now());
+            if (!updated) {
+                throw new BusinessException(ErrorConstants.AUDIENCE_NOT_FOUND, "观众不存在");
+            }
 
             TraceLogger.info("AudienceService", "updateConsumptionStats",
-                "观众消费统计已更新: " + audienceId + ", 总金额: " + audience.getTotalRechargeAmount());
+                "观众消费统计已更新: " + audienceId + ", 本次金额: " + rechargeAmount);
         } catch (ValidationException | BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -327,6 +397,26 @@ public class AudienceService {
         }
     }
 
+    /**
+     * 校验观众存在（写后合并模式使用）
+     * 存在的结果在本地缓存 exists-cache-ttl-seconds，热点观众连续打赏不重复查库
+     */
+    private void checkAudienceExists(Long audienceId) {
+        long now = System.currentTimeMillis();
+        Long expireAt = knownAudiences.get(audienceId);
+        if (expireAt != null && expireAt > now) {
+            return;
+        }
+        if (!dataAccessFacade.audience().existsById(audienceId)) {
+            knownAudiences.remove(audienceId);
+            throw new BusinessException(ErrorConstants.AUDIENCE_NOT_FOUND, "观众不存在");
+        }
+        if (knownAudiences.size() >= existsCacheSize) {
+            knownAudiences.clear();
+        }
+        knownAudiences.put(audienceId, now + existsCacheTtlSeconds * 1000);
+    }
+
     /**
      * 禁用观众账户
      */
@@ -389,22 +479,6 @@ public class AudienceService {
         }
     }
 
-    /**
-     * 计算粉丝等级
-     */
-    private Integer calculateVipLevel(BigDecimal totalAmount, Long totalCount) {
-        if (totalAmount.compareTo(new BigDecimal("10000")) >= 0 && totalCount >= 100) {
-            return 4;  // 超级粉丝
-        } else if (totalAmount.compareTo(new BigDecimal("5000")) >= 0 && totalCount >= 50) {
-            return 3;  // 金粉
-        } else if (totalAmount.compareTo(new BigDecimal("1000")) >= 0 && totalCount >= 10) {
-            return 2;  // 银粉
-        } else if (totalAmount.compareTo(new BigDecimal("100")) >= 0 && totalCount >= 3) {
-            return 1;  // 铁粉
-        }
-        return 0;  // 普通
-    }
-
     /**
      * 获取消费等级描述
      */
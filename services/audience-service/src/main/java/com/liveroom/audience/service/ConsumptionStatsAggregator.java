@@ -0,0 +1,130 @@
+package com.liveroom.audience.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import common.logger.TraceLogger;
+import common.service.AudienceService.ConsumptionDelta;
+import common.service.DataAccessFacade;
+
+/**
+ * 观众消费统计写后合并器（Write-Behind）
+ *
+ * 打赏线程只在内存中累加每个观众的增量，不访问数据库；
+ * 定时任务每隔几百毫秒将累计的增量通过一次 JDBC batch 原子累加到 audience 表。
+ * 同一观众在一个刷新周期内的多次打赏合并为一条 UPDATE，热点行锁时间与打赏频率无关。
+ * 在打赏事务中记录的增量等事务提交后才入队，回滚的打赏不会累加到消费统计。
+ *
+ * 注意：进程异常退出会丢失最后一个周期内未刷新的增量，
+ * 打赏明细仍在 recharge 表中，可据此重算。
+ */
+@Component
+@Slf4j
+public class ConsumptionStatsAggregator {
+
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
+    /** 待刷新的增量，key = 观众ID */
+    private final ConcurrentHashMap<Long, ConsumptionDelta> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一笔打赏增量（仅内存操作）
+     * 存在事务时在提交后入队，事务回滚则丢弃
+     */
+    public void record(Long audienceId, BigDecimal amount, LocalDateTime rechargeTime) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(audienceId, amount, rechargeTime);
+                }
+            });
+        } else {
+            accumulate(audienceId, amount, rechargeTime);
+        }
+    }
+
+    private void accumulate(Long audienceId, BigDecimal amount, LocalDateTime rechargeTime) {
+        // compute 在同一个 key 上与 flush 中的 remove 互斥，不会丢失增量
+        pending.compute(audienceId, (id, delta) -> {
+            if (delta == null) {
+                return new ConsumptionDelta(id, amount, 1L, rechargeTime);
+            }
+            delta.setAmount(delta.getAmount().add(amount));
+            delta.setCount(delta.getCount() + 1);
+            if (rechargeTime.isAfter(delta.getLastRechargeTime())) {
+                delta.setLastRechargeTime(rechargeTime);
+            }
+            return delta;
+        });
+    }
+
+    /**
+     * 获取待刷新的观众数
+     */
+    public int getPendingSize() {
+        return pending.size();
+    }
+
+    /**
+     * 定时刷新增量到数据库
+     */
+    @Scheduled(fixedDelayString = "${audience.consumption-stats.flush-interval-ms:300}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<ConsumptionDelta> batch = new ArrayList<>(pending.size());
+        for (Long audienceId : pending.keySet()) {
+            ConsumptionDelta delta = pending.remove(audienceId);
+            if (delta != null) {
+                batch.add(delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int updated = dataAccessFacade.audience().batchIncrementConsumptionStats(batch);
+            TraceLogger.debug("ConsumptionStatsAggregator", "flush",
+                String.format("消费统计已刷新: 观众数=%d, 更新行数=%d", batch.size(), updated));
+        } catch (Exception e) {
+            // 刷新失败时将增量合并回待刷新队列，下个周期重试
+            batch.forEach(this::merge);
+            TraceLogger.error("ConsumptionStatsAggregator", "flush",
+                "消费统计刷新失败，已放回队列: 观众数=" + batch.size(), e);
+        }
+    }
+
+    /**
+     * 停机前刷新剩余增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        TraceLogger.info("ConsumptionStatsAggregator", "shutdown", "停机刷新消费统计: 观众数=" + pending.size());
+        flush();
+    }
+
+    private void merge(ConsumptionDelta failed) {
+        pending.merge(failed.getUserId(), failed, (current, retry) -> {
+            current.setAmount(current.getAmount().add(retry.getAmount()));
+            current.setCount(current.getCount() + retry.getCount());
+            if (retry.getLastRechargeTime().isAfter(current.getLastRechargeTime())) {
+                current.setLastRechargeTime(retry.getLastRechargeTime());
+            }
+            return current;
+        });
+    }
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,12 +15,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import common.bean.Recharge;
 import common.constant.ErrorConstants;
 import common.exception.BusinessException;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
 import common.response.BaseResponse;
+import common.response.CursorPageResponse;
 import common.service.DataAccessFacade;
 import common.util.BeanUtil;
 import common.util.DateTimeUtil;
@@ -62,7 +66,7 @@ public class RechargeService {
      * 流程：
      * 1. 参数验证 + 幂等性检查
      * 2. 保存打赏记录到DB
-     * 3. 异步通知主播服务和更新观众消费统计
+     * 3. 事务提交后通知主播服务，更新观众消费统计
      * 4. 加入同步队列（待同步到财务服务）
      * 5. 返回success（<200ms）
      *
@@ -117,31 +121,9 @@ public class RechargeService {
             TraceLogger.info("RechargeService", "createRecharge",
                     "打赏记录已保存到数据库: rechargeId=" + savedRecharge.getRechargeId());
 
-            // 5. 异步通知主播服务更新直播间实时数据（降级处理）
-            if (anchorServiceClient != null) {
-                try {
-                    TraceLogger.info("RechargeService", "createRecharge",
-                            String.format("通知主播服务更新直播间数据: liveRoomId=%d, amount=%s",
-                                    savedRecharge.getLiveRoomId(), savedRecharge.getRechargeAmount()));
-
-                    BaseResponse<Void> response = anchorServiceClient.notifyReward(
-                            savedRecharge.getLiveRoomId(),
-                            savedRecharge.getAudienceId(),
-                            savedRecharge.getRechargeAmount());
-
-                    if (response != null && response.getCode() == 0) {
-                        TraceLogger.info("RechargeService", "createRecharge",
-                                "主播服务更新成功: liveRoomId=" + savedRecharge.getLiveRoomId());
-                    } else {
-                        TraceLogger.warn("RechargeService", "createRecharge",
-                                "主播服务更新失败: " + (response != null ? response.getMessage() : "无响应"));
-                    }
-                } catch (Exception e) {
-                    // 降级处理：主播服务调用失败不影响打赏记录保存
-                    TraceLogger.error("RechargeService", "createRecharge",
-                            "调用主播服务失败，打赏已记录但未实时更新直播间", e);
-                }
-            }
+            // 5. 事务提交后通知主播服务更新直播间实时数据和贡献榜（降级处理）
+            //    提交前通知会让回滚的打赏计入贡献榜，破坏主播服务对账“Redis 只可能少计”的前提
+            notifyAnchorAfterCommit(savedRecharge);
 
             // 6. 异步更新观众消费统计（降级处理）
             try {
@@ -174,6 +156,53 @@ public class RechargeService {
         }
     }
 
+    /**
+     * 打赏事务提交后通知主播服务；无事务时立即通知
+     */
+    private void notifyAnchorAfterCommit(Recharge savedRecharge) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyAnchor(savedRecharge);
+                }
+            });
+        } else {
+            notifyAnchor(savedRecharge);
+        }
+    }
+
+    /**
+     * 通知主播服务更新直播间实时数据，失败只记日志，不影响已提交的打赏
+     */
+    private void notifyAnchor(Recharge savedRecharge) {
+        if (anchorServiceClient == null) {
+            return;
+        }
+        try {
+            TraceLogger.info("RechargeService", "createRecharge",
+                    String.format("通知主播服务更新直播间数据: liveRoomId=%d, amount=%s",
+                            savedRecharge.getLiveRoomId(), savedRecharge.getRechargeAmount()));
+
+            BaseResponse<Void> response = anchorServiceClient.notifyReward(
+                    savedRecharge.getLiveRoomId(),
+                    savedRecharge.getAudienceId(),
+                    savedRecharge.getRechargeAmount());
+
+            if (response != null && response.getCode() == 0) {
+                TraceLogger.info("RechargeService", "createRecharge",
+                        "主播服务更新成功: liveRoomId=" + savedRecharge.getLiveRoomId());
+            } else {
+                TraceLogger.warn("RechargeService", "createRecharge",
+                        "主播服务更新失败: " + (response != null ? response.getMessage() : "无响应"));
+            }
+        } catch (Exception e) {
+            // 降级处理：主播服务调用失败不影响打赏记录保存
+            TraceLogger.error("RechargeService", "createRecharge",
+                    "调用主播服务失败，打赏已记录但未实时更新直播间", e);
+        }
+    }
+
     /**
      * 获取同步队列中的打赏记录（供同步任务调用）
      */
@@ -289,6 +318,48 @@ public class RechargeService {
         }
     }
 
+    /**
+     * 按游标分页查询主播的打赏列表（打赏时间倒序）
+     */
+    public CursorPageResponse<RechargeDTO> scrollAnchorRecharges(Long anchorId, String cursor, Integer size) {
+        try {
+            if (anchorId == null || anchorId <= 0) {
+                throw new ValidationException("主播ID不合法");
+            }
+            if (size == null || size < 1 || size > 100) {
+                throw new ValidationException("每页大小必须在1-100之间");
+            }
+            return dataAccessFacade.recharge().seekByAnchorId(anchorId, cursor, size)
+                .map(r -> BeanUtil.convert(r, RechargeDTO.class));
+        } catch (ValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            TraceLogger.error("RechargeService", "scrollAnchorRecharges", "系统异常: 游标查询主播打赏列表失败, anchorId=" + anchorId, e);
+            throw new BusinessException(ErrorConstants.SYSTEM_ERROR, "查询打赏列表失败", e);
+        }
+    }
+
+    /**
+     * 按游标分页查询观众的打赏历史（打赏时间倒序）
+     */
+    public CursorPageResponse<RechargeDTO> scrollAudienceRecharges(Long audienceId, String cursor, Integer size) {
+        try {
+            if (audienceId == null || audienceId <= 0) {
+                throw new ValidationException("观众ID不合法");
+            }
+            if (size == null || size < 1 || size > 100) {
+                throw new ValidationException("每页大小必须在1-100之间");
+            }
+            return dataAccessFacade.recharge().seekByAudienceId(audienceId, cursor, size)
+                .map(r -> BeanUtil.convert(r, RechargeDTO.class));
+        } catch (ValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            TraceLogger.error("RechargeService", "scrollAudienceRecharges", "系统异常: 游标查询观众打赏历史失败, audienceId=" + audienceId, e);
+            throw new BusinessException(ErrorConstants.SYSTEM_ERROR, "查询打赏列表失败", e);
+        }
+    }
+
     /**
      * 查询直播间的打赏列表
      */
@@ -336,6 +407,7 @@ public class RechargeService {
                 .collect(Collectors.toList());
 
             // 按观众ID分组统计
+            AtomicInteger rank = new AtomicInteger(0);
             return recharges.stream()
                 .collect(Collectors.groupingBy(
                     Recharge::getAudienceId,
@@ -350,7 +422,7 @@ public class RechargeService {
                 .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
                 .limit(10)
                 .map(entry -> Top10AudienceVO.builder()
-                    .rank((int)(entry.getKey() % 10 + 1))
+                    .rank(rank.incrementAndGet())
                     .audienceId(entry.getKey())
                     .totalRechargeAmount(entry.getValue())
                     .build()
@@ -7,9 +7,12 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import feign.FeignException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import common.bean.ApiResponse;
 import common.bean.Recharge;
 import common.bean.SyncProgress;
 import common.constant.ErrorConstants;
@@ -39,6 +42,17 @@ public class SyncService {
     @Autowired
     private FinanceServiceClient financeServiceClient;
 
+    /** 是否优先使用二进制格式同步（财务服务不支持时自动回退 JSON） */
+    @Value("${audience.sync.binary.enabled:true}")
+    private boolean binaryEnabled;
+
+    /** 回退 JSON 后，间隔多久重新尝试二进制格式 */
+    @Value("${audience.sync.binary.reprobe-interval-ms:600000}")
+    private long binaryReprobeIntervalMs;
+
+    /** 二进制格式暂停到的时间点（毫秒） */
+    private volatile long binaryDisabledUntil = 0L;
+
     /**
      * 同步打赏数据到财务服务（从内存队列批量同步）
      */
@@ -64,7 +78,7 @@ public class SyncService {
 
             // 3. 调用财务服务API进行批量同步
             try {
-                financeServiceClient.receiveBatchRecharges(batchDTO);
+                sendBatch(batchDTO);
                 TraceLogger.info("SyncService", "syncRechargeDataToFinance", 
                         String.format("打赏数据同步成功，batchId=%s, 共%d条记录，总金额=%s",
                                 batchDTO.getBatchId(), batchDTO.getTotalCount(), batchDTO.getTotalAmount()));
@@ -83,6 +97,49 @@ public class SyncService {
         }
     }
 
+    /**
+     * 发送批次：优先二进制格式，财务服务返回 415 时回退 JSON 并暂停二进制一段时间
+     * 降级响应（财务服务不可用）按失败处理
+     */
+    private void sendBatch(BatchRechargeDTO batchDTO) {
+        if (binaryEnabled && System.currentTimeMillis() >= binaryDisabledUntil) {
+            try {
+                checkResponse(financeServiceClient.receiveBatchRechargesBinary(batchDTO));
+                return;
+            } catch (RuntimeException e) {
+                if (!isUnsupportedMediaType(e)) {
+                    throw e;
+                }
+                binaryDisabledUntil = System.currentTimeMillis() + binaryReprobeIntervalMs;
+                TraceLogger.warn("SyncService", "sendBatch",
+                        "财务服务不支持二进制格式，回退 JSON，batchId=" + batchDTO.getBatchId());
+            }
+        }
+        checkResponse(financeServiceClient.receiveBatchRecharges(batchDTO));
+    }
+
+    private static void checkResponse(ApiResponse<String> response) {
+        if (response == null || response.getCode() != ErrorConstants.SUCCESS) {
+            throw new BusinessException(ErrorConstants.SYSTEM_ERROR,
+                    "财务服务拒绝批次: " + (response != null ? response.getMessage() : "空响应"));
+        }
+    }
+
+    /**
+     * 415 可能被熔断器包装（如 HystrixRuntimeException），沿异常链查找
+     */
+    private static boolean isUnsupportedMediaType(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof FeignException.UnsupportedMediaType) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
     /**
      * 构建批量同步DTO
      */
@@ -0,0 +1,64 @@
+package com.liveroom.audience.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import common.service.query.UserSearchIndexService;
+
+/**
+ * 观众搜索索引定时任务
+ * 启动后在后台线程加载索引（加载完成前搜索回退到 LIKE 查询），之后按 user.update_time 水位追加昵称修改和新注册观众，每天凌晨全量重建以清理物理删除的观众
+ */
+@Component
+@Slf4j
+public class UserSearchIndexTask {
+
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
+    @Value("${audience.search.index-enabled:true}")
+    private boolean searchIndexEnabled;
+
+    /**
+     * 启动后在后台加载观众搜索索引，不阻塞启动，也不占用第一个搜索请求的线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (searchIndexEnabled) {
+            dataAccessFacade.userSearchIndex().buildAsync(UserSearchIndexService.UserKind.AUDIENCE);
+        }
+    }
+
+    /**
+     * 追加用户修改（索引未加载时不做任何事）
+     */
+    @Scheduled(fixedDelayString = "${audience.search.poll-interval-ms:10000}")
+    public void applyChanges() {
+        try {
+            dataAccessFacade.userSearchIndex().applyChanges();
+        } catch (Exception e) {
+            TraceLogger.error("UserSearchIndexTask", "applyChanges", "追加观众搜索索引修改失败", e);
+        }
+    }
+
+    /**
+     * 每天 03:30 全量重建（仅在索引已加载时）
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void rebuild() {
+        try {
+            UserSearchIndexService index = dataAccessFacade.userSearchIndex();
+            if (index.getIndexedCount(UserSearchIndexService.UserKind.AUDIENCE) >= 0) {
+                index.rebuild(UserSearchIndexService.UserKind.AUDIENCE);
+            }
+        } catch (Exception e) {
+            TraceLogger.error("UserSearchIndexTask", "rebuild", "重建观众搜索索引失败", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package common.annotation;
+
+import common.bulkhead.BulkheadType;
+
+import java.lang.annotation.*;
+
+/**
+ * 舱壁隔离注解
+ *
+ * 标注在 Controller 方法或类上，声明该接口所属的流量类别。开启舱壁（bulkhead.enabled=true）时
+ * BulkheadInterceptor 按类别做并发准入：每个类别最多同时占用 max-concurrent 个请求线程，
+ * 排队超过 max-queue 直接拒绝（503），高优先级类别有请求排队时低优先级类别让路。
+ * 方法上的注解优先于类上的注解，未标注的接口不受限制。
+ *
+ * 使用示例：
+ *
+ * @Bulkhead(BulkheadType.REPORTING)
+ * @GetMapping("/top10")
+ * public BaseResponse<List<Top10AudienceVO>> getTop10Audiences(...) {
+ *     ...
+ * }
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    /**
+     * 流量类别
+     */
+    BulkheadType value();
+}
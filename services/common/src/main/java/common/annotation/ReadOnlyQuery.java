@@ -0,0 +1,29 @@
+package common.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 只读查询注解
+ *
+ * 标注的方法（或类中的所有公共方法）在开启读写分离（spring.datasource.replica.enabled=true）时
+ * 由 ReadOnlyQueryAspect 路由到只读副本连接池：
+ * - 副本复制延迟超过 spring.datasource.replica.max-lag-seconds 或不可用时回退到主库
+ * - 回退到主库的连接同样设置为只读会话，误写会直接报错
+ * - 已经处在读写事务中时不切换，继续使用事务绑定的主库连接（保证读到本事务的写入）
+ *
+ * 适用于允许秒级延迟的分析、排行查询；依赖增量水位的读取（如 update_time 水位追加）不要使用，
+ * 副本延迟可能让水位越过尚未复制过来的记录。
+ *
+ * 使用示例：
+ *
+ * @ReadOnlyQuery
+ * @Transactional(readOnly = true)
+ * public List<AnchorIncomeRanking> getTopAnchorsByIncome(...) {
+ *     ...
+ * }
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlyQuery {
+}
@@ -0,0 +1,44 @@
+package common.aop;
+
+import common.datasource.DataSourceRoute;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 只读查询路由切面
+ *
+ * 功能：
+ * - 拦截带 @ReadOnlyQuery 注解的方法（或类）
+ * - 设置当前线程的只读路由标记，方法返回后恢复
+ * - 已在读写事务中时不设置标记，沿用事务绑定的主库连接
+ *
+ * 优先级最高，保证在 @Transactional 开启事务、获取连接之前设置好路由标记。
+ * 仅在开启读写分离（spring.datasource.replica.enabled=true）时生效。
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadOnlyQueryAspect {
+
+    @Around("@within(common.annotation.ReadOnlyQuery) || @annotation(common.annotation.ReadOnlyQuery)")
+    public Object routeReadOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+
+        boolean previous = DataSourceRoute.enterReadOnly();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRoute.restore(previous);
+        }
+    }
+}
@@ -21,12 +21,14 @@ import common.bean.liveroom.LiveRoom;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "recharge", indexes = {
+@Table(name = "recharge", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_trace_time", columnNames = {"trace_id", "recharge_time"})
+}, indexes = {
         @Index(name = "idx_live_room_id", columnList = "live_room_id"),
-        @Index(name = "idx_anchor_id", columnList = "anchor_id"),
-        @Index(name = "idx_audience_id", columnList = "audience_id"),
+        @Index(name = "idx_anchor_time", columnList = "anchor_id, recharge_time"),
+        @Index(name = "idx_audience_time", columnList = "audience_id, recharge_time"),
         @Index(name = "idx_recharge_time", columnList = "recharge_time"),
-        @Index(name = "idx_trace_id", columnList = "trace_id")
+        @Index(name = "idx_status_create_time", columnList = "status, create_time")
 })
 public class Recharge implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -63,8 +65,8 @@ public class Recharge implements Serializable {
     @Column(nullable = false)
     private LocalDateTime rechargeTime;
 
-    /** traceId (用于幂等性控制和链路追踪) */
-    @Column(unique = true, length = 64)
+    /** traceId (用于幂等性控制和链路追踪，按月分区后全局唯一由 recharge_trace 表保证) */
+    @Column(length = 64)
     private String traceId;
 
     /** 打赏类型：0-普通打赏、1-礼物、2-跳过广告等 */
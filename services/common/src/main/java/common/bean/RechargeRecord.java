@@ -18,27 +18,31 @@ import javax.persistence.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "recharge_record", indexes = {
-        @Index(name = "idx_trace_id", columnList = "trace_id"),
-        @Index(name = "idx_anchor_id", columnList = "anchor_id"),
+@Table(name = "recharge_record", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_trace_time", columnNames = {"trace_id", "recharge_time"})
+}, indexes = {
+        @Index(name = "idx_anchor_status_time", columnList = "anchor_id, settlement_status, recharge_time"),
+        @Index(name = "idx_anchor_time_amount", columnList = "anchor_id, recharge_time, recharge_amount, audience_id"),
         @Index(name = "idx_audience_id", columnList = "audience_id"),
-        @Index(name = "idx_recharge_time", columnList = "recharge_time"),
+        @Index(name = "idx_time_anchor_amount", columnList = "recharge_time, anchor_id, anchor_name, recharge_amount"),
         @Index(name = "idx_sync_batch_id", columnList = "sync_batch_id"),
-        @Index(name = "idx_settlement_status", columnList = "settlement_status")
+        @Index(name = "idx_status_time", columnList = "settlement_status, recharge_time")
 })
 public class RechargeRecord implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "recharge_record_id")
+    @TableGenerator(name = "recharge_record_id", table = "id_sequence", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "recharge_record", allocationSize = 1000)
     private Long recordId;
 
     /** 原始打赏记录ID（来自观众服务） */
     @Column(nullable = false)
     private Long originalRechargeId;
 
-    /** traceId（唯一标识，用于幂等性） */
-    @Column(nullable = false, unique = true, length = 64)
+    /** traceId（用于幂等性，与打赏时间组成唯一键） */
+    @Column(nullable = false, length = 64)
     private String traceId;
 
     /** 主播ID */
@@ -26,7 +26,9 @@ public class SettlementDetail implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "settlement_detail_id")
+    @TableGenerator(name = "settlement_detail_id", table = "id_sequence", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "settlement_detail", allocationSize = 100)
     private Long detailId;
 
     /** 结算ID */
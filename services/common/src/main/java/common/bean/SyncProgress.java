@@ -32,7 +32,7 @@ public class SyncProgress implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long progressId;
 
-    /** 同步类型：0-打赏数据同步、1-用户数据同步 */
+    /** 同步类型：0-打赏数据同步、1-用户数据同步、2-观众RFM画像、3-主播金额分位数草图 */
     @Column(nullable = false)
     @Builder.Default
     private Integer syncType = 0;
@@ -24,7 +24,9 @@ public class Tag implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tag_id")
+    @TableGenerator(name = "tag_id", table = "id_sequence", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "tag", allocationSize = 100)
     private Long tagId;
 
     /** 标签名称 */
@@ -19,7 +19,7 @@ import javax.persistence.*;
 @Builder
 @Entity
 @Table(name = "withdrawal", indexes = {
-        @Index(name = "idx_anchor_id", columnList = "anchor_id"),
+        @Index(name = "idx_anchor_applied_time", columnList = "anchor_id, applied_time"),
         @Index(name = "idx_status", columnList = "status"),
         @Index(name = "idx_applied_time", columnList = "applied_time")
 })
@@ -27,7 +27,9 @@ public class Withdrawal implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "withdrawal_id")
+    @TableGenerator(name = "withdrawal_id", table = "id_sequence", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "withdrawal", allocationSize = 100)
     private Long withdrawalId;
 
     /** 主播ID */
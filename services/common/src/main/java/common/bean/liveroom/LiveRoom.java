@@ -20,7 +20,7 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "live_room", indexes = {
         @Index(name = "idx_anchor_id", columnList = "anchor_id"),
-        @Index(name = "idx_room_status", columnList = "room_status"),
+        @Index(name = "idx_status_viewers", columnList = "room_status, total_viewers"),
         @Index(name = "idx_start_time", columnList = "start_time")
 })
 public class LiveRoom implements Serializable {
@@ -0,0 +1,73 @@
+package common.bean.user;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 观众RFM画像 - 由打赏流水增量维护
+ * 与 Audience 一一对应（观众ID作为主键）
+ * 由数据分析服务按打赏ID水位定时更新，画像和分层查询直接读取
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "audience_rfm")
+public class AudienceRfm implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** 观众ID */
+    @Id
+    @Column(name = "audience_id")
+    private Long audienceId;
+
+    /** 首次打赏时间 */
+    @Column(nullable = false)
+    private LocalDateTime firstTipTime;
+
+    /** 最近打赏时间 */
+    @Column(nullable = false)
+    private LocalDateTime lastTipTime;
+
+    /** 累计打赏笔数 */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long tipCount = 0L;
+
+    /** 累计打赏金额(分) */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long sumCents = 0L;
+
+    /** 衰减打赏金额(元)，以 scoreTime 为基准 */
+    @Column(nullable = false)
+    @Builder.Default
+    private Double decayedScore = 0D;
+
+    /** 衰减得分基准时间 */
+    @Column(nullable = false)
+    private LocalDateTime scoreTime;
+
+    /** RFM综合得分 */
+    @Column(nullable = false, precision = 4, scale = 2)
+    @Builder.Default
+    private BigDecimal rfmScore = BigDecimal.ZERO;
+
+    /** 分层：1-低价值、2-中价值、3-高价值 */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer segment = 1;
+
+    /** 更新时间 */
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime updateTime;
+}
@@ -21,7 +21,8 @@ import javax.persistence.*;
 @Table(name = "user", indexes = {
         @Index(name = "idx_username", columnList = "username"),
         @Index(name = "idx_email", columnList = "email"),
-        @Index(name = "idx_user_type", columnList = "user_type")
+        @Index(name = "idx_user_type", columnList = "user_type"),
+        @Index(name = "idx_update_time", columnList = "update_time")
 })
 @Inheritance(strategy = InheritanceType.JOINED)
 @DiscriminatorColumn(name = "user_type", discriminatorType = DiscriminatorType.INTEGER)
@@ -29,7 +30,9 @@ public class User implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = "id_sequence", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "user", allocationSize = 100)
     private Long userId;
 
     /** 用户类型：0-游客、1-注册用户 */
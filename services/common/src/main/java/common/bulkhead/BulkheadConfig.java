@@ -0,0 +1,69 @@
+package common.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.logger.AppLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 舱壁隔离配置
+ * 根据 bulkhead.enabled 开关决定是否启用
+ *
+ * 把同一服务内的接口按 @Bulkhead 分为实时、事务、报表三类，各自限制占用的请求线程数（即数据库连接数），
+ * 秒级的报表查询再多也只能占满自己的配额，不会拖慢打赏和提现。
+ * 拦截器排在 TraceIdInterceptor 之后，拒绝日志带 traceId。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bulkhead", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final BulkheadProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    public BulkheadConfig(BulkheadProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        AppLogger.logServiceInitialize("Bulkhead Configuration");
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry() {
+        List<BulkheadPartition> partitions = new ArrayList<>();
+        for (BulkheadType type : BulkheadType.values()) {
+            BulkheadProperties.Partition settings = properties.forType(type);
+            partitions.add(new BulkheadPartition(type, settings.getMaxConcurrent(), settings.getMaxQueue(),
+                    settings.getMaxWaitMs(), settings.getPriority()));
+            AppLogger.logConfiguration("bulkhead." + type.getKey(),
+                    "maxConcurrent=" + settings.getMaxConcurrent() + ", maxQueue=" + settings.getMaxQueue()
+                            + ", maxWaitMs=" + settings.getMaxWaitMs() + ", priority=" + settings.getPriority());
+        }
+
+        int reportingConnections = properties.getReporting().getMaxConcurrent();
+        if (reportingConnections * 2 > connectionPoolSize) {
+            AppLogger.warn("报表舱壁并发数 {} 超过连接池大小 {} 的一半，报表高峰时打赏仍可能等待连接",
+                    reportingConnections, connectionPoolSize);
+        }
+        return new BulkheadRegistry(partitions);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new BulkheadInterceptor(bulkheadRegistry(), objectMapper,
+                        properties.getRetryAfterSeconds()))
+                .addPathPatterns("/**")
+                .excludePathPatterns("/actuator/**")
+                .order(1);
+    }
+}
@@ -0,0 +1,118 @@
+package common.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.annotation.Bulkhead;
+import common.constant.ErrorConstants;
+import common.logger.TraceLogger;
+import common.response.BaseResponse;
+import common.response.ResponseUtil;
+import org.slf4j.MDC;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 舱壁准入拦截器
+ *
+ * 进入 @Bulkhead 标注的接口前申请所属类别的许可，请求结束（或异步处理开始、释放请求线程）时归还。
+ * 被拒绝的请求返回 503 + Retry-After，响应体与 GlobalExceptionHandler 的格式一致。
+ * 异步请求（如 SSE）的二次分派不再申请许可。
+ */
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".PERMIT";
+
+    private final BulkheadRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final int retryAfterSeconds;
+
+    public BulkheadInterceptor(BulkheadRegistry registry, ObjectMapper objectMapper, int retryAfterSeconds) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        BulkheadType type = resolveType((HandlerMethod) handler);
+        if (type == null) {
+            return true;
+        }
+
+        BulkheadPartition.Admission admission;
+        try {
+            admission = registry.acquire(type);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = BulkheadPartition.Admission.TIMEOUT;
+        }
+        if (admission == BulkheadPartition.Admission.ADMITTED) {
+            request.setAttribute(PERMIT_ATTRIBUTE, type);
+            return true;
+        }
+
+        reject(request, response, registry.get(type), admission);
+        return false;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        releasePermit(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        releasePermit(request);
+    }
+
+    private static BulkheadType resolveType(HandlerMethod handlerMethod) {
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        }
+        return bulkhead != null ? bulkhead.value() : null;
+    }
+
+    private void releasePermit(HttpServletRequest request) {
+        Object type = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (type != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            registry.release((BulkheadType) type);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        BulkheadPartition partition, BulkheadPartition.Admission admission) throws IOException {
+        if (partition.shouldLogRejection()) {
+            TraceLogger.warn("bulkhead", "request_rejected", partition.getType().getKey(),
+                    admission, request.getRequestURI(),
+                    "inUse=" + partition.getInUse() + "/" + partition.getMaxConcurrent(),
+                    "waiting=" + partition.getWaiting(), "rejected=" + partition.getRejected());
+        }
+
+        BaseResponse<Void> body = ResponseUtil.error(ErrorConstants.SERVICE_UNAVAILABLE,
+                "服务繁忙，请稍后重试");
+        body.setTraceId(MDC.get("traceId"));
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,124 @@
+package common.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个流量类别的舱壁
+ *
+ * 公平信号量控制并发数，排队计数控制队列长度：
+ * - 有空闲许可：直接放行
+ * - 排队数已满：立即拒绝（QUEUE_FULL），不占用请求线程等待
+ * - 否则排队等待 maxWaitMs，超时拒绝（TIMEOUT）
+ */
+public class BulkheadPartition {
+
+    /**
+     * 准入结果
+     */
+    public enum Admission {
+        /** 放行 */
+        ADMITTED,
+        /** 排队已满 */
+        QUEUE_FULL,
+        /** 等待许可超时 */
+        TIMEOUT,
+        /** 让路给更高优先级的类别 */
+        YIELDED
+    }
+
+    private static final long REJECT_LOG_INTERVAL_MS = 1000;
+
+    private final BulkheadType type;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMs;
+    private final int priority;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong lastRejectLogMs = new AtomicLong();
+
+    public BulkheadPartition(BulkheadType type, int maxConcurrent, int maxQueue, long maxWaitMs, int priority) {
+        this.type = type;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitMs = maxWaitMs;
+        this.priority = priority;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * 申请许可，放行后必须调用 release()
+     */
+    public Admission acquire() throws InterruptedException {
+        if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+            admitted.increment();
+            return Admission.ADMITTED;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            return reject(Admission.QUEUE_FULL);
+        }
+        try {
+            if (permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                admitted.increment();
+                return Admission.ADMITTED;
+            }
+            return reject(Admission.TIMEOUT);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    Admission reject(Admission admission) {
+        rejected.increment();
+        return admission;
+    }
+
+    /**
+     * 距上次记录拒绝日志超过 1 秒时返回 true，避免过载时日志刷屏
+     */
+    boolean shouldLogRejection() {
+        long now = System.currentTimeMillis();
+        long last = lastRejectLogMs.get();
+        return now - last >= REJECT_LOG_INTERVAL_MS && lastRejectLogMs.compareAndSet(last, now);
+    }
+
+    public BulkheadType getType() {
+        return type;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getInUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
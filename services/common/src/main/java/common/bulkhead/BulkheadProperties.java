@@ -0,0 +1,99 @@
+package common.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 舱壁隔离配置
+ * 配置前缀: bulkhead
+ *
+ * 示例：
+ * <pre>
+ * bulkhead:
+ *   enabled: true
+ *   reporting:
+ *     max-concurrent: 4
+ *     max-queue: 8
+ * </pre>
+ *
+ * 每个请求最多占用一个数据库连接，各类别的 max-concurrent 同时也是该类别最多占用的连接数；
+ * reporting 的 max-concurrent 应明显小于 spring.datasource.hikari.maximum-pool-size，
+ * 给实时和事务流量留出连接。
+ */
+@ConfigurationProperties(prefix = "bulkhead")
+@Data
+public class BulkheadProperties {
+
+    /**
+     * 是否开启舱壁隔离
+     * 默认: false
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 拒绝响应的 Retry-After（秒）
+     * 默认: 1
+     */
+    private Integer retryAfterSeconds = 1;
+
+    /**
+     * 实时流量（打赏、直播间事件）
+     */
+    private Partition realtime = Partition.of(120, 200, 500L, 0);
+
+    /**
+     * 事务流量（提现、结算、同步）
+     */
+    private Partition transactional = Partition.of(60, 100, 1000L, 1);
+
+    /**
+     * 报表流量（统计、排行、历史）
+     */
+    private Partition reporting = Partition.of(4, 8, 2000L, 2);
+
+    /**
+     * 获取类别对应的配置
+     */
+    public Partition forType(BulkheadType type) {
+        switch (type) {
+            case REALTIME:
+                return realtime;
+            case TRANSACTIONAL:
+                return transactional;
+            default:
+                return reporting;
+        }
+    }
+
+    @Data
+    public static class Partition {
+        /**
+         * 最大并发请求数（同时占用的请求线程数，也是最多占用的数据库连接数）
+         */
+        private Integer maxConcurrent;
+
+        /**
+         * 最大排队数，超过后直接拒绝
+         */
+        private Integer maxQueue;
+
+        /**
+         * 排队等待许可的最长时间（毫秒）
+         */
+        private Long maxWaitMs;
+
+        /**
+         * 优先级，数值越小越优先；有更优先的类别在排队时本类别的新请求直接拒绝
+         */
+        private Integer priority;
+
+        static Partition of(int maxConcurrent, int maxQueue, long maxWaitMs, int priority) {
+            Partition partition = new Partition();
+            partition.setMaxConcurrent(maxConcurrent);
+            partition.setMaxQueue(maxQueue);
+            partition.setMaxWaitMs(maxWaitMs);
+            partition.setPriority(priority);
+            return partition;
+        }
+    }
+}
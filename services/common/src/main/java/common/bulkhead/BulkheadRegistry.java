@@ -0,0 +1,50 @@
+package common.bulkhead;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 舱壁注册表
+ *
+ * 持有各流量类别的舱壁，并在准入时实现优先级：
+ * 更高优先级（priority 更小）的类别有请求在排队时，说明它的许可已被占满，
+ * 此时低优先级类别的新请求直接拒绝（YIELDED），把请求线程和数据库连接让给打赏、提现。
+ */
+public class BulkheadRegistry {
+
+    private final Map<BulkheadType, BulkheadPartition> partitions = new EnumMap<>(BulkheadType.class);
+
+    public BulkheadRegistry(Collection<BulkheadPartition> partitions) {
+        for (BulkheadPartition partition : partitions) {
+            this.partitions.put(partition.getType(), partition);
+        }
+    }
+
+    /**
+     * 申请许可，放行后必须调用 release(type)
+     */
+    public BulkheadPartition.Admission acquire(BulkheadType type) throws InterruptedException {
+        BulkheadPartition partition = partitions.get(type);
+        for (BulkheadPartition other : partitions.values()) {
+            if (other.getPriority() < partition.getPriority() && other.getWaiting() > 0) {
+                return partition.reject(BulkheadPartition.Admission.YIELDED);
+            }
+        }
+        return partition.acquire();
+    }
+
+    public void release(BulkheadType type) {
+        partitions.get(type).release();
+    }
+
+    public BulkheadPartition get(BulkheadType type) {
+        return partitions.get(type);
+    }
+
+    public List<BulkheadPartition> all() {
+        return new ArrayList<>(partitions.values());
+    }
+}
@@ -0,0 +1,26 @@
+package common.bulkhead;
+
+/**
+ * 舱壁流量类别
+ */
+public enum BulkheadType {
+
+    /** 实时流量：打赏、直播间进出和弹幕等，延迟最敏感 */
+    REALTIME("realtime"),
+
+    /** 事务流量：提现、结算触发、同步写入等短事务 */
+    TRANSACTIONAL("transactional"),
+
+    /** 报表流量：统计、排行、历史分页等秒级查询 */
+    REPORTING("reporting");
+
+    private final String key;
+
+    BulkheadType(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,556 @@
+package common.codec;
+
+import lombok.Data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 批量打赏同步的二进制编码（观众服务 -> 财务服务）
+ *
+ * 内容类型 application/x-recharge-batch，格式（v1）：
+ * <pre>
+ * header : 'R' 'B' version flags
+ * body   : （flags & DEFLATE 时为 varint 原始长度 + deflate 数据）
+ *   batchId, sourceService         字符串（varint 长度+1，0 表示 null）
+ *   batchTime                      zigzag varint（flags & NULL_BATCH_TIME 时省略，解码为 null）
+ *   totalAmount                    金额（flags & NULL_TOTAL_AMOUNT 时省略，解码为 null）
+ *   totalCount                     varint
+ *   dictionary                     varint 数量 + 字符串（traceId 前缀、主播名、观众名）
+ *   items                          varint 数量 + 逐条记录
+ * item   : presence(varint 位图)
+ *   rechargeId / anchorId / audienceId / liveRoomId   与上一条的差值（zigzag）
+ *   rechargeTime                   与上一条的差值（首条相对 batchTime）
+ *   traceId                        "prefix-ts-seq" 格式拆为 字典下标 + 与 rechargeTime 的差值 + seq，否则原样字符串
+ *   anchorName / audienceName      字典下标
+ *   rechargeAmount                 金额
+ *   rechargeType                   varint
+ * 金额   : varint scale + zigzag varint 未缩放值（scale=2 时即为分）
+ * </pre>
+ *
+ * 字段名、ISO 时间、BigDecimal 字符串都不再逐条重复，1000 条的批次体积约为 JSON 的 1/10。
+ * 编码数据和解压后的 body 都不超过 MAX_LENGTH，解码时先校验长度再分配缓冲区。
+ */
+public final class RechargeBatchCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-recharge-batch";
+
+    private static final byte MAGIC_0 = 'R';
+    private static final byte MAGIC_1 = 'B';
+    private static final byte VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int FLAG_NULL_BATCH_TIME = 1 << 1;
+    private static final int FLAG_NULL_TOTAL_AMOUNT = 1 << 2;
+    private static final int KNOWN_FLAGS = FLAG_DEFLATE | FLAG_NULL_BATCH_TIME | FLAG_NULL_TOTAL_AMOUNT;
+
+    /** 编码数据和解压后 body 的最大长度 */
+    public static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    /** deflate 的理论最大压缩比约 1032:1，声明的原始长度超过它说明数据被篡改 */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    /** 超过该长度的未压缩 body 才做 deflate */
+    private static final int DEFLATE_MIN_SIZE = 1024;
+
+    private static final int HAS_RECHARGE_ID = 1;
+    private static final int HAS_TRACE_ID = 1 << 1;
+    private static final int HAS_ANCHOR_ID = 1 << 2;
+    private static final int HAS_ANCHOR_NAME = 1 << 3;
+    private static final int HAS_AUDIENCE_ID = 1 << 4;
+    private static final int HAS_AUDIENCE_NAME = 1 << 5;
+    private static final int HAS_AMOUNT = 1 << 6;
+    private static final int HAS_RECHARGE_TIME = 1 << 7;
+    private static final int HAS_RECHARGE_TYPE = 1 << 8;
+    private static final int HAS_LIVE_ROOM_ID = 1 << 9;
+
+    private static final int TRACE_RAW = 0;
+    private static final int TRACE_PATTERN = 1;
+
+    /** TraceIdGenerator.generate 的格式：serviceName-timestamp-sequence */
+    private static final Pattern TRACE_ID_PATTERN = Pattern.compile("^(.*)-(\\d{1,18})-(\\d{1,18})$");
+
+    private RechargeBatchCodec() {
+    }
+
+    /**
+     * 编码批次
+     *
+     * @param compress 是否对 body 做 deflate（HTTP 层已 gzip 时无需开启）
+     */
+    public static byte[] encode(Batch batch, boolean compress) {
+        Dictionary dictionary = new Dictionary();
+        Writer items = new Writer(64 + size(batch.getItems()) * 24);
+        writeItems(items, batch, dictionary);
+
+        Writer body = new Writer(items.size() + 64 + dictionary.values.size() * 16);
+        body.writeString(batch.getBatchId());
+        body.writeString(batch.getSourceService());
+        int flags = 0;
+        if (batch.getBatchTime() != null) {
+            body.writeSignedVarLong(batch.getBatchTime());
+        } else {
+            flags |= FLAG_NULL_BATCH_TIME;
+        }
+        if (batch.getTotalAmount() != null) {
+            body.writeDecimal(batch.getTotalAmount());
+        } else {
+            flags |= FLAG_NULL_TOTAL_AMOUNT;
+        }
+        body.writeVarLong(batch.getTotalCount() != null ? batch.getTotalCount() : size(batch.getItems()));
+        body.writeVarLong(dictionary.values.size());
+        for (String value : dictionary.values) {
+            body.writeString(value);
+        }
+        body.writeBytes(items.buffer(), items.size());
+
+        if (body.size() > MAX_LENGTH) {
+            throw new IllegalArgumentException("批次过大: " + body.size());
+        }
+        boolean deflate = compress && body.size() >= DEFLATE_MIN_SIZE;
+        Writer out = new Writer(deflate ? body.size() / 2 + 16 : body.size() + 4);
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+        out.writeByte(deflate ? flags | FLAG_DEFLATE : flags);
+        if (deflate) {
+            out.writeVarLong(body.size());
+            deflate(body, out);
+        } else {
+            out.writeBytes(body.buffer(), body.size());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 从输入流读取并解码批次，读取超过 MAX_LENGTH 时拒绝
+     *
+     * @throws IllegalArgumentException 格式不正确或数据过大
+     */
+    public static Batch decode(InputStream input) throws IOException {
+        byte[] data = input.readNBytes(MAX_LENGTH + 1);
+        if (data.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("批量打赏二进制数据超过上限: " + MAX_LENGTH);
+        }
+        return decode(data);
+    }
+
+    /**
+     * 解码批次
+     *
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static Batch decode(byte[] data) {
+        if (data.length < 4 || data[0] != MAGIC_0 || data[1] != MAGIC_1) {
+            throw new IllegalArgumentException("不是有效的批量打赏二进制数据");
+        }
+        if (data[2] != VERSION) {
+            throw new IllegalArgumentException("不支持的批量打赏编码版本: " + data[2]);
+        }
+        int flags = data[3] & 0xFF;
+        if ((flags & ~KNOWN_FLAGS) != 0) {
+            throw new IllegalArgumentException("不支持的批量打赏编码标志: " + flags);
+        }
+        Reader in = new Reader(data, 4, data.length);
+        if ((flags & FLAG_DEFLATE) != 0) {
+            long rawLength = in.readVarLong();
+            byte[] raw = inflate(data, in.position(), data.length - in.position(), rawLength);
+            in = new Reader(raw, 0, raw.length);
+        }
+
+        Batch batch = new Batch();
+        batch.setBatchId(in.readString());
+        batch.setSourceService(in.readString());
+        batch.setBatchTime((flags & FLAG_NULL_BATCH_TIME) != 0 ? null : in.readSignedVarLong());
+        batch.setTotalAmount((flags & FLAG_NULL_TOTAL_AMOUNT) != 0 ? null : in.readDecimal());
+        batch.setTotalCount((int) in.readVarLong());
+
+        int dictSize = in.readLength();
+        String[] dictionary = new String[dictSize];
+        for (int i = 0; i < dictSize; i++) {
+            dictionary[i] = in.readString();
+        }
+
+        int count = in.readLength();
+        List<Item> items = new ArrayList<>(count);
+        long rechargeId = 0L;
+        long rechargeTime = batch.getBatchTime() != null ? batch.getBatchTime() : 0L;
+        long anchorId = 0L;
+        long audienceId = 0L;
+        long liveRoomId = 0L;
+        for (int i = 0; i < count; i++) {
+            int presence = (int) in.readVarLong();
+            Item item = new Item();
+            if ((presence & HAS_RECHARGE_ID) != 0) {
+                rechargeId += in.readSignedVarLong();
+                item.setRechargeId(rechargeId);
+            }
+            if ((presence & HAS_RECHARGE_TIME) != 0) {
+                rechargeTime += in.readSignedVarLong();
+                item.setRechargeTime(rechargeTime);
+            }
+            if ((presence & HAS_TRACE_ID) != 0) {
+                item.setTraceId(readTraceId(in, dictionary, rechargeTime));
+            }
+            if ((presence & HAS_ANCHOR_ID) != 0) {
+                anchorId += in.readSignedVarLong();
+                item.setAnchorId(anchorId);
+            }
+            if ((presence & HAS_ANCHOR_NAME) != 0) {
+                item.setAnchorName(dictionary[in.readIndex(dictSize)]);
+            }
+            if ((presence & HAS_AUDIENCE_ID) != 0) {
+                audienceId += in.readSignedVarLong();
+                item.setAudienceId(audienceId);
+            }
+            if ((presence & HAS_AUDIENCE_NAME) != 0) {
+                item.setAudienceName(dictionary[in.readIndex(dictSize)]);
+            }
+            if ((presence & HAS_AMOUNT) != 0) {
+                item.setRechargeAmount(in.readDecimal());
+            }
+            if ((presence & HAS_RECHARGE_TYPE) != 0) {
+                item.setRechargeType((int) in.readSignedVarLong());
+            }
+            if ((presence & HAS_LIVE_ROOM_ID) != 0) {
+                liveRoomId += in.readSignedVarLong();
+                item.setLiveRoomId(liveRoomId);
+            }
+            items.add(item);
+        }
+        batch.setItems(items);
+        return batch;
+    }
+
+    private static void writeItems(Writer out, Batch batch, Dictionary dictionary) {
+        List<Item> items = batch.getItems() != null ? batch.getItems() : new ArrayList<>();
+        out.writeVarLong(items.size());
+
+        long rechargeId = 0L;
+        long rechargeTime = batch.getBatchTime() != null ? batch.getBatchTime() : 0L;
+        long anchorId = 0L;
+        long audienceId = 0L;
+        long liveRoomId = 0L;
+        for (Item item : items) {
+            int presence = 0;
+            presence |= item.getRechargeId() != null ? HAS_RECHARGE_ID : 0;
+            presence |= item.getTraceId() != null ? HAS_TRACE_ID : 0;
+            presence |= item.getAnchorId() != null ? HAS_ANCHOR_ID : 0;
+            presence |= item.getAnchorName() != null ? HAS_ANCHOR_NAME : 0;
+            presence |= item.getAudienceId() != null ? HAS_AUDIENCE_ID : 0;
+            presence |= item.getAudienceName() != null ? HAS_AUDIENCE_NAME : 0;
+            presence |= item.getRechargeAmount() != null ? HAS_AMOUNT : 0;
+            presence |= item.getRechargeTime() != null ? HAS_RECHARGE_TIME : 0;
+            presence |= item.getRechargeType() != null ? HAS_RECHARGE_TYPE : 0;
+            presence |= item.getLiveRoomId() != null ? HAS_LIVE_ROOM_ID : 0;
+            out.writeVarLong(presence);
+
+            if (item.getRechargeId() != null) {
+                out.writeSignedVarLong(item.getRechargeId() - rechargeId);
+                rechargeId = item.getRechargeId();
+            }
+            if (item.getRechargeTime() != null) {
+                out.writeSignedVarLong(item.getRechargeTime() - rechargeTime);
+                rechargeTime = item.getRechargeTime();
+            }
+            if (item.getTraceId() != null) {
+                writeTraceId(out, item.getTraceId(), dictionary, rechargeTime);
+            }
+            if (item.getAnchorId() != null) {
+                out.writeSignedVarLong(item.getAnchorId() - anchorId);
+                anchorId = item.getAnchorId();
+            }
+            if (item.getAnchorName() != null) {
+                out.writeVarLong(dictionary.indexOf(item.getAnchorName()));
+            }
+            if (item.getAudienceId() != null) {
+                out.writeSignedVarLong(item.getAudienceId() - audienceId);
+                audienceId = item.getAudienceId();
+            }
+            if (item.getAudienceName() != null) {
+                out.writeVarLong(dictionary.indexOf(item.getAudienceName()));
+            }
+            if (item.getRechargeAmount() != null) {
+                out.writeDecimal(item.getRechargeAmount());
+            }
+            if (item.getRechargeType() != null) {
+                out.writeSignedVarLong(item.getRechargeType());
+            }
+            if (item.getLiveRoomId() != null) {
+                out.writeSignedVarLong(item.getLiveRoomId() - liveRoomId);
+                liveRoomId = item.getLiveRoomId();
+            }
+        }
+    }
+
+    /**
+     * traceId 拆成 前缀(字典) + 时间戳(相对打赏时间) + 序号；
+     * 数字段带前导 0 时无法还原，按原样字符串写出
+     */
+    private static void writeTraceId(Writer out, String traceId, Dictionary dictionary, long rechargeTime) {
+        Matcher matcher = TRACE_ID_PATTERN.matcher(traceId);
+        if (matcher.matches() && canonicalNumber(matcher.group(2)) && canonicalNumber(matcher.group(3))) {
+            out.writeVarLong(TRACE_PATTERN);
+            out.writeVarLong(dictionary.indexOf(matcher.group(1)));
+            out.writeSignedVarLong(Long.parseLong(matcher.group(2)) - rechargeTime);
+            out.writeVarLong(Long.parseLong(matcher.group(3)));
+        } else {
+            out.writeVarLong(TRACE_RAW);
+            out.writeString(traceId);
+        }
+    }
+
+    private static String readTraceId(Reader in, String[] dictionary, long rechargeTime) {
+        int kind = (int) in.readVarLong();
+        if (kind == TRACE_RAW) {
+            return in.readString();
+        }
+        if (kind != TRACE_PATTERN) {
+            throw new IllegalArgumentException("未知的 traceId 编码: " + kind);
+        }
+        String prefix = dictionary[in.readIndex(dictionary.length)];
+        long timestamp = rechargeTime + in.readSignedVarLong();
+        long sequence = in.readVarLong();
+        return prefix + '-' + timestamp + '-' + sequence;
+    }
+
+    private static boolean canonicalNumber(String digits) {
+        return digits.length() == 1 || digits.charAt(0) != '0';
+    }
+
+    private static void deflate(Writer body, Writer out) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body.buffer(), 0, body.size());
+            deflater.finish();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.writeBytes(chunk, n);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length, long declaredLength) {
+        // 原始长度来自不可信输入：超过上限或超过 deflate 最大压缩比时不分配缓冲区
+        if (declaredLength < 0 || declaredLength > MAX_LENGTH
+                || declaredLength > (long) length * MAX_DEFLATE_RATIO + 64) {
+            throw new IllegalArgumentException("无效的原始长度: " + declaredLength);
+        }
+        int rawLength = (int) declaredLength;
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] raw = new byte[rawLength];
+            int filled = 0;
+            while (filled < rawLength) {
+                int n = inflater.inflate(raw, filled, rawLength - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                filled += n;
+            }
+            if (filled != rawLength) {
+                throw new IllegalArgumentException("压缩数据长度不匹配: " + filled + "/" + rawLength);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩数据损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int size(List<?> list) {
+        return list != null ? list.size() : 0;
+    }
+
+    /**
+     * 批次（与各服务的 BatchRechargeDTO 字段一一对应）
+     */
+    @Data
+    public static class Batch {
+        private String batchId;
+        private String sourceService;
+        private Long batchTime;
+        private BigDecimal totalAmount;
+        private Integer totalCount;
+        private List<Item> items;
+    }
+
+    /**
+     * 打赏记录项
+     */
+    @Data
+    public static class Item {
+        private Long rechargeId;
+        private String traceId;
+        private Long anchorId;
+        private String anchorName;
+        private Long audienceId;
+        private String audienceName;
+        private BigDecimal rechargeAmount;
+        private Long rechargeTime;
+        private Integer rechargeType;
+        private Long liveRoomId;
+    }
+
+    /**
+     * 字符串字典（按首次出现顺序编号）
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer existing = index.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int next = values.size();
+            index.put(value, next);
+            values.add(value);
+            return next;
+        }
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer(int initialSize) {
+            super(Math.max(initialSize, 32));
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        void writeByte(int b) {
+            write(b);
+        }
+
+        void writeBytes(byte[] bytes, int length) {
+            write(bytes, 0, length);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            BigInteger unscaled = value.unscaledValue();
+            if (value.scale() < 0 || unscaled.bitLength() > 63) {
+                throw new IllegalArgumentException("金额超出编码范围: " + value);
+            }
+            writeVarLong(value.scale());
+            writeSignedVarLong(unscaled.longValue());
+        }
+
+        @Override
+        public void close() throws IOException {
+            // 内存缓冲，无需关闭
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int pos;
+
+        Reader(byte[] data, int offset, int limit) {
+            this.data = data;
+            this.pos = offset;
+            this.limit = limit;
+        }
+
+        int position() {
+            return pos;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= limit) {
+                    throw new IllegalArgumentException("批量打赏二进制数据不完整");
+                }
+                byte b = data[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+
+        long readSignedVarLong() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > limit - pos) {
+                throw new IllegalArgumentException("无效的长度: " + length);
+            }
+            return (int) length;
+        }
+
+        int readIndex(int size) {
+            long index = readVarLong();
+            if (index < 0 || index >= size) {
+                throw new IllegalArgumentException("字典下标越界: " + index);
+            }
+            return (int) index;
+        }
+
+        String readString() {
+            long encoded = readVarLong();
+            if (encoded == 0) {
+                return null;
+            }
+            long length = encoded - 1;
+            if (length > limit - pos) {
+                throw new IllegalArgumentException("字符串长度越界: " + length);
+            }
+            String value = new String(data, pos, (int) length, StandardCharsets.UTF_8);
+            pos += (int) length;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            int scale = (int) readVarLong();
+            return BigDecimal.valueOf(readSignedVarLong(), scale);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package common.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import common.logger.AppLogger;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑二进制 Redis 序列化器
+ * 替代 GenericJackson2JsonRedisSerializer，用于实体缓存和统计结果缓存
+ *
+ * 存储格式：
+ * [魔数 1B][标志位 1B][类型ID varint][版本号 varint][原始长度 varint(仅压缩时)][Smile 负载]
+ *
+ * 1. 已注册类型只写类型ID和版本号，不内嵌类名
+ * 2. 未注册类型（List、Map 等）使用动态类型ID 0，按 Smile + 默认类型信息编码
+ * 3. 负载超过阈值时使用 Deflate（BEST_SPEED）压缩，压缩无收益则保留原文
+ * 4. 版本号不匹配、类型未知或数据损坏时返回 null，由缓存层按未命中处理
+ * 5. 非本格式的旧缓存（JSON）交给 GenericJackson2JsonRedisSerializer 读取，保证平滑升级
+ * 6. 注册 Jdk8Module 和 JavaTimeModule，Optional 和 java.time 字段可以正常往返
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xC7;
+    private static final int FLAG_DEFLATE = 0x01;
+
+    /** 默认压缩阈值（字节） */
+    public static final int DEFAULT_COMPRESS_THRESHOLD = 1024;
+
+    /** 解压后长度上限（字节），长度字段来自缓存数据，超过上限视为损坏 */
+    static final int MAX_RAW_LENGTH = 16 * 1024 * 1024;
+
+    private final RedisTypeRegistry registry;
+    private final int compressThreshold;
+
+    /** 已注册类型：不写类型信息 */
+    private final ObjectMapper typedMapper;
+
+    /** 未注册类型：内嵌类型信息 */
+    private final ObjectMapper dynamicMapper;
+
+    /** 旧格式兼容 */
+    private final GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer();
+
+    public CompactRedisSerializer() {
+        this(RedisTypeRegistry.defaults(), DEFAULT_COMPRESS_THRESHOLD);
+    }
+
+    /**
+     * @param registry          类型注册表
+     * @param compressThreshold 压缩阈值（字节），小于等于0表示不压缩
+     */
+    public CompactRedisSerializer(RedisTypeRegistry registry, int compressThreshold) {
+        this.registry = registry;
+        this.compressThreshold = compressThreshold;
+        this.typedMapper = createMapper();
+        this.dynamicMapper = createMapper();
+        this.dynamicMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+    }
+
+    /**
+     * 按 spring.redis.cache-serializer 创建缓存值序列化器
+     * 各服务的 RedisTemplate 和缓存管理器统一通过这里创建，保证序列化格式一致
+     *
+     * @param properties Redis 配置
+     * @param registry   类型注册表（服务可在 defaults() 基础上注册自己的 DTO）
+     */
+    public static RedisSerializer<Object> forCache(RedisProperties properties, RedisTypeRegistry registry) {
+        if (properties != null && !properties.isCompactCacheSerializer()) {
+            return new GenericJackson2JsonRedisSerializer();
+        }
+        int threshold = properties != null && properties.getCacheCompressThreshold() != null
+                ? properties.getCacheCompressThreshold()
+                : DEFAULT_COMPRESS_THRESHOLD;
+        return new CompactRedisSerializer(registry != null ? registry : RedisTypeRegistry.defaults(), threshold);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            RedisTypeRegistry.Entry entry = registry.lookup(value.getClass());
+            byte[] payload = entry != null
+                    ? typedMapper.writeValueAsBytes(value)
+                    : dynamicMapper.writeValueAsBytes(value);
+
+            int flags = 0;
+            int rawLength = payload.length;
+            if (compressThreshold > 0 && payload.length > compressThreshold) {
+                byte[] compressed = deflate(payload);
+                if (compressed.length < payload.length) {
+                    payload = compressed;
+                    flags |= FLAG_DEFLATE;
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 12);
+            out.write(MAGIC);
+            out.write(flags);
+            if (entry != null) {
+                writeVarint(out, entry.getTypeId());
+                writeVarint(out, entry.getVersion());
+            } else {
+                writeVarint(out, RedisTypeRegistry.DYNAMIC_TYPE_ID);
+            }
+            if ((flags & FLAG_DEFLATE) != 0) {
+                writeVarint(out, rawLength);
+            }
+            out.write(payload, 0, payload.length);
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new SerializationException("紧凑序列化失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return deserializeLegacy(bytes);
+        }
+        try {
+            int[] pos = {1};
+            int flags = bytes[pos[0]++] & 0xFF;
+            int typeId = readVarint(bytes, pos);
+
+            RedisTypeRegistry.Entry entry = null;
+            if (typeId != RedisTypeRegistry.DYNAMIC_TYPE_ID) {
+                int version = readVarint(bytes, pos);
+                entry = registry.lookup(typeId);
+                if (entry == null || entry.getVersion() != version) {
+                    // 类型已下线或结构已升级，按未命中处理
+                    return null;
+                }
+            }
+
+            byte[] payload;
+            if ((flags & FLAG_DEFLATE) != 0) {
+                int rawLength = readVarint(bytes, pos);
+                payload = inflate(bytes, pos[0], bytes.length - pos[0], rawLength);
+            } else {
+                payload = Arrays.copyOfRange(bytes, pos[0], bytes.length);
+            }
+
+            return entry != null
+                    ? typedMapper.readValue(payload, entry.getType())
+                    : dynamicMapper.readValue(payload, Object.class);
+        } catch (Exception e) {
+            AppLogger.warn("紧凑反序列化失败，按缓存未命中处理: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Object deserializeLegacy(byte[] bytes) {
+        try {
+            return legacySerializer.deserialize(bytes);
+        } catch (SerializationException e) {
+            AppLogger.warn("旧格式缓存反序列化失败，按缓存未命中处理: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static ObjectMapper createMapper() {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new Jdk8Module());
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        return mapper;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length);
+            byte[] buffer = new byte[Math.min(input.length, 8192)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int offset, int length, int rawLength) throws DataFormatException {
+        if (rawLength < 0 || rawLength > MAX_RAW_LENGTH) {
+            throw new DataFormatException("解压长度超出上限: " + rawLength);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, offset, length);
+            byte[] output = new byte[rawLength];
+            int written = 0;
+            while (written < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(output, written, rawLength - written);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("压缩数据不完整");
+                }
+                written += n;
+            }
+            return output;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] pos) {
+        int result = 0;
+        int shift = 0;
+        while (shift < 32) {
+            byte b = bytes[pos[0]++];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new IllegalStateException("varint 格式错误");
+    }
+}
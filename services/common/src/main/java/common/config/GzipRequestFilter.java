@@ -0,0 +1,168 @@
+package common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.constant.ErrorConstants;
+import common.logger.TraceLogger;
+import common.response.BaseResponse;
+import common.response.ResponseUtil;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * gzip 请求体解压过滤器
+ * 配合 common.feign.GzipRequestInterceptor，解压 Content-Encoding: gzip 的请求体
+ *
+ * 不作为全局组件注册，只由接收 gzip 请求的服务（财务服务的批量同步接口）按路径注册。
+ * 解压后的大小受 maxInflatedBytes 限制：先在过滤器内最多解压 maxInflatedBytes + 1 字节，
+ * 超过上限返回 413，格式错误返回 400，避免压缩炸弹把小请求体解压成无界的内存占用。
+ */
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private final int maxInflatedBytes;
+    private final ObjectMapper objectMapper;
+
+    public GzipRequestFilter(int maxInflatedBytes, ObjectMapper objectMapper) {
+        this.maxInflatedBytes = maxInflatedBytes;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(CONTENT_ENCODING);
+        return encoding == null || !"gzip".equalsIgnoreCase(encoding.trim());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body;
+        try (GZIPInputStream gzip = new GZIPInputStream(request.getInputStream())) {
+            body = gzip.readNBytes(maxInflatedBytes + 1);
+        } catch (ZipException | EOFException e) {
+            reject(response, HttpStatus.BAD_REQUEST, ErrorConstants.VALIDATION_FAILED, "gzip 请求体格式错误");
+            return;
+        }
+        if (body.length > maxInflatedBytes) {
+            TraceLogger.warn("GzipRequestFilter", "doFilterInternal",
+                    request.getMethod() + " " + request.getRequestURI(), "解压后超过上限: " + maxInflatedBytes);
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, ErrorConstants.PAYLOAD_TOO_LARGE,
+                    "解压后的请求体超过上限: " + maxInflatedBytes + " 字节");
+            return;
+        }
+        chain.doFilter(new GzipRequestWrapper(request, body), response);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, int code, String message)
+            throws IOException {
+        BaseResponse<Void> body = ResponseUtil.error(code, message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * 解压后的请求（去掉 Content-Encoding，Content-Length 为解压后的长度）
+     */
+    private static final class GzipRequestWrapper extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        GzipRequestWrapper(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("gzip 请求体不支持异步读取");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return null;
+            }
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                return String.valueOf(body.length);
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                return Collections.enumeration(Collections.singletonList(String.valueOf(body.length)));
+            }
+            return super.getHeaders(name);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package common.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import common.logger.AppLogger;
 
 /**
@@ -32,37 +35,26 @@ public class RedisConditionalConfig {
 
     /**
      * 配置 RedisTemplate 并设置序列化器
+     * key 使用 String，value 使用与缓存管理器相同的紧凑序列化（spring.redis.cache-serializer=json 可切回 JSON）；
+     * 服务可声明 RedisTypeRegistry Bean 注册自己的 DTO
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisProperties redisProperties,
+                                                       ObjectProvider<RedisTypeRegistry> typeRegistry) {
         AppLogger.logServiceInitialize("redisTemplate");
         
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        try {
-            // 动态加载序列化器类（避免编译时依赖问题）
-            Class<?> stringSerializerClass = Class.forName(
-                    "org.springframework.data.redis.serialization.StringRedisSerializer");
-            Class<?> jsonSerializerClass = Class.forName(
-                    "org.springframework.data.redis.serialization.GenericJackson2JsonRedisSerializer");
-            
-            // 使用反射创建实例
-            Object stringSerializer = stringSerializerClass.getDeclaredConstructor().newInstance();
-            Object jsonSerializer = jsonSerializerClass.getDeclaredConstructor().newInstance();
-            
-            // 使用反射设置序列化器
-            template.getClass().getMethod("setKeySerializer", Object.class).invoke(template, stringSerializer);
-            template.getClass().getMethod("setValueSerializer", Object.class).invoke(template, jsonSerializer);
-            template.getClass().getMethod("setHashKeySerializer", Object.class).invoke(template, stringSerializer);
-            template.getClass().getMethod("setHashValueSerializer", Object.class).invoke(template, jsonSerializer);
-            
-            AppLogger.logConfiguration("redis.serialization", "GenericJackson2Json");
-        } catch (Exception e) {
-            // 如果序列化器加载失败，使用默认配置
-            System.err.println("Failed to configure custom serializers: " + e.getMessage());
-            e.printStackTrace();
-        }
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        RedisSerializer<Object> valueSerializer = CompactRedisSerializer.forCache(
+                redisProperties, typeRegistry.getIfAvailable(RedisTypeRegistry::defaults));
+        template.setKeySerializer(stringSerializer);
+        template.setValueSerializer(valueSerializer);
+        template.setHashKeySerializer(stringSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        AppLogger.logConfiguration("redis.serialization", redisProperties.getCacheSerializer());
 
         template.afterPropertiesSet();
         AppLogger.logServiceInitializeComplete("redisTemplate");
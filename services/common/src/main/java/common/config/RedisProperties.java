@@ -63,6 +63,20 @@ public class RedisProperties {
      */
     private Integer timeout = 2000;
 
+    /**
+     * 缓存值序列化方式
+     * 默认: compact
+     * - compact: CompactRedisSerializer（Smile 二进制 + 类型注册表 + 大值压缩）
+     * - json: GenericJackson2JsonRedisSerializer
+     */
+    private String cacheSerializer = "compact";
+
+    /**
+     * 缓存值压缩阈值（字节），超过该大小的值进行压缩，小于等于0表示不压缩
+     * 默认: 1024
+     */
+    private Integer cacheCompressThreshold = 1024;
+
     /**
      * 连接池配置
      */
@@ -101,4 +115,11 @@ public class RedisProperties {
     public boolean isEnabled() {
         return enabled != null && enabled;
     }
+
+    /**
+     * 是否使用紧凑序列化（安全方法）
+     */
+    public boolean isCompactCacheSerializer() {
+        return !"json".equalsIgnoreCase(cacheSerializer);
+    }
 }
@@ -0,0 +1,114 @@
+package common.config;
+
+import common.bean.CommissionRate;
+import common.bean.Recharge;
+import common.bean.RechargeRecord;
+import common.bean.Settlement;
+import common.bean.Withdrawal;
+import common.bean.liveroom.LiveRoom;
+import common.bean.liveroom.LiveRoomRealtime;
+import common.bean.liveroom.Message;
+import common.bean.user.Anchor;
+import common.bean.user.Audience;
+import common.bean.user.User;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis 缓存类型注册表
+ * 为缓存值类型分配固定的类型ID和结构版本号，供 CompactRedisSerializer 使用
+ *
+ * 约定：
+ * 1. 类型ID一经分配不可复用，删除的类型保留其ID
+ * 2. 实体字段有不兼容变更（改名、改类型）时递增版本号，旧版本缓存会被视为未命中
+ * 3. 新增字段无需递增版本号（反序列化忽略未知字段）
+ * 4. ID 1-99 保留给 common 实体，各服务从 100 开始注册自己的类型
+ */
+public class RedisTypeRegistry {
+
+    /** 未注册类型使用的动态类型ID，值内嵌类名 */
+    public static final int DYNAMIC_TYPE_ID = 0;
+
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    private final Map<Class<?>, Entry> byClass = new HashMap<>();
+
+    /**
+     * 注册类型
+     *
+     * @param typeId  类型ID（大于0）
+     * @param version 结构版本号
+     * @param type    类型
+     */
+    public RedisTypeRegistry register(int typeId, int version, Class<?> type) {
+        if (typeId <= DYNAMIC_TYPE_ID) {
+            throw new IllegalArgumentException("类型ID必须大于0: " + typeId);
+        }
+        if (byId.containsKey(typeId)) {
+            throw new IllegalArgumentException("类型ID重复: " + typeId);
+        }
+        Entry entry = new Entry(typeId, version, type);
+        byId.put(typeId, entry);
+        byClass.put(type, entry);
+        return this;
+    }
+
+    /**
+     * 按类型查找（精确匹配，不处理子类）
+     */
+    public Entry lookup(Class<?> type) {
+        return byClass.get(type);
+    }
+
+    /**
+     * 按类型ID查找
+     */
+    public Entry lookup(int typeId) {
+        return byId.get(typeId);
+    }
+
+    /**
+     * 创建包含 common 实体的默认注册表
+     */
+    public static RedisTypeRegistry defaults() {
+        return new RedisTypeRegistry()
+                .register(1, 1, User.class)
+                .register(2, 1, Anchor.class)
+                .register(3, 1, Audience.class)
+                .register(4, 1, LiveRoom.class)
+                .register(5, 1, LiveRoomRealtime.class)
+                .register(6, 1, Message.class)
+                .register(7, 1, Recharge.class)
+                .register(8, 1, RechargeRecord.class)
+                .register(9, 1, Settlement.class)
+                .register(10, 1, Withdrawal.class)
+                .register(11, 1, CommissionRate.class);
+    }
+
+    /**
+     * 注册项
+     */
+    public static final class Entry {
+        private final int typeId;
+        private final int version;
+        private final Class<?> type;
+
+        Entry(int typeId, int version, Class<?> type) {
+            this.typeId = typeId;
+            this.version = version;
+            this.type = type;
+        }
+
+        public int getTypeId() {
+            return typeId;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+    }
+}
@@ -204,6 +204,12 @@ public class ErrorConstants {
     /** 配置错误 */
     public static final int CONFIGURATION_ERROR = 400005;
 
+    /** 请求过多（并发限流拒绝） */
+    public static final int TOO_MANY_REQUESTS = 400006;
+
+    /** 请求体过大（解压后超过上限） */
+    public static final int PAYLOAD_TOO_LARGE = 400007;
+
     // ==================== 权限相关错误 (3xxxx) ====================
 
     /** 无权访问 */
@@ -253,6 +259,10 @@ public class ErrorConstants {
                 return "系统内部错误";
             case SERVICE_UNAVAILABLE:
                 return "服务不可用";
+            case TOO_MANY_REQUESTS:
+                return "请求过多，请稍后重试";
+            case PAYLOAD_TOO_LARGE:
+                return "请求体过大";
             default:
                 return "未知错误";
         }
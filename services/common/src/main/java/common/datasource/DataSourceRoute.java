@@ -0,0 +1,49 @@
+package common.datasource;
+
+/**
+ * 当前线程的数据源路由标记
+ *
+ * 由 ReadOnlyQueryAspect 在进入 @ReadOnlyQuery 方法时设置、退出时恢复，
+ * ReadWriteRoutingDataSource 取连接时读取。标记只在取连接那一刻生效，
+ * 连接一旦绑定到事务，事务内的后续语句都沿用同一个连接。
+ */
+public final class DataSourceRoute {
+
+    /** 写库（主库）连接池 */
+    public static final String WRITE = "write";
+
+    /** 读库（副本）连接池 */
+    public static final String READ = "read";
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private DataSourceRoute() {
+    }
+
+    /**
+     * 当前线程是否处于只读查询中
+     */
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * 设置只读标记，返回之前的标记，供退出时恢复
+     */
+    public static boolean enterReadOnly() {
+        boolean previous = isReadOnly();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    /**
+     * 恢复进入前的标记
+     */
+    public static void restore(boolean previous) {
+        if (previous) {
+            READ_ONLY.set(Boolean.TRUE);
+        } else {
+            READ_ONLY.remove();
+        }
+    }
+}
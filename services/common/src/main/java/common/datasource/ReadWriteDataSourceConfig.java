@@ -0,0 +1,97 @@
+package common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import common.logger.AppLogger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读写分离数据源配置
+ * 根据 spring.datasource.replica.enabled 开关决定是否启用，未开启时沿用 Spring Boot 默认的单数据源
+ *
+ * 开启后创建两个独立的 Hikari 连接池：
+ * 1. 写库池：spring.datasource.url + spring.datasource.hikari，承接打赏写入等事务
+ * 2. 读库池：spring.datasource.replica.url + spring.datasource.replica.hikari，
+ *    连接初始化即 SET SESSION TRANSACTION READ ONLY，承接 @ReadOnlyQuery 的分析、排行查询
+ * 对外暴露的 @Primary DataSource 是按线程标记路由的 ReadWriteRoutingDataSource，
+ * JPA 和 JdbcTemplate 无需改动。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadWriteDataSourceConfig {
+
+    public ReadWriteDataSourceConfig() {
+        AppLogger.logServiceInitialize("Read/Write Routing DataSource");
+    }
+
+    /**
+     * 写库（主库）连接池
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("write-pool");
+        return dataSource;
+    }
+
+    /**
+     * 读库（副本）连接池
+     * 只读会话在池级别设置，每个新连接先执行 SET SESSION TRANSACTION READ ONLY
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.replica.hikari")
+    public HikariDataSource readDataSource(DataSourceProperties dataSourceProperties,
+                                           ReplicaDataSourceProperties replicaProperties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("read-pool");
+        dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        dataSource.setJdbcUrl(replicaProperties.getUrl() != null
+                ? replicaProperties.getUrl() : dataSourceProperties.determineUrl());
+        dataSource.setUsername(replicaProperties.getUsername() != null
+                ? replicaProperties.getUsername() : dataSourceProperties.determineUsername());
+        dataSource.setPassword(replicaProperties.getPassword() != null
+                ? replicaProperties.getPassword() : dataSourceProperties.determinePassword());
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionInitSql("SET SESSION TRANSACTION READ ONLY");
+        AppLogger.logConfiguration("datasource.replica.url", dataSource.getJdbcUrl());
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicationLagMonitor replicationLagMonitor(@Qualifier("readDataSource") DataSource readDataSource,
+                                                       ReplicaDataSourceProperties replicaProperties) {
+        return new ReplicationLagMonitor(readDataSource, replicaProperties);
+    }
+
+    /**
+     * 对外的路由数据源，JPA、JdbcTemplate、事务管理器都使用它
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource,
+                                 ReplicationLagMonitor replicationLagMonitor) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRoute.WRITE, writeDataSource);
+        targets.put(DataSourceRoute.READ, readDataSource);
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicationLagMonitor);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(writeDataSource);
+        return routingDataSource;
+    }
+}
@@ -0,0 +1,49 @@
+package common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 读写分离路由数据源
+ *
+ * - 当前线程处于 @ReadOnlyQuery 且副本延迟在阈值内：取副本连接池的连接
+ * - 其余情况：取主库连接池的连接
+ *
+ * 只读查询回退到主库时，把取到的连接设为只读（MySQL 驱动会执行 SET SESSION TRANSACTION READ ONLY），
+ * 归还连接池时 Hikari 会把只读状态重置回去，不影响后续写请求。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicationLagMonitor lagMonitor;
+
+    public ReadWriteRoutingDataSource(ReplicationLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (DataSourceRoute.isReadOnly() && lagMonitor.isReplicaAvailable()) {
+            return DataSourceRoute.READ;
+        }
+        return DataSourceRoute.WRITE;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return markReadOnly(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return markReadOnly(super.getConnection(username, password));
+    }
+
+    private Connection markReadOnly(Connection connection) throws SQLException {
+        if (DataSourceRoute.isReadOnly() && !connection.isReadOnly()) {
+            connection.setReadOnly(true);
+        }
+        return connection;
+    }
+}
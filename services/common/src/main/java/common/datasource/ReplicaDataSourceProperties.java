@@ -0,0 +1,64 @@
+package common.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 只读副本数据源配置
+ * 配置前缀: spring.datasource.replica
+ *
+ * 主库仍使用 spring.datasource.url / spring.datasource.hikari，副本连接池使用
+ * spring.datasource.replica.hikari 单独设置池大小，两个池互不争抢连接。
+ *
+ * 示例：
+ * <pre>
+ * spring:
+ *   datasource:
+ *     replica:
+ *       enabled: true
+ *       url: jdbc:mysql://replica:3306/live_system_db1?...
+ *       max-lag-seconds: 5
+ *       hikari:
+ *         maximum-pool-size: 30
+ * </pre>
+ *
+ * 本地测试可以把 url 指向第二个 MySQL 实例，也可以直接指向主库（回环副本），
+ * 回环时 SHOW REPLICA STATUS 为空，延迟按 0 处理。
+ */
+@ConfigurationProperties(prefix = "spring.datasource.replica")
+@Data
+public class ReplicaDataSourceProperties {
+
+    /**
+     * 是否开启读写分离
+     * 默认: false
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 副本 JDBC URL
+     */
+    private String url;
+
+    /**
+     * 副本用户名，未配置时使用主库用户名
+     */
+    private String username;
+
+    /**
+     * 副本密码，未配置时使用主库密码
+     */
+    private String password;
+
+    /**
+     * 允许的最大复制延迟（秒），超过后只读查询回退到主库
+     * 默认: 5
+     */
+    private Integer maxLagSeconds = 5;
+
+    /**
+     * 复制延迟检查间隔（毫秒）
+     * 默认: 2000
+     */
+    private Long lagCheckIntervalMs = 2000L;
+}
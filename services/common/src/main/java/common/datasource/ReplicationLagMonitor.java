@@ -0,0 +1,109 @@
+package common.datasource;
+
+import common.logger.AppLogger;
+import common.logger.TraceLogger;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+
+/**
+ * 副本复制延迟监控
+ *
+ * 定时在副本连接池上执行 SHOW REPLICA STATUS（MySQL 8.0.22 之前为 SHOW SLAVE STATUS），
+ * 读取 Seconds_Behind_Source：
+ * - 超过 max-lag-seconds、为 NULL（复制线程停止）或查询失败：标记副本不可用，只读查询回退主库
+ * - 结果集为空（不是副本，如本地回环）：延迟按 0 处理
+ *
+ * 启动后第一次检查完成前副本视为不可用，只读查询先走主库；
+ * 检查由 @Scheduled 驱动，服务未开启 @EnableScheduling 时副本始终不可用。
+ */
+public class ReplicationLagMonitor {
+
+    private final DataSource replicaDataSource;
+    private final ReplicaDataSourceProperties properties;
+
+    private volatile boolean replicaAvailable = false;
+    private volatile Long lagSeconds;
+    private volatile boolean legacyStatusSyntax = false;
+
+    public ReplicationLagMonitor(DataSource replicaDataSource, ReplicaDataSourceProperties properties) {
+        this.replicaDataSource = replicaDataSource;
+        this.properties = properties;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    /**
+     * 最近一次检查到的复制延迟（秒），复制停止或检查失败时为 null
+     */
+    public Long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:2000}")
+    public void check() {
+        Long lag;
+        try {
+            lag = readLagSeconds();
+        } catch (SQLException e) {
+            lagSeconds = null;
+            update(false, "副本状态查询失败: " + e.getMessage());
+            return;
+        }
+
+        lagSeconds = lag;
+        if (lag == null) {
+            update(false, "副本复制线程未运行");
+        } else if (lag > properties.getMaxLagSeconds()) {
+            update(false, "副本延迟 " + lag + "s 超过阈值 " + properties.getMaxLagSeconds() + "s");
+        } else {
+            update(true, "副本延迟 " + lag + "s");
+        }
+    }
+
+    private Long readLagSeconds() throws SQLException {
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (!legacyStatusSyntax) {
+                try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                    return lagFrom(rs, "Seconds_Behind_Source");
+                } catch (SQLSyntaxErrorException e) {
+                    // MySQL 8.0.22 之前没有 REPLICA 关键字
+                    legacyStatusSyntax = true;
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                return lagFrom(rs, "Seconds_Behind_Master");
+            }
+        }
+    }
+
+    private static Long lagFrom(ResultSet rs, String column) throws SQLException {
+        if (!rs.next()) {
+            return 0L;
+        }
+        long lag = rs.getLong(column);
+        return rs.wasNull() ? null : lag;
+    }
+
+    private void update(boolean available, String reason) {
+        if (available == replicaAvailable) {
+            return;
+        }
+        replicaAvailable = available;
+        if (available) {
+            AppLogger.info("只读查询切换到副本: {}", reason);
+            TraceLogger.info("datasource", "replica_available", null, reason);
+        } else {
+            AppLogger.warn("只读查询回退到主库: {}", reason);
+            TraceLogger.warn("datasource", "replica_fallback", null, reason);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package common.feign;
+
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带重试预算的 Feign 重试器
+ *
+ * 1. 只重试幂等方法（GET/HEAD/OPTIONS），POST 等写请求超时后不重放，避免重复打赏、重复结算
+ * 2. 指数退避 + 全抖动（full jitter），避免多个调用方同时重试形成尖峰
+ * 3. 所有请求共享一个重试预算（令牌桶），下游变慢时重试量有上限，不会把下游负载放大数倍
+ *
+ * Feign 每次请求都会 clone 一个新实例，预算对象在所有实例间共享
+ */
+public class BudgetedRetryer implements Retryer {
+
+    private static final Set<Request.HttpMethod> IDEMPOTENT_METHODS =
+            EnumSet.of(Request.HttpMethod.GET, Request.HttpMethod.HEAD, Request.HttpMethod.OPTIONS);
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final RetryBudget budget;
+
+    private int attempt = 1;
+
+    public BudgetedRetryer(FeignTransportProperties.Retry retry) {
+        this(retry.getMaxAttempts(), retry.getInitialBackoffMs(), retry.getMaxBackoffMs(),
+                new RetryBudget(retry.getBudgetPerSecond(), retry.getBudgetBurst()));
+    }
+
+    private BudgetedRetryer(int maxAttempts, long initialBackoffMs, long maxBackoffMs, RetryBudget budget) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.budget = budget;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (attempt >= maxAttempts
+                || e.method() == null
+                || !IDEMPOTENT_METHODS.contains(e.method())
+                || !budget.tryAcquire()) {
+            throw e;
+        }
+
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 16));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        attempt++;
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @Override
+    public Retryer clone() {
+        return new BudgetedRetryer(maxAttempts, initialBackoffMs, maxBackoffMs, budget);
+    }
+
+    /**
+     * 重试预算（令牌桶）
+     */
+    static final class RetryBudget {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        RetryBudget(double perSecond, int burst) {
+            this.tokensPerNano = perSecond / 1_000_000_000d;
+            this.capacity = burst;
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens >= 1d) {
+                tokens -= 1d;
+                return true;
+            }
+            return false;
+        }
+    }
+}
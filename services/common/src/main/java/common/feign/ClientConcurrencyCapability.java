@@ -0,0 +1,62 @@
+package common.feign;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 Feign 客户端限制并发请求数
+ *
+ * 连接池按目标地址复用连接，本类在其上按客户端名称（@FeignClient name）限制同时占用的连接数，
+ * 某个下游变慢时只会占满自己的配额，不会耗尽调用方的全部线程和连接。
+ * 等待许可超时抛出 IOException，由 Feign 转为 RetryableException 交给重试器判断。
+ */
+public class ClientConcurrencyCapability implements Capability {
+
+    private final FeignTransportProperties properties;
+    private final ConcurrentHashMap<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public ClientConcurrencyCapability(FeignTransportProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            String name = clientName(request);
+            FeignTransportProperties.Client settings = properties.forClient(name);
+            Semaphore semaphore = permits.computeIfAbsent(name,
+                    key -> new Semaphore(settings.getMaxConcurrentRequests()));
+
+            boolean acquired;
+            try {
+                acquired = semaphore.tryAcquire(settings.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("等待下游并发配额被中断: " + name, e);
+            }
+            if (!acquired) {
+                throw new IOException("下游并发请求已达上限: " + name
+                        + ", maxConcurrentRequests=" + settings.getMaxConcurrentRequests());
+            }
+
+            try {
+                return client.execute(request, options);
+            } finally {
+                semaphore.release();
+            }
+        };
+    }
+
+    static String clientName(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+            return request.requestTemplate().feignTarget().name();
+        }
+        return "default";
+    }
+}
@@ -0,0 +1,79 @@
+package common.feign;
+
+import feign.Capability;
+import feign.Client;
+import feign.Logger;
+import feign.RequestInterceptor;
+import feign.Retryer;
+import okhttp3.ConnectionPool;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign 客户端传输层配置（所有 @FeignClient 共享）
+ *
+ * 1. 连接池化的 OkHttp 客户端（keep-alive 复用连接），替代默认的 HttpURLConnection；
+ *    需开启 feign.okhttp.enabled=true，负载均衡客户端会以该 OkHttpClient 作为底层传输
+ * 2. 按客户端限制并发请求数（ClientConcurrencyCapability）
+ * 3. 只重试幂等请求的预算制重试器（BudgetedRetryer）
+ * 4. 按客户端开启的请求体 gzip（GzipRequestInterceptor）
+ * 5. 日志只记录请求行和请求头，不记录请求体
+ *
+ * 仅在引入 feign-okhttp 的服务中生效；未扫描 common 包的服务可通过 @Import 引入
+ */
+@Configuration
+@ConditionalOnClass(name = "feign.okhttp.OkHttpClient")
+@EnableConfigurationProperties(FeignTransportProperties.class)
+public class FeignTransportConfig {
+
+    /**
+     * 连接池化的 OkHttp 客户端
+     * 重试由 Feign 重试器统一控制，关闭 OkHttp 自身的连接失败重试
+     */
+    @Bean
+    public okhttp3.OkHttpClient feignOkHttpClient(FeignTransportProperties properties) {
+        return new okhttp3.OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(properties.getMaxIdleConnections(),
+                        properties.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .connectTimeout(properties.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(properties.getReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(false)
+                .followRedirects(false)
+                .build();
+    }
+
+    /**
+     * 未引入负载均衡时（如直接配置 url 的客户端）直接使用 OkHttp 传输
+     * 引入负载均衡时由 Spring Cloud 用上面的 OkHttpClient 构建负载均衡客户端
+     */
+    @Bean
+    @ConditionalOnMissingClass("org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient")
+    public Client feignClient(okhttp3.OkHttpClient feignOkHttpClient) {
+        return new feign.okhttp.OkHttpClient(feignOkHttpClient);
+    }
+
+    @Bean
+    public Retryer feignRetryer(FeignTransportProperties properties) {
+        return new BudgetedRetryer(properties.getRetry());
+    }
+
+    @Bean
+    public Capability clientConcurrencyCapability(FeignTransportProperties properties) {
+        return new ClientConcurrencyCapability(properties);
+    }
+
+    @Bean
+    public RequestInterceptor gzipRequestInterceptor(FeignTransportProperties properties) {
+        return new GzipRequestInterceptor(properties);
+    }
+
+    @Bean
+    public Logger.Level feignLoggerLevel() {
+        return Logger.Level.HEADERS;
+    }
+}
@@ -0,0 +1,133 @@
+package common.feign;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Feign 传输层配置
+ * 配置前缀: feign.transport
+ *
+ * 示例：
+ * <pre>
+ * feign:
+ *   transport:
+ *     max-idle-connections: 50
+ *     clients:
+ *       finance-service:
+ *         max-concurrent-requests: 32
+ *         gzip-requests: true
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "feign.transport")
+@Data
+public class FeignTransportProperties {
+
+    /**
+     * 连接池最大空闲连接数（所有客户端共享，按目标地址复用）
+     * 默认: 50
+     */
+    private Integer maxIdleConnections = 50;
+
+    /**
+     * 空闲连接保持时间（秒）
+     * 默认: 300
+     */
+    private Long keepAliveSeconds = 300L;
+
+    /**
+     * 连接超时（毫秒），feign.client.config 中的超时配置优先
+     * 默认: 2000
+     */
+    private Integer connectTimeoutMs = 2000;
+
+    /**
+     * 读取超时（毫秒），feign.client.config 中的超时配置优先
+     * 默认: 2000
+     */
+    private Integer readTimeoutMs = 2000;
+
+    /**
+     * 请求体压缩阈值（字节），仅对开启 gzip-requests 的客户端生效
+     * 默认: 2048
+     */
+    private Integer gzipMinRequestSize = 2048;
+
+    /**
+     * 未单独配置的客户端的默认设置
+     */
+    private Client defaults = new Client();
+
+    /**
+     * 按 Feign 客户端名称（@FeignClient name）的单独设置
+     */
+    private Map<String, Client> clients = new HashMap<>();
+
+    /**
+     * 重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 获取客户端设置，未单独配置时返回默认设置
+     */
+    public Client forClient(String name) {
+        return clients.getOrDefault(name, defaults);
+    }
+
+    @Data
+    public static class Client {
+        /**
+         * 对该下游服务的最大并发请求数（即最多占用的连接数）
+         * 默认: 64
+         */
+        private Integer maxConcurrentRequests = 64;
+
+        /**
+         * 并发已满时等待许可的最长时间（毫秒）
+         * 默认: 200
+         */
+        private Long acquireTimeoutMs = 200L;
+
+        /**
+         * 是否压缩请求体（下游服务需注册 GzipRequestFilter）
+         * 默认: false
+         */
+        private Boolean gzipRequests = false;
+    }
+
+    @Data
+    public static class Retry {
+        /**
+         * 最大尝试次数（含首次请求），1 表示不重试
+         * 默认: 2
+         */
+        private Integer maxAttempts = 2;
+
+        /**
+         * 首次重试退避基数（毫秒）
+         * 默认: 50
+         */
+        private Long initialBackoffMs = 50L;
+
+        /**
+         * 最大退避时间（毫秒）
+         * 默认: 500
+         */
+        private Long maxBackoffMs = 500L;
+
+        /**
+         * 重试预算：每秒补充的重试次数（全部客户端共享）
+         * 默认: 10
+         */
+        private Double budgetPerSecond = 10.0;
+
+        /**
+         * 重试预算上限（突发可用的重试次数）
+         * 默认: 20
+         */
+        private Integer budgetBurst = 20;
+    }
+}
@@ -0,0 +1,55 @@
+package common.feign;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Feign 请求体 gzip 压缩
+ *
+ * 只对配置了 gzip-requests 的客户端、且请求体超过阈值的请求压缩（批量同步等大负载），
+ * 下游服务通过 common.config.GzipRequestFilter 解压。
+ */
+public class GzipRequestInterceptor implements RequestInterceptor {
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String GZIP = "gzip";
+
+    private final FeignTransportProperties properties;
+
+    public GzipRequestInterceptor(FeignTransportProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        byte[] body = template.body();
+        if (body == null || body.length < properties.getGzipMinRequestSize()) {
+            return;
+        }
+        if (template.headers().containsKey(CONTENT_ENCODING)) {
+            return;
+        }
+        String name = template.feignTarget() != null ? template.feignTarget().name() : "default";
+        if (!Boolean.TRUE.equals(properties.forClient(name).getGzipRequests())) {
+            return;
+        }
+
+        template.body(gzip(body), null);
+        template.header(CONTENT_ENCODING, GZIP);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("请求体压缩失败", e);
+        }
+        return out.toByteArray();
+    }
+}
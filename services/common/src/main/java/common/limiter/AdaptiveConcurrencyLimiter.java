@@ -0,0 +1,158 @@
+package common.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应并发限制器（梯度算法，参考 Netflix concurrency-limits 的 Gradient2）
+ *
+ * 不预设固定的并发上限，而是按 RTT 的变化动态调整：
+ * - 每个采样窗口（windowMs 且至少 minSamples 个请求）计算平均 RTT 作为短期 RTT，
+ *   长期 RTT 是各窗口平均值的指数移动平均，代表无排队时的基线
+ * - 梯度 = rttTolerance × 长期RTT / 短期RTT，限制在 [0.5, 1]：
+ *   短期 RTT 没有明显高于基线时梯度为 1，上限按 sqrt(limit) 的排队余量增长；
+ *   开始排队、RTT 上升时梯度小于 1，上限按比例收缩，把并发压回吞吐曲线的拐点
+ * - 窗口内出现丢弃（下游 503/504）时按 backoffRatio 乘性减小（AIMD 的 MD 部分）
+ * - 窗口内最大在途数不到上限一半时不增长，避免低负载时上限无意义地涨到 maxLimit
+ * - 长期 RTT 比短期 RTT 大一倍以上时衰减长期 RTT，负载回落后尽快恢复基线
+ *
+ * 超过上限的请求由调用方立即拒绝，不排队。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_DECAY = 0.95;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final double longRttAlpha;
+    private final long windowNanos;
+    private final int minSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private double longRttNanos;
+    private long windowStart;
+    private int windowSamples;
+    private long windowRttSum;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double smoothing, double rttTolerance, double backoffRatio,
+                                      int longWindow, long windowMs, int minSamples) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.backoffRatio = backoffRatio;
+        this.longRttAlpha = 2.0 / (longWindow + 1);
+        this.windowNanos = windowMs * 1_000_000L;
+        this.minSamples = minSamples;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * 申请进入，返回进入时的在途数（含本请求）；超过上限返回 -1，调用方应直接拒绝
+     * 放行后必须调用 release()
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 请求结束，记录一次采样
+     *
+     * @param rttNanos       请求耗时
+     * @param inFlightAtStart tryAcquire() 的返回值
+     * @param dropped        请求是否因过载被丢弃
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        sample(rttNanos, inFlightAtStart, dropped);
+    }
+
+    /**
+     * 请求结束但不计入采样（如转为异步处理的长连接）
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        windowSamples++;
+        windowRttSum += rttNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        windowDropped |= dropped;
+
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos || windowSamples < minSamples) {
+            return;
+        }
+        update((double) windowRttSum / windowSamples, windowMaxInFlight, windowDropped);
+
+        windowStart = now;
+        windowSamples = 0;
+        windowRttSum = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private void update(double shortRttNanos, int maxInFlight, boolean dropped) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) * longRttAlpha;
+        }
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= LONG_RTT_DECAY;
+        }
+
+        double current = limit;
+        double target;
+        if (dropped) {
+            target = current * backoffRatio;
+        } else if (maxInFlight < current / 2) {
+            return;
+        } else {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+            target = current * gradient + Math.sqrt(current);
+        }
+
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 长期 RTT 基线（毫秒）
+     */
+    public synchronized double getLongRttMs() {
+        return longRttNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,38 @@
+package common.limiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.logger.AppLogger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 自适应并发限流配置
+ * 根据 concurrency-limit.enabled 开关决定是否启用
+ *
+ * 过滤器排在最前面（gzip 解压之后），超限请求在进入 Spring MVC 之前就被拒绝；
+ * 通过限流的请求再经过 @Bulkhead 的静态舱壁。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ConcurrencyLimitProperties properties, ObjectMapper objectMapper) {
+        properties.getGroups().forEach((name, group) -> AppLogger.logConfiguration("concurrency-limit." + name,
+                "paths=" + group.getPathPatterns() + ", methods=" + group.getMethods()
+                        + ", limit=" + group.getInitialLimit() + " [" + group.getMinLimit() + ", "
+                        + group.getMaxLimit() + "]"));
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(properties, objectMapper));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
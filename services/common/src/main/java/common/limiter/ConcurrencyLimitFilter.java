@@ -0,0 +1,144 @@
+package common.limiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.constant.ErrorConstants;
+import common.logger.TraceLogger;
+import common.response.BaseResponse;
+import common.response.ResponseUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发限流过滤器
+ *
+ * 请求进入时按路径和方法匹配分组，在途数达到该分组当前的自适应上限时立即返回 429，
+ * 不进入 Tomcat 后续处理、不占用数据库连接；放行的请求结束后把 RTT 和是否被丢弃
+ * （下游舱壁返回 503 或网关 504）回报给限制器。
+ * 转为异步处理的请求（SSE）在请求线程返回时释放名额，不计入 RTT 采样。
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final long REJECT_LOG_INTERVAL_MS = 1000;
+
+    private final List<GroupMatcher> groups = new ArrayList<>();
+    private final ObjectMapper objectMapper;
+    private final int retryAfterSeconds;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = properties.getRetryAfterSeconds();
+        for (Map.Entry<String, ConcurrencyLimitProperties.Group> entry : properties.getGroups().entrySet()) {
+            ConcurrencyLimitProperties.Group group = entry.getValue();
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(entry.getKey(),
+                    group.getInitialLimit(), group.getMinLimit(), group.getMaxLimit(), group.getSmoothing(),
+                    group.getRttTolerance(), group.getBackoffRatio(), group.getLongWindow(),
+                    group.getWindowMs(), group.getMinSamples());
+            groups.add(new GroupMatcher(group.getPathPatterns(), group.getMethods(), limiter));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GroupMatcher group = match(request);
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = group.limiter;
+        int inFlightAtStart = limiter.tryAcquire();
+        if (inFlightAtStart < 0) {
+            reject(request, response, group);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                limiter.releaseWithoutSample();
+            } else {
+                int status = response.getStatus();
+                boolean dropped = status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                        || status == HttpStatus.GATEWAY_TIMEOUT.value();
+                limiter.release(System.nanoTime() - start, inFlightAtStart, dropped);
+            }
+        }
+    }
+
+    private GroupMatcher match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (GroupMatcher group : groups) {
+            if (group.matches(pathMatcher, path, request.getMethod())) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, GroupMatcher group)
+            throws IOException {
+        group.rejected.increment();
+        long now = System.currentTimeMillis();
+        long last = group.lastRejectLogMs.get();
+        if (now - last >= REJECT_LOG_INTERVAL_MS && group.lastRejectLogMs.compareAndSet(last, now)) {
+            AdaptiveConcurrencyLimiter limiter = group.limiter;
+            TraceLogger.warn("concurrency_limit", "request_rejected", limiter.getName(),
+                    request.getMethod() + " " + request.getRequestURI(),
+                    "limit=" + limiter.getLimit(), "inFlight=" + limiter.getInFlight(),
+                    String.format("longRttMs=%.1f", limiter.getLongRttMs()), "rejected=" + group.rejected.sum());
+        }
+
+        BaseResponse<Void> body = ResponseUtil.error(ErrorConstants.TOO_MANY_REQUESTS,
+                ErrorConstants.getErrorMessage(ErrorConstants.TOO_MANY_REQUESTS));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static final class GroupMatcher {
+        private final List<String> pathPatterns;
+        private final List<String> methods;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicLong lastRejectLogMs = new AtomicLong();
+
+        GroupMatcher(List<String> pathPatterns, List<String> methods, AdaptiveConcurrencyLimiter limiter) {
+            this.pathPatterns = pathPatterns;
+            this.methods = methods;
+            this.limiter = limiter;
+        }
+
+        boolean matches(AntPathMatcher pathMatcher, String path, String method) {
+            if (!methods.isEmpty() && methods.stream().noneMatch(m -> m.equalsIgnoreCase(method))) {
+                return false;
+            }
+            return pathPatterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package common.limiter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 自适应并发限流配置
+ * 配置前缀: concurrency-limit
+ *
+ * 示例：
+ * <pre>
+ * concurrency-limit:
+ *   enabled: true
+ *   groups:
+ *     tip:
+ *       path-patterns: /api/v1/recharge
+ *       methods: POST
+ *       max-limit: 120
+ * </pre>
+ *
+ * 每个分组独立测量 RTT、独立调整并发上限；请求按配置顺序匹配第一个分组，未匹配的请求不限流。
+ */
+@ConfigurationProperties(prefix = "concurrency-limit")
+@Data
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否开启自适应并发限流
+     * 默认: false
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 拒绝响应的 Retry-After（秒）
+     * 默认: 1
+     */
+    private Integer retryAfterSeconds = 1;
+
+    /**
+     * 按接口分组的限流配置，key 为分组名
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Data
+    public static class Group {
+        /**
+         * 匹配的路径（Ant 风格，不含 context-path）
+         */
+        private List<String> pathPatterns = new ArrayList<>();
+
+        /**
+         * 匹配的 HTTP 方法，为空时匹配全部
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * 初始并发上限
+         * 默认: 20
+         */
+        private Integer initialLimit = 20;
+
+        /**
+         * 并发上限下界
+         * 默认: 4
+         */
+        private Integer minLimit = 4;
+
+        /**
+         * 并发上限上界，不应超过请求线程数和对应舱壁的 max-concurrent
+         * 默认: 100
+         */
+        private Integer maxLimit = 100;
+
+        /**
+         * 每个窗口向目标上限移动的比例
+         * 默认: 0.2
+         */
+        private Double smoothing = 0.2;
+
+        /**
+         * 短期 RTT 超过长期基线多少倍才开始收缩
+         * 默认: 1.5
+         */
+        private Double rttTolerance = 1.5;
+
+        /**
+         * 出现丢弃（503/504）时上限乘以的比例
+         * 默认: 0.9
+         */
+        private Double backoffRatio = 0.9;
+
+        /**
+         * 长期 RTT 的平滑窗口数
+         * 默认: 600
+         */
+        private Integer longWindow = 600;
+
+        /**
+         * 采样窗口时长（毫秒）
+         * 默认: 500
+         */
+        private Long windowMs = 500L;
+
+        /**
+         * 每个采样窗口至少的请求数
+         * 默认: 10
+         */
+        private Integer minSamples = 10;
+    }
+}
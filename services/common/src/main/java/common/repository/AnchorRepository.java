@@ -1,5 +1,6 @@
 package common.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -35,6 +36,12 @@ public interface AnchorRepository extends BaseRepository<Anchor, Long> {
     @Query(value = "SELECT * FROM anchor ORDER BY total_earnings DESC LIMIT :limit", nativeQuery = true)
     List<Anchor> findTopAnchorsByEarnings(@Param("limit") int limit);
 
+    /**
+     * 按昵称或用户名关键词搜索主播（搜索索引未就绪时的回退查询）
+     */
+    @Query("SELECT a FROM Anchor a WHERE a.nickname LIKE %:keyword% OR a.username LIKE %:keyword%")
+    List<Anchor> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
     /**
      * 查询粉丝数大于指定值的主播
      */
@@ -2,6 +2,7 @@ package common.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -37,12 +38,37 @@ public interface AudienceRepository extends BaseRepository<Audience, Long> {
      */
     Page<Audience> findByConsumptionLevel(Integer level, Pageable pageable);
 
+    /**
+     * 按游标查询观众（Keyset 分页，按用户ID升序）
+     */
+    @Query("SELECT a FROM Audience a WHERE a.userId > :afterId ORDER BY a.userId")
+    List<Audience> seekAll(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 按游标查询指定消费等级的观众（Keyset 分页，按用户ID升序）
+     */
+    @Query("SELECT a FROM Audience a WHERE a.consumptionLevel = :level AND a.userId > :afterId ORDER BY a.userId")
+    List<Audience> seekByConsumptionLevel(@Param("level") Integer level, @Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * 按关键词搜索观众（分页）
      */
     @Query("SELECT a FROM Audience a WHERE a.nickname LIKE %:keyword% OR a.realName LIKE %:keyword%")
     Page<Audience> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
+    /**
+     * 按关键词搜索观众（分页，不统计总数，多取一条判断是否有下一页）
+     */
+    @Query("SELECT a FROM Audience a WHERE a.nickname LIKE %:keyword% OR a.realName LIKE %:keyword%")
+    Slice<Audience> sliceByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    /**
+     * 按游标搜索观众（Keyset 分页，按用户ID升序）
+     */
+    @Query("SELECT a FROM Audience a WHERE (a.nickname LIKE %:keyword% OR a.realName LIKE %:keyword%) " +
+           "AND a.userId > :afterId ORDER BY a.userId")
+    List<Audience> seekByKeyword(@Param("keyword") String keyword, @Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * 按粉丝等级查询观众
      */
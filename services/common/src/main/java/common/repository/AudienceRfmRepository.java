@@ -0,0 +1,19 @@
+package common.repository;
+
+import org.springframework.data.jpa.repository.Query;
+import common.bean.user.AudienceRfm;
+
+import java.util.List;
+
+/**
+ * 观众RFM画像Repository接口
+ */
+public interface AudienceRfmRepository extends BaseRepository<AudienceRfm, Long> {
+
+    /**
+     * 分层直方图
+     * 返回 [segment, 观众数, 累计金额(分)]
+     */
+    @Query("SELECT a.segment, COUNT(a), COALESCE(SUM(a.sumCents), 0) FROM AudienceRfm a GROUP BY a.segment")
+    List<Object[]> countBySegment();
+}
@@ -1,5 +1,6 @@
 package common.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import common.bean.liveroom.LiveRoom;
@@ -24,6 +25,19 @@ public interface LiveRoomRepository extends BaseRepository<LiveRoom, Long> {
     @Query("SELECT lr FROM LiveRoom lr WHERE lr.roomStatus = 1 ORDER BY lr.totalViewers DESC")
     List<LiveRoom> findLiveRooms();
 
+    /**
+     * 按游标查询正在直播的直播间（Keyset 分页，按观众数倒序）
+     * 观众数实时变化，翻页期间排名变动的直播间可能重复或遗漏，与 OFFSET 分页一致
+     */
+    @Query("SELECT lr FROM LiveRoom lr WHERE lr.roomStatus = 1 " +
+           "AND (lr.totalViewers < :beforeViewers OR (lr.totalViewers = :beforeViewers AND lr.liveRoomId < :beforeId)) " +
+           "ORDER BY lr.totalViewers DESC, lr.liveRoomId DESC")
+    List<LiveRoom> seekLiveRooms(
+        @Param("beforeViewers") Long beforeViewers,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+
     /**
      * 查询按观众数排行的直播间（TOP N）
      */
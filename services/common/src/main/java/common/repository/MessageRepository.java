@@ -26,6 +26,20 @@ public interface MessageRepository extends BaseRepository<Message, Long> {
     @Query("SELECT m FROM Message m WHERE m.liveRoom.liveRoomId = :liveRoomId ORDER BY m.createTime DESC")
     Page<Message> findByLiveRoomId(@Param("liveRoomId") Long liveRoomId, Pageable pageable);
 
+    /**
+     * 按游标查询指定直播间的弹幕（Keyset 分页）
+     * 从 (beforeTime, beforeId) 之后继续按时间倒序读取，走 (live_room_id, create_time) 索引，不做 OFFSET 和 COUNT
+     */
+    @Query("SELECT m FROM Message m WHERE m.liveRoom.liveRoomId = :liveRoomId " +
+           "AND (m.createTime < :beforeTime OR (m.createTime = :beforeTime AND m.messageId < :beforeId)) " +
+           "ORDER BY m.createTime DESC, m.messageId DESC")
+    List<Message> seekByLiveRoomId(
+        @Param("liveRoomId") Long liveRoomId,
+        @Param("beforeTime") LocalDateTime beforeTime,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+
     /**
      * 查询指定观众发送的所有弹幕
      */
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -70,6 +71,19 @@ public interface RechargeRecordRepository extends BaseRepository<RechargeRecord,
                                @Param("startTime") LocalDateTime startTime,
                                @Param("endTime") LocalDateTime endTime);
 
+    /**
+     * 按主播分组统计多个主播指定时间段的打赏金额和笔数
+     * 返回 [anchorId, SUM(rechargeAmount), COUNT]，没有打赏的主播不出现在结果中
+     */
+    @Query("SELECT rr.anchorId, COALESCE(SUM(rr.rechargeAmount), 0), COUNT(rr) FROM RechargeRecord rr " +
+            "WHERE rr.anchorId IN :anchorIds " +
+            "AND rr.rechargeTime >= :startTime " +
+            "AND rr.rechargeTime < :endTime " +
+            "GROUP BY rr.anchorId")
+    List<Object[]> sumAndCountByAnchorsAndTime(@Param("anchorIds") Collection<Long> anchorIds,
+                                               @Param("startTime") LocalDateTime startTime,
+                                               @Param("endTime") LocalDateTime endTime);
+
     /**
      * 统计所有主播指定时间段的数据
      */
@@ -9,6 +9,7 @@ import common.bean.Recharge;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,11 @@ public interface RechargeRepository extends BaseRepository<Recharge, Long> {
      */
     Optional<Recharge> findByTraceId(String traceId);
 
+    /**
+     * 按traceId和打赏时间查询（打赏时间来自 recharge_trace，只访问一个分区）
+     */
+    Optional<Recharge> findByTraceIdAndRechargeTime(String traceId, LocalDateTime rechargeTime);
+
     /**
      * 按主播ID查询所有打赏记录
      */
@@ -42,6 +48,32 @@ public interface RechargeRepository extends BaseRepository<Recharge, Long> {
      */
     Page<Recharge> findByAudienceId(Long audienceId, Pageable pageable);
 
+    /**
+     * 按游标查询主播的打赏记录（Keyset 分页，按打赏时间倒序）
+     */
+    @Query("SELECT r FROM Recharge r WHERE r.anchorId = :anchorId " +
+           "AND (r.rechargeTime < :beforeTime OR (r.rechargeTime = :beforeTime AND r.rechargeId < :beforeId)) " +
+           "ORDER BY r.rechargeTime DESC, r.rechargeId DESC")
+    List<Recharge> seekByAnchorId(
+        @Param("anchorId") Long anchorId,
+        @Param("beforeTime") LocalDateTime beforeTime,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+
+    /**
+     * 按游标查询观众的打赏记录（Keyset 分页，按打赏时间倒序）
+     */
+    @Query("SELECT r FROM Recharge r WHERE r.audienceId = :audienceId " +
+           "AND (r.rechargeTime < :beforeTime OR (r.rechargeTime = :beforeTime AND r.rechargeId < :beforeId)) " +
+           "ORDER BY r.rechargeTime DESC, r.rechargeId DESC")
+    List<Recharge> seekByAudienceId(
+        @Param("audienceId") Long audienceId,
+        @Param("beforeTime") LocalDateTime beforeTime,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+
     /**
      * 按直播间ID查询所有打赏记录
      */
@@ -90,6 +122,17 @@ public interface RechargeRepository extends BaseRepository<Recharge, Long> {
         @Param("endTime") LocalDateTime endTime
     );
 
+    /**
+     * 查询多个主播在时间范围内的打赏记录（按主播批量分析时一次加载）
+     */
+    @Query("SELECT r FROM Recharge r WHERE r.anchorId IN :anchorIds " +
+           "AND r.rechargeTime BETWEEN :startTime AND :endTime")
+    List<Recharge> findByAnchorIdsAndTimeRange(
+        @Param("anchorIds") Collection<Long> anchorIds,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime
+    );
+
     /**
      * 查询指定主播在时间范围内的打赏总额
      */
@@ -107,6 +150,12 @@ public interface RechargeRepository extends BaseRepository<Recharge, Long> {
     @Query("SELECT COALESCE(SUM(r.rechargeAmount), 0) FROM Recharge r WHERE r.audienceId = :audienceId")
     BigDecimal sumRechargeAmountByAudience(@Param("audienceId") Long audienceId);
 
+    /**
+     * 统计指定观众打赏过的主播数
+     */
+    @Query("SELECT COUNT(DISTINCT r.anchorId) FROM Recharge r WHERE r.audienceId = :audienceId")
+    long countDistinctAnchorByAudience(@Param("audienceId") Long audienceId);
+
     /**
      * 查询指定主播的打赏总额
      */
@@ -129,4 +178,30 @@ public interface RechargeRepository extends BaseRepository<Recharge, Long> {
      */
     @Query("SELECT r FROM Recharge r WHERE r.status IN (0, 1) AND r.anchorId IN :anchorIds")
     List<Recharge> findUnsettledRechargesByAnchors(@Param("anchorIds") List<Long> anchorIds);
+
+    /**
+     * 按观众汇总指定直播间自某时刻起的打赏金额（排除已退款），用于贡献榜对账
+     * 返回 [audienceId, SUM(rechargeAmount)]
+     */
+    @Query("SELECT r.audienceId, SUM(r.rechargeAmount) FROM Recharge r " +
+           "WHERE r.liveRoomId = :liveRoomId AND r.rechargeTime >= :since AND r.status <> 3 " +
+           "GROUP BY r.audienceId")
+    List<Object[]> sumRechargeAmountByAudienceForLiveRoom(
+        @Param("liveRoomId") Long liveRoomId,
+        @Param("since") LocalDateTime since
+    );
+
+    /**
+     * 按观众汇总主播时间范围内的打赏（金额降序），用于TOP打赏观众
+     * 返回 [audienceId, SUM(rechargeAmount), COUNT, MAX(rechargeTime)]
+     */
+    @Query("SELECT r.audienceId, SUM(r.rechargeAmount), COUNT(r), MAX(r.rechargeTime) FROM Recharge r " +
+           "WHERE r.anchorId = :anchorId AND r.rechargeTime BETWEEN :startTime AND :endTime AND r.status <> 3 " +
+           "GROUP BY r.audienceId ORDER BY SUM(r.rechargeAmount) DESC")
+    List<Object[]> sumRechargeByAudienceForAnchor(
+        @Param("anchorId") Long anchorId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        Pageable pageable
+    );
 }
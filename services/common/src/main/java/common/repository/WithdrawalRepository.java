@@ -94,6 +94,21 @@ public interface WithdrawalRepository extends BaseRepository<Withdrawal, Long> {
             Pageable pageable
     );
 
+    /**
+     * 按游标查询主播的提现记录（Keyset 分页，按申请时间倒序）
+     */
+    @Query("SELECT w FROM Withdrawal w WHERE w.anchorId = :anchorId " +
+            "AND (:status IS NULL OR w.status = :status) " +
+            "AND (w.appliedTime < :beforeTime OR (w.appliedTime = :beforeTime AND w.withdrawalId < :beforeId)) " +
+            "ORDER BY w.appliedTime DESC, w.withdrawalId DESC")
+    List<Withdrawal> seekByAnchorIdAndStatus(
+            @Param("anchorId") Long anchorId,
+            @Param("status") Integer status,
+            @Param("beforeTime") LocalDateTime beforeTime,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
+
     /**
      * 按主播ID查询提现记录（分页，按申请时间倒序）
      */
@@ -0,0 +1,76 @@
+package common.response;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 游标分页响应体
+ * 用于按游标（Keyset）翻页的列表数据，不返回页码和精确总数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 分页数据列表 */
+    private List<T> items;
+
+    /** 下一页游标，没有下一页时为空 */
+    private String nextCursor;
+
+    /** 是否有下一页 */
+    private boolean hasNext;
+
+    /** 每页大小 */
+    private int pageSize;
+
+    /** 估算总记录数（来自执行计划，可能为空） */
+    private Long estimatedTotal;
+
+    /** 时间戳 */
+    private long timestamp;
+
+    /** traceId (用于问题追踪) */
+    private String traceId;
+
+    /**
+     * 构造游标分页响应
+     */
+    public static <T> CursorPageResponse<T> of(List<T> items, String nextCursor, int pageSize, Long estimatedTotal) {
+        return CursorPageResponse.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .pageSize(pageSize)
+                .estimatedTotal(estimatedTotal)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    /**
+     * 转换数据类型，游标和估算总数不变
+     */
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = items.stream().map(converter).collect(Collectors.toList());
+        return CursorPageResponse.<R>builder()
+                .items(converted)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .pageSize(pageSize)
+                .estimatedTotal(estimatedTotal)
+                .timestamp(timestamp)
+                .traceId(traceId)
+                .build();
+    }
+}
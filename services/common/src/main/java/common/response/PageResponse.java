@@ -89,11 +89,28 @@ public class PageResponse<T> implements Serializable {
                 .build();
     }
 
+    /**
+     * 构造不统计总数的分页响应（Slice），total 和 totalPages 为 -1
+     * 用于按相关度排序的搜索等无法廉价计算总数的查询，翻页依据 hasNext
+     */
+    public static <T> PageResponse<T> ofSlice(List<T> items, boolean hasNext, int pageNo, int pageSize) {
+        return PageResponse.<T>builder()
+                .items(items)
+                .total(-1)
+                .pageNo(pageNo)
+                .pageSize(pageSize)
+                .totalPages(-1)
+                .hasNext(hasNext)
+                .hasPrevious(pageNo > 1)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
     /**
      * 判断是否是最后一页
      */
     public boolean isLastPage() {
-        return pageNo >= totalPages;
+        return totalPages < 0 ? !hasNext : pageNo >= totalPages;
     }
 
     /**
@@ -1,8 +1,11 @@
 package common.service;
 
+import common.annotation.ReadOnlyQuery;
 import common.bean.Recharge;
 import common.logger.TraceLogger;
 import common.repository.RechargeRepository;
+import common.util.MoneyUtil;
+import common.util.TimeSeriesOps;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,6 +16,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,8 +34,12 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class AnalysisQueryService {
 
+    /** 按主播批量查询时单条 IN 语句的最大主播数 */
+    private static final int ANCHOR_IN_CHUNK_SIZE = 500;
+
     private final RechargeRepository rechargeRepository;
 
     /**
@@ -54,10 +66,31 @@ public class AnalysisQueryService {
         TraceLogger.info("AnalysisQueryService", "getRechargesByAnchorAndTimeRange",
             String.format("查询主播%d的打赏: %s - %s", anchorId, startTime, endTime));
 
-        List<Recharge> allRecharges = rechargeRepository.findByTimeRange(startTime, endTime);
-        return allRecharges.stream()
-            .filter(r -> r.getAnchorId().equals(anchorId))
-            .collect(Collectors.toList());
+        return rechargeRepository.findByAnchorIdsAndTimeRange(List.of(anchorId), startTime, endTime);
+    }
+
+    /**
+     * 查询多个主播在时间范围内的打赏记录，按主播分组
+     * 每 500 个主播一条 IN 查询，只扫描一次时间范围；没有打赏的主播不出现在结果中
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<Recharge>> getRechargesByAnchorsAndTimeRange(Collection<Long> anchorIds,
+                                                                       LocalDateTime startTime, LocalDateTime endTime) {
+        if (anchorIds == null || startTime == null || endTime == null) {
+            throw new IllegalArgumentException("参数不能为空");
+        }
+        TraceLogger.info("AnalysisQueryService", "getRechargesByAnchorsAndTimeRange",
+            String.format("批量查询%d个主播的打赏: %s - %s", anchorIds.size(), startTime, endTime));
+
+        List<Long> ids = new ArrayList<>(anchorIds);
+        Map<Long, List<Recharge>> grouped = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += ANCHOR_IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ANCHOR_IN_CHUNK_SIZE, ids.size()));
+            for (Recharge recharge : rechargeRepository.findByAnchorIdsAndTimeRange(chunk, startTime, endTime)) {
+                grouped.computeIfAbsent(recharge.getAnchorId(), id -> new ArrayList<>()).add(recharge);
+            }
+        }
+        return grouped;
     }
 
     /**
@@ -77,6 +110,25 @@ public class AnalysisQueryService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * 查询时间范围内的稠密金额序列（按天或按小时，无打赏的时段为 0）
+     * 单次遍历打赏记录，按下标累加到 long[]，不构建按日期字符串分组的 Map
+     */
+    @Transactional(readOnly = true)
+    public TimeSeriesOps.Series getRechargeSeries(LocalDateTime startTime, LocalDateTime endTime, ChronoUnit unit) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("时间范围不能为空");
+        }
+        TraceLogger.info("AnalysisQueryService", "getRechargeSeries",
+            String.format("查询打赏金额序列（%s）: %s - %s", unit, startTime, endTime));
+
+        TimeSeriesOps.Series series = TimeSeriesOps.newSeries(startTime, endTime, unit);
+        for (Recharge recharge : rechargeRepository.findByTimeRange(startTime, endTime)) {
+            series.add(recharge.getRechargeTime(), MoneyUtil.dollarsToCents(recharge.getRechargeAmount()));
+        }
+        return series;
+    }
+
     /**
      * 按天统计时间范围内的打赏数据
      */
@@ -512,22 +564,8 @@ public class AnalysisQueryService {
         TraceLogger.debug("AnalysisQueryService", "calculateMovingAverage",
             String.format("计算%d周期移动平均", windowSize));
 
-        List<String> keys = statsByPeriod.keySet().stream()
-            .sorted()
-            .collect(Collectors.toList());
-
-        Map<String, BigDecimal> maMap = new java.util.LinkedHashMap<>();
-        for (int i = 0; i < keys.size(); i++) {
-            int start = Math.max(0, i - windowSize + 1);
-            BigDecimal sum = BigDecimal.ZERO;
-            for (int j = start; j <= i; j++) {
-                sum = sum.add(statsByPeriod.get(keys.get(j)).getTotalAmount());
-            }
-            int count = i - start + 1;
-            BigDecimal ma = sum.divide(java.math.BigDecimal.valueOf(count), 2, java.math.RoundingMode.HALF_UP);
-            maMap.put(keys.get(i), ma);
-        }
-        return maMap;
+        List<String> keys = sortedKeys(statsByPeriod);
+        return toAmountMap(keys, TimeSeriesOps.movingAverage(toCents(keys, statsByPeriod), windowSize));
     }
 
     /**
@@ -538,35 +576,8 @@ public class AnalysisQueryService {
         TraceLogger.debug("AnalysisQueryService", "calculateEMA",
             String.format("计算%d周期指数移动平均", period));
 
-        List<String> keys = statsByPeriod.keySet().stream()
-            .sorted()
-            .collect(Collectors.toList());
-
-        if (keys.isEmpty()) {
-            return new java.util.HashMap<>();
-        }
-
-        double alpha = 2.0 / (period + 1);
-        Map<String, BigDecimal> emaMap = new java.util.LinkedHashMap<>();
-
-        // 初始EMA为前period个数据的简单平均
-        BigDecimal initialSum = BigDecimal.ZERO;
-        int initialCount = Math.min(period, keys.size());
-        for (int i = 0; i < initialCount; i++) {
-            initialSum = initialSum.add(statsByPeriod.get(keys.get(i)).getTotalAmount());
-        }
-        BigDecimal ema = initialSum.divide(java.math.BigDecimal.valueOf(initialCount), 2, java.math.RoundingMode.HALF_UP);
-        emaMap.put(keys.get(0), ema);
-
-        // 递推计算EMA
-        for (int i = 1; i < keys.size(); i++) {
-            BigDecimal currentValue = statsByPeriod.get(keys.get(i)).getTotalAmount();
-            ema = currentValue.multiply(java.math.BigDecimal.valueOf(alpha))
-                .add(ema.multiply(java.math.BigDecimal.valueOf(1 - alpha)))
-                .setScale(2, java.math.RoundingMode.HALF_UP);
-            emaMap.put(keys.get(i), ema);
-        }
-        return emaMap;
+        List<String> keys = sortedKeys(statsByPeriod);
+        return toAmountMap(keys, TimeSeriesOps.ema(toCents(keys, statsByPeriod), period));
     }
 
     /**
@@ -575,29 +586,36 @@ public class AnalysisQueryService {
     public static Map<String, BigDecimal> calculateGrowthRate(Map<String, RechargeStats> statsByPeriod) {
         TraceLogger.debug("AnalysisQueryService", "calculateGrowthRate", "计算增长率");
 
-        List<String> keys = statsByPeriod.keySet().stream()
+        List<String> keys = sortedKeys(statsByPeriod);
+        long[] rates = TimeSeriesOps.growthRate(toCents(keys, statsByPeriod));
+
+        Map<String, BigDecimal> growthRateMap = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            growthRateMap.put(keys.get(i), BigDecimal.valueOf(rates[i], 2));
+        }
+        return growthRateMap;
+    }
+
+    private static List<String> sortedKeys(Map<String, RechargeStats> statsByPeriod) {
+        return statsByPeriod.keySet().stream()
             .sorted()
             .collect(Collectors.toList());
+    }
 
-        Map<String, BigDecimal> growthRateMap = new java.util.LinkedHashMap<>();
-        growthRateMap.put(keys.get(0), BigDecimal.ZERO); // 第一个没有增长率
-
-        for (int i = 1; i < keys.size(); i++) {
-            BigDecimal prevAmount = statsByPeriod.get(keys.get(i - 1)).getTotalAmount();
-            BigDecimal currentAmount = statsByPeriod.get(keys.get(i)).getTotalAmount();
-
-            BigDecimal growthRate;
-            if (prevAmount.compareTo(BigDecimal.ZERO) == 0) {
-                growthRate = BigDecimal.ZERO;
-            } else {
-                growthRate = currentAmount.subtract(prevAmount)
-                    .divide(prevAmount, 4, java.math.RoundingMode.HALF_UP)
-                    .multiply(java.math.BigDecimal.valueOf(100))
-                    .setScale(2, java.math.RoundingMode.HALF_UP);
-            }
-            growthRateMap.put(keys.get(i), growthRate);
+    private static long[] toCents(List<String> keys, Map<String, RechargeStats> statsByPeriod) {
+        long[] cents = new long[keys.size()];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = MoneyUtil.dollarsToCents(statsByPeriod.get(keys.get(i)).getTotalAmount());
         }
-        return growthRateMap;
+        return cents;
+    }
+
+    private static Map<String, BigDecimal> toAmountMap(List<String> keys, long[] cents) {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < cents.length; i++) {
+            result.put(keys.get(i), BigDecimal.valueOf(cents[i], 2));
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,371 @@
+package common.service;
+
+import common.logger.TraceLogger;
+import common.util.QuantileSketch;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 主播打赏金额分位数草图服务
+ *
+ * 按打赏ID水位（sync_progress.sync_type = 3，见 RechargeWatermarkService）增量消费 recharge 表，
+ * 把单笔打赏金额写入按 (主播, 打赏日期) 存储的 KLL 草图（anchor_daily_amount_sketch），
+ * 同一批次同时写入按日期汇总全部主播的草图（daily_amount_sketch）。
+ * 任意日期区间的 p50/p90/p99 由区间内各天草图合并得到，不再读取并排序全部打赏金额；
+ * 不指定主播时只合并每天一个汇总草图，合并量与主播数无关。
+ *
+ * 精度由 analysis.sketch.k 控制：k=200 时归一化秩误差约 1.3%，每个草图约 5KB
+ */
+@Slf4j
+@Service
+public class AnchorAmountSketchService {
+
+    private static final RechargeWatermarkService.Consumer WATERMARK =
+        new RechargeWatermarkService.Consumer(3, "anchor_amount_sketch");
+
+    private static final String RECHARGE_COLUMNS = "recharge_id, anchor_id, recharge_amount, recharge_time";
+
+    private static final String UPSERT_SKETCH_SQL =
+        "INSERT INTO anchor_daily_amount_sketch (anchor_id, stat_date, tip_count, sum_amount, sketch) " +
+        "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+        "tip_count = VALUES(tip_count), " +
+        "sum_amount = VALUES(sum_amount), " +
+        "sketch = VALUES(sketch)";
+
+    private static final String UPSERT_ROLLUP_SQL =
+        "INSERT INTO daily_amount_sketch (stat_date, tip_count, sum_amount, sketch) " +
+        "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+        "tip_count = VALUES(tip_count), " +
+        "sum_amount = VALUES(sum_amount), " +
+        "sketch = VALUES(sketch)";
+
+    private static final String SELECT_MISSING_ROLLUP_DATES_SQL =
+        "SELECT DISTINCT a.stat_date FROM anchor_daily_amount_sketch a " +
+        "WHERE NOT EXISTS (SELECT 1 FROM daily_amount_sketch d WHERE d.stat_date = a.stat_date) " +
+        "ORDER BY a.stat_date LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RechargeWatermarkService watermarkService;
+
+    /** 草图精度参数，只影响新建的草图；已有草图保留写入时的 k */
+    @Value("${analysis.sketch.k:200}")
+    private int sketchK;
+
+    /**
+     * 消费一批水位之后的打赏记录（含回查到的晚提交记录）并写入每日草图和每日汇总草图
+     *
+     * @param batchSize 本批最多消费的新打赏笔数
+     * @return 本批消费的新打赏笔数（小于 batchSize 说明已追平）
+     */
+    @Transactional
+    public int applyNewRecharges(int batchSize) {
+        RechargeWatermarkService.Batch<Object[]> batch = watermarkService.nextBatch(WATERMARK, RECHARGE_COLUMNS,
+            (rs, rowNum) -> new Object[] {
+                rs.getLong("recharge_id"),
+                rs.getLong("anchor_id"),
+                rs.getBigDecimal("recharge_amount"),
+                rs.getTimestamp("recharge_time").toLocalDateTime().toLocalDate()
+            },
+            row -> (Long) row[0], batchSize);
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 本批按 (主播, 日期) 分组
+        Map<DayKey, List<BigDecimal>> grouped = new LinkedHashMap<>();
+        BigDecimal batchAmount = BigDecimal.ZERO;
+        for (Object[] row : batch.getRows()) {
+            BigDecimal amount = (BigDecimal) row[2];
+            grouped.computeIfAbsent(new DayKey((Long) row[1], (LocalDate) row[3]), key -> new ArrayList<>()).add(amount);
+            batchAmount = batchAmount.add(amount);
+        }
+
+        // 2. 读取已有草图并合并，同时累加到当天的汇总草图
+        Map<DayKey, DaySketch> existing = loadSketches(grouped.keySet());
+        Set<LocalDate> dates = grouped.keySet().stream().map(key -> key.statDate).collect(Collectors.toSet());
+        Map<LocalDate, DaySketch> rollups = loadRollups(dates);
+        List<Object[]> upserts = new ArrayList<>(grouped.size());
+        for (Map.Entry<DayKey, List<BigDecimal>> entry : grouped.entrySet()) {
+            DaySketch day = existing.get(entry.getKey());
+            if (day == null) {
+                day = new DaySketch(new QuantileSketch(sketchK), 0L, BigDecimal.ZERO);
+            }
+            DaySketch rollup = rollups.get(entry.getKey().statDate);
+            for (BigDecimal amount : entry.getValue()) {
+                day.add(amount);
+                rollup.add(amount);
+            }
+            upserts.add(new Object[] {
+                entry.getKey().anchorId,
+                Date.valueOf(entry.getKey().statDate),
+                day.tipCount,
+                day.sumAmount,
+                day.sketch.toBytes()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SKETCH_SQL, upserts);
+        upsertRollups(rollups);
+
+        // 3. 推进水位（与草图写入同一事务）
+        watermarkService.advance(batch, batchAmount);
+
+        TraceLogger.info("AnchorAmountSketch", "applyNewRecharges",
+            String.format("金额草图增量更新: 打赏=%d笔(晚提交%d), 主播日=%d, 水位 %d -> %d",
+                batch.getRows().size(), batch.getLateRows(), grouped.size(), batch.getFromId(), batch.getToId()));
+        return batch.freshRows();
+    }
+
+    /**
+     * 为缺少汇总草图的日期（汇总表上线前写入的主播日草图）合并生成汇总草图
+     * 持有水位锁执行，与增量更新串行，合并期间主播日草图不会变化
+     *
+     * @param maxDays 本次最多补齐的天数
+     * @return 补齐的天数
+     */
+    @Transactional
+    public int backfillRollups(int maxDays) {
+        watermarkService.lock(WATERMARK);
+        List<LocalDate> dates = jdbcTemplate.queryForList(SELECT_MISSING_ROLLUP_DATES_SQL, Date.class, maxDays)
+            .stream().map(Date::toLocalDate).collect(Collectors.toList());
+        if (dates.isEmpty()) {
+            return 0;
+        }
+
+        Map<LocalDate, DaySketch> rollups = new LinkedHashMap<>();
+        for (LocalDate date : dates) {
+            rollups.put(date, buildRollup(date));
+        }
+        upsertRollups(rollups);
+
+        TraceLogger.info("AnchorAmountSketch", "backfillRollups",
+            String.format("补齐每日汇总草图: %d 天, %s ~ %s", dates.size(), dates.get(0), dates.get(dates.size() - 1)));
+        return dates.size();
+    }
+
+    /**
+     * 查询日期区间内单笔打赏金额的分位数
+     *
+     * @param anchorId  主播ID，为空时统计全部主播
+     * @param startDate 开始日期（含）
+     * @param endDate   结束日期（含）
+     * @param quantiles 分位点，取值 0~1
+     */
+    @Transactional(readOnly = true)
+    public AmountQuantiles getQuantiles(Long anchorId, LocalDate startDate, LocalDate endDate, double... quantiles) {
+        // 不指定主播时读取每日汇总草图，每天只合并一个
+        String sql = anchorId != null
+            ? "SELECT tip_count, sum_amount, sketch FROM anchor_daily_amount_sketch " +
+              "WHERE anchor_id = ? AND stat_date BETWEEN ? AND ?"
+            : "SELECT tip_count, sum_amount, sketch FROM daily_amount_sketch WHERE stat_date BETWEEN ? AND ?";
+        List<Object> args = new ArrayList<>();
+        if (anchorId != null) {
+            args.add(anchorId);
+        }
+        args.add(Date.valueOf(startDate));
+        args.add(Date.valueOf(endDate));
+
+        QuantileSketch merged = new QuantileSketch(sketchK);
+        long[] tipCount = {0L};
+        BigDecimal[] sumAmount = {BigDecimal.ZERO};
+        int[] days = {0};
+        jdbcTemplate.query(sql, rs -> {
+            merged.merge(QuantileSketch.fromBytes(rs.getBytes("sketch")));
+            tipCount[0] += rs.getLong("tip_count");
+            sumAmount[0] = sumAmount[0].add(rs.getBigDecimal("sum_amount"));
+            days[0]++;
+        }, args.toArray());
+
+        double[] values = merged.quantiles(quantiles);
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < quantiles.length; i++) {
+            result.put(quantileLabel(quantiles[i]), toAmount(values[i]));
+        }
+
+        TraceLogger.debug("AnchorAmountSketch", "getQuantiles",
+            String.format("主播=%s, %s ~ %s, 合并草图=%d, 打赏=%d笔", anchorId, startDate, endDate, days[0], tipCount[0]));
+
+        return AmountQuantiles.builder()
+            .anchorId(anchorId)
+            .startDate(startDate)
+            .endDate(endDate)
+            .tipCount(tipCount[0])
+            .sumAmount(sumAmount[0])
+            .minAmount(toAmount(merged.getMin()))
+            .maxAmount(toAmount(merged.getMax()))
+            .quantiles(result)
+            .sketchDays(days[0])
+            .build();
+    }
+
+    private Map<DayKey, DaySketch> loadSketches(Set<DayKey> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<Long> anchorIds = keys.stream().map(key -> key.anchorId).collect(Collectors.toCollection(HashSet::new));
+        Set<LocalDate> dates = keys.stream().map(key -> key.statDate).collect(Collectors.toCollection(HashSet::new));
+
+        // 主播和日期分别 IN 查询，多出的组合在内存中过滤
+        String sql = "SELECT anchor_id, stat_date, tip_count, sum_amount, sketch FROM anchor_daily_amount_sketch " +
+            "WHERE anchor_id IN (" + placeholders(anchorIds.size()) + ") " +
+            "AND stat_date IN (" + placeholders(dates.size()) + ")";
+        List<Object> args = new ArrayList<>(anchorIds);
+        dates.forEach(date -> args.add(Date.valueOf(date)));
+
+        Map<DayKey, DaySketch> result = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            DayKey key = new DayKey(rs.getLong("anchor_id"), rs.getDate("stat_date").toLocalDate());
+            if (keys.contains(key)) {
+                result.put(key, new DaySketch(QuantileSketch.fromBytes(rs.getBytes("sketch")),
+                    rs.getLong("tip_count"), rs.getBigDecimal("sum_amount")));
+            }
+        }, args.toArray());
+        return result;
+    }
+
+    /**
+     * 读取汇总草图；不存在的日期由当天已有的主播日草图合并生成（新的一天为空草图），
+     * 汇总表上线前已有数据的日期也不会只计入新增部分
+     */
+    private Map<LocalDate, DaySketch> loadRollups(Set<LocalDate> dates) {
+        Map<LocalDate, DaySketch> result = new LinkedHashMap<>();
+        if (dates.isEmpty()) {
+            return result;
+        }
+        List<Object> args = new ArrayList<>();
+        dates.forEach(date -> args.add(Date.valueOf(date)));
+        jdbcTemplate.query("SELECT stat_date, tip_count, sum_amount, sketch FROM daily_amount_sketch " +
+            "WHERE stat_date IN (" + placeholders(dates.size()) + ")", rs -> {
+            result.put(rs.getDate("stat_date").toLocalDate(), new DaySketch(
+                QuantileSketch.fromBytes(rs.getBytes("sketch")), rs.getLong("tip_count"), rs.getBigDecimal("sum_amount")));
+        }, args.toArray());
+        for (LocalDate date : dates) {
+            result.computeIfAbsent(date, this::buildRollup);
+        }
+        return result;
+    }
+
+    /**
+     * 合并某天全部主播日草图
+     */
+    private DaySketch buildRollup(LocalDate date) {
+        DaySketch rollup = new DaySketch(new QuantileSketch(sketchK), 0L, BigDecimal.ZERO);
+        jdbcTemplate.query("SELECT tip_count, sum_amount, sketch FROM anchor_daily_amount_sketch WHERE stat_date = ?",
+            rs -> {
+                rollup.sketch.merge(QuantileSketch.fromBytes(rs.getBytes("sketch")));
+                rollup.tipCount += rs.getLong("tip_count");
+                rollup.sumAmount = rollup.sumAmount.add(rs.getBigDecimal("sum_amount"));
+            }, Date.valueOf(date));
+        return rollup;
+    }
+
+    private void upsertRollups(Map<LocalDate, DaySketch> rollups) {
+        List<Object[]> upserts = new ArrayList<>(rollups.size());
+        rollups.forEach((date, rollup) -> upserts.add(new Object[] {
+            Date.valueOf(date), rollup.tipCount, rollup.sumAmount, rollup.sketch.toBytes()
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP_SQL, upserts);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static BigDecimal toAmount(double value) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 0.5 -> p50，0.999 -> p99.9
+     */
+    private static String quantileLabel(double q) {
+        return "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+    }
+
+    private static final class DayKey {
+        final long anchorId;
+        final LocalDate statDate;
+
+        DayKey(long anchorId, LocalDate statDate) {
+            this.anchorId = anchorId;
+            this.statDate = statDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DayKey)) {
+                return false;
+            }
+            DayKey other = (DayKey) o;
+            return anchorId == other.anchorId && statDate.equals(other.statDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(anchorId, statDate);
+        }
+    }
+
+    private static final class DaySketch {
+        final QuantileSketch sketch;
+        long tipCount;
+        BigDecimal sumAmount;
+
+        DaySketch(QuantileSketch sketch, long tipCount, BigDecimal sumAmount) {
+            this.sketch = sketch;
+            this.tipCount = tipCount;
+            this.sumAmount = sumAmount;
+        }
+
+        void add(BigDecimal amount) {
+            sketch.update(amount.doubleValue());
+            tipCount++;
+            sumAmount = sumAmount.add(amount);
+        }
+    }
+
+    /**
+     * 区间金额分位数
+     */
+    @Data
+    @Builder
+    public static class AmountQuantiles {
+        private Long anchorId;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private Long tipCount;
+        private BigDecimal sumAmount;
+        private BigDecimal minAmount;
+        private BigDecimal maxAmount;
+        /** 分位点标签（p50/p90/p99）-> 金额 */
+        private Map<String, BigDecimal> quantiles;
+        /** 参与合并的草图数（指定主播时为主播日草图，否则为每日汇总草图） */
+        private Integer sketchDays;
+    }
+}
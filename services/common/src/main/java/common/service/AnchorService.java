@@ -2,6 +2,7 @@ package common.service;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,7 +13,10 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 主播Service - 统一的主播数据访问接口
@@ -82,6 +86,15 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
         return repository.findTopAnchorsByEarnings(limit);
     }
 
+    /**
+     * 按昵称或用户名关键词搜索主播，最多返回 limit 个
+     */
+    @Transactional(readOnly = true)
+    public List<Anchor> searchByKeyword(String keyword, int limit) {
+        TraceLogger.info("Anchor", "searchByKeyword", String.format("搜索主播: keyword=%s, limit=%d", keyword, limit));
+        return repository.searchByKeyword(keyword, PageRequest.of(0, limit));
+    }
+
     /**
      * 查询粉丝数大于指定值的主播
      */
@@ -122,7 +135,9 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
             throw new IllegalArgumentException("主播信息不完整");
         }
         TraceLogger.info("Anchor", "createAnchor", "创建主播用户ID: " + anchor.getUserId());
-        return repository.save(anchor);
+        Anchor saved = repository.save(anchor);
+        evictBatchCache(List.of(saved.getUserId()));
+        return saved;
     }
 
     /**
@@ -137,7 +152,9 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
             throw new IllegalArgumentException("主播信息不完整");
         }
         TraceLogger.info("Anchor", "updateAnchor", "更新主播用户ID: " + anchor.getUserId());
-        return repository.save(anchor);
+        Anchor saved = repository.save(anchor);
+        evictBatchCache(List.of(saved.getUserId()));
+        return saved;
     }
 
     /**
@@ -152,6 +169,7 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
         repository.findByUserId(userId).ifPresent(anchor -> {
             anchor.setFanCount(anchor.getFanCount() + increment);
             repository.save(anchor);
+            evictBatchCache(List.of(userId));
             TraceLogger.info("Anchor", "incrementFanCount", 
                 String.format("主播%d粉丝数增加%d", userId, increment));
         });
@@ -169,6 +187,7 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
         repository.findByUserId(userId).ifPresent(anchor -> {
             anchor.setTotalEarnings(anchor.getTotalEarnings().add(amount));
             repository.save(anchor);
+            evictBatchCache(List.of(userId));
             TraceLogger.info("Anchor", "incrementEarnings", 
                 String.format("主播%d收益增加%s", userId, amount));
         });
@@ -183,7 +202,14 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
         if (userIds == null || userIds.isEmpty() || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("参数不合法");
         }
-        userIds.forEach(userId -> incrementEarnings(userId, amount));
+        // 一次 IN 查询加载全部主播，重复ID按出现次数累加，一次 saveAll 批量写回
+        Map<Long, Long> occurrences = userIds.stream()
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        List<Anchor> anchors = repository.findAllById(occurrences.keySet());
+        anchors.forEach(anchor -> anchor.setTotalEarnings(anchor.getTotalEarnings()
+            .add(amount.multiply(BigDecimal.valueOf(occurrences.get(anchor.getUserId()))))));
+        repository.saveAll(anchors);
+        evictBatchCache(occurrences.keySet());
         TraceLogger.info("Anchor", "batchIncrementEarnings", 
             String.format("批量增加主播收益，主播数: %d, 金额: %s", userIds.size(), amount));
     }
@@ -201,6 +227,7 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
         }
         repository.findByUserId(userId).ifPresent(anchor -> {
             repository.deleteById(anchor.getUserId());
+            evictBatchCache(List.of(userId));
             TraceLogger.info("Anchor", "deleteAnchor", "删除主播用户ID: " + userId);
         });
     }
@@ -218,6 +245,8 @@ public class AnchorService extends BaseService<Anchor, Long, AnchorRepository> {
             return List.of();
         }
         TraceLogger.info("Anchor", "batchSaveAnchors", "批量保存主播，条数: " + anchors.size());
-        return repository.saveAll(anchors);
+        List<Anchor> saved = repository.saveAll(anchors);
+        evictBatchCache(saved.stream().map(Anchor::getUserId).collect(Collectors.toList()));
+        return saved;
     }
 }
@@ -0,0 +1,407 @@
+package common.service;
+
+import common.bean.user.AudienceRfm;
+import common.logger.TraceLogger;
+import common.repository.AudienceRfmRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 观众RFM画像业务服务层
+ *
+ * 按打赏ID水位（sync_progress.sync_type = 2）增量消费 recharge 表，
+ * 把每位观众的最近打赏时间、笔数、金额(分)和衰减金额累加到 audience_rfm，
+ * 同时预先计算 RFM 得分和分层，画像和分层查询不再扫描观众的全部打赏明细。
+ *
+ * 水位锁定、晚提交记录的回查见 RechargeWatermarkService，多实例同时轮询时串行执行，不会重复累加。
+ */
+@Slf4j
+@Service
+public class AudienceRfmService extends BaseService<AudienceRfm, Long, AudienceRfmRepository> {
+
+    /** 分层：低价值 */
+    public static final int SEGMENT_LOW = 1;
+    /** 分层：中价值 */
+    public static final int SEGMENT_MEDIUM = 2;
+    /** 分层：高价值 */
+    public static final int SEGMENT_HIGH = 3;
+
+    private static final RechargeWatermarkService.Consumer WATERMARK =
+        new RechargeWatermarkService.Consumer(2, "audience_rfm");
+
+    private static final String RECHARGE_COLUMNS = "recharge_id, audience_id, recharge_amount, recharge_time";
+
+    private static final String UPSERT_PROFILE_SQL =
+        "INSERT INTO audience_rfm (audience_id, first_tip_time, last_tip_time, tip_count, sum_cents, " +
+        "decayed_score, score_time, rfm_score, segment) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE " +
+        "first_tip_time = VALUES(first_tip_time), " +
+        "last_tip_time = VALUES(last_tip_time), " +
+        "tip_count = VALUES(tip_count), " +
+        "sum_cents = VALUES(sum_cents), " +
+        "decayed_score = VALUES(decayed_score), " +
+        "score_time = VALUES(score_time), " +
+        "rfm_score = VALUES(rfm_score), " +
+        "segment = VALUES(segment)";
+
+    private static final String SELECT_PROFILE_PAGE_SQL =
+        "SELECT audience_id, last_tip_time, tip_count, sum_cents, rfm_score, segment FROM audience_rfm " +
+        "WHERE audience_id > ? ORDER BY audience_id LIMIT ?";
+
+    private static final String UPDATE_SEGMENT_SQL =
+        "UPDATE audience_rfm SET rfm_score = ?, segment = ? WHERE audience_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RechargeWatermarkService watermarkService;
+
+    /** 衰减金额半衰期（天） */
+    @Value("${analysis.rfm.half-life-days:30}")
+    private double halfLifeDays;
+
+    public AudienceRfmService(AudienceRfmRepository repository) {
+        super(repository);
+    }
+
+    @Override
+    protected String getCachePrefix() {
+        return "audienceRfm::";
+    }
+
+    @Override
+    protected String getEntityName() {
+        return "AudienceRfm";
+    }
+
+    /**
+     * 查询观众画像（不走实体缓存，画像随打赏持续变化）
+     */
+    @Transactional(readOnly = true)
+    public Optional<AudienceRfm> findProfile(Long audienceId) {
+        return repository.findById(audienceId);
+    }
+
+    /**
+     * 消费一批水位之后的打赏记录（含回查到的晚提交记录）并累加到画像
+     *
+     * @param batchSize 本批最多消费的新打赏笔数
+     * @return 本批消费的新打赏笔数（小于 batchSize 说明已追平）
+     */
+    @Transactional
+    public int applyNewRecharges(int batchSize) {
+        RechargeWatermarkService.Batch<Object[]> batch = watermarkService.nextBatch(WATERMARK, RECHARGE_COLUMNS,
+            (rs, rowNum) -> new Object[] {
+                rs.getLong("recharge_id"),
+                rs.getLong("audience_id"),
+                rs.getBigDecimal("recharge_amount"),
+                rs.getTimestamp("recharge_time").toLocalDateTime()
+            },
+            row -> (Long) row[0], batchSize);
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 本批按观众聚合
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Delta> deltas = new LinkedHashMap<>();
+        BigDecimal batchAmount = BigDecimal.ZERO;
+        for (Object[] row : batch.getRows()) {
+            BigDecimal amount = (BigDecimal) row[2];
+            deltas.computeIfAbsent((Long) row[1], id -> new Delta()).add((LocalDateTime) row[3], amount);
+            batchAmount = batchAmount.add(amount);
+        }
+
+        // 2. 与已有画像合并，重新计算得分和分层
+        Map<Long, AudienceRfm> existing = new HashMap<>();
+        for (AudienceRfm profile : repository.findAllById(deltas.keySet())) {
+            existing.put(profile.getAudienceId(), profile);
+        }
+
+        List<Object[]> upserts = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            AudienceRfm merged = merge(entry.getKey(), existing.get(entry.getKey()), entry.getValue(), now);
+            upserts.add(new Object[] {
+                merged.getAudienceId(),
+                Timestamp.valueOf(merged.getFirstTipTime()),
+                Timestamp.valueOf(merged.getLastTipTime()),
+                merged.getTipCount(),
+                merged.getSumCents(),
+                merged.getDecayedScore(),
+                Timestamp.valueOf(merged.getScoreTime()),
+                merged.getRfmScore(),
+                merged.getSegment()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_PROFILE_SQL, upserts);
+
+        // 3. 推进水位（与画像写入同一事务）
+        watermarkService.advance(batch, batchAmount);
+
+        TraceLogger.info("AudienceRfm", "applyNewRecharges",
+            String.format("RFM画像增量更新: 打赏=%d笔(晚提交%d), 观众=%d, 水位 %d -> %d",
+                batch.getRows().size(), batch.getLateRows(), deltas.size(), batch.getFromId(), batch.getToId()));
+        return batch.freshRows();
+    }
+
+    /**
+     * 按当前时间重新计算全部画像的 RFM 得分和分层（最近消费得分随时间下降）
+     * 按观众ID分页扫描，只更新分层或得分发生变化的记录
+     *
+     * @return 更新的记录数
+     */
+    public int refreshSegments(int pageSize) {
+        LocalDateTime now = LocalDateTime.now();
+        long lastAudienceId = 0L;
+        int updated = 0;
+        while (true) {
+            List<Object[]> changed = new ArrayList<>();
+            long[] cursor = {lastAudienceId};
+            int scanned = jdbcTemplate.query(SELECT_PROFILE_PAGE_SQL, rs -> {
+                int count = 0;
+                while (rs.next()) {
+                    count++;
+                    long audienceId = rs.getLong("audience_id");
+                    cursor[0] = audienceId;
+                    BigDecimal rfmScore = computeRfmScore(rs.getTimestamp("last_tip_time").toLocalDateTime(),
+                        rs.getLong("tip_count"), rs.getLong("sum_cents"), now);
+                    int segment = segmentOf(rfmScore);
+                    if (segment != rs.getInt("segment") || rfmScore.compareTo(rs.getBigDecimal("rfm_score")) != 0) {
+                        changed.add(new Object[] {rfmScore, segment, audienceId});
+                    }
+                }
+                return count;
+            }, lastAudienceId, pageSize);
+
+            if (!changed.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SEGMENT_SQL, changed);
+                updated += changed.size();
+            }
+            if (scanned < pageSize) {
+                break;
+            }
+            lastAudienceId = cursor[0];
+        }
+
+        TraceLogger.info("AudienceRfm", "refreshSegments", "RFM分层刷新完成，更新记录数: " + updated);
+        return updated;
+    }
+
+    /**
+     * 分层直方图（按 segment 索引分组统计）
+     */
+    @Transactional(readOnly = true)
+    public List<SegmentStat> getSegmentHistogram() {
+        List<SegmentStat> stats = new ArrayList<>();
+        for (Object[] row : repository.countBySegment()) {
+            stats.add(new SegmentStat(((Number) row[0]).intValue(),
+                ((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+        }
+        return stats;
+    }
+
+    /**
+     * 画像在指定时间的衰减金额(元)
+     */
+    public double decayedScoreAt(AudienceRfm profile, LocalDateTime time) {
+        return profile.getDecayedScore() * decay(profile.getScoreTime(), time);
+    }
+
+    private AudienceRfm merge(Long audienceId, AudienceRfm current, Delta delta, LocalDateTime now) {
+        AudienceRfm merged;
+        if (current == null) {
+            merged = AudienceRfm.builder()
+                .audienceId(audienceId)
+                .firstTipTime(delta.first)
+                .lastTipTime(delta.last)
+                .tipCount(delta.count)
+                .sumCents(delta.cents)
+                .decayedScore(delta.decayed)
+                .scoreTime(delta.last)
+                .build();
+        } else {
+            LocalDateTime scoreTime = max(current.getScoreTime(), delta.last);
+            double decayed = current.getDecayedScore() * decay(current.getScoreTime(), scoreTime)
+                + delta.decayed * decay(delta.last, scoreTime);
+            merged = current;
+            merged.setFirstTipTime(min(current.getFirstTipTime(), delta.first));
+            merged.setLastTipTime(max(current.getLastTipTime(), delta.last));
+            merged.setTipCount(current.getTipCount() + delta.count);
+            merged.setSumCents(current.getSumCents() + delta.cents);
+            merged.setDecayedScore(decayed);
+            merged.setScoreTime(scoreTime);
+        }
+        BigDecimal rfmScore = computeRfmScore(merged.getLastTipTime(), merged.getTipCount(), merged.getSumCents(), now);
+        merged.setRfmScore(rfmScore);
+        merged.setSegment(segmentOf(rfmScore));
+        return merged;
+    }
+
+    /**
+     * 从 from 衰减到 to 的系数
+     */
+    private double decay(LocalDateTime from, LocalDateTime to) {
+        long seconds = ChronoUnit.SECONDS.between(from, to);
+        if (seconds <= 0) {
+            return 1D;
+        }
+        return Math.exp(-Math.log(2) * seconds / (halfLifeDays * 86400D));
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    // ==================== RFM 评分规则 ====================
+
+    /**
+     * 计算RFM综合得分
+     */
+    public static BigDecimal computeRfmScore(LocalDateTime lastTipTime, long tipCount, long sumCents,
+                                             LocalDateTime now) {
+        int recencyDays = (int) ChronoUnit.DAYS.between(lastTipTime, now);
+        return rfmScore(recencyScore(recencyDays), frequencyScore(tipCount),
+            monetaryScore(BigDecimal.valueOf(sumCents, 2)));
+    }
+
+    /**
+     * 计算R得分（最近消费）
+     * 5分: 7天内
+     * 4分: 8-14天
+     * 3分: 15-30天
+     * 2分: 31-60天
+     * 1分: 60天以上
+     */
+    public static int recencyScore(int recencyDays) {
+        if (recencyDays <= 7) return 5;
+        if (recencyDays <= 14) return 4;
+        if (recencyDays <= 30) return 3;
+        if (recencyDays <= 60) return 2;
+        return 1;
+    }
+
+    /**
+     * 计算F得分（消费频次）
+     * 5分: >= 20次
+     * 4分: 10-19次
+     * 3分: 5-9次
+     * 2分: 2-4次
+     * 1分: 1次
+     */
+    public static int frequencyScore(long frequency) {
+        if (frequency >= 20) return 5;
+        if (frequency >= 10) return 4;
+        if (frequency >= 5) return 3;
+        if (frequency >= 2) return 2;
+        return 1;
+    }
+
+    /**
+     * 计算M得分（消费金额，元）
+     */
+    public static int monetaryScore(BigDecimal monetary) {
+        if (monetary.compareTo(new BigDecimal("1000")) >= 0) return 5;
+        if (monetary.compareTo(new BigDecimal("500")) >= 0) return 4;
+        if (monetary.compareTo(new BigDecimal("200")) >= 0) return 3;
+        if (monetary.compareTo(new BigDecimal("50")) >= 0) return 2;
+        return 1;
+    }
+
+    /**
+     * RFM = R × 0.3 + F × 0.3 + M × 0.4
+     */
+    public static BigDecimal rfmScore(int rScore, int fScore, int mScore) {
+        return BigDecimal.valueOf(rScore * 0.3 + fScore * 0.3 + mScore * 0.4)
+            .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 分层
+     * 高价值: RFM >= 4.0
+     * 中价值: 3.0 <= RFM < 4.0
+     * 低价值: RFM < 3.0
+     */
+    public static int segmentOf(BigDecimal rfmScore) {
+        if (rfmScore.compareTo(new BigDecimal("4.0")) >= 0) return SEGMENT_HIGH;
+        if (rfmScore.compareTo(new BigDecimal("3.0")) >= 0) return SEGMENT_MEDIUM;
+        return SEGMENT_LOW;
+    }
+
+    /**
+     * 分层名称
+     */
+    public static String segmentName(int segment) {
+        switch (segment) {
+            case SEGMENT_HIGH:
+                return "高价值用户";
+            case SEGMENT_MEDIUM:
+                return "中价值用户";
+            default:
+                return "低价值用户";
+        }
+    }
+
+    /**
+     * 批内单个观众的增量
+     */
+    private final class Delta {
+        long count;
+        long cents;
+        LocalDateTime first;
+        LocalDateTime last;
+        /** 以 last 为基准的衰减金额 */
+        double decayed;
+
+        void add(LocalDateTime time, BigDecimal amount) {
+            count++;
+            cents += amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            double yuan = amount.doubleValue();
+            if (last == null) {
+                first = time;
+                last = time;
+                decayed = yuan;
+            } else if (time.isAfter(last)) {
+                decayed = decayed * decay(last, time) + yuan;
+                last = time;
+            } else {
+                decayed += yuan * decay(time, last);
+                first = min(first, time);
+            }
+        }
+    }
+
+    /**
+     * 分层统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SegmentStat {
+        private Integer segment;
+        private Long audienceCount;
+        private Long sumCents;
+    }
+}
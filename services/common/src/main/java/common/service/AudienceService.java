@@ -1,21 +1,39 @@
 package common.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import common.bean.user.Audience;
 import common.logger.TraceLogger;
 import common.repository.AudienceRepository;
+import common.response.CursorPageResponse;
+import common.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 观众Service - 统一的观众数据访问接口
@@ -26,6 +44,38 @@ import java.util.Optional;
 @Service
 public class AudienceService extends BaseService<Audience, Long, AudienceRepository> {
 
+    /**
+     * 原子累加消费统计，并在同一条语句内重算消费等级和粉丝等级
+     * 等级按 "原值 + 本次增量" 计算，且排在累计金额、次数的赋值之前：
+     * MySQL 单表 UPDATE 按从左到右的顺序赋值，等级列读到的是尚未累加的原值，结果不依赖赋值顺序的语义
+     * 消费等级：>=5000 高消费，>=1000 中消费，其余低消费
+     * 粉丝等级：按累计金额和次数分为普通、铁粉、银粉、金粉、超级粉丝
+     * 参数顺序见 incrementArgs
+     */
+    private static final String INCREMENT_CONSUMPTION_SQL =
+        "UPDATE audience SET " +
+        "consumption_level = CASE " +
+        "  WHEN total_recharge_amount + ? >= 5000 THEN 2 " +
+        "  WHEN total_recharge_amount + ? >= 1000 THEN 1 " +
+        "  ELSE 0 END, " +
+        "vip_level = CASE " +
+        "  WHEN total_recharge_amount + ? >= 10000 AND total_recharge_count + ? >= 100 THEN 4 " +
+        "  WHEN total_recharge_amount + ? >= 5000 AND total_recharge_count + ? >= 50 THEN 3 " +
+        "  WHEN total_recharge_amount + ? >= 1000 AND total_recharge_count + ? >= 10 THEN 2 " +
+        "  WHEN total_recharge_amount + ? >= 100 AND total_recharge_count + ? >= 3 THEN 1 " +
+        "  ELSE 0 END, " +
+        "total_recharge_amount = total_recharge_amount + ?, " +
+        "total_recharge_count = total_recharge_count + ?, " +
+        "last_recharge_time = GREATEST(COALESCE(last_recharge_time, ?), ?), " +
+        "update_time = ? " +
+        "WHERE user_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
     public AudienceService(AudienceRepository repository) {
         super(repository);
     }
@@ -113,6 +163,49 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
         return repository.searchByKeyword(keyword, pageable);
     }
 
+    /**
+     * 按关键词搜索观众（分页，不统计总数）
+     */
+    @Transactional(readOnly = true)
+    public Slice<Audience> sliceByKeyword(String keyword, Pageable pageable) {
+        TraceLogger.info("Audience", "sliceByKeyword",
+            String.format("搜索观众: keyword=%s, page=%d, size=%d",
+                keyword, pageable.getPageNumber(), pageable.getPageSize()));
+        return repository.sliceByKeyword(keyword, pageable);
+    }
+
+    /**
+     * 按游标查询观众（按用户ID升序），level 和 keyword 都为空时查询全部
+     * 只有首页返回估算总数，关键词搜索无法估算
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为空
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Audience> seekAudiences(Integer level, String keyword, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        long afterId = after == null ? 0L : after.getId();
+        TraceLogger.info("Audience", "seekAudiences",
+            String.format("游标查询观众: level=%s, keyword=%s, afterId=%d, size=%d", level, keyword, afterId, size));
+
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Audience> rows;
+        Long estimatedTotal = null;
+        if (keyword != null && !keyword.isEmpty()) {
+            rows = repository.seekByKeyword(keyword, afterId, limit);
+        } else if (level != null) {
+            rows = repository.seekByConsumptionLevel(level, afterId, limit);
+            if (after == null) {
+                estimatedTotal = estimateCount("SELECT * FROM audience WHERE consumption_level = ?1", level);
+            }
+        } else {
+            rows = repository.seekAll(afterId, limit);
+            if (after == null) {
+                estimatedTotal = estimateCount("SELECT * FROM audience");
+            }
+        }
+        return toCursorPage(rows, size, a -> KeysetCursor.ofId(a.getUserId()), estimatedTotal);
+    }
+
     /**
      * 按粉丝等级查询观众
      */
@@ -183,7 +276,9 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
             throw new IllegalArgumentException("观众信息不完整");
         }
         TraceLogger.info("Audience", "createAudience", "创建观众用户ID: " + audience.getUserId());
-        return repository.save(audience);
+        Audience saved = repository.save(audience);
+        evictBatchCache(List.of(saved.getUserId()));
+        return saved;
     }
 
     /**
@@ -198,7 +293,9 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
             throw new IllegalArgumentException("观众信息不完整");
         }
         TraceLogger.info("Audience", "updateAudience", "更新观众用户ID: " + audience.getUserId());
-        return repository.save(audience);
+        Audience saved = repository.save(audience);
+        evictBatchCache(List.of(saved.getUserId()));
+        return saved;
     }
 
     /**
@@ -217,11 +314,107 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
             audience.setTotalRechargeCount(audience.getTotalRechargeCount() + count);
             audience.setLastRechargeTime(java.time.LocalDateTime.now());
             repository.save(audience);
+            evictBatchCache(List.of(userId));
             TraceLogger.info("Audience", "incrementRecharge", 
                 String.format("观众%d增加消费，金额: %s, 次数: %d", userId, amount, count));
         });
     }
 
+    /**
+     * 原子累加单个观众的消费统计（单条 UPDATE，不加载实体）
+     * 行锁只在语句执行期间持有，并发打赏不会丢失更新
+     *
+     * @return 是否找到并更新了观众
+     */
+    @Transactional
+    public boolean incrementConsumptionStats(Long userId, BigDecimal amount, long count, LocalDateTime rechargeTime) {
+        if (userId == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0 || count <= 0) {
+            throw new IllegalArgumentException("参数不合法");
+        }
+        Timestamp time = Timestamp.valueOf(rechargeTime);
+        int rows = jdbcTemplate.update(INCREMENT_CONSUMPTION_SQL,
+            incrementArgs(userId, amount, count, time, new Timestamp(System.currentTimeMillis())));
+        evictConsumptionCache(List.of(userId));
+        TraceLogger.debug("Audience", "incrementConsumptionStats", 
+            String.format("观众%d累加消费，金额: %s, 次数: %d", userId, amount, count));
+        return rows > 0;
+    }
+
+    /**
+     * 批量原子累加消费统计（一次 JDBC batch，供写后合并刷新使用）
+     * 每个观众一条 UPDATE，同一批次在一个事务内提交
+     *
+     * @return 实际更新的观众数
+     */
+    @Transactional
+    public int batchIncrementConsumptionStats(Collection<ConsumptionDelta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        List<Long> userIds = new ArrayList<>(deltas.size());
+        for (ConsumptionDelta delta : deltas) {
+            Timestamp time = Timestamp.valueOf(delta.getLastRechargeTime());
+            args.add(incrementArgs(delta.getUserId(), delta.getAmount(), delta.getCount(), time, now));
+            userIds.add(delta.getUserId());
+        }
+        int[] results = jdbcTemplate.batchUpdate(INCREMENT_CONSUMPTION_SQL, args);
+        evictConsumptionCache(userIds);
+
+        int updated = 0;
+        for (int result : results) {
+            // 开启 rewriteBatchedStatements 时驱动返回 SUCCESS_NO_INFO(-2)
+            if (result > 0 || result == java.sql.Statement.SUCCESS_NO_INFO) {
+                updated++;
+            }
+        }
+        TraceLogger.info("Audience", "batchIncrementConsumptionStats", 
+            String.format("批量累加观众消费，观众数: %d", deltas.size()));
+        return updated;
+    }
+
+    /**
+     * INCREMENT_CONSUMPTION_SQL 的参数：两个等级 CASE 中的增量、累计金额和次数的增量、打赏时间、更新时间、观众ID
+     */
+    private static Object[] incrementArgs(Long userId, BigDecimal amount, long count, Timestamp rechargeTime,
+                                          Timestamp now) {
+        return new Object[]{
+            amount, amount,
+            amount, count, amount, count, amount, count, amount, count,
+            amount, count,
+            rechargeTime, rechargeTime,
+            now, userId
+        };
+    }
+
+    /**
+     * 按ID清除观众实体缓存（避免 allEntries 在热点路径上扫描整个缓存）
+     */
+    private void evictConsumptionCache(List<Long> userIds) {
+        evictBatchCache(userIds);
+        if (cacheManager == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache("audience::userId");
+        if (cache != null) {
+            userIds.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * 单个观众的消费统计增量
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConsumptionDelta {
+        private Long userId;
+        private BigDecimal amount;
+        private long count;
+        private LocalDateTime lastRechargeTime;
+    }
+
     /**
      * 批量增加观众消费金额（用于结算统计）
      */
@@ -233,7 +426,21 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
         if (userIds == null || userIds.isEmpty() || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("参数不合法");
         }
-        userIds.forEach(userId -> incrementRecharge(userId, amount, count != null ? count : 1L));
+        long perCount = count != null ? count : 1L;
+        // 一次 IN 查询加载全部观众，重复ID按出现次数累加，一次 saveAll 批量写回
+        Map<Long, Long> occurrences = userIds.stream()
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        List<Audience> audiences = repository.findAllById(occurrences.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        audiences.forEach(audience -> {
+            long times = occurrences.get(audience.getUserId());
+            audience.setTotalRechargeAmount(audience.getTotalRechargeAmount()
+                .add(amount.multiply(BigDecimal.valueOf(times))));
+            audience.setTotalRechargeCount(audience.getTotalRechargeCount() + perCount * times);
+            audience.setLastRechargeTime(now);
+        });
+        repository.saveAll(audiences);
+        evictBatchCache(occurrences.keySet());
         TraceLogger.info("Audience", "batchIncrementRecharge", 
             String.format("批量增加观众消费，观众数: %d, 金额: %s", userIds.size(), amount));
     }
@@ -251,6 +458,7 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
         }
         TraceLogger.info("Audience", "deleteAudience", "删除观众用户ID: " + userId);
         repository.deleteById(userId);
+        evictBatchCache(List.of(userId));
     }
 
     /**
@@ -266,7 +474,9 @@ public class AudienceService extends BaseService<Audience, Long, AudienceReposit
             return List.of();
         }
         TraceLogger.info("Audience", "batchSaveAudience", "批量保存观众，条数: " + audiences.size());
-        return repository.saveAll(audiences);
+        List<Audience> saved = repository.saveAll(audiences);
+        evictBatchCache(saved.stream().map(Audience::getUserId).collect(Collectors.toList()));
+        return saved;
     }
 
     /**
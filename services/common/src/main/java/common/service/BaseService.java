@@ -1,19 +1,37 @@
 package common.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import common.logger.TraceLogger;
 import common.repository.BaseRepository;
+import common.response.CursorPageResponse;
+import common.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -27,8 +45,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public abstract class BaseService<T, ID extends Serializable, R extends BaseRepository<T, ID>> {
 
+    /** 批量缓存过期时间（秒），与实体缓存默认30分钟保持一致 */
+    protected static final long BATCH_CACHE_TTL_SECONDS = 30 * 60;
+
     protected final R repository;
 
+    /** Redis 未启用时为 null，批量查询退化为直接查库 */
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * 获取缓存前缀，子类应该覆写此方法
      * 例如: "user::", "anchor::", "audience::" 等
@@ -71,8 +99,57 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
         return repository.findAll(pageable);
     }
 
+    /**
+     * 构造游标分页结果
+     * 查询时多取一行（LIMIT pageSize + 1），多出的一行只用于判断是否有下一页，不返回
+     *
+     * @param rows 按 (排序键, 主键) 倒序查询到的最多 pageSize + 1 行
+     * @param cursorOf 由行生成游标
+     * @param estimatedTotal 估算总数，可为 null
+     */
+    protected CursorPageResponse<T> toCursorPage(List<T> rows, int pageSize,
+                                                 Function<T, KeysetCursor> cursorOf, Long estimatedTotal) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> items = hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(items.get(items.size() - 1)).encode() : null;
+        return CursorPageResponse.of(items, nextCursor, pageSize, estimatedTotal);
+    }
+
+    /**
+     * 估算查询结果行数（EXPLAIN 的 rows × filtered%），代替分页时的 COUNT(*)
+     * 只在需要展示总数时调用（通常只在首页），估算失败返回 null
+     *
+     * @param sql 不带 LIMIT 的原生查询，参数用 ?1、?2 占位
+     */
+    protected Long estimateCount(String sql, Object... params) {
+        try {
+            Query query = entityManager.createNativeQuery("EXPLAIN " + sql);
+            for (int i = 0; i < params.length; i++) {
+                query.setParameter(i + 1, params[i]);
+            }
+            List<?> plan = query.getResultList();
+            if (plan.isEmpty()) {
+                return null;
+            }
+            // EXPLAIN 列：id, select_type, table, partitions, type, possible_keys, key, key_len, ref, rows, filtered, Extra
+            Object[] row = (Object[]) plan.get(0);
+            if (!(row[9] instanceof Number)) {
+                return null;
+            }
+            double filtered = row[10] instanceof Number ? ((Number) row[10]).doubleValue() : 100D;
+            return Math.round(((Number) row[9]).longValue() * filtered / 100D);
+        } catch (Exception e) {
+            TraceLogger.debug(getEntityName(), "estimateCount", "估算行数失败: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 批量查询（带缓存，使用Redis的Pipeline特性）
+     * 1. 一次 MGET 读取全部ID的缓存
+     * 2. 未命中的ID通过一次 IN 查询回源
+     * 3. 回源结果通过一次 Pipeline（MSET + EXPIRE）回填缓存
+     * 返回顺序与入参ID顺序一致，不存在的ID会被跳过
      */
     @Transactional(readOnly = true)
     public List<T> findBatch(List<ID> ids) {
@@ -82,7 +159,143 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
         }
         TraceLogger.info(getEntityName(), "findBatch", 
             String.format("批量查询 - 条数: %d", ids.size()));
-        return repository.findAllByIdIn(ids);
+
+        List<ID> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        if (redisTemplate == null) {
+            return orderByIds(distinctIds, toIdMap(repository.findAllById(distinctIds)));
+        }
+
+        Map<ID, T> found = new HashMap<>(distinctIds.size() * 2);
+        List<ID> missIds = new ArrayList<>();
+        try {
+            List<String> keys = distinctIds.stream().map(this::batchCacheKey).collect(Collectors.toList());
+            List<Object> cached = redisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < distinctIds.size(); i++) {
+                Object value = cached != null ? cached.get(i) : null;
+                if (value != null) {
+                    @SuppressWarnings("unchecked")
+                    T entity = (T) value;
+                    found.put(distinctIds.get(i), entity);
+                } else {
+                    missIds.add(distinctIds.get(i));
+                }
+            }
+        } catch (Exception e) {
+            TraceLogger.warn(getEntityName(), "findBatch", "读取批量缓存失败，直接查库: " + e.getMessage());
+            found.clear();
+            missIds = distinctIds;
+        }
+
+        if (!missIds.isEmpty()) {
+            Map<ID, T> loaded = toIdMap(repository.findAllById(missIds));
+            found.putAll(loaded);
+            writeBatchCache(loaded);
+        }
+
+        TraceLogger.debug(getEntityName(), "findBatch", 
+            String.format("缓存命中: %d, 回源: %d", distinctIds.size() - missIds.size(), missIds.size()));
+        return orderByIds(distinctIds, found);
+    }
+
+    /**
+     * 批量缓存的Key: cache:{prefix}{id}
+     * 与 findById 的 @Cacheable 不是同一个Key空间（Spring Cache 的Key带 "{cacheName}::" 前缀，且值序列化方式不同），
+     * 两边互不命中；写操作除了 @CacheEvict 还要调用 evictBatchCache 清除这里的Key
+     */
+    protected String batchCacheKey(ID id) {
+        return "cache:" + getCachePrefix() + id;
+    }
+
+    /**
+     * Redis 模板，Redis 未启用时为 null
+     */
+    protected RedisTemplate<String, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    /**
+     * 获取实体主键，默认通过 JPA 元数据解析，子类可按需覆写
+     */
+    @SuppressWarnings("unchecked")
+    protected ID getEntityId(T entity) {
+        return (ID) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    /**
+     * 清除批量缓存中的指定实体
+     * 写操作（尤其是批量写）后调用，保证 findBatch 不会读到旧数据。
+     * 存在事务时在提交后清除：提交前清除的话，并发的 findBatch 会在提交前回源读到旧行并重新回填
+     */
+    protected void evictBatchCache(Collection<ID> ids) {
+        if (redisTemplate == null || ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<String> keys = ids.stream().map(this::batchCacheKey).collect(Collectors.toList());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteBatchKeys(keys);
+                }
+            });
+        } else {
+            deleteBatchKeys(keys);
+        }
+    }
+
+    private void deleteBatchKeys(List<String> keys) {
+        try {
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            TraceLogger.warn(getEntityName(), "evictBatchCache", "清除批量缓存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 通过一次 Pipeline 回填缓存（MSET + 逐个 EXPIRE）
+     */
+    @SuppressWarnings("unchecked")
+    private void writeBatchCache(Map<ID, T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+
+        Map<byte[], byte[]> tuples = new LinkedHashMap<>(entities.size() * 2);
+        entities.forEach((id, entity) ->
+            tuples.put(keySerializer.serialize(batchCacheKey(id)), valueSerializer.serialize(entity)));
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                connection.mSet(tuples);
+                for (byte[] key : tuples.keySet()) {
+                    connection.expire(key, BATCH_CACHE_TTL_SECONDS);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            TraceLogger.warn(getEntityName(), "findBatch", "回填批量缓存失败: " + e.getMessage());
+        }
+    }
+
+    private Map<ID, T> toIdMap(List<T> entities) {
+        Map<ID, T> result = new HashMap<>(entities.size() * 2);
+        for (T entity : entities) {
+            result.put(getEntityId(entity), entity);
+        }
+        return result;
+    }
+
+    private List<T> orderByIds(List<ID> ids, Map<ID, T> entities) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
     }
 
     /**
@@ -93,7 +306,9 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
     @Transactional
     public T save(T entity) {
         TraceLogger.info(getEntityName(), "save", "保存实体");
-        return repository.save(entity);
+        T saved = repository.save(entity);
+        evictBatchCache(List.of(getEntityId(saved)));
+        return saved;
     }
 
     /**
@@ -109,7 +324,9 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
         }
         TraceLogger.info(getEntityName(), "saveBatch", 
             String.format("批量保存 - 条数: %d", entities.size()));
-        return repository.saveAll(entities);
+        List<T> saved = repository.saveAll(entities);
+        evictBatchCache(saved.stream().map(this::getEntityId).collect(Collectors.toList()));
+        return saved;
     }
 
     /**
@@ -121,6 +338,7 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
     public void deleteById(ID id) {
         TraceLogger.info(getEntityName(), "deleteById", "删除ID: " + id);
         repository.deleteById(id);
+        evictBatchCache(List.of(id));
     }
 
     /**
@@ -137,6 +355,7 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
         TraceLogger.info(getEntityName(), "deleteBatch", 
             String.format("批量删除 - 条数: %d", ids.size()));
         repository.deleteAllByIdIn(ids);
+        evictBatchCache(ids);
     }
 
     /**
@@ -147,7 +366,9 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
     @Transactional
     public T update(T entity) {
         TraceLogger.info(getEntityName(), "update", "更新实体");
-        return repository.save(entity);
+        T saved = repository.save(entity);
+        evictBatchCache(List.of(getEntityId(saved)));
+        return saved;
     }
 
     /**
@@ -163,7 +384,9 @@ public abstract class BaseService<T, ID extends Serializable, R extends BaseRepo
         }
         TraceLogger.info(getEntityName(), "updateBatch", 
             String.format("批量更新 - 条数: %d", entities.size()));
-        return repository.saveAll(entities);
+        List<T> saved = repository.saveAll(entities);
+        evictBatchCache(saved.stream().map(this::getEntityId).collect(Collectors.toList()));
+        return saved;
     }
 
     /**
@@ -3,6 +3,8 @@ package common.service;
 import common.service.*;
 import common.service.query.RankingQueryService;
 import common.service.query.TagAnalysisQueryService;
+import common.service.query.TagBitmapIndexService;
+import common.service.query.UserSearchIndexService;
 import common.service.query.FinancialAnalysisQueryService;
 import common.service.query.RetentionAnalysisQueryService;
 import common.service.query.HeatmapAnalysisQueryService;
@@ -59,6 +61,8 @@ public class DataAccessFacade {
     private final UserService userService;
     private final AnchorService anchorService;
     private final AudienceService audienceService;
+    private final AudienceRfmService audienceRfmService;
+    private final AnchorAmountSketchService anchorAmountSketchService;
     private final LiveRoomService liveRoomService;
     private final RechargeService rechargeService;
     private final SettlementService settlementService;
@@ -66,6 +70,7 @@ public class DataAccessFacade {
     private final CommissionRateService commissionRateService;
     private final SyncProgressService syncProgressService;
     private final MessageService messageService;
+    private final LiveSessionAudienceService liveSessionAudienceService;
     private final LiveRoomRealtimeService liveRoomRealtimeService;
     private final AnalysisQueryService analysisQueryService;
     private final TimeSeriesQueryService timeSeriesQueryService;
@@ -73,6 +78,8 @@ public class DataAccessFacade {
     private final AggregationQueryService aggregationQueryService;
     private final SegmentationQueryService segmentationQueryService;
     private final TagAnalysisQueryService tagAnalysisQueryService;
+    private final TagBitmapIndexService tagBitmapIndexService;
+    private final UserSearchIndexService userSearchIndexService;
     private final FinancialAnalysisQueryService financialAnalysisQueryService;
     private final RetentionAnalysisQueryService retentionAnalysisQueryService;
     private final HeatmapAnalysisQueryService heatmapAnalysisQueryService;
@@ -141,6 +148,22 @@ public class DataAccessFacade {
         return commissionRateService;
     }
 
+    /**
+     * 获取观众RFM画像Service
+     */
+    public AudienceRfmService audienceRfm() {
+        TraceLogger.debug("DataAccessFacade", "audienceRfm", "获取观众RFM画像Service");
+        return audienceRfmService;
+    }
+
+    /**
+     * 获取主播打赏金额分位数草图Service
+     */
+    public AnchorAmountSketchService anchorAmountSketch() {
+        TraceLogger.debug("DataAccessFacade", "anchorAmountSketch", "获取主播打赏金额分位数草图Service");
+        return anchorAmountSketchService;
+    }
+
     /**
      * 获取同步进度Service
      */
@@ -157,6 +180,14 @@ public class DataAccessFacade {
         return messageService;
     }
 
+    /**
+     * 获取直播会话观众Service
+     */
+    public LiveSessionAudienceService liveSessionAudience() {
+        TraceLogger.debug("DataAccessFacade", "liveSessionAudience", "获取直播会话观众Service");
+        return liveSessionAudienceService;
+    }
+
     /**
      * 获取直播间实时数据Service
      */
@@ -219,6 +250,24 @@ public class DataAccessFacade {
         return tagAnalysisQueryService;
     }
 
+    /**
+     * 获取标签位图索引Service
+     * 用于标签交集计数、稀疏共现矩阵和TOP相关标签查询
+     */
+    public TagBitmapIndexService tagBitmapIndex() {
+        TraceLogger.debug("DataAccessFacade", "tagBitmapIndex", "获取标签位图索引Service");
+        return tagBitmapIndexService;
+    }
+
+    /**
+     * 获取用户搜索索引Service
+     * 用于观众、主播昵称的子串、前缀和模糊搜索
+     */
+    public UserSearchIndexService userSearchIndex() {
+        TraceLogger.debug("DataAccessFacade", "userSearchIndex", "获取用户搜索索引Service");
+        return userSearchIndexService;
+    }
+
     /**
      * 获取财务分析查询Service
      * 用于处理GMV、ARPU、ARPPU等财务指标分析
@@ -4,12 +4,15 @@ import common.bean.liveroom.LiveRoomRealtime;
 import common.logger.TraceLogger;
 import common.repository.LiveRoomRealtimeRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -25,6 +28,21 @@ import java.util.Optional;
 @Service
 public class LiveRoomRealtimeService extends BaseService<LiveRoomRealtime, Long, LiveRoomRealtimeRepository> {
 
+    private static final String UPSERT_INCREMENTS_SQL =
+        "INSERT INTO live_room_realtime (live_room_id, current_revenue_amount, message_count, recharge_count, last_update_time) " +
+        "VALUES (?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE " +
+        "current_revenue_amount = current_revenue_amount + VALUES(current_revenue_amount), " +
+        "message_count = message_count + VALUES(message_count), " +
+        "recharge_count = recharge_count + VALUES(recharge_count), " +
+        "last_update_time = VALUES(last_update_time)";
+
+    private static final String INSERT_DELTA_FLUSH_SQL =
+        "INSERT INTO live_room_delta_flush (drain_key, live_room_id, flush_time) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public LiveRoomRealtimeService(LiveRoomRealtimeRepository repository) {
         super(repository);
     }
@@ -109,6 +127,56 @@ public class LiveRoomRealtimeService extends BaseService<LiveRoomRealtime, Long,
         }
     }
 
+    /**
+     * 一条语句累加弹幕数、打赏数和当前场次收益，记录不存在时插入（live_room_id 唯一）
+     * 供实时计数刷新使用，替代先查后建的三次单字段更新
+     */
+    @Transactional
+    @CacheEvict(value = "liveRoomRealtime::liveRoom", key = "#liveRoomId")
+    public void upsertIncrements(Long liveRoomId, long messageDelta, long rechargeDelta, BigDecimal revenueDelta) {
+        jdbcTemplate.update(UPSERT_INCREMENTS_SQL,
+            liveRoomId,
+            revenueDelta != null ? revenueDelta : BigDecimal.ZERO,
+            messageDelta,
+            rechargeDelta,
+            Timestamp.valueOf(LocalDateTime.now()));
+
+        TraceLogger.debug("LiveRoomRealtime", "upsertIncrements",
+            String.format("累加实时数据: liveRoomId=%d, message=%d, recharge=%d, revenue=%s",
+                liveRoomId, messageDelta, rechargeDelta, revenueDelta));
+    }
+
+    /**
+     * 记录排空key已落库（必须与增量在同一事务内调用）
+     */
+    @Transactional
+    public void recordDeltaFlush(String drainKey, Long liveRoomId) {
+        jdbcTemplate.update(INSERT_DELTA_FLUSH_SQL, drainKey, liveRoomId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * 排空key是否已落库
+     */
+    @Transactional(readOnly = true)
+    public boolean isDeltaFlushRecorded(String drainKey) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM live_room_delta_flush WHERE drain_key = ?", Integer.class, drainKey);
+        return count != null && count > 0;
+    }
+
+    /**
+     * 清理早于指定时间的落库记录
+     *
+     * @return 删除的行数
+     */
+    @Transactional
+    public int purgeDeltaFlushLog(LocalDateTime before) {
+        int deleted = jdbcTemplate.update("DELETE FROM live_room_delta_flush WHERE flush_time < ?",
+            Timestamp.valueOf(before));
+        TraceLogger.debug("LiveRoomRealtime", "purgeDeltaFlushLog", "清理落库记录: " + deleted);
+        return deleted;
+    }
+
     /**
      * 更新当前观众数
      */
@@ -3,13 +3,24 @@ package common.service;
 import common.bean.liveroom.LiveRoom;
 import common.repository.LiveRoomRepository;
 import common.logger.TraceLogger;
+import common.response.CursorPageResponse;
+import common.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -22,6 +33,15 @@ import java.util.*;
 @Service
 public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomRepository> {
 
+    private static final String DELETE_RANK_SNAPSHOT_SQL =
+        "DELETE FROM live_room_rank_snapshot WHERE live_room_id = ? AND session_start_time = ?";
+    private static final String INSERT_RANK_SNAPSHOT_SQL =
+        "INSERT INTO live_room_rank_snapshot (live_room_id, session_start_time, rank_no, audience_id, total_amount, snapshot_time) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public LiveRoomService(LiveRoomRepository repository) {
         super(repository);
     }
@@ -76,6 +96,25 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
         return repository.findLiveRooms();
     }
 
+    /**
+     * 按游标查询正在直播的直播间（观众数倒序），只有首页返回估算总数
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为空
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<LiveRoom> seekLiveRooms(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        TraceLogger.info("LiveRoom", "seekLiveRooms",
+            String.format("游标查询正在直播的直播间: firstPage=%s, size=%d", after == null, size));
+        List<LiveRoom> rows = repository.seekLiveRooms(
+            after == null ? Long.MAX_VALUE : after.getSortKey(),
+            after == null ? Long.MAX_VALUE : after.getId(),
+            PageRequest.of(0, size + 1));
+        Long estimatedTotal = after == null
+            ? estimateCount("SELECT * FROM live_room WHERE room_status = 1") : null;
+        return toCursorPage(rows, size, lr -> KeysetCursor.of(lr.getTotalViewers(), lr.getLiveRoomId()), estimatedTotal);
+    }
+
     /**
      * 查询TOP直播间（按观众数，缓存）
      */
@@ -164,6 +203,7 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
         }
         liveRoom.setUpdateTime(LocalDateTime.now());
         repository.save(liveRoom);
+        evictBatchCache(List.of(liveRoom.getLiveRoomId()));
         TraceLogger.info("LiveRoom", "updateLiveRoom", "更新直播间信息: " + liveRoom.getLiveRoomId());
     }
 
@@ -180,6 +220,7 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
 
         liveRooms.forEach(room -> room.setUpdateTime(LocalDateTime.now()));
         repository.saveAll(liveRooms);
+        evictBatchCache(liveRooms.stream().map(LiveRoom::getLiveRoomId).collect(java.util.stream.Collectors.toList()));
         TraceLogger.info("LiveRoom", "batchUpdateLiveRooms", "批量更新直播间: 共 " + liveRooms.size() + " 个");
     }
 
@@ -190,9 +231,12 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
     @Transactional
     public void startBroadcast(Long liveRoomId) {
         repository.findById(liveRoomId).ifPresent(room -> {
+            LocalDateTime now = LocalDateTime.now();
             room.setRoomStatus(1);  // 直播中
-            room.setUpdateTime(LocalDateTime.now());
+            room.setStartTime(now);  // 本场开播时间，贡献榜按此划分场次
+            room.setUpdateTime(now);
             repository.save(room);
+            evictBatchCache(List.of(room.getLiveRoomId()));
             TraceLogger.info("LiveRoom", "startBroadcast", "开播: " + liveRoomId);
         });
     }
@@ -207,14 +251,17 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             return;
         }
 
-        liveRoomIds.forEach(id -> {
-            repository.findById(id).ifPresent(room -> {
-                room.setRoomStatus(1);
-                room.setUpdateTime(LocalDateTime.now());
-                repository.save(room);
-            });
+        // 一次 IN 查询加载全部直播间，一次 saveAll 批量写回
+        List<LiveRoom> rooms = repository.findAllById(liveRoomIds);
+        LocalDateTime now = LocalDateTime.now();
+        rooms.forEach(room -> {
+            room.setRoomStatus(1);
+            room.setStartTime(now);
+            room.setUpdateTime(now);
         });
-        TraceLogger.info("LiveRoom", "batchStartBroadcast", "批量开播: 共 " + liveRoomIds.size() + " 个直播间");
+        repository.saveAll(rooms);
+        evictBatchCache(liveRoomIds);
+        TraceLogger.info("LiveRoom", "batchStartBroadcast", "批量开播: 共 " + rooms.size() + " 个直播间");
     }
 
     /**
@@ -227,6 +274,7 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             room.setRoomStatus(2);  // 直播结束
             room.setUpdateTime(LocalDateTime.now());
             repository.save(room);
+            evictBatchCache(List.of(room.getLiveRoomId()));
             TraceLogger.info("LiveRoom", "endBroadcast", "关播: " + liveRoomId);
         });
     }
@@ -241,6 +289,7 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             room.setRoomStatus(3);  // 被封禁
             room.setUpdateTime(LocalDateTime.now());
             repository.save(room);
+            evictBatchCache(List.of(room.getLiveRoomId()));
             TraceLogger.info("LiveRoom", "banLiveRoom", "封禁直播间: " + liveRoomId);
         });
     }
@@ -255,13 +304,14 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             return;
         }
 
-        liveRoomIds.forEach(id -> {
-            repository.findById(id).ifPresent(room -> {
-                room.setRoomStatus(status);
-                room.setUpdateTime(LocalDateTime.now());
-                repository.save(room);
-            });
+        List<LiveRoom> rooms = repository.findAllById(liveRoomIds);
+        LocalDateTime now = LocalDateTime.now();
+        rooms.forEach(room -> {
+            room.setRoomStatus(status);
+            room.setUpdateTime(now);
         });
+        repository.saveAll(rooms);
+        evictBatchCache(liveRoomIds);
 
         String statusDesc = getStatusDesc(status);
         TraceLogger.info("LiveRoom", "batchUpdateStatus", 
@@ -271,7 +321,10 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
     /**
      * 增加直播间收益（单笔更新）
      */
-    @CacheEvict(value = "liveRoom::topViewers", allEntries = true)
+    @Caching(evict = {
+        @CacheEvict(value = "liveRoom::id", key = "#liveRoomId"),
+        @CacheEvict(value = "liveRoom::topViewers", allEntries = true)
+    })
     @Transactional
     public void addRoomEarnings(Long liveRoomId, BigDecimal earnings) {
         if (earnings == null || earnings.signum() <= 0) {
@@ -281,6 +334,7 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             room.setTotalEarnings(room.getTotalEarnings().add(earnings));
             room.setUpdateTime(LocalDateTime.now());
             repository.save(room);
+            evictBatchCache(List.of(room.getLiveRoomId()));
             TraceLogger.debug("LiveRoom", "addRoomEarnings", 
                 String.format("增加直播间收益: liveRoomId=%d, earnings=%s", liveRoomId, earnings));
         });
@@ -297,13 +351,14 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             return;
         }
 
-        roomEarningsMap.forEach((roomId, earnings) -> {
-            repository.findById(roomId).ifPresent(room -> {
-                room.setTotalEarnings(room.getTotalEarnings().add(earnings));
-                room.setUpdateTime(LocalDateTime.now());
-                repository.save(room);
-            });
+        List<LiveRoom> rooms = repository.findAllById(roomEarningsMap.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        rooms.forEach(room -> {
+            room.setTotalEarnings(room.getTotalEarnings().add(roomEarningsMap.get(room.getLiveRoomId())));
+            room.setUpdateTime(now);
         });
+        repository.saveAll(rooms);
+        evictBatchCache(roomEarningsMap.keySet());
         TraceLogger.info("LiveRoom", "batchAddRoomEarnings", 
             String.format("批量增加直播间收益: 共 %d 个直播间", roomEarningsMap.size()));
     }
@@ -311,7 +366,10 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
     /**
      * 增加直播间观看人次
      */
-    @CacheEvict(value = "liveRoom::topViewers", allEntries = true)
+    @Caching(evict = {
+        @CacheEvict(value = "liveRoom::id", key = "#liveRoomId"),
+        @CacheEvict(value = "liveRoom::topViewers", allEntries = true)
+    })
     @Transactional
     public void addViewers(Long liveRoomId, long count) {
         if (count <= 0) {
@@ -321,6 +379,7 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
             room.setTotalViewers(room.getTotalViewers() + count);
             room.setUpdateTime(LocalDateTime.now());
             repository.save(room);
+            evictBatchCache(List.of(room.getLiveRoomId()));
             TraceLogger.debug("LiveRoom", "addViewers", 
                 String.format("增加直播间观众: liveRoomId=%d, count=%d", liveRoomId, count));
         });
@@ -415,6 +474,52 @@ public class LiveRoomService extends BaseService<LiveRoom, Long, LiveRoomReposit
         return stats;
     }
 
+    /**
+     * 保存直播场次贡献榜快照（同一场次重复保存时覆盖旧快照）
+     * 由关播事务提交后（afterCommit）调用，此时外层事务已结束，需要独立事务才能写入；
+     * 不能在关播事务内调用：快照表外键引用 live_room，会等待关播事务持有的直播间行锁
+     *
+     * @param liveRoomId       直播间ID
+     * @param sessionStartTime 场次开播时间
+     * @param entries          按名次排好序的榜单
+     * @return 写入的行数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int saveRankSnapshot(Long liveRoomId, LocalDateTime sessionStartTime, List<RankEntry> entries) {
+        Timestamp sessionStart = Timestamp.valueOf(sessionStartTime);
+        jdbcTemplate.update(DELETE_RANK_SNAPSHOT_SQL, liveRoomId, sessionStart);
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (RankEntry entry : entries) {
+            args.add(new Object[]{liveRoomId, sessionStart, entry.getRank(),
+                entry.getAudienceId(), entry.getAmount(), now});
+        }
+        // 驱动开启批量重写时返回值可能为 SUCCESS_NO_INFO，按提交条数计
+        jdbcTemplate.batchUpdate(INSERT_RANK_SNAPSHOT_SQL, args);
+        int inserted = args.size();
+
+        TraceLogger.info("LiveRoom", "saveRankSnapshot",
+            String.format("保存贡献榜快照: liveRoomId=%d, sessionStart=%s, 条数=%d",
+                liveRoomId, sessionStartTime, inserted));
+        return inserted;
+    }
+
+    /**
+     * 贡献榜条目
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RankEntry {
+        private Integer rank;
+        private Long audienceId;
+        private BigDecimal amount;
+    }
+
     /**
      * 辅助方法：获取状态描述
      */
@@ -0,0 +1,96 @@
+package common.service;
+
+import common.constant.SystemConstants;
+import common.logger.TraceLogger;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 直播会话观众业务服务层
+ * 写入观众在某场直播中的进入/离开时间和观看时长，供观看时长分析使用
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class LiveSessionAudienceService {
+
+    /**
+     * INSERT IGNORE：同一观众同一秒内重复进出（uk_session 冲突）或观众已被删除（外键失败）时跳过该行，
+     * 不让单行问题拖垮整批
+     */
+    private static final String INSERT_SESSION_PREFIX =
+        "INSERT IGNORE INTO live_session_audience (live_room_id, audience_id, join_time, leave_time, watch_duration) VALUES ";
+    private static final String INSERT_SESSION_ROW = "(?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量写入已结束的观看会话（多行 INSERT）
+     * 供观众会话跟踪器定时落库使用，按 SystemConstants.BATCH_SIZE 分片，每片一条语句
+     * 独立事务：下播时在关播事务提交后同步写入放不下缓冲区的会话，此时外层事务已结束；
+     * 不能在关播事务内调用，会话表外键引用 live_room，会等待关播事务持有的直播间行锁
+     *
+     * @return 写入的行数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int batchInsertSessions(List<SessionRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < records.size(); from += SystemConstants.BATCH_SIZE) {
+            List<SessionRecord> chunk = records.subList(from, Math.min(from + SystemConstants.BATCH_SIZE, records.size()));
+
+            StringBuilder sql = new StringBuilder(INSERT_SESSION_PREFIX.length() + chunk.size() * 16);
+            sql.append(INSERT_SESSION_PREFIX);
+            Object[] args = new Object[chunk.size() * 5];
+            int i = 0;
+            for (SessionRecord record : chunk) {
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(INSERT_SESSION_ROW);
+                args[i++] = record.getLiveRoomId();
+                args[i++] = record.getAudienceId();
+                args[i++] = Timestamp.valueOf(record.getJoinTime());
+                args[i++] = Timestamp.valueOf(record.getLeaveTime());
+                args[i++] = record.getWatchDuration();
+            }
+            inserted += jdbcTemplate.update(sql.toString(), args);
+        }
+
+        TraceLogger.debug("LiveSessionAudience", "batchInsertSessions",
+            String.format("批量写入观看会话: %d/%d 条", inserted, records.size()));
+        return inserted;
+    }
+
+    /**
+     * 已结束的观看会话（只持有外键ID）
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SessionRecord {
+        private Long liveRoomId;
+        private Long audienceId;
+        private LocalDateTime joinTime;
+        private LocalDateTime leaveTime;
+        /** 观看时长（秒） */
+        private Long watchDuration;
+    }
+}
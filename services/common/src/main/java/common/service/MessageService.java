@@ -3,19 +3,38 @@ package common.service;
 import common.bean.liveroom.LiveRoom;
 import common.bean.liveroom.Message;
 import common.bean.user.Audience;
+import common.constant.SystemConstants;
 import common.logger.TraceLogger;
 import common.repository.MessageRepository;
+import common.response.CursorPageResponse;
+import common.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 弹幕消息业务服务层
@@ -29,9 +48,26 @@ import java.util.List;
 @Service
 public class MessageService extends BaseService<Message, Long, MessageRepository> {
 
+    private static final String INSERT_MESSAGE_PREFIX =
+        "INSERT INTO message (live_room_id, sender_id, content, create_time) VALUES ";
+    private static final String INSERT_MESSAGE_ROW = "(?, ?, ?, ?)";
+
+    /** 只缓存前几页弹幕（最新、访问最多），写入后按 ID 精确清除直播间的这几页 */
+    public static final int CACHED_PAGES = 5;
+    public static final String CACHE_LIVE_ROOM = "message::liveRoom";
+    /** 观众弹幕页写入时不清除（一批弹幕的发送者可达上千个），靠短过期时间收敛 */
+    public static final String CACHE_AUDIENCE = "message::audience";
+    public static final long AUDIENCE_CACHE_TTL_SECONDS = 30;
+
     private final LiveRoomService liveRoomService;
     private final AudienceService audienceService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
     public MessageService(MessageRepository repository, 
                          LiveRoomService liveRoomService,
                          AudienceService audienceService) {
@@ -54,10 +90,6 @@ public class MessageService extends BaseService<Message, Long, MessageRepository
      * 保存弹幕消息
      */
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(value = "message::liveRoom", key = "#liveRoomId"),
-        @CacheEvict(value = "message::audience", key = "#audienceId")
-    })
     public Message saveMessage(Long liveRoomId, Long audienceId, String content) {
         TraceLogger.info("Message", "saveMessage", 
             String.format("保存弹幕: liveRoomId=%d, audienceId=%d", liveRoomId, audienceId));
@@ -85,6 +117,7 @@ public class MessageService extends BaseService<Message, Long, MessageRepository
 
         // 3. 保存到数据库
         Message saved = repository.save(message);
+        evictLiveRoomPages(Set.of(liveRoomId));
 
         TraceLogger.debug("Message", "saveMessage", 
             String.format("弹幕保存成功: messageId=%d", saved.getMessageId()));
@@ -92,10 +125,177 @@ public class MessageService extends BaseService<Message, Long, MessageRepository
         return saved;
     }
 
+    /**
+     * 批量写入弹幕（多行 INSERT，只写外键ID，不加载直播间和观众实体）
+     * 供弹幕异步落库管道使用，按 SystemConstants.BATCH_SIZE 分片，每片一条语句
+     *
+     * message 表的 sender_id / live_room_id 有外键，一条非法记录会让整条多行 INSERT 失败：
+     * - 写入前批量查询发送者和直播间是否存在，过滤掉非法记录
+     * - 过滤后仍违反约束（如并发删除）时，该分片退化为逐行写入，只丢弃失败的行
+     * 提交后用一条多键 DEL 清除涉及直播间的弹幕缓存页；观众弹幕页不清除，靠 AUDIENCE_CACHE_TTL_SECONDS 过期
+     *
+     * @return 写入的行数
+     */
+    @Transactional
+    public int batchInsertMessages(List<MessageRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> senderIds = new HashSet<>();
+        Set<Long> liveRoomIds = new HashSet<>();
+        for (MessageRecord record : records) {
+            senderIds.add(record.getSenderId());
+            liveRoomIds.add(record.getLiveRoomId());
+        }
+        Set<Long> validSenders = existingIds("SELECT user_id FROM audience WHERE user_id IN ", senderIds);
+        Set<Long> validRooms = existingIds("SELECT live_room_id FROM live_room WHERE live_room_id IN ", liveRoomIds);
+
+        List<MessageRecord> valid = new ArrayList<>(records.size());
+        for (MessageRecord record : records) {
+            if (validSenders.contains(record.getSenderId()) && validRooms.contains(record.getLiveRoomId())) {
+                valid.add(record);
+            }
+        }
+        if (valid.size() < records.size()) {
+            TraceLogger.warn("Message", "batchInsertMessages",
+                String.format("丢弃发送者或直播间不存在的弹幕: %d 条", records.size() - valid.size()));
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < valid.size(); from += SystemConstants.BATCH_SIZE) {
+            List<MessageRecord> chunk = valid.subList(from, Math.min(from + SystemConstants.BATCH_SIZE, valid.size()));
+            try {
+                inserted += insertChunk(chunk);
+            } catch (DataIntegrityViolationException e) {
+                TraceLogger.warn("Message", "batchInsertMessages",
+                    "批量写入违反约束，改为逐行写入: " + e.getMostSpecificCause().getMessage());
+                inserted += insertRowByRow(chunk);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            evictLiveRoomPages(valid.stream().map(MessageRecord::getLiveRoomId).collect(Collectors.toSet()));
+        }
+
+        TraceLogger.debug("Message", "batchInsertMessages", 
+            String.format("批量写入弹幕: %d 条", inserted));
+        return inserted;
+    }
+
+    private int insertChunk(List<MessageRecord> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_MESSAGE_PREFIX.length() + chunk.size() * 16);
+        sql.append(INSERT_MESSAGE_PREFIX);
+        Object[] args = new Object[chunk.size() * 4];
+        int i = 0;
+        for (MessageRecord record : chunk) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(INSERT_MESSAGE_ROW);
+            args[i++] = record.getLiveRoomId();
+            args[i++] = record.getSenderId();
+            args[i++] = record.getContent();
+            args[i++] = Timestamp.valueOf(record.getCreateTime());
+        }
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private int insertRowByRow(List<MessageRecord> chunk) {
+        int inserted = 0;
+        for (MessageRecord record : chunk) {
+            try {
+                inserted += insertChunk(List.of(record));
+            } catch (DataIntegrityViolationException e) {
+                TraceLogger.warn("Message", "batchInsertMessages",
+                    String.format("丢弃违反约束的弹幕: liveRoomId=%d, senderId=%d",
+                        record.getLiveRoomId(), record.getSenderId()));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 一次 IN 查询返回存在的ID
+     */
+    private Set<Long> existingIds(String sqlPrefix, Set<Long> ids) {
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(",", "(", ")"));
+        return new HashSet<>(jdbcTemplate.queryForList(sqlPrefix + placeholders, Long.class, ids.toArray()));
+    }
+
+    /**
+     * 清除直播间的弹幕缓存页（只缓存前 CACHED_PAGES 页，按 key 精确清除）
+     * 所有直播间的所有缓存页通过一条多键 DEL 删除，弹幕落库线程每批只有一次 Redis 往返；
+     * key 与 RedisCacheManager 默认前缀一致：{cacheName}::{liveRoomId}-{page}。
+     * 存在事务时在提交后清除，避免并发查询在提交前回填旧数据
+     */
+    private void evictLiveRoomPages(Set<Long> liveRoomIds) {
+        if (cacheManager == null || liveRoomIds.isEmpty()) {
+            return;
+        }
+        Runnable evict = () -> {
+            try {
+                RedisTemplate<String, Object> redis = getRedisTemplate();
+                if (redis != null) {
+                    redis.delete(liveRoomPageKeys(liveRoomIds));
+                    return;
+                }
+                Cache cache = cacheManager.getCache(CACHE_LIVE_ROOM);
+                if (cache != null) {
+                    for (Long id : liveRoomIds) {
+                        for (int page = 0; page < CACHED_PAGES; page++) {
+                            cache.evict(id + "-" + page);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                TraceLogger.warn("Message", "evictLiveRoomPages", "清除弹幕缓存失败: " + e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    static List<String> liveRoomPageKeys(Set<Long> liveRoomIds) {
+        List<String> keys = new ArrayList<>(liveRoomIds.size() * CACHED_PAGES);
+        for (Long id : liveRoomIds) {
+            for (int page = 0; page < CACHED_PAGES; page++) {
+                keys.add(CACHE_LIVE_ROOM + "::" + id + "-" + page);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 待写入的弹幕记录（只持有外键ID）
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MessageRecord {
+        private Long liveRoomId;
+        private Long senderId;
+        private String content;
+        private LocalDateTime createTime;
+    }
+
     /**
      * 查询指定直播间的弹幕（带缓存）
      */
-    @Cacheable(value = "message::liveRoom", key = "#liveRoomId + '-' + #pageable.pageNumber", unless = "#result == null")
+    @Cacheable(value = CACHE_LIVE_ROOM, key = "#liveRoomId + '-' + #pageable.pageNumber",
+        condition = "#pageable.pageNumber < T(common.service.MessageService).CACHED_PAGES", unless = "#result == null")
     @Transactional(readOnly = true)
     public Page<Message> findByLiveRoomId(Long liveRoomId, Pageable pageable) {
         TraceLogger.debug("Message", "findByLiveRoomId", 
@@ -104,10 +304,32 @@ public class MessageService extends BaseService<Message, Long, MessageRepository
         return repository.findByLiveRoomId(liveRoomId, pageable);
     }
 
+    /**
+     * 按游标查询指定直播间的弹幕（时间倒序）
+     * 只有首页返回估算总数
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为空
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Message> seekByLiveRoomId(Long liveRoomId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        TraceLogger.debug("Message", "seekByLiveRoomId",
+            String.format("游标查询直播间弹幕: liveRoomId=%d, firstPage=%s, size=%d", liveRoomId, after == null, size));
+
+        List<Message> rows = repository.seekByLiveRoomId(liveRoomId,
+            after == null ? KeysetCursor.MAX_TIME : after.getSortTime(),
+            after == null ? Long.MAX_VALUE : after.getId(),
+            PageRequest.of(0, size + 1));
+        Long estimatedTotal = after == null
+            ? estimateCount("SELECT * FROM message WHERE live_room_id = ?1", liveRoomId) : null;
+        return toCursorPage(rows, size, m -> KeysetCursor.of(m.getCreateTime(), m.getMessageId()), estimatedTotal);
+    }
+
     /**
      * 查询指定观众的弹幕（带缓存）
      */
-    @Cacheable(value = "message::audience", key = "#audienceId + '-' + #pageable.pageNumber", unless = "#result == null")
+    @Cacheable(value = CACHE_AUDIENCE, key = "#audienceId + '-' + #pageable.pageNumber",
+        condition = "#pageable.pageNumber < T(common.service.MessageService).CACHED_PAGES", unless = "#result == null")
     @Transactional(readOnly = true)
     public Page<Message> findByAudienceId(Long audienceId, Pageable pageable) {
         TraceLogger.debug("Message", "findByAudienceId", 
@@ -1,31 +1,64 @@
 package common.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import common.bean.Recharge;
+import common.constant.ErrorConstants;
+import common.exception.BusinessException;
 import common.logger.TraceLogger;
 import common.repository.RechargeRepository;
+import common.response.CursorPageResponse;
+import common.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * 打赏Service - 统一的打赏数据访问接口
  * 所有其他模块必须通过此Service来操作打赏数据
  * 支持幂等性控制、缓存和批量操作
+ *
+ * recharge 按 recharge_time 月分区后唯一键只能是 (trace_id, recharge_time)，
+ * traceId 的全局唯一由 recharge_trace 表保证：创建打赏时先插入 traceId，主键冲突即为重复请求；
+ * 按 traceId 查询时先从该表取打赏时间，再带上打赏时间查询，只访问一个分区。
+ * 分区归档后对应的 traceId 转入 recharge_trace_archive（只存 MD5），插入 recharge_trace 成功后再查该表，
+ * 已归档打赏的 traceId 同样视为重复请求
  */
 @Slf4j
 @Service
 public class RechargeService extends BaseService<Recharge, Long, RechargeRepository> {
 
+    private static final String SELECT_TRACE_TIME_SQL =
+        "SELECT recharge_time FROM recharge_trace WHERE trace_id = ?";
+
+    private static final String INSERT_TRACE_SQL =
+        "INSERT INTO recharge_trace (trace_id, recharge_time) VALUES (?, ?)";
+
+    private static final String COUNT_ARCHIVED_TRACE_SQL =
+        "SELECT COUNT(*) FROM recharge_trace_archive WHERE trace_hash = UNHEX(MD5(?))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public RechargeService(RechargeRepository repository) {
         super(repository);
     }
@@ -51,7 +84,11 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
             return Optional.empty();
         }
         TraceLogger.info("Recharge", "findByTraceId", "查询traceId: " + traceId);
-        return repository.findByTraceId(traceId);
+        LocalDateTime rechargeTime = findTraceTime(traceId);
+        if (rechargeTime == null) {
+            return Optional.empty();
+        }
+        return repository.findByTraceIdAndRechargeTime(traceId, rechargeTime);
     }
 
     /**
@@ -102,6 +139,48 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
         return repository.findByAudienceId(audienceId, pageable);
     }
 
+    /**
+     * 按游标查询主播的打赏记录（时间倒序），只有首页返回估算总数
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为空
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Recharge> seekByAnchorId(Long anchorId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        TraceLogger.info("Recharge", "seekByAnchorId",
+            String.format("游标查询主播打赏: anchorId=%d, firstPage=%s, size=%d", anchorId, after == null, size));
+        List<Recharge> rows = repository.seekByAnchorId(anchorId,
+            after == null ? KeysetCursor.MAX_TIME : after.getSortTime(),
+            after == null ? Long.MAX_VALUE : after.getId(),
+            PageRequest.of(0, size + 1));
+        Long estimatedTotal = after == null
+            ? estimateCount("SELECT * FROM recharge WHERE anchor_id = ?1", anchorId) : null;
+        return toCursorPage(rows, size, RechargeService::cursorOf, estimatedTotal);
+    }
+
+    /**
+     * 按游标查询观众的打赏记录（时间倒序），只有首页返回估算总数
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为空
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Recharge> seekByAudienceId(Long audienceId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        TraceLogger.info("Recharge", "seekByAudienceId",
+            String.format("游标查询观众打赏: audienceId=%d, firstPage=%s, size=%d", audienceId, after == null, size));
+        List<Recharge> rows = repository.seekByAudienceId(audienceId,
+            after == null ? KeysetCursor.MAX_TIME : after.getSortTime(),
+            after == null ? Long.MAX_VALUE : after.getId(),
+            PageRequest.of(0, size + 1));
+        Long estimatedTotal = after == null
+            ? estimateCount("SELECT * FROM recharge WHERE audience_id = ?1", audienceId) : null;
+        return toCursorPage(rows, size, RechargeService::cursorOf, estimatedTotal);
+    }
+
+    private static KeysetCursor cursorOf(Recharge recharge) {
+        return KeysetCursor.of(recharge.getRechargeTime(), recharge.getRechargeId());
+    }
+
     /**
      * 按直播间ID查询所有打赏
      */
@@ -123,6 +202,56 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
         return repository.findByLiveRoomId(liveRoomId, pageable);
     }
 
+    /**
+     * 按观众汇总直播间自某时刻起的打赏金额（不走缓存，用于实时贡献榜对账）
+     *
+     * @return key = 观众ID，value = 累计打赏金额
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> sumRechargeByAudienceForLiveRoom(Long liveRoomId, LocalDateTime since) {
+        if (liveRoomId == null || since == null) {
+            return Map.of();
+        }
+        Map<Long, BigDecimal> result = new HashMap<>();
+        for (Object[] row : repository.sumRechargeAmountByAudienceForLiveRoom(liveRoomId, since)) {
+            result.put((Long) row[0], (BigDecimal) row[1]);
+        }
+        return result;
+    }
+
+    /**
+     * 查询主播时间范围内累计打赏金额最高的观众（数据库聚合，不走缓存）
+     *
+     * @param limit 返回的观众数
+     */
+    @Transactional(readOnly = true)
+    public List<AudienceRechargeSum> findTopAudiencesByAnchor(Long anchorId, LocalDateTime startTime,
+                                                              LocalDateTime endTime, int limit) {
+        if (anchorId == null || startTime == null || endTime == null || limit <= 0) {
+            return List.of();
+        }
+        List<AudienceRechargeSum> result = new ArrayList<>();
+        for (Object[] row : repository.sumRechargeByAudienceForAnchor(anchorId, startTime, endTime,
+                PageRequest.of(0, limit))) {
+            result.add(new AudienceRechargeSum((Long) row[0], (BigDecimal) row[1],
+                ((Number) row[2]).longValue(), (LocalDateTime) row[3]));
+        }
+        return result;
+    }
+
+    /**
+     * 观众打赏汇总
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AudienceRechargeSum {
+        private Long audienceId;
+        private BigDecimal totalAmount;
+        private Long count;
+        private LocalDateTime lastRechargeTime;
+    }
+
     /**
      * 查询主播和时间范围内的TOP打赏记录
      */
@@ -193,6 +322,17 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
         return repository.sumRechargeAmountByAudience(audienceId);
     }
 
+    /**
+     * 统计观众打赏过的主播数
+     */
+    @Transactional(readOnly = true)
+    public long countDistinctAnchorsByAudience(Long audienceId) {
+        if (audienceId == null) {
+            throw new IllegalArgumentException("观众ID不能为空");
+        }
+        return repository.countDistinctAnchorByAudience(audienceId);
+    }
+
     /**
      * 计算主播的总打赏金额
      */
@@ -221,7 +361,7 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
      */
     @Transactional(readOnly = true)
     public boolean existsByTraceId(String traceId) {
-        return repository.existsByTraceId(traceId);
+        return findTraceTime(traceId) != null || isArchivedTrace(traceId);
     }
 
     /**
@@ -235,10 +375,21 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
             throw new IllegalArgumentException("打赏信息不完整");
         }
         
-        // 检查幂等性
-        if (existsByTraceId(recharge.getTraceId())) {
+        if (recharge.getRechargeTime() == null) {
+            recharge.setRechargeTime(LocalDateTime.now());
+        }
+
+        // 检查幂等性：traceId 先占位，和打赏记录在同一事务中提交
+        try {
+            jdbcTemplate.update(INSERT_TRACE_SQL, recharge.getTraceId(), Timestamp.valueOf(recharge.getRechargeTime()));
+        } catch (DuplicateKeyException e) {
             TraceLogger.warn("Recharge", "createRecharge", "重复的traceId: " + recharge.getTraceId());
-            return repository.findByTraceId(recharge.getTraceId()).orElse(null);
+            return findByTraceId(recharge.getTraceId()).orElse(null);
+        }
+        // 归档任务先写去重表再删 recharge_trace，占位成功后再查去重表，不会漏掉正在归档的 traceId
+        if (isArchivedTrace(recharge.getTraceId())) {
+            TraceLogger.warn("Recharge", "createRecharge", "traceId属于已归档的打赏: " + recharge.getTraceId());
+            throw new BusinessException(ErrorConstants.DUPLICATE_RECHARGE, "该打赏请求已处理，请勿重复提交");
         }
         
         TraceLogger.info("Recharge", "createRecharge", 
@@ -247,6 +398,16 @@ public class RechargeService extends BaseService<Recharge, Long, RechargeReposit
         return repository.save(recharge);
     }
 
+    private LocalDateTime findTraceTime(String traceId) {
+        List<Timestamp> times = jdbcTemplate.queryForList(SELECT_TRACE_TIME_SQL, Timestamp.class, traceId);
+        return times.isEmpty() ? null : times.get(0).toLocalDateTime();
+    }
+
+    private boolean isArchivedTrace(String traceId) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_ARCHIVED_TRACE_SQL, Integer.class, traceId);
+        return count != null && count > 0;
+    }
+
     /**
      * 更新打赏记录（如结算状态变更）
      */
@@ -0,0 +1,226 @@
+package common.service;
+
+import common.logger.TraceLogger;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 打赏ID水位服务
+ *
+ * 增量消费 recharge 表的派生数据（RFM画像、金额草图等）共用：水位保存在 sync_progress，
+ * 每个消费者一行，在调用方事务中 SELECT ... FOR UPDATE，多实例同时轮询时串行执行。
+ *
+ * 自增ID在插入时分配、提交时才可见，较小的ID可能晚于较大的ID提交。
+ * 水位越过的空洞ID记入 recharge_watermark_gap，之后每批先回查这些ID，晚提交的记录补充消费；
+ * 超过 gap-timeout-ms 仍未出现的ID视为已回滚，不再等待。
+ * 进行中的事务数有限，连续超过 max-gap-span 个ID的空洞（手工调整自增值、批量回滚）不逐个记录。
+ */
+@Service
+public class RechargeWatermarkService {
+
+    private static final String LOCK_WATERMARK_SQL =
+        "SELECT progress_id, last_sync_recharge_id FROM sync_progress " +
+        "WHERE sync_type = ? AND target_service = ? ORDER BY progress_id LIMIT 1 FOR UPDATE";
+
+    private static final String INSERT_WATERMARK_SQL =
+        "INSERT INTO sync_progress (sync_type, source_service, target_service, sync_status) " +
+        "VALUES (?, 'recharge', ?, 0)";
+
+    private static final String ADVANCE_WATERMARK_SQL =
+        "UPDATE sync_progress SET last_sync_recharge_id = ?, " +
+        "total_synced_count = total_synced_count + ?, " +
+        "total_synced_amount = total_synced_amount + ?, " +
+        "last_sync_time = ?, sync_status = 2 WHERE progress_id = ?";
+
+    private static final String SELECT_GAPS_SQL =
+        "SELECT recharge_id FROM recharge_watermark_gap WHERE consumer = ? ORDER BY recharge_id LIMIT ?";
+
+    private static final String INSERT_GAP_SQL =
+        "INSERT IGNORE INTO recharge_watermark_gap (consumer, recharge_id, create_time) VALUES (?, ?, ?)";
+
+    private static final String EXPIRE_GAPS_SQL =
+        "DELETE FROM recharge_watermark_gap WHERE consumer = ? AND create_time < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 空洞ID等待提交的最长时间，超过后视为已回滚 */
+    @Value("${analysis.watermark.gap-timeout-ms:600000}")
+    private long gapTimeoutMs;
+
+    /** 连续空洞超过该ID数时不逐个记录 */
+    @Value("${analysis.watermark.max-gap-span:1000}")
+    private int maxGapSpan;
+
+    /** 每批最多回查的空洞ID数 */
+    @Value("${analysis.watermark.max-gap-checks:5000}")
+    private int maxGapChecks;
+
+    /**
+     * 锁定水位并取出下一批打赏：先是回查到的晚提交记录，再是水位之后的新记录
+     * 必须在调用方事务中执行，水位锁持有到事务结束
+     *
+     * @param consumer  消费者
+     * @param columns   查询的 recharge 列（须包含 recharge_id）
+     * @param mapper    行映射
+     * @param idOf      从映射结果取打赏ID
+     * @param batchSize 本批最多消费的新记录数
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> Batch<T> nextBatch(Consumer consumer, String columns, RowMapper<T> mapper,
+                                  ToLongFunction<T> idOf, int batchSize) {
+        long[] watermark = lockWatermark(consumer);
+        LocalDateTime now = LocalDateTime.now();
+        List<T> rows = new ArrayList<>();
+
+        // 1. 回查空洞：出现的记录补充消费并删除空洞，超时的空洞直接删除
+        List<Long> gaps = jdbcTemplate.queryForList(SELECT_GAPS_SQL, Long.class, consumer.getName(), maxGapChecks);
+        int late = 0;
+        if (!gaps.isEmpty()) {
+            List<T> found = jdbcTemplate.query(
+                "SELECT " + columns + " FROM recharge WHERE recharge_id IN (" + placeholders(gaps.size()) + ")",
+                mapper, gaps.toArray());
+            if (!found.isEmpty()) {
+                List<Object> args = new ArrayList<>(found.size() + 1);
+                args.add(consumer.getName());
+                found.forEach(row -> args.add(idOf.applyAsLong(row)));
+                jdbcTemplate.update("DELETE FROM recharge_watermark_gap WHERE consumer = ? AND recharge_id IN ("
+                    + placeholders(found.size()) + ")", args.toArray());
+                rows.addAll(found);
+                late = found.size();
+            }
+            int expired = jdbcTemplate.update(EXPIRE_GAPS_SQL, consumer.getName(),
+                Timestamp.valueOf(now.minus(Duration.ofMillis(gapTimeoutMs))));
+            if (expired > 0) {
+                TraceLogger.warn("RechargeWatermark", "nextBatch",
+                    String.format("%s: %d 个空洞ID超时未提交，视为已回滚", consumer.getName(), expired));
+            }
+        }
+
+        // 2. 水位之后的新记录，记录其间的空洞
+        List<T> fresh = jdbcTemplate.query(
+            "SELECT " + columns + " FROM recharge WHERE recharge_id > ? ORDER BY recharge_id LIMIT ?",
+            mapper, watermark[1], batchSize);
+        long previous = watermark[1];
+        List<Object[]> newGaps = new ArrayList<>();
+        Timestamp seenAt = Timestamp.valueOf(now);
+        for (T row : fresh) {
+            long id = idOf.applyAsLong(row);
+            long span = id - previous - 1;
+            if (span > maxGapSpan) {
+                TraceLogger.warn("RechargeWatermark", "nextBatch",
+                    String.format("%s: 跳过 %d 个连续空洞ID (%d, %d)", consumer.getName(), span, previous, id));
+            } else {
+                for (long gap = previous + 1; gap < id; gap++) {
+                    newGaps.add(new Object[] {consumer.getName(), gap, seenAt});
+                }
+            }
+            previous = id;
+        }
+        if (!newGaps.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_GAP_SQL, newGaps);
+        }
+        rows.addAll(fresh);
+
+        return new Batch<>(watermark[0], watermark[1], previous, rows, late, newGaps.size());
+    }
+
+    /**
+     * 推进水位（与派生数据写入同一事务）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void advance(Batch<?> batch, BigDecimal amount) {
+        jdbcTemplate.update(ADVANCE_WATERMARK_SQL, batch.getToId(), batch.getRows().size(), amount,
+            Timestamp.valueOf(LocalDateTime.now()), batch.getProgressId());
+    }
+
+    /**
+     * 只锁定水位（与增量消费串行执行的维护操作使用）
+     *
+     * @return 当前水位
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long lock(Consumer consumer) {
+        return lockWatermark(consumer)[1];
+    }
+
+    private long[] lockWatermark(Consumer consumer) {
+        RowMapper<long[]> mapper =
+            (rs, rowNum) -> new long[] {rs.getLong("progress_id"), rs.getLong("last_sync_recharge_id")};
+        List<long[]> rows = jdbcTemplate.query(LOCK_WATERMARK_SQL, mapper, consumer.getSyncType(), consumer.getName());
+        if (rows.isEmpty()) {
+            TraceLogger.warn("RechargeWatermark", "lockWatermark", consumer.getName() + " 水位不存在，从头开始构建");
+            jdbcTemplate.update(INSERT_WATERMARK_SQL, consumer.getSyncType(), consumer.getName());
+            rows = jdbcTemplate.query(LOCK_WATERMARK_SQL, mapper, consumer.getSyncType(), consumer.getName());
+        }
+        return rows.get(0);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * 水位消费者（sync_progress.sync_type + target_service）
+     */
+    @Getter
+    public static final class Consumer {
+        private final int syncType;
+        private final String name;
+
+        public Consumer(int syncType, String name) {
+            this.syncType = syncType;
+            this.name = name;
+        }
+    }
+
+    /**
+     * 一批待消费的打赏
+     */
+    @Getter
+    public static final class Batch<T> {
+        private final long progressId;
+        /** 消费前的水位 */
+        private final long fromId;
+        /** 消费后的水位 */
+        private final long toId;
+        private final List<T> rows;
+        /** 回查到的晚提交记录数 */
+        private final int lateRows;
+        /** 本批新记录的空洞ID数 */
+        private final int newGaps;
+
+        Batch(long progressId, long fromId, long toId, List<T> rows, int lateRows, int newGaps) {
+            this.progressId = progressId;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.rows = rows;
+            this.lateRows = lateRows;
+            this.newGaps = newGaps;
+        }
+
+        public boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        /** 水位之后的新记录数（小于 batchSize 说明已追平） */
+        public int freshRows() {
+            return rows.size() - lateRows;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package common.service;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import common.bean.Withdrawal;
 import common.logger.TraceLogger;
 import common.repository.WithdrawalRepository;
+import common.response.CursorPageResponse;
+import common.util.KeysetCursor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
@@ -65,6 +68,31 @@ public class WithdrawalService extends BaseService<Withdrawal, Long, WithdrawalR
         return repository.findByAnchorId(anchorId);
     }
 
+    /**
+     * 按游标查询主播的提现记录（申请时间倒序），status 为空时不过滤状态
+     * 只有首页返回估算总数
+     *
+     * @param cursor 上一页返回的 nextCursor，首页为空
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Withdrawal> seekByAnchorId(Long anchorId, Integer status, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        TraceLogger.info("Withdrawal", "seekByAnchorId",
+            String.format("游标查询提现记录: anchorId=%d, status=%s, firstPage=%s, size=%d",
+                anchorId, status, after == null, size));
+        List<Withdrawal> rows = repository.seekByAnchorIdAndStatus(anchorId, status,
+            after == null ? KeysetCursor.MAX_TIME : after.getSortTime(),
+            after == null ? Long.MAX_VALUE : after.getId(),
+            PageRequest.of(0, size + 1));
+        Long estimatedTotal = null;
+        if (after == null) {
+            estimatedTotal = status == null
+                ? estimateCount("SELECT * FROM withdrawal WHERE anchor_id = ?1", anchorId)
+                : estimateCount("SELECT * FROM withdrawal WHERE anchor_id = ?1 AND status = ?2", anchorId, status);
+        }
+        return toCursorPage(rows, size, w -> KeysetCursor.of(w.getAppliedTime(), w.getWithdrawalId()), estimatedTotal);
+    }
+
     /**
      * 按提现状态查询
      */
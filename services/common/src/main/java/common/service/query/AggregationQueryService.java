@@ -1,5 +1,6 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.bean.RechargeRecord;
 import common.logger.TraceLogger;
 import common.repository.RechargeRecordRepository;
@@ -29,6 +30,7 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class AggregationQueryService {
 
     private final AnalysisQueryService analysisQueryService;
@@ -1,5 +1,6 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.bean.Recharge;
 import common.bean.RechargeRecord;
 import common.logger.TraceLogger;
@@ -33,6 +34,7 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class FinancialAnalysisQueryService {
 
     private final AnalysisQueryService analysisQueryService;
@@ -1,5 +1,6 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.bean.Recharge;
 import common.logger.TraceLogger;
 import common.service.AnalysisQueryService;
@@ -28,6 +29,7 @@ import java.util.*;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class HeatmapAnalysisQueryService {
 
     private final AnalysisQueryService analysisQueryService;
@@ -1,5 +1,6 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.bean.Recharge;
 import common.bean.RechargeRecord;
 import common.logger.TraceLogger;
@@ -31,6 +32,7 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class RankingQueryService {
 
     private final AnalysisQueryService analysisQueryService;
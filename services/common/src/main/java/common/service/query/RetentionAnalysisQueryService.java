@@ -1,5 +1,6 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.logger.TraceLogger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +28,7 @@ import java.util.*;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class RetentionAnalysisQueryService {
 
     /**
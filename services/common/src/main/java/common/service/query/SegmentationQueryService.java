@@ -1,7 +1,9 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.logger.TraceLogger;
 import common.service.AnalysisQueryService;
+import common.util.QuantileSketch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,7 +12,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 分段分层查询Service
@@ -27,6 +28,7 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class SegmentationQueryService {
 
     private final AnalysisQueryService analysisQueryService;
@@ -42,16 +44,16 @@ public class SegmentationQueryService {
 
         List<common.bean.Recharge> recharges = analysisQueryService.getRechargesByTimeRange(startTime, endTime);
 
-        // 按观众分组统计
-        Map<Long, BigDecimal> audienceConsumption = recharges.stream()
-            .collect(Collectors.groupingBy(
-                common.bean.Recharge::getAudienceId,
-                Collectors.reducing(
-                    BigDecimal.ZERO,
-                    common.bean.Recharge::getRechargeAmount,
-                    BigDecimal::add
-                )
-            ));
+        // 按观众分组统计（单次遍历累加金额、笔数）
+        Map<Long, BigDecimal> audienceConsumption = new HashMap<>();
+        Map<Long, Integer> audienceCounts = new HashMap<>();
+        Map<Long, String> audienceNames = new HashMap<>();
+        for (common.bean.Recharge recharge : recharges) {
+            Long audienceId = recharge.getAudienceId();
+            audienceConsumption.merge(audienceId, recharge.getRechargeAmount(), BigDecimal::add);
+            audienceCounts.merge(audienceId, 1, Integer::sum);
+            audienceNames.putIfAbsent(audienceId, recharge.getAudienceNickname());
+        }
 
         if (audienceConsumption.isEmpty()) {
             return ConsumptionSegmentation.builder()
@@ -61,13 +63,13 @@ public class SegmentationQueryService {
                 .build();
         }
 
-        // 计算分位数
-        List<BigDecimal> amounts = audienceConsumption.values().stream()
-            .sorted()
-            .collect(Collectors.toList());
+        // 计算分位数（草图内存固定；观众数较少时草图未发生压缩，即为精确分位数）
+        QuantileSketch sketch = new QuantileSketch();
+        audienceConsumption.values().forEach(amount -> sketch.update(amount.doubleValue()));
+        double[] thresholds = sketch.quantiles(0.2, 0.8);
 
-        BigDecimal p80 = amounts.get((int) (amounts.size() * 0.8));
-        BigDecimal p20 = amounts.get((int) (amounts.size() * 0.2));
+        BigDecimal p20 = BigDecimal.valueOf(thresholds[0]);
+        BigDecimal p80 = BigDecimal.valueOf(thresholds[1]);
 
         // 分段
         List<ConsumptionSegmentation.ConsumerInfo> highConsumers = new ArrayList<>();
@@ -76,15 +78,11 @@ public class SegmentationQueryService {
 
         for (Map.Entry<Long, BigDecimal> entry : audienceConsumption.entrySet()) {
             BigDecimal amount = entry.getValue();
-            List<common.bean.Recharge> consumerRecharges = recharges.stream()
-                .filter(r -> r.getAudienceId().equals(entry.getKey()))
-                .collect(Collectors.toList());
-
             ConsumptionSegmentation.ConsumerInfo info = ConsumptionSegmentation.ConsumerInfo.builder()
                 .audienceId(entry.getKey())
-                .audienceName(consumerRecharges.get(0).getAudienceNickname())
+                .audienceName(audienceNames.get(entry.getKey()))
                 .totalAmount(amount)
-                .transactionCount(consumerRecharges.size())
+                .transactionCount(audienceCounts.get(entry.getKey()))
                 .build();
 
             if (amount.compareTo(p80) >= 0) {
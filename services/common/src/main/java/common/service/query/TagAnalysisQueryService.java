@@ -1,5 +1,6 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.logger.TraceLogger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,7 @@ import java.util.*;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class TagAnalysisQueryService {
 
     /**
@@ -42,20 +44,21 @@ public class TagAnalysisQueryService {
             return BigDecimal.ZERO;
         }
 
-        // 交集
-        Set<Long> intersection = new HashSet<>(tagAUsers);
-        intersection.retainAll(tagBUsers);
-
-        // 并集
-        Set<Long> union = new HashSet<>(tagAUsers);
-        union.addAll(tagBUsers);
-
-        if (union.isEmpty()) {
-            return BigDecimal.ZERO;
+        // 遍历较小的集合计数交集，不复制集合
+        Set<Long> smaller = tagAUsers.size() <= tagBUsers.size() ? tagAUsers : tagBUsers;
+        Set<Long> larger = smaller == tagAUsers ? tagBUsers : tagAUsers;
+        long intersection = 0;
+        for (Long userId : smaller) {
+            if (larger.contains(userId)) {
+                intersection++;
+            }
         }
 
-        return BigDecimal.valueOf(intersection.size())
-            .divide(BigDecimal.valueOf(union.size()), 4, RoundingMode.HALF_UP);
+        // |A ∪ B| = |A| + |B| - |A ∩ B|
+        long union = (long) tagAUsers.size() + tagBUsers.size() - intersection;
+
+        return BigDecimal.valueOf(intersection)
+            .divide(BigDecimal.valueOf(union), 4, RoundingMode.HALF_UP);
     }
 
     /**
@@ -128,41 +131,22 @@ public class TagAnalysisQueryService {
         List<Long> sortedTagIds = new ArrayList<>(tagIds);
         Collections.sort(sortedTagIds);
 
-        int size = sortedTagIds.size();
-        BigDecimal[][] matrix = new BigDecimal[size][size];
-
-        // 初始化矩阵
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i == j) {
-                    matrix[i][j] = BigDecimal.valueOf(100); // 自身完全关联
-                } else {
-                    matrix[i][j] = BigDecimal.ZERO;
-                }
-            }
-        }
-
-        // 填充关联度数据
-        Map<Long, Integer> tagIndexMap = new HashMap<>();
-        for (int i = 0; i < sortedTagIds.size(); i++) {
-            tagIndexMap.put(sortedTagIds.get(i), i);
-        }
-
+        // 稀疏存储：只保存有关联的标签对，对角线（自身关联 100）和无关联（0）不存储
+        Map<Long, Map<Long, BigDecimal>> cells = new HashMap<>();
         tagRelations.forEach(relation -> {
-            Integer index1 = tagIndexMap.get(relation.getTagId1());
-            Integer index2 = tagIndexMap.get(relation.getTagId2());
-
-            if (index1 != null && index2 != null) {
-                BigDecimal score = relation.getRelationScore();
-                matrix[index1][index2] = score;
-                matrix[index2][index1] = score; // 对称矩阵
+            Long tagId1 = relation.getTagId1();
+            Long tagId2 = relation.getTagId2();
+            BigDecimal score = relation.getRelationScore();
+            if (!tagId1.equals(tagId2) && score != null && score.signum() != 0) {
+                cells.computeIfAbsent(tagId1, id -> new HashMap<>()).put(tagId2, score);
+                cells.computeIfAbsent(tagId2, id -> new HashMap<>()).put(tagId1, score); // 对称矩阵
             }
         });
 
         return TagHeatmapMatrix.builder()
             .tagIds(sortedTagIds)
-            .matrix(matrix)
-            .size(size)
+            .cells(cells)
+            .size(sortedTagIds.size())
             .build();
     }
 
@@ -220,9 +204,21 @@ public class TagAnalysisQueryService {
     @lombok.Builder
     public static class TagHeatmapMatrix {
         private List<Long> tagIds; // 标签ID列表
-        private BigDecimal[][] matrix; // 关联度矩阵
+        private Map<Long, Map<Long, BigDecimal>> cells; // 稀疏关联度矩阵（只含非 0 的非对角线元素）
         private Integer size; // 矩阵大小
         private Map<Long, String> tagNameMap; // 标签ID到名称的映射
+
+        /**
+         * 矩阵元素：对角线为 100，未存储的标签对为 0
+         */
+        public BigDecimal get(Long tagId1, Long tagId2) {
+            if (tagId1.equals(tagId2)) {
+                return BigDecimal.valueOf(100);
+            }
+            Map<Long, BigDecimal> row = cells.get(tagId1);
+            BigDecimal score = row == null ? null : row.get(tagId2);
+            return score == null ? BigDecimal.ZERO : score;
+        }
     }
 
     /**
@@ -0,0 +1,542 @@
+package common.service.query;
+
+import common.logger.TraceLogger;
+import common.util.IdBitmap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 标签位图索引Service
+ *
+ * 把 audience_tag / anchor_tag 加载为每个标签一个压缩位图（IdBitmap，元素为用户ID），
+ * 标签关联分析只做位图交集计数，不再复制用户集合：
+ * - 两个标签的交集、并集、Jaccard 相似度
+ * - 稀疏共现矩阵：按标签行懒加载，只保存交集非 0 的标签，并随标签变更增量维护
+ * - TOP-K 相关标签
+ *
+ * 数据更新（关联表没有进程内的写入路径，只能按表读取）：
+ * - rebuild() 全量重建后整体替换（可感知删除）
+ * - applyNewLinks() 按两张关联表的自增ID水位追加新增关联
+ *
+ * 自增ID在插入时分配、提交时才可见，较小的ID可能晚于较大的ID提交。
+ * 与 RechargeWatermarkService 相同，水位越过的空洞ID记录下来（索引在进程内，空洞也保存在快照中），
+ * 之后每次追加先回查这些ID，晚提交的关联补充进位图；超过 gap-timeout-ms 仍未出现的ID视为已回滚或已删除，
+ * 连续超过 max-gap-span 个ID的空洞不逐个记录
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagBitmapIndexService {
+
+    private static final String SELECT_TAGS_SQL = "SELECT tag_id, tag_name FROM tag";
+
+    /** 关联行映射：(关联ID, 用户ID, 标签ID) */
+    private static final RowMapper<long[]> LINK_MAPPER =
+        (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2), rs.getLong(3)};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 全量加载和增量追加时每页读取的关联数 */
+    @Value("${analysis.tag-index.page-size:50000}")
+    private int pageSize;
+
+    /** 最多缓存的共现矩阵行数，超过后新行只计算不缓存 */
+    @Value("${analysis.tag-index.max-cached-rows:500}")
+    private int maxCachedRows;
+
+    /** 空洞ID等待提交的最长时间，超过后视为已回滚或已删除 */
+    @Value("${analysis.tag-index.gap-timeout-ms:600000}")
+    private long gapTimeoutMs;
+
+    /** 连续空洞超过该ID数时不逐个记录 */
+    @Value("${analysis.tag-index.max-gap-span:1000}")
+    private int maxGapSpan;
+
+    /** 每次最多回查的空洞ID数 */
+    @Value("${analysis.tag-index.max-gap-checks:5000}")
+    private int maxGapChecks;
+
+    /** 查询持读锁，位图增量修改持写锁 */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 全量重建索引，构建完成后替换当前索引
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Snapshot fresh = new Snapshot();
+        fresh.tagNames.putAll(loadTagNames());
+        int audienceLinks = loadLinks(fresh, LinkTable.AUDIENCE);
+        int anchorLinks = loadLinks(fresh, LinkTable.ANCHOR);
+
+        lock.writeLock().lock();
+        try {
+            snapshot = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long bytes = fresh.bitmaps.values().stream().mapToLong(IdBitmap::sizeInBytes).sum();
+        TraceLogger.info("TagBitmapIndex", "rebuild",
+            String.format("标签位图索引重建完成: 标签=%d, 观众关联=%d, 主播关联=%d, 位图约%dKB, 耗时%dms",
+                fresh.bitmaps.size(), audienceLinks, anchorLinks, bytes / 1024, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * 追加水位之后新增的标签关联和回查到的晚提交关联（删除由定时全量重建处理）
+     *
+     * @return 追加的关联数
+     */
+    public int applyNewLinks() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            return 0;
+        }
+        int applied = recheckGaps(current, LinkTable.AUDIENCE) + loadLinks(current, LinkTable.AUDIENCE)
+            + recheckGaps(current, LinkTable.ANCHOR) + loadLinks(current, LinkTable.ANCHOR);
+        if (applied > 0) {
+            if (!current.tagNames.keySet().containsAll(current.bitmaps.keySet())) {
+                Map<Long, String> names = loadTagNames();
+                lock.writeLock().lock();
+                try {
+                    current.tagNames.putAll(names);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            TraceLogger.debug("TagBitmapIndex", "applyNewLinks", "追加标签关联: " + applied);
+        }
+        return applied;
+    }
+
+    /**
+     * 两个标签的交集统计
+     */
+    public TagPairStats getPairStats(Long tagId1, Long tagId2) {
+        Snapshot current = loaded();
+        lock.readLock().lock();
+        try {
+            long count1 = current.cardinality(tagId1);
+            long count2 = current.cardinality(tagId2);
+            long intersection = current.intersection(tagId1, tagId2);
+            return TagPairStats.builder()
+                .tagId1(tagId1)
+                .tagName1(current.tagNames.get(tagId1))
+                .tagId2(tagId2)
+                .tagName2(current.tagNames.get(tagId2))
+                .tagCount1(count1)
+                .tagCount2(count2)
+                .intersectionCount(intersection)
+                .unionCount(count1 + count2 - intersection)
+                .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 与指定标签 Jaccard 相似度最高的 K 个标签（只返回交集非 0 的标签）
+     */
+    public List<TagPairStats> getTopRelatedTags(Long tagId, int limit) {
+        Snapshot current = loaded();
+        lock.readLock().lock();
+        try {
+            long count = current.cardinality(tagId);
+            Map<Long, Long> row = current.row(tagId, maxCachedRows);
+
+            PriorityQueue<TagPairStats> top = new PriorityQueue<>(
+                Comparator.comparingDouble(TagPairStats::jaccard));
+            for (Map.Entry<Long, Long> entry : row.entrySet()) {
+                long other = current.cardinality(entry.getKey());
+                long intersection = entry.getValue();
+                TagPairStats stats = TagPairStats.builder()
+                    .tagId1(tagId)
+                    .tagName1(current.tagNames.get(tagId))
+                    .tagId2(entry.getKey())
+                    .tagName2(current.tagNames.get(entry.getKey()))
+                    .tagCount1(count)
+                    .tagCount2(other)
+                    .intersectionCount(intersection)
+                    .unionCount(count + other - intersection)
+                    .build();
+                if (top.size() < limit) {
+                    top.add(stats);
+                } else if (stats.jaccard() > top.peek().jaccard()) {
+                    top.poll();
+                    top.add(stats);
+                }
+            }
+
+            List<TagPairStats> result = new ArrayList<>(top);
+            result.sort(Comparator.comparingDouble(TagPairStats::jaccard).reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 指定标签之间的稀疏共现矩阵（只包含交集非 0 的标签对，不含对角线）
+     *
+     * @return tagId -> (tagId -> 交集用户数)
+     */
+    public Map<Long, Map<Long, Long>> getCooccurrence(Collection<Long> tagIds) {
+        Snapshot current = loaded();
+        lock.readLock().lock();
+        try {
+            Set<Long> wanted = new LinkedHashSet<>(tagIds);
+            List<Long> present = new ArrayList<>();
+            for (Long tagId : wanted) {
+                if (current.bitmaps.containsKey(tagId)) {
+                    present.add(tagId);
+                }
+            }
+            IdBitmap[] bitmaps = present.stream().map(current.bitmaps::get).toArray(IdBitmap[]::new);
+
+            Map<Long, Map<Long, Long>> result = new LinkedHashMap<>();
+            for (Long tagId : wanted) {
+                Map<Long, Long> cells = new HashMap<>();
+                Map<Long, Long> cachedRow = current.rows.get(tagId);
+                if (cachedRow != null) {
+                    cachedRow.forEach((other, intersection) -> {
+                        if (wanted.contains(other)) {
+                            cells.put(other, intersection);
+                        }
+                    });
+                } else if (current.bitmaps.containsKey(tagId)) {
+                    // 未缓存的行只与请求的标签求交，不计算整行
+                    long[] intersections = current.bitmaps.get(tagId).andCardinality(bitmaps);
+                    for (int i = 0; i < intersections.length; i++) {
+                        if (intersections[i] > 0 && !present.get(i).equals(tagId)) {
+                            cells.put(present.get(i), intersections[i]);
+                        }
+                    }
+                }
+                result.put(tagId, cells);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 标签名称
+     */
+    public String getTagName(Long tagId) {
+        Snapshot current = loaded();
+        lock.readLock().lock();
+        try {
+            return current.tagNames.get(tagId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 标签用户数
+     */
+    public long getTagCount(Long tagId) {
+        Snapshot current = loaded();
+        lock.readLock().lock();
+        try {
+            return current.cardinality(tagId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Snapshot loaded() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private Map<Long, String> loadTagNames() {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query(SELECT_TAGS_SQL, rs -> {
+            names.put(rs.getLong("tag_id"), rs.getString("tag_name"));
+        });
+        return names;
+    }
+
+    /**
+     * 按自增ID分页读取关联并写入位图，每页在写锁内批量应用，并记录水位越过的空洞ID
+     */
+    private int loadLinks(Snapshot target, LinkTable table) {
+        Cursor cursor = target.cursor(table);
+        int total = 0;
+        while (true) {
+            List<long[]> page = jdbcTemplate.query(table.pageSql, LINK_MAPPER, cursor.watermark, pageSize);
+            if (page.isEmpty()) {
+                return total;
+            }
+
+            long seenAt = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                long previous = cursor.watermark;
+                for (long[] link : page) {
+                    long span = link[0] - previous - 1;
+                    if (span > maxGapSpan) {
+                        TraceLogger.warn("TagBitmapIndex", "loadLinks",
+                            String.format("%s: 跳过 %d 个连续空洞ID (%d, %d)", table.table, span, previous, link[0]));
+                    } else {
+                        for (long gap = previous + 1; gap < link[0]; gap++) {
+                            cursor.gaps.putIfAbsent(gap, seenAt);
+                        }
+                    }
+                    previous = link[0];
+                    target.add(link[1], link[2]);
+                }
+                cursor.watermark = previous;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            total += page.size();
+            if (page.size() < pageSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * 回查水位之下的空洞ID：出现的关联补充进位图并删除空洞，超时的空洞直接删除
+     *
+     * @return 补充的关联数
+     */
+    private int recheckGaps(Snapshot target, LinkTable table) {
+        Cursor cursor = target.cursor(table);
+        List<Long> gaps;
+        lock.readLock().lock();
+        try {
+            if (cursor.gaps.isEmpty()) {
+                return 0;
+            }
+            gaps = new ArrayList<>(Math.min(cursor.gaps.size(), maxGapChecks));
+            for (Long gap : cursor.gaps.keySet()) {
+                if (gaps.size() >= maxGapChecks) {
+                    break;
+                }
+                gaps.add(gap);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<long[]> found = jdbcTemplate.query(
+            table.byIdsSql + String.join(",", Collections.nCopies(gaps.size(), "?")) + ")",
+            LINK_MAPPER, gaps.toArray());
+
+        long deadline = System.currentTimeMillis() - gapTimeoutMs;
+        int expired = 0;
+        lock.writeLock().lock();
+        try {
+            for (long[] link : found) {
+                cursor.gaps.remove(link[0]);
+                target.add(link[1], link[2]);
+            }
+            Iterator<Long> seen = cursor.gaps.values().iterator();
+            while (seen.hasNext()) {
+                if (seen.next() < deadline) {
+                    seen.remove();
+                    expired++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (expired > 0) {
+            TraceLogger.warn("TagBitmapIndex", "recheckGaps",
+                String.format("%s: %d 个空洞ID超时未出现，视为已回滚或已删除", table.table, expired));
+        }
+        return found.size();
+    }
+
+    /**
+     * 标签关联表
+     */
+    private enum LinkTable {
+        AUDIENCE("audience_tag", "audience_tag_id", "audience_id"),
+        ANCHOR("anchor_tag", "anchor_tag_id", "anchor_id");
+
+        final String table;
+        final String pageSql;
+        final String byIdsSql;
+
+        LinkTable(String table, String idColumn, String userColumn) {
+            String select = "SELECT " + idColumn + ", " + userColumn + ", tag_id FROM " + table + " WHERE ";
+            this.table = table;
+            this.pageSql = select + idColumn + " > ? ORDER BY " + idColumn + " LIMIT ?";
+            this.byIdsSql = select + idColumn + " IN (";
+        }
+    }
+
+    /**
+     * 关联表的读取进度：自增ID水位和水位之下尚未出现的空洞ID（ID -> 首次越过的时间）
+     */
+    private static final class Cursor {
+        long watermark;
+        final TreeMap<Long, Long> gaps = new TreeMap<>();
+    }
+
+    /**
+     * 索引快照：位图、标签名称、关联表读取进度和共现矩阵缓存行
+     */
+    private static final class Snapshot {
+        final Map<Long, IdBitmap> bitmaps = new HashMap<>();
+        final Map<Long, String> tagNames = new HashMap<>();
+        final Map<Long, Map<Long, Long>> rows = new ConcurrentHashMap<>();
+        final Map<LinkTable, Cursor> cursors = new EnumMap<>(LinkTable.class);
+
+        Snapshot() {
+            for (LinkTable table : LinkTable.values()) {
+                cursors.put(table, new Cursor());
+            }
+        }
+
+        Cursor cursor(LinkTable table) {
+            return cursors.get(table);
+        }
+
+        long cardinality(Long tagId) {
+            IdBitmap bitmap = bitmaps.get(tagId);
+            return bitmap == null ? 0 : bitmap.getCardinality();
+        }
+
+        long intersection(Long tagId1, Long tagId2) {
+            if (tagId1.equals(tagId2)) {
+                return cardinality(tagId1);
+            }
+            Map<Long, Long> row = rows.get(tagId1);
+            if (row != null) {
+                return row.getOrDefault(tagId2, 0L);
+            }
+            IdBitmap a = bitmaps.get(tagId1);
+            IdBitmap b = bitmaps.get(tagId2);
+            return a == null || b == null ? 0 : a.andCardinality(b);
+        }
+
+        /**
+         * 共现矩阵的一行（读锁内调用；并发读取同一行时可能重复计算，结果一致）
+         */
+        Map<Long, Long> row(Long tagId, int maxCachedRows) {
+            Map<Long, Long> row = rows.get(tagId);
+            if (row != null) {
+                return row;
+            }
+            row = new HashMap<>();
+            IdBitmap bitmap = bitmaps.get(tagId);
+            if (bitmap != null) {
+                Long[] otherTags = new Long[bitmaps.size()];
+                IdBitmap[] others = new IdBitmap[bitmaps.size()];
+                int n = 0;
+                for (Map.Entry<Long, IdBitmap> entry : bitmaps.entrySet()) {
+                    if (!entry.getKey().equals(tagId)) {
+                        otherTags[n] = entry.getKey();
+                        others[n++] = entry.getValue();
+                    }
+                }
+                long[] intersections = bitmap.andCardinality(Arrays.copyOf(others, n));
+                for (int i = 0; i < n; i++) {
+                    if (intersections[i] > 0) {
+                        row.put(otherTags[i], intersections[i]);
+                    }
+                }
+            }
+            if (rows.size() < maxCachedRows) {
+                rows.putIfAbsent(tagId, row);
+            }
+            return row;
+        }
+
+        /**
+         * 写锁内调用：用户新增标签，同步更新已缓存的矩阵行
+         */
+        void add(long userId, long tagId) {
+            IdBitmap bitmap = bitmaps.computeIfAbsent(tagId, id -> new IdBitmap());
+            if (bitmap.contains(userId)) {
+                return;
+            }
+            adjustRows(userId, tagId, 1);
+            bitmap.add(userId);
+        }
+
+        /**
+         * 用户 userId 在标签 tagId 上的变化只影响 tagId 行和用户已有标签所在的行
+         */
+        private void adjustRows(long userId, long tagId, long delta) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<Long, Long> ownRow = rows.get(tagId);
+            for (Map.Entry<Long, IdBitmap> entry : bitmaps.entrySet()) {
+                Long other = entry.getKey();
+                if (other == tagId || !entry.getValue().contains(userId)) {
+                    continue;
+                }
+                if (ownRow != null) {
+                    adjust(ownRow, other, delta);
+                }
+                Map<Long, Long> otherRow = rows.get(other);
+                if (otherRow != null) {
+                    adjust(otherRow, tagId, delta);
+                }
+            }
+        }
+
+        private static void adjust(Map<Long, Long> row, Long key, long delta) {
+            long value = row.getOrDefault(key, 0L) + delta;
+            if (value > 0) {
+                row.put(key, value);
+            } else {
+                row.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 标签对统计DTO
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class TagPairStats {
+        private Long tagId1;
+        private String tagName1;
+        private Long tagId2;
+        private String tagName2;
+        private long tagCount1; // 标签1用户数
+        private long tagCount2; // 标签2用户数
+        private long intersectionCount; // 交集用户数
+        private long unionCount; // 并集用户数
+
+        /**
+         * Jaccard = |A ∩ B| / |A ∪ B|
+         */
+        public double jaccard() {
+            return unionCount == 0 ? 0D : (double) intersectionCount / unionCount;
+        }
+    }
+}
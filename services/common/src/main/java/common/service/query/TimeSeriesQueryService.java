@@ -1,14 +1,16 @@
 package common.service.query;
 
+import common.annotation.ReadOnlyQuery;
 import common.logger.TraceLogger;
 import common.service.AnalysisQueryService;
+import common.util.TimeSeriesOps;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 /**
@@ -27,61 +29,54 @@ import java.util.*;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class TimeSeriesQueryService {
 
     private final AnalysisQueryService analysisQueryService;
 
     /**
      * 获取日粒度的时间序列数据
-     * 包含移动平均和增长率
+     * 包含移动平均、指数移动平均和增长率，无打赏的日期补 0
      */
     @Transactional(readOnly = true)
     public TimeSeriesData getDailyTimeSeries(LocalDateTime startTime, LocalDateTime endTime, boolean includeMA, boolean includeGrowthRate) {
         TraceLogger.info("TimeSeriesQueryService", "getDailyTimeSeries",
             String.format("获取日粒度时间序列: %s - %s", startTime, endTime));
 
-        Map<String, AnalysisQueryService.RechargeStats> statsMap = analysisQueryService.getRechargeStatsByDay(startTime, endTime);
+        TimeSeriesOps.Series series = analysisQueryService.getRechargeSeries(startTime, endTime, ChronoUnit.DAYS);
+        long[] cents = series.getCents();
 
         TimeSeriesData data = new TimeSeriesData();
         data.setGranularity("day");
-        data.setTimeLabels(new ArrayList<>(statsMap.keySet()));
-        data.setValues(statsMap.values().stream()
-            .map(s -> s.getTotalAmount().doubleValue())
-            .collect(java.util.stream.Collectors.toList()));
+        data.setTimeLabels(series.labels());
+        data.setValues(toHundredths(cents));
 
         if (includeMA) {
-            Map<String, BigDecimal> ma = AnalysisQueryService.calculateMovingAverage(statsMap, 7);
-            data.setMovingAverage(ma.values().stream()
-                .map(BigDecimal::doubleValue)
-                .collect(java.util.stream.Collectors.toList()));
+            data.setMovingAverage(toHundredths(TimeSeriesOps.movingAverage(cents, 7)));
+            data.setEma(toHundredths(TimeSeriesOps.ema(cents, 7)));
         }
 
         if (includeGrowthRate) {
-            Map<String, BigDecimal> growthRate = AnalysisQueryService.calculateGrowthRate(statsMap);
-            data.setGrowthRates(growthRate.values().stream()
-                .map(BigDecimal::doubleValue)
-                .collect(java.util.stream.Collectors.toList()));
+            data.setGrowthRates(toHundredths(TimeSeriesOps.growthRate(cents)));
         }
 
         return data;
     }
 
     /**
-     * 获取小时粒度的时间序列数据
+     * 获取小时粒度的时间序列数据，无打赏的时段补 0
      */
     @Transactional(readOnly = true)
     public TimeSeriesData getHourlyTimeSeries(LocalDateTime startTime, LocalDateTime endTime) {
         TraceLogger.info("TimeSeriesQueryService", "getHourlyTimeSeries",
             String.format("获取小时粒度时间序列: %s - %s", startTime, endTime));
 
-        Map<String, AnalysisQueryService.RechargeStats> statsMap = analysisQueryService.getRechargeStatsByHour(startTime, endTime);
+        TimeSeriesOps.Series series = analysisQueryService.getRechargeSeries(startTime, endTime, ChronoUnit.HOURS);
 
         TimeSeriesData data = new TimeSeriesData();
         data.setGranularity("hour");
-        data.setTimeLabels(new ArrayList<>(statsMap.keySet()));
-        data.setValues(statsMap.values().stream()
-            .map(s -> s.getTotalAmount().doubleValue())
-            .collect(java.util.stream.Collectors.toList()));
+        data.setTimeLabels(series.labels());
+        data.setValues(toHundredths(series.getCents()));
 
         return data;
     }
@@ -126,6 +121,17 @@ public class TimeSeriesQueryService {
         return data;
     }
 
+    /**
+     * 以 1/100 为单位的整数序列（分、0.01%）转换为元、百分比
+     */
+    private static List<Double> toHundredths(long[] values) {
+        List<Double> result = new ArrayList<>(values.length);
+        for (long value : values) {
+            result.add(value / 100.0);
+        }
+        return result;
+    }
+
     /**
      * 时间序列数据DTO
      */
@@ -0,0 +1,356 @@
+package common.service.query;
+
+import common.logger.TraceLogger;
+import common.util.NgramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 用户搜索索引Service
+ *
+ * 观众、主播的昵称和用户名各建一个进程内 N-gram 倒排索引（NgramIndex），
+ * 代替 nickname LIKE '%keyword%' 的全表扫描：
+ * - 子串、前缀、完全匹配和错别字模糊匹配，按相关度排序
+ * - 查询耗时只与命中的倒排表大小有关，与用户表大小无关
+ *
+ * 数据更新：
+ * - 各服务启动后调用 buildAsync() 在后台线程全量加载（按 user_id 游标分页），加载前先记下 update_time 最大值作为水位；
+ *   加载完成前搜索返回 Optional.empty()，调用方回退到数据库查询，不在请求线程上构建索引
+ * - applyChanges() 按 user.update_time 水位追加修改（昵称变更、新用户、逻辑删除），
+ *   每次回退 overlap-seconds 重读，避免同一秒内后提交的修改被跳过；重复写入同样内容不做任何修改
+ * - 物理删除由 rebuild() 处理
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserSearchIndexService {
+
+    private static final String SELECT_AUDIENCES_SQL =
+        "SELECT u.user_id, u.nickname, u.username, u.is_deleted, u.update_time " +
+        "FROM user u JOIN audience a ON a.user_id = u.user_id " +
+        "WHERE u.user_id > ? ORDER BY u.user_id LIMIT ?";
+
+    private static final String SELECT_ANCHORS_SQL =
+        "SELECT u.user_id, u.nickname, u.username, u.is_deleted, u.update_time " +
+        "FROM user u JOIN anchor a ON a.user_id = u.user_id " +
+        "WHERE u.user_id > ? ORDER BY u.user_id LIMIT ?";
+
+    private static final String SELECT_MAX_UPDATE_TIME_SQL = "SELECT MAX(update_time) FROM user";
+
+    private static final String SELECT_CHANGED_AUDIENCES_SQL =
+        "SELECT u.user_id, u.nickname, u.username, u.is_deleted, u.update_time " +
+        "FROM user u JOIN audience a ON a.user_id = u.user_id " +
+        "WHERE u.update_time >= ? AND (u.update_time > ? OR u.user_id > ?) " +
+        "ORDER BY u.update_time, u.user_id LIMIT ?";
+
+    private static final String SELECT_CHANGED_ANCHORS_SQL =
+        "SELECT u.user_id, u.nickname, u.username, u.is_deleted, u.update_time " +
+        "FROM user u JOIN anchor a ON a.user_id = u.user_id " +
+        "WHERE u.update_time >= ? AND (u.update_time > ? OR u.user_id > ?) " +
+        "ORDER BY u.update_time, u.user_id LIMIT ?";
+
+    /**
+     * 用户类型
+     */
+    public enum UserKind {
+        AUDIENCE(SELECT_AUDIENCES_SQL, SELECT_CHANGED_AUDIENCES_SQL),
+        ANCHOR(SELECT_ANCHORS_SQL, SELECT_CHANGED_ANCHORS_SQL);
+
+        private final String loadSql;
+        private final String changedSql;
+
+        UserKind(String loadSql, String changedSql) {
+            this.loadSql = loadSql;
+            this.changedSql = changedSql;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 全量加载和增量追加时每页读取的用户数 */
+    @Value("${search.user-index.page-size:50000}")
+    private int pageSize;
+
+    /** 增量追加时水位回退的秒数 */
+    @Value("${search.user-index.overlap-seconds:5}")
+    private int overlapSeconds;
+
+    /** 单次搜索最多校验的候选数 */
+    @Value("${search.user-index.max-candidates:20000}")
+    private int maxCandidates;
+
+    /** 查询持读锁，索引修改持写锁 */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<UserKind, Snapshot> snapshots = new EnumMap<>(UserKind.class);
+
+    /** 正在后台构建的索引类型，重复触发合并为一次 */
+    private final Set<UserKind> building = EnumSet.noneOf(UserKind.class);
+
+    /** 全量加载在后台线程执行，不占用请求线程 */
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-search-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 搜索观众
+     *
+     * @return 按相关度降序的命中结果（用户ID和得分）；索引未加载完成时为空
+     */
+    public Optional<List<NgramIndex.Hit>> searchAudiences(String keyword, int limit) {
+        return search(UserKind.AUDIENCE, keyword, limit);
+    }
+
+    /**
+     * 搜索主播
+     *
+     * @return 按相关度降序的命中结果（用户ID和得分）；索引未加载完成时为空
+     */
+    public Optional<List<NgramIndex.Hit>> searchAnchors(String keyword, int limit) {
+        return search(UserKind.ANCHOR, keyword, limit);
+    }
+
+    /**
+     * 搜索指定类型的用户，精确结果不足时用模糊匹配补足
+     * 索引未加载完成时在后台开始加载并返回空，调用方回退到数据库查询
+     */
+    public Optional<List<NgramIndex.Hit>> search(UserKind kind, String keyword, int limit) {
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshots.get(kind);
+            if (current != null) {
+                return Optional.of(current.index.search(keyword, limit, true));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        buildAsync(kind);
+        return Optional.empty();
+    }
+
+    /**
+     * 在后台线程全量加载指定类型的索引，已加载或正在加载时不做任何事
+     * 加载失败时下一次搜索或调用会重新触发
+     */
+    public void buildAsync(UserKind kind) {
+        synchronized (building) {
+            if (isReady(kind) || !building.add(kind)) {
+                return;
+            }
+        }
+        try {
+            buildExecutor.execute(() -> {
+                try {
+                    rebuild(kind);
+                } catch (Exception e) {
+                    TraceLogger.error("UserSearchIndex", "buildAsync", kind + " 搜索索引加载失败，搜索暂时回退到数据库查询", e);
+                } finally {
+                    synchronized (building) {
+                        building.remove(kind);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (building) {
+                building.remove(kind);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 指定类型的索引是否已加载完成
+     */
+    public boolean isReady(UserKind kind) {
+        lock.readLock().lock();
+        try {
+            return snapshots.containsKey(kind);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * 全量重建指定类型的索引，构建完成后替换当前索引
+     */
+    public void rebuild(UserKind kind) {
+        long start = System.currentTimeMillis();
+        Snapshot fresh = new Snapshot(new NgramIndex(maxCandidates));
+        // 先取水位再加载，加载期间的修改由下一次 applyChanges() 补上
+        Timestamp maxUpdateTime = jdbcTemplate.queryForObject(SELECT_MAX_UPDATE_TIME_SQL, Timestamp.class);
+        if (maxUpdateTime != null) {
+            fresh.watermark = maxUpdateTime.toLocalDateTime();
+        }
+        long lastId = 0;
+        int loaded = 0;
+        while (true) {
+            List<UserRow> page = jdbcTemplate.query(kind.loadSql, (rs, rowNum) -> toRow(rs), lastId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (UserRow row : page) {
+                apply(fresh.index, row);
+            }
+            lastId = page.get(page.size() - 1).userId;
+            loaded += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            snapshots.put(kind, fresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TraceLogger.info("UserSearchIndex", "rebuild",
+            String.format("%s 搜索索引重建完成: 读取=%d, 索引=%d, gram=%d, 倒排表约%dKB, 耗时%dms",
+                kind, loaded, fresh.index.size(), fresh.index.gramCount(),
+                fresh.index.postingBytes() / 1024, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * 追加水位之后修改过的用户，只处理已加载的索引
+     *
+     * @return 处理的用户数
+     */
+    public int applyChanges() {
+        int applied = 0;
+        for (UserKind kind : UserKind.values()) {
+            Snapshot current;
+            lock.readLock().lock();
+            try {
+                current = snapshots.get(kind);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (current != null) {
+                applied += applyChanges(kind, current);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * 已加载的索引文档数，未加载返回 -1
+     */
+    public int getIndexedCount(UserKind kind) {
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshots.get(kind);
+            return current == null ? -1 : current.index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按 (update_time, user_id) 游标分页读取修改，每页在写锁内批量应用
+     */
+    private int applyChanges(UserKind kind, Snapshot target) {
+        LocalDateTime fromTime = target.watermark.minusSeconds(overlapSeconds);
+        long fromId = 0;
+        int total = 0;
+        while (true) {
+            Timestamp from = Timestamp.valueOf(fromTime);
+            List<UserRow> page = jdbcTemplate.query(kind.changedSql, (rs, rowNum) -> toRow(rs),
+                from, from, fromId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (UserRow row : page) {
+                    apply(target.index, row);
+                    if (row.updateTime != null && row.updateTime.isAfter(target.watermark)) {
+                        target.watermark = row.updateTime;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            UserRow last = page.get(page.size() - 1);
+            fromTime = last.updateTime;
+            fromId = last.userId;
+            total += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            TraceLogger.debug("UserSearchIndex", "applyChanges", kind + " 追加用户修改: " + total);
+        }
+        return total;
+    }
+
+    private static void apply(NgramIndex index, UserRow row) {
+        if (row.deleted) {
+            index.remove(row.userId);
+        } else {
+            index.put(row.userId, row.nickname, row.username);
+        }
+    }
+
+    private static UserRow toRow(ResultSet rs) throws SQLException {
+        UserRow row = new UserRow();
+        row.userId = rs.getLong("user_id");
+        row.nickname = rs.getString("nickname");
+        row.username = rs.getString("username");
+        row.deleted = rs.getInt("is_deleted") == 1;
+        Timestamp updateTime = rs.getTimestamp("update_time");
+        row.updateTime = updateTime == null ? null : updateTime.toLocalDateTime();
+        return row;
+    }
+
+    private static final class UserRow {
+        long userId;
+        String nickname;
+        String username;
+        boolean deleted;
+        LocalDateTime updateTime;
+    }
+
+    /**
+     * 索引快照：倒排索引和 update_time 水位
+     */
+    private static final class Snapshot {
+        final NgramIndex index;
+        LocalDateTime watermark = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+        Snapshot(NgramIndex index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package common.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 压缩位图（Roaring 结构），用于存储大量ID集合并快速求交集基数
+ *
+ * 功能：
+ * - ID 取值范围 [0, 2^32)，按高16位分块，每块 65536 个ID
+ * - 块内元素不超过 4096 个时用有序 char[] 存储，超过后转为 1024 个 long 的位图
+ * - 交集基数只计数不生成结果集合，位图块之间按 long 做 AND + bitCount
+ * - and() 生成交集位图，forEach() 按升序遍历
+ * - 非线程安全，由调用方加锁
+ *
+ * 使用示例：
+ * IdBitmap a = new IdBitmap();
+ * a.add(10001L);
+ * long common = a.andCardinality(b);
+ */
+public class IdBitmap {
+
+    /** 单个 ID 的最大值（无符号32位） */
+    public static final long MAX_ID = 0xFFFFFFFFL;
+
+    /** 数组块最大元素数，超过后转为位图块 */
+    private static final int ARRAY_MAX_SIZE = 4096;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    /** 数组块长度差距超过该倍数时改用二分查找求交 */
+    private static final int GALLOP_RATIO = 64;
+
+    private int[] keys = new int[4];
+    private Object[] containers = new Object[4];
+    private int[] containerSizes = new int[4];
+    private int size;
+    private long cardinality;
+
+    /**
+     * 添加ID
+     *
+     * @return ID 原本不存在返回 true
+     */
+    public boolean add(long id) {
+        checkId(id);
+        int key = (int) (id >>> 16);
+        char low = (char) id;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new char[4]);
+        }
+
+        boolean added;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long mask = 1L << low;
+            added = (words[low >>> 6] & mask) == 0;
+            words[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) container;
+            int count = containerSizes[index];
+            int pos = Arrays.binarySearch(values, 0, count, low);
+            added = pos < 0;
+            if (added) {
+                pos = -pos - 1;
+                if (count == ARRAY_MAX_SIZE) {
+                    long[] words = toWords(values, count);
+                    words[low >>> 6] |= 1L << low;
+                    containers[index] = words;
+                } else {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, values.length * 2));
+                        containers[index] = values;
+                    }
+                    System.arraycopy(values, pos, values, pos + 1, count - pos);
+                    values[pos] = low;
+                }
+            }
+        }
+        if (added) {
+            containerSizes[index]++;
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * 移除ID
+     *
+     * @return ID 原本存在返回 true
+     */
+    public boolean remove(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (int) (id >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) {
+                return false;
+            }
+            words[low >>> 6] &= ~mask;
+            if (containerSizes[index] - 1 <= ARRAY_MAX_SIZE) {
+                containers[index] = toValues(words, containerSizes[index] - 1);
+            }
+        } else {
+            char[] values = (char[]) container;
+            int count = containerSizes[index];
+            int pos = Arrays.binarySearch(values, 0, count, low);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(values, pos + 1, values, pos, count - pos - 1);
+        }
+        cardinality--;
+        if (--containerSizes[index] == 0) {
+            removeContainer(index);
+        }
+        return true;
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (int) (id >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, containerSizes[index], low) >= 0;
+    }
+
+    public long getCardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * 交集基数 |this ∩ other|
+     */
+    public long andCardinality(IdBitmap other) {
+        long result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            int keyA = keys[i];
+            int keyB = other.keys[j];
+            if (keyA < keyB) {
+                i++;
+            } else if (keyA > keyB) {
+                j++;
+            } else {
+                result += andCardinality(containers[i], containerSizes[i],
+                    other.containers[j], other.containerSizes[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量交集基数：result[i] = |this ∩ others[i]|
+     *
+     * 本位图每个块只展开为位图一次，其他位图的数组块逐个元素按位探测，
+     * 避免逐对归并有序数组时的分支预测失败；对方块远大于本块时仍用二分查找
+     */
+    public long[] andCardinality(IdBitmap[] others) {
+        long[] result = new long[others.length];
+        int[] cursors = new int[others.length];
+        long[] words = new long[BITMAP_WORDS];
+        for (int c = 0; c < size; c++) {
+            int key = keys[c];
+            Object container = containers[c];
+            int count = containerSizes[c];
+            long[] dense;
+            if (container instanceof long[]) {
+                dense = (long[]) container;
+            } else {
+                Arrays.fill(words, 0L);
+                char[] values = (char[]) container;
+                for (int k = 0; k < count; k++) {
+                    words[values[k] >>> 6] |= 1L << values[k];
+                }
+                dense = words;
+            }
+
+            for (int o = 0; o < others.length; o++) {
+                IdBitmap other = others[o];
+                int index = cursors[o];
+                while (index < other.size && other.keys[index] < key) {
+                    index++;
+                }
+                cursors[o] = index;
+                if (index == other.size || other.keys[index] != key) {
+                    continue;
+                }
+                Object otherContainer = other.containers[index];
+                int otherCount = other.containerSizes[index];
+                if (otherContainer instanceof long[]) {
+                    long[] otherWords = (long[]) otherContainer;
+                    long sum = 0;
+                    for (int k = 0; k < BITMAP_WORDS; k++) {
+                        sum += Long.bitCount(dense[k] & otherWords[k]);
+                    }
+                    result[o] += sum;
+                } else if (!(container instanceof long[]) && (long) count * GALLOP_RATIO < otherCount) {
+                    result[o] += intersectArrays((char[]) container, count, (char[]) otherContainer, otherCount);
+                } else {
+                    result[o] += countInWords((char[]) otherContainer, otherCount, dense);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 交集 this ∩ other，返回新位图，两个输入都不修改
+     */
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            int keyA = keys[i];
+            int keyB = other.keys[j];
+            if (keyA < keyB) {
+                i++;
+            } else if (keyA > keyB) {
+                j++;
+            } else {
+                result.appendAnd(keyA, containers[i], containerSizes[i],
+                    other.containers[j], other.containerSizes[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按升序遍历所有ID
+     */
+    public void forEach(LongConsumer action) {
+        for (int c = 0; c < size; c++) {
+            long high = (long) keys[c] << 16;
+            Object container = containers[c];
+            if (container instanceof long[]) {
+                long[] words = (long[]) container;
+                for (int k = 0; k < BITMAP_WORDS; k++) {
+                    long word = words[k];
+                    while (word != 0) {
+                        action.accept(high | ((k << 6) + Long.numberOfTrailingZeros(word)));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) container;
+                for (int k = 0; k < containerSizes[c]; k++) {
+                    action.accept(high | values[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 估算占用内存（字节）
+     */
+    public long sizeInBytes() {
+        long bytes = 16L * keys.length;
+        for (int i = 0; i < size; i++) {
+            Object container = containers[i];
+            bytes += container instanceof long[] ? 8L * BITMAP_WORDS : 2L * ((char[]) container).length;
+        }
+        return bytes;
+    }
+
+    // ==================== 块操作 ====================
+
+    private static long andCardinality(Object a, int sizeA, Object b, int sizeB) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] wordsA = (long[]) a;
+            long[] wordsB = (long[]) b;
+            long count = 0;
+            for (int k = 0; k < BITMAP_WORDS; k++) {
+                count += Long.bitCount(wordsA[k] & wordsB[k]);
+            }
+            return count;
+        }
+        if (a instanceof long[]) {
+            return countInWords((char[]) b, sizeB, (long[]) a);
+        }
+        if (b instanceof long[]) {
+            return countInWords((char[]) a, sizeA, (long[]) b);
+        }
+        return sizeA <= sizeB
+            ? intersectArrays((char[]) a, sizeA, (char[]) b, sizeB)
+            : intersectArrays((char[]) b, sizeB, (char[]) a, sizeA);
+    }
+
+    /**
+     * 追加两个同 key 块的交集（key 递增调用），交集为空时不追加
+     */
+    private void appendAnd(int key, Object a, int sizeA, Object b, int sizeB) {
+        Object container;
+        int count;
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] wordsA = (long[]) a;
+            long[] wordsB = (long[]) b;
+            long[] words = new long[BITMAP_WORDS];
+            count = 0;
+            for (int k = 0; k < BITMAP_WORDS; k++) {
+                words[k] = wordsA[k] & wordsB[k];
+                count += Long.bitCount(words[k]);
+            }
+            container = count > ARRAY_MAX_SIZE ? words : toValues(words, count);
+        } else if (a instanceof long[] || b instanceof long[]) {
+            long[] words = (long[]) (a instanceof long[] ? a : b);
+            char[] values = (char[]) (a instanceof long[] ? b : a);
+            int valueCount = a instanceof long[] ? sizeB : sizeA;
+            char[] result = new char[valueCount];
+            count = 0;
+            for (int k = 0; k < valueCount; k++) {
+                char value = values[k];
+                if ((words[value >>> 6] & (1L << value)) != 0) {
+                    result[count++] = value;
+                }
+            }
+            container = result;
+        } else {
+            char[] valuesA = (char[]) a;
+            char[] valuesB = (char[]) b;
+            char[] result = new char[Math.min(sizeA, sizeB)];
+            count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < sizeA && j < sizeB) {
+                if (valuesA[i] < valuesB[j]) {
+                    i++;
+                } else if (valuesA[i] > valuesB[j]) {
+                    j++;
+                } else {
+                    result[count++] = valuesA[i];
+                    i++;
+                    j++;
+                }
+            }
+            container = result;
+        }
+        if (count == 0) {
+            return;
+        }
+        insertContainer(size, key, container);
+        containerSizes[size - 1] = count;
+        cardinality += count;
+    }
+
+    private static long countInWords(char[] values, int count, long[] words) {
+        long result = 0;
+        for (int k = 0; k < count; k++) {
+            char value = values[k];
+            result += (words[value >>> 6] >>> value) & 1L;
+        }
+        return result;
+    }
+
+    /**
+     * 有序数组求交集基数，small.length <= large.length
+     */
+    private static long intersectArrays(char[] small, int smallSize, char[] large, int largeSize) {
+        long result = 0;
+        if ((long) smallSize * GALLOP_RATIO < largeSize) {
+            int from = 0;
+            for (int k = 0; k < smallSize && from < largeSize; k++) {
+                int pos = Arrays.binarySearch(large, from, largeSize, small[k]);
+                if (pos >= 0) {
+                    result++;
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            return result;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < smallSize && j < largeSize) {
+            char a = small[i];
+            char b = large[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                result++;
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private static long[] toWords(char[] values, int count) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int k = 0; k < count; k++) {
+            char value = values[k];
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words, int count) {
+        char[] values = new char[count];
+        int n = 0;
+        for (int k = 0; k < BITMAP_WORDS; k++) {
+            long word = words[k];
+            while (word != 0) {
+                values[n++] = (char) ((k << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    private void insertContainer(int index, int key, Object container) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            containerSizes = Arrays.copyOf(containerSizes, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(containerSizes, index, containerSizes, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerSizes[index] = 0;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        System.arraycopy(containerSizes, index + 1, containerSizes, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static void checkId(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("ID 超出位图范围 [0, 2^32): " + id);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package common.util;
+
+import common.exception.ValidationException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * 游标分页（Keyset/Seek）游标
+ *
+ * 功能：
+ * - 游标由 (排序键, 主键ID) 组成，下一页从上一页最后一行之后继续：
+ *   WHERE (sort_col, id) < (:sortKey, :id) ORDER BY sort_col DESC, id DESC LIMIT :size
+ * - 对外编码为不透明字符串（URL 安全 Base64），客户端原样回传即可
+ * - 时间排序键按 UTC 纳秒编码，只用于往返还原，不代表真实时区
+ *
+ * 使用示例：
+ * KeysetCursor cursor = KeysetCursor.decode(request.getCursor());
+ * LocalDateTime beforeTime = cursor == null ? KeysetCursor.MAX_TIME : cursor.getSortTime();
+ * String next = KeysetCursor.of(last.getCreateTime(), last.getMessageId()).encode();
+ */
+public final class KeysetCursor {
+
+    private static final byte VERSION = 1;
+
+    private static final int ENCODED_BYTES = 1 + 8 + 8;
+
+    /** 首页查询使用的时间上界 */
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(2262, 1, 1, 0, 0);
+
+    private final long sortKey;
+    private final long id;
+
+    private KeysetCursor(long sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * 以时间为排序键
+     */
+    public static KeysetCursor of(LocalDateTime sortTime, Long id) {
+        long seconds = sortTime.toEpochSecond(ZoneOffset.UTC);
+        return new KeysetCursor(Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), sortTime.getNano()), id);
+    }
+
+    /**
+     * 以数值为排序键
+     */
+    public static KeysetCursor of(long sortKey, Long id) {
+        return new KeysetCursor(sortKey, id);
+    }
+
+    /**
+     * 只按主键排序
+     */
+    public static KeysetCursor ofId(Long id) {
+        return new KeysetCursor(id, id);
+    }
+
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    public LocalDateTime getSortTime() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(sortKey, 1_000_000_000L),
+            (int) Math.floorMod(sortKey, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 编码为不透明字符串
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        buffer.put(VERSION);
+        buffer.putLong(sortKey);
+        buffer.putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解码游标
+     *
+     * @return 空字符串或 null 表示首页，返回 null
+     * @throws ValidationException 游标格式不正确
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("分页游标不合法");
+        }
+        if (bytes.length != ENCODED_BYTES || bytes[0] != VERSION) {
+            throw new ValidationException("分页游标不合法");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, ENCODED_BYTES - 1);
+        return new KeysetCursor(buffer.getLong(), buffer.getLong());
+    }
+}
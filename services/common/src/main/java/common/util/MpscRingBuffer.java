@@ -0,0 +1,125 @@
+package common.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区（多生产者 / 单消费者）
+ *
+ * 功能：
+ * - 生产者通过 CAS 抢占槽位，入队不加锁、不阻塞
+ * - 队列满时 offer 立即返回 false，由调用方决定丢弃或降级
+ * - 只允许一个消费线程调用 poll / drainTo
+ *
+ * @param <E> 元素类型
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+
+    /** 下一个可写入的序号（生产者竞争） */
+    private final AtomicLong producerIndex = new AtomicLong(0);
+
+    /** 下一个可读取的序号（仅消费线程写入） */
+    private final AtomicLong consumerIndex = new AtomicLong(0);
+
+    /**
+     * 构造方法
+     *
+     * @param requestedCapacity 期望容量，会向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("容量必须在 1 到 2^30 之间");
+        }
+        int size = 1;
+        while (size < requestedCapacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 入队（多线程安全）
+     *
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("元素不能为空");
+        }
+        while (true) {
+            long producer = producerIndex.get();
+            if (producer - consumerIndex.get() >= capacity) {
+                return false;
+            }
+            if (producerIndex.compareAndSet(producer, producer + 1)) {
+                slots.lazySet((int) (producer & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 出队（仅限单个消费线程）
+     *
+     * @return 队列为空时返回 null
+     */
+    public E poll() {
+        long consumer = consumerIndex.get();
+        int offset = (int) (consumer & mask);
+        E element = slots.get(offset);
+        if (element == null) {
+            if (consumer == producerIndex.get()) {
+                return null;
+            }
+            // 生产者已抢占槽位但尚未写入，短暂自旋等待
+            do {
+                Thread.onSpinWait();
+                element = slots.get(offset);
+            } while (element == null);
+        }
+        slots.lazySet(offset, null);
+        consumerIndex.lazySet(consumer + 1);
+        return element;
+    }
+
+    /**
+     * 批量出队（仅限单个消费线程）
+     *
+     * @return 实际取出的元素个数
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 当前元素个数（近似值）
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,472 @@
+package common.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * N-gram 倒排索引，用于昵称等短文本的子串搜索
+ *
+ * 功能：
+ * - 每个字段按码点切分为单字、相邻双字和"字段首字"三类 gram，每个 gram 一个 IdBitmap 倒排表
+ * - 子串查询：查询词的全部双字 gram（单字查询用单字 gram）倒排表求交得到候选，再回原文校验
+ * - 前缀匹配：候选与首字 gram 求交，优先校验，不受候选上限截断
+ * - 模糊匹配：精确结果不足时，按双字 gram 重合度（Dice 系数）召回有错别字的结果
+ * - 相关度：完全匹配 > 前缀 > 子串（越靠前、长度越接近越高）> 模糊
+ * - 文本在建索引前统一做 NFKC 归一化、转小写、去空白
+ * - 非线程安全，由调用方加锁
+ *
+ * 使用示例：
+ * NgramIndex index = new NgramIndex();
+ * index.put(10001L, "小甜甜", "user_10001");
+ * List<NgramIndex.Hit> hits = index.search("甜甜", 20, true);
+ */
+public class NgramIndex {
+
+    /** 码点占 21 位，gram 编码为 (前一个码点 << 21) | 后一个码点 */
+    private static final int CODE_POINT_BITS = 21;
+
+    /** 单字 gram 的第二个码点占位 */
+    private static final long UNIGRAM_MARK = 0x1FFFFFL;
+
+    /** 字段首字 gram 的第一个码点占位 */
+    private static final long START_MARK = 0x1FFFFEL;
+
+    /** 多个字段拼接存储时的分隔符（归一化后的字段不含空白） */
+    private static final char FIELD_SEPARATOR = '\n';
+
+    private static final int SCORE_EXACT = 3000;
+    private static final int SCORE_PREFIX = 2000;
+    private static final int SCORE_CONTAINS = 1000;
+
+    /** 模糊匹配的最低 Dice 系数 */
+    private static final double FUZZY_MIN_SIMILARITY = 0.5;
+
+    private final Map<Long, IdBitmap> postings = new HashMap<>();
+    private final Map<Long, String> docs = new HashMap<>();
+
+    /** 单次查询最多校验的候选数，防止单字查询命中过多时耗时失控 */
+    private final int maxCandidates;
+
+    public NgramIndex() {
+        this(20000);
+    }
+
+    public NgramIndex(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * 新增或替换文档，空字段忽略
+     */
+    public void put(long id, String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            String normalized = normalize(field);
+            if (!normalized.isEmpty()) {
+                if (text.length() > 0) {
+                    text.append(FIELD_SEPARATOR);
+                }
+                text.append(normalized);
+            }
+        }
+        String current = docs.get(id);
+        String updated = text.toString();
+        if (updated.equals(current)) {
+            return;
+        }
+        if (current != null) {
+            remove(id);
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+        docs.put(id, updated);
+        for (long gram : grams(updated)) {
+            postings.computeIfAbsent(gram, g -> new IdBitmap()).add(id);
+        }
+    }
+
+    /**
+     * 移除文档
+     *
+     * @return 文档原本存在返回 true
+     */
+    public boolean remove(long id) {
+        String text = docs.remove(id);
+        if (text == null) {
+            return false;
+        }
+        for (long gram : grams(text)) {
+            IdBitmap posting = postings.get(gram);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return docs.containsKey(id);
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    /**
+     * 估算倒排表占用内存（字节，不含原文）
+     */
+    public long postingBytes() {
+        return postings.values().stream().mapToLong(IdBitmap::sizeInBytes).sum();
+    }
+
+    /**
+     * 搜索
+     *
+     * @param fuzzy 精确结果不足 limit 条时是否用模糊匹配补足
+     * @return 按相关度降序、ID 升序排列的结果
+     */
+    public List<Hit> search(String query, int limit, boolean fuzzy) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int[] qcp = q.codePoints().toArray();
+
+        TopHits top = new TopHits(limit);
+        IdBitmap candidates = candidates(qcp);
+        if (candidates != null) {
+            // 前缀候选先校验，保证完全匹配和前缀匹配不会被候选上限截掉
+            IdBitmap prefix = postings.get(startGram(qcp[0]));
+            Set<Long> checked = new HashSet<>();
+            int[] budget = {maxCandidates};
+            if (prefix != null) {
+                candidates.and(prefix).forEach(id -> {
+                    if (budget[0]-- > 0) {
+                        checked.add(id);
+                        top.offer(id, exactScore(docs.get(id), q));
+                    }
+                });
+            }
+            candidates.forEach(id -> {
+                if (budget[0] > 0 && !checked.contains(id)) {
+                    budget[0]--;
+                    top.offer(id, exactScore(docs.get(id), q));
+                }
+            });
+        }
+
+        if (fuzzy && top.size() < limit && qcp.length >= 3) {
+            fuzzyMatch(qcp, top);
+        }
+        return top.sorted();
+    }
+
+    /**
+     * 按倒排表从小到大求交，任一 gram 不存在时返回 null
+     */
+    private IdBitmap candidates(int[] qcp) {
+        long[] grams = queryGrams(qcp);
+        IdBitmap[] lists = new IdBitmap[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return null;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingLong(IdBitmap::getCardinality));
+        IdBitmap result = lists[0];
+        for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+            result = result.and(lists[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 模糊匹配：相似度不低于阈值的文档至少包含查询的 need 个双字 gram，
+     * 因此只需从最稀有的 (总数 - need + 1) 个 gram 的倒排表中召回候选
+     */
+    private void fuzzyMatch(int[] qcp, TopHits top) {
+        long[] grams = distinct(bigrams(qcp, 0, qcp.length));
+        int need = Math.max(1, (int) Math.ceil(FUZZY_MIN_SIMILARITY * grams.length));
+        List<IdBitmap> lists = new ArrayList<>();
+        for (long gram : grams) {
+            IdBitmap posting = postings.get(gram);
+            if (posting != null) {
+                lists.add(posting);
+            }
+        }
+        if (lists.size() < need) {
+            return;
+        }
+        lists.sort(Comparator.comparingLong(IdBitmap::getCardinality));
+        int probe = lists.size() - need + 1;
+        long total = 0;
+        for (int i = 0; i < probe; i++) {
+            total += lists.get(i).getCardinality();
+        }
+        if (total > maxCandidates) {
+            return;
+        }
+
+        Set<Long> gramSet = new HashSet<>();
+        for (long gram : grams) {
+            gramSet.add(gram);
+        }
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < probe; i++) {
+            lists.get(i).forEach(id -> {
+                if (!top.contains(id) && seen.add(id)) {
+                    int score = fuzzyScore(docs.get(id), gramSet);
+                    if (score > 0) {
+                        top.offer(id, score);
+                    }
+                }
+            });
+        }
+    }
+
+    // ==================== 打分 ====================
+
+    /**
+     * 子串匹配得分，取各字段最高分；不包含查询词返回 0（双字 gram 全命中但不相邻）
+     */
+    private static int exactScore(String text, String q) {
+        int best = 0;
+        int from = 0;
+        while (from <= text.length()) {
+            int end = text.indexOf(FIELD_SEPARATOR, from);
+            if (end < 0) {
+                end = text.length();
+            }
+            int fieldLength = end - from;
+            int pos = text.indexOf(q, from);
+            if (pos >= 0 && pos + q.length() <= end) {
+                int lengthGap = Math.min(99, fieldLength - q.length());
+                int score;
+                if (pos == from && fieldLength == q.length()) {
+                    score = SCORE_EXACT;
+                } else if (pos == from) {
+                    score = SCORE_PREFIX + 99 - lengthGap;
+                } else {
+                    score = SCORE_CONTAINS + 99 - Math.min(99, (pos - from) + lengthGap);
+                }
+                best = Math.max(best, score);
+            }
+            from = end + 1;
+        }
+        return best;
+    }
+
+    /**
+     * 模糊匹配得分：各字段双字 gram 与查询的 Dice 系数最大值 × 1000，低于阈值返回 0
+     */
+    private static int fuzzyScore(String text, Set<Long> queryGrams) {
+        double best = 0;
+        int from = 0;
+        while (from <= text.length()) {
+            int end = text.indexOf(FIELD_SEPARATOR, from);
+            if (end < 0) {
+                end = text.length();
+            }
+            int[] cps = text.substring(from, end).codePoints().toArray();
+            long[] fieldGrams = distinct(bigrams(cps, 0, cps.length));
+            int common = 0;
+            for (long gram : fieldGrams) {
+                if (queryGrams.contains(gram)) {
+                    common++;
+                }
+            }
+            if (fieldGrams.length > 0) {
+                best = Math.max(best, 2.0 * common / (fieldGrams.length + queryGrams.size()));
+            }
+            from = end + 1;
+        }
+        return best < FUZZY_MIN_SIMILARITY ? 0 : (int) Math.round(best * 999);
+    }
+
+    // ==================== gram 切分 ====================
+
+    /**
+     * 归一化：NFKC（全角转半角）、转小写、去掉所有空白
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        if (isPlainAscii(text)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        normalized.codePoints()
+            .filter(cp -> !Character.isWhitespace(cp) && !Character.isSpaceChar(cp))
+            .forEach(sb::appendCodePoint);
+        return sb.toString();
+    }
+
+    /**
+     * 不含空白的 ASCII 可见字符串，NFKC 归一化后不变，只需转小写
+     */
+    private static boolean isPlainAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c >= 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文档的全部 gram（去重）：每个字段的单字、双字和首字
+     */
+    private static long[] grams(String text) {
+        int[] cps = text.codePoints().toArray();
+        long[] grams = new long[cps.length * 2 + 1];
+        int n = 0;
+        int fieldStart = 0;
+        for (int i = 0; i <= cps.length; i++) {
+            if (i == cps.length || cps[i] == FIELD_SEPARATOR) {
+                if (i > fieldStart) {
+                    grams[n++] = startGram(cps[fieldStart]);
+                }
+                for (int k = fieldStart; k < i; k++) {
+                    grams[n++] = unigram(cps[k]);
+                }
+                for (long gram : bigrams(cps, fieldStart, i)) {
+                    grams[n++] = gram;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        return distinct(Arrays.copyOf(grams, n));
+    }
+
+    /**
+     * 查询用的 gram：单字查询用单字 gram，否则用全部双字 gram
+     */
+    private static long[] queryGrams(int[] qcp) {
+        if (qcp.length == 1) {
+            return new long[] {unigram(qcp[0])};
+        }
+        return distinct(bigrams(qcp, 0, qcp.length));
+    }
+
+    private static long[] bigrams(int[] cps, int from, int to) {
+        if (to - from < 2) {
+            return new long[0];
+        }
+        long[] grams = new long[to - from - 1];
+        for (int k = from; k < to - 1; k++) {
+            grams[k - from] = ((long) cps[k] << CODE_POINT_BITS) | cps[k + 1];
+        }
+        return grams;
+    }
+
+    private static long unigram(int cp) {
+        return ((long) cp << CODE_POINT_BITS) | UNIGRAM_MARK;
+    }
+
+    private static long startGram(int cp) {
+        return (START_MARK << CODE_POINT_BITS) | cp;
+    }
+
+    private static long[] distinct(long[] values) {
+        if (values.length < 2) {
+            return values;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+
+    // ==================== 结果 ====================
+
+    /**
+     * 搜索结果
+     */
+    public static final class Hit {
+        private final long id;
+        private final int score;
+
+        Hit(long id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /** 相关度：3000 完全匹配，2000~2099 前缀，1000~1099 子串，0~999 模糊 */
+        public int getScore() {
+            return score;
+        }
+    }
+
+    private static final Comparator<Hit> RANKING =
+        Comparator.comparingInt(Hit::getScore).reversed().thenComparingLong(Hit::getId);
+
+    /**
+     * 容量为 limit 的小顶堆，堆顶是当前最差的结果
+     */
+    private static final class TopHits {
+        private final int limit;
+        private final PriorityQueue<Hit> heap;
+        private final Set<Long> ids = new HashSet<>();
+
+        TopHits(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(RANKING.reversed());
+        }
+
+        void offer(long id, int score) {
+            if (score <= 0) {
+                return;
+            }
+            Hit hit = new Hit(id, score);
+            if (heap.size() < limit) {
+                heap.add(hit);
+                ids.add(id);
+            } else if (RANKING.compare(hit, heap.peek()) < 0) {
+                ids.remove(heap.poll().getId());
+                heap.add(hit);
+                ids.add(id);
+            }
+        }
+
+        boolean contains(long id) {
+            return ids.contains(id);
+        }
+
+        int size() {
+            return heap.size();
+        }
+
+        List<Hit> sorted() {
+            List<Hit> result = new ArrayList<>(heap);
+            result.sort(RANKING);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package common.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 可合并的分位数草图（KLL sketch）
+ *
+ * 功能：
+ * - 流式写入，内存与数据量无关（约 3k 个 double）
+ * - 多个草图可合并（按主播、按天存储，查询任意区间时合并）
+ * - 秩误差随 k 增大而减小：k=200 时归一化秩误差约 1.3%，k=400 约 0.7%
+ * - 非线程安全，由调用方保证单线程写入
+ *
+ * 使用示例：
+ * QuantileSketch sketch = new QuantileSketch(200);
+ * amounts.forEach(sketch::update);
+ * double[] p = sketch.quantiles(0.5, 0.9, 0.99);
+ * byte[] bytes = sketch.toBytes();
+ * sketch.merge(QuantileSketch.fromBytes(other));
+ */
+public class QuantileSketch {
+
+    /** 默认精度参数 */
+    public static final int DEFAULT_K = 200;
+
+    private static final byte SERIAL_VERSION = 1;
+
+    /** 各层容量按该比例递减 */
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    /** 单层最小容量 */
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+
+    /** levels[h] 中每个元素代表 2^h 个原始值 */
+    private double[][] levels = new double[0][];
+    private int[] levelSizes = new int[0];
+    private int[] levelCapacities = new int[0];
+    private int levelCount;
+
+    /** 各层元素总数 / 各层容量之和 */
+    private int retained;
+    private int capacity;
+
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY || k > 65535) {
+            throw new IllegalArgumentException("k 取值范围 [8, 65535]: " + k);
+        }
+        this.k = k;
+        addLevel();
+    }
+
+    /**
+     * 写入一个值
+     */
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        append(0, value);
+        compress();
+    }
+
+    /**
+     * 合并另一个草图（other 不变）
+     */
+    public void merge(QuantileSketch other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        for (int h = 0; h < other.levelCount; h++) {
+            while (levelCount <= h) {
+                addLevel();
+            }
+            double[] items = other.levels[h];
+            int size = other.levelSizes[h];
+            for (int i = 0; i < size; i++) {
+                append(h, items[i]);
+            }
+        }
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * 查询单个分位数
+     *
+     * @param q 0~1
+     * @return 空草图返回 NaN
+     */
+    public double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    /**
+     * 批量查询分位数（只排序一次）
+     *
+     * @param qs 每个取值 0~1
+     * @return 与 qs 一一对应；空草图返回 NaN
+     */
+    public double[] quantiles(double... qs) {
+        double[] result = new double[qs.length];
+        if (count == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levelCount; h++) {
+            double[] items = levels[h];
+            int size = levelSizes[h];
+            for (int i = 0; i < size; i++) {
+                values[n] = items[i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+        sortByValue(values, weights);
+
+        long[] cumulative = new long[retained];
+        long total = 0;
+        for (int i = 0; i < retained; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+
+        for (int i = 0; i < qs.length; i++) {
+            double q = qs[i];
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("分位数取值范围 [0, 1]: " + q);
+            }
+            if (q == 0) {
+                result[i] = min;
+            } else if (q == 1) {
+                result[i] = max;
+            } else {
+                long rank = (long) Math.ceil(q * total);
+                int idx = Arrays.binarySearch(cumulative, rank);
+                if (idx < 0) {
+                    idx = -idx - 1;
+                }
+                result[i] = values[Math.min(idx, retained - 1)];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 序列化：version(1) k(2) count(8) min(8) max(8) levels(1) [size(4) values(8*size)]...
+     */
+    public byte[] toBytes() {
+        int bytes = 1 + 2 + 8 + 8 + 8 + 1 + levelCount * 4 + retained * 8;
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        buffer.put(SERIAL_VERSION);
+        buffer.putShort((short) k);
+        buffer.putLong(count);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.put((byte) levelCount);
+        for (int h = 0; h < levelCount; h++) {
+            int size = levelSizes[h];
+            buffer.putInt(size);
+            double[] items = levels[h];
+            for (int i = 0; i < size; i++) {
+                buffer.putDouble(items[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 反序列化
+     *
+     * @throws IllegalArgumentException 数据格式不正确
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != SERIAL_VERSION) {
+                throw new IllegalArgumentException("不支持的草图版本: " + version);
+            }
+            QuantileSketch sketch = new QuantileSketch(buffer.getShort() & 0xFFFF);
+            sketch.count = buffer.getLong();
+            sketch.min = buffer.getDouble();
+            sketch.max = buffer.getDouble();
+            int serializedLevels = buffer.get() & 0xFF;
+            for (int h = 0; h < serializedLevels; h++) {
+                while (sketch.levelCount <= h) {
+                    sketch.addLevel();
+                }
+                int size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining() / 8) {
+                    throw new IllegalArgumentException("草图层大小越界: " + size);
+                }
+                for (int i = 0; i < size; i++) {
+                    sketch.append(h, buffer.getDouble());
+                }
+            }
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("草图数据不完整", e);
+        }
+    }
+
+    // ==================== 压缩 ====================
+
+    private void compress() {
+        while (retained > capacity) {
+            for (int h = 0; h < levelCount; h++) {
+                if (levelSizes[h] >= levelCapacities[h]) {
+                    compactLevel(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 压缩第 h 层：排序后随机保留奇数位或偶数位元素，晋升到 h+1 层（权重翻倍）
+     * 元素个数为奇数时第一个元素留在本层
+     */
+    private void compactLevel(int h) {
+        if (h == levelCount - 1) {
+            addLevel();
+        }
+        double[] items = levels[h];
+        int size = levelSizes[h];
+        Arrays.sort(items, 0, size);
+
+        int keep = size % 2;
+        int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+        for (int i = keep + offset; i < size; i += 2) {
+            append(h + 1, items[i]);
+        }
+        retained -= size - keep;
+        levelSizes[h] = keep;
+    }
+
+    /**
+     * 新增最高层，并按新的层数重算各层容量（越高层容量越大）
+     */
+    private void addLevel() {
+        levelCount++;
+        levels = Arrays.copyOf(levels, levelCount);
+        levelSizes = Arrays.copyOf(levelSizes, levelCount);
+        levelCapacities = Arrays.copyOf(levelCapacities, levelCount);
+        levels[levelCount - 1] = new double[MIN_LEVEL_CAPACITY];
+
+        capacity = 0;
+        for (int h = 0; h < levelCount; h++) {
+            int depth = levelCount - 1 - h;
+            levelCapacities[h] = Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+            capacity += levelCapacities[h];
+        }
+    }
+
+    private void append(int h, double value) {
+        double[] items = levels[h];
+        int size = levelSizes[h];
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels[h] = items;
+        }
+        items[size] = value;
+        levelSizes[h] = size + 1;
+        retained++;
+    }
+
+    /**
+     * 按值排序，权重同步移动
+     */
+    private static void sortByValue(double[] values, long[] weights) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] sortedValues = new double[values.length];
+        long[] sortedWeights = new long[weights.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedValues[i] = values[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, values.length);
+        System.arraycopy(sortedWeights, 0, weights, 0, weights.length);
+    }
+}
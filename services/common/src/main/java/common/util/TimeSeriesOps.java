@@ -0,0 +1,226 @@
+package common.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 时间序列算子工具类
+ *
+ * 功能：
+ * - 稠密分桶：按天/小时把时间映射为连续下标，无数据的桶为 0（缺口补齐）
+ * - 移动平均：滑动窗口累加和，O(n)
+ * - 指数移动平均：单次遍历
+ * - 环比增长率
+ *
+ * 所有金额以分（long）表示，避免逐点 BigDecimal 运算；
+ * 舍入规则与原 BigDecimal 实现一致（保留到分，HALF_UP）
+ *
+ * 使用示例：
+ * TimeSeriesOps.Series series = TimeSeriesOps.newSeries(start, end, ChronoUnit.HOURS);
+ * series.add(recharge.getRechargeTime(), MoneyUtil.dollarsToCents(recharge.getRechargeAmount()));
+ * long[] ma24 = TimeSeriesOps.movingAverage(series.getCents(), 24);
+ */
+public final class TimeSeriesOps {
+
+    /** 单个序列最大桶数（按小时约 11 年） */
+    public static final int MAX_BUCKETS = 100_000;
+
+    private static final String[] HOUR_SUFFIXES = new String[24];
+
+    static {
+        for (int hour = 0; hour < 24; hour++) {
+            HOUR_SUFFIXES[hour] = String.format("%02d:00", hour);
+        }
+    }
+
+    private TimeSeriesOps() {
+    }
+
+    /**
+     * 创建 [startTime, endTime] 范围内的稠密序列
+     *
+     * @param unit 只支持 DAYS、HOURS
+     */
+    public static Series newSeries(LocalDateTime startTime, LocalDateTime endTime, ChronoUnit unit) {
+        if (unit != ChronoUnit.DAYS && unit != ChronoUnit.HOURS) {
+            throw new IllegalArgumentException("不支持的时间粒度: " + unit);
+        }
+        LocalDateTime origin = startTime.truncatedTo(unit);
+        long buckets = unit.between(origin, endTime.truncatedTo(unit)) + 1;
+        if (buckets <= 0 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("时间范围超出限制: " + startTime + " - " + endTime);
+        }
+        return new Series(origin, unit, (int) buckets);
+    }
+
+    /**
+     * 移动平均（窗口内累加和 / 窗口长度），前 window-1 个点按实际点数平均
+     *
+     * @return 每个点的移动平均（分）
+     */
+    public static long[] movingAverage(long[] cents, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("窗口长度必须大于0: " + window);
+        }
+        long[] result = new long[cents.length];
+        long sum = 0;
+        for (int i = 0; i < cents.length; i++) {
+            sum += cents[i];
+            if (i >= window) {
+                sum -= cents[i - window];
+            }
+            result[i] = divideHalfUp(sum, Math.min(i + 1, window));
+        }
+        return result;
+    }
+
+    /**
+     * 指数移动平均，alpha = 2 / (period + 1)
+     * 首个点取前 period 个点的简单平均，之后逐点递推，每步保留到分
+     *
+     * @return 每个点的指数移动平均（分）
+     */
+    public static long[] ema(long[] cents, int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("周期必须大于0: " + period);
+        }
+        long[] result = new long[cents.length];
+        if (cents.length == 0) {
+            return result;
+        }
+        int seedCount = Math.min(period, cents.length);
+        long seedSum = 0;
+        for (int i = 0; i < seedCount; i++) {
+            seedSum += cents[i];
+        }
+        double alpha = 2.0 / (period + 1);
+        long ema = divideHalfUp(seedSum, seedCount);
+        result[0] = ema;
+        for (int i = 1; i < cents.length; i++) {
+            ema = roundHalfUp(cents[i] * alpha + ema * (1 - alpha));
+            result[i] = ema;
+        }
+        return result;
+    }
+
+    /**
+     * 环比增长率，单位 0.01%（1234 表示 12.34%）
+     * 首个点和上一点为 0 的点增长率为 0
+     */
+    public static long[] growthRate(long[] cents) {
+        long[] result = new long[cents.length];
+        for (int i = 1; i < cents.length; i++) {
+            long prev = cents[i - 1];
+            if (prev != 0) {
+                result[i] = divideHalfUp((cents[i] - prev) * 10_000L, prev);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 整数除法，HALF_UP 舍入（远离 0）
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        if (divisor < 0) {
+            dividend = -dividend;
+            divisor = -divisor;
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    private static long roundHalfUp(double value) {
+        return value < 0 ? -Math.round(-value) : Math.round(value);
+    }
+
+    /**
+     * 稠密时间序列：下标 i 对应 origin + i 个时间单位
+     */
+    public static final class Series {
+        private final LocalDateTime origin;
+        private final ChronoUnit unit;
+        private final long[] cents;
+        private final int[] counts;
+
+        private Series(LocalDateTime origin, ChronoUnit unit, int buckets) {
+            this.origin = origin;
+            this.unit = unit;
+            this.cents = new long[buckets];
+            this.counts = new int[buckets];
+        }
+
+        /**
+         * 累加一笔金额，超出范围的时间忽略
+         */
+        public void add(LocalDateTime time, long amountCents) {
+            int index = indexOf(time);
+            if (index >= 0 && index < cents.length) {
+                cents[index] += amountCents;
+                counts[index]++;
+            }
+        }
+
+        /**
+         * 时间所在桶的下标
+         */
+        public int indexOf(LocalDateTime time) {
+            return (int) unit.between(origin, time.truncatedTo(unit));
+        }
+
+        /**
+         * 各桶标签：按天 yyyy-MM-dd，按小时 yyyy-MM-dd HH:00
+         */
+        public List<String> labels() {
+            List<String> labels = new ArrayList<>(cents.length);
+            LocalDate date = origin.toLocalDate();
+            if (unit == ChronoUnit.DAYS) {
+                for (int i = 0; i < cents.length; i++) {
+                    labels.add(date.plusDays(i).toString());
+                }
+                return labels;
+            }
+            // 同一天的日期前缀只格式化一次
+            int hour = origin.getHour();
+            String day = date + " ";
+            for (int i = 0; i < cents.length; i++) {
+                labels.add(day + HOUR_SUFFIXES[hour]);
+                if (++hour == 24) {
+                    hour = 0;
+                    date = date.plusDays(1);
+                    day = date + " ";
+                }
+            }
+            return labels;
+        }
+
+        public LocalDateTime getOrigin() {
+            return origin;
+        }
+
+        public ChronoUnit getUnit() {
+            return unit;
+        }
+
+        public int size() {
+            return cents.length;
+        }
+
+        /** 各桶金额（分），直接返回内部数组 */
+        public long[] getCents() {
+            return cents;
+        }
+
+        /** 各桶笔数，直接返回内部数组 */
+        public int[] getCounts() {
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package common.bean;
+
+import common.bean.user.User;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 号段表主键和 Hibernate 批量插入测试
+ *
+ * 1. 静态检查：五个实体都使用 id_sequence 号段表，allocationSize 与 V20261021 迁移的初始化参数一致
+ * 2. H2 内存库（MySQL 模式）中按服务配置（batch_size 50、order_inserts）插入 ROWS 条 RechargeRecord，
+ *    用 JDBC 代理统计往返次数：INSERT 按批发送，号段表每 allocationSize 个ID只访问一次，
+ *    第一个号段落在迁移公式种下的已有最大ID之后；对照的 IDENTITY 实体每条 INSERT 单独执行
+ */
+class PooledIdBatchInsertTest {
+
+    private static final String MIGRATION = "../db-service/src/main/resources/db/migration/V20261021__id_sequence_table.sql";
+
+    private static final int BATCH_SIZE = 50;
+    private static final int ROWS = 1000;
+    private static final long EXISTING_MAX_ID = 5000;
+
+    private static final Pattern SEED_CALL = Pattern.compile(
+        "CALL id_sequence_seed\\('[^']+', '(\\w+)', '\\w+', '(\\w+)', (\\d+)\\)");
+
+    /** 实体 -> 号段名 */
+    private static final Map<Class<?>, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put(User.class, "user");
+        SEQUENCES.put(Tag.class, "tag");
+        SEQUENCES.put(RechargeRecord.class, "recharge_record");
+        SEQUENCES.put(SettlementDetail.class, "settlement_detail");
+        SEQUENCES.put(Withdrawal.class, "withdrawal");
+    }
+
+    /** SQL -> 执行次数（executeUpdate / executeQuery / execute 记一次，executeBatch 记一次） */
+    private final Map<String, AtomicInteger> executions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> batches = new ConcurrentHashMap<>();
+    private SessionFactory sessionFactory;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:pooled_id_" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource = countingDataSource(h2);
+
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.DATASOURCE, dataSource)
+            .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy())
+            .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, BATCH_SIZE)
+            .applySetting(AvailableSettings.ORDER_INSERTS, true)
+            .applySetting(AvailableSettings.ORDER_UPDATES, true)
+            .applySetting(AvailableSettings.BATCH_VERSIONED_DATA, true)
+            .build();
+        sessionFactory = new MetadataSources(registry)
+            .addAnnotatedClass(RechargeRecord.class)
+            .addAnnotatedClass(IdentityRow.class)
+            .buildMetadata()
+            .buildSessionFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    void entitiesUseIdSequenceWithMigrationAllocationSize() throws IOException {
+        String migration = new String(Files.readAllBytes(Paths.get(MIGRATION)), StandardCharsets.UTF_8);
+        Map<String, Integer> seeded = new LinkedHashMap<>();
+        Matcher call = SEED_CALL.matcher(migration);
+        while (call.find()) {
+            seeded.put(call.group(2), Integer.parseInt(call.group(3)));
+        }
+        assertEquals(new HashSet<>(SEQUENCES.values()), seeded.keySet(), "迁移应为每个实体种下号段");
+
+        for (Map.Entry<Class<?>, String> entry : SEQUENCES.entrySet()) {
+            Field id = idField(entry.getKey());
+            GeneratedValue generated = id.getAnnotation(GeneratedValue.class);
+            TableGenerator generator = id.getAnnotation(TableGenerator.class);
+            String entity = entry.getKey().getSimpleName();
+            assertNotNull(generated, entity + " 缺少 @GeneratedValue");
+            assertNotNull(generator, entity + " 缺少 @TableGenerator");
+            assertEquals(GenerationType.TABLE, generated.strategy(), entity + " 不应使用 IDENTITY，否则无法批量插入");
+            assertEquals(generator.name(), generated.generator());
+            assertEquals("id_sequence", generator.table());
+            assertEquals("seq_name", generator.pkColumnName());
+            assertEquals("next_val", generator.valueColumnName());
+            assertEquals(entry.getValue(), generator.pkColumnValue());
+            assertEquals(seeded.get(entry.getValue()).intValue(), generator.allocationSize(),
+                entity + " 的 allocationSize 与迁移初始化参数不一致，号段可能与已有ID重叠");
+        }
+    }
+
+    @Test
+    void pooledIdsAreInsertedInBatchesAfterExistingRows() throws Exception {
+        int allocationSize = idField(RechargeRecord.class).getAnnotation(TableGenerator.class).allocationSize();
+        seedExistingRecord(allocationSize);
+        executions.clear();
+        batches.clear();
+
+        List<Long> ids = new ArrayList<>();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS; i++) {
+                RechargeRecord record = newRecord(i);
+                session.persist(record);
+                ids.add(record.getRecordId());
+            }
+            session.getTransaction().commit();
+        }
+
+        assertEquals(ROWS, new HashSet<>(ids).size(), "号段分配的ID不应重复");
+        assertTrue(ids.stream().allMatch(id -> id > EXISTING_MAX_ID), "第一个号段应落在已有数据之后");
+        assertEquals(ROWS / BATCH_SIZE, count(batches, "insert into recharge_record"),
+            "INSERT 应按 batch_size 合并发送");
+        assertEquals(0, count(executions, "insert into recharge_record"), "不应逐条执行 INSERT");
+        assertTrue(count(executions, "id_sequence") <= 2 * ((ROWS + allocationSize - 1) / allocationSize),
+            "号段表每 allocationSize 个ID只应读写一次");
+        assertEquals(ROWS, countRows("recharge_record") - 1);
+    }
+
+    @Test
+    void identityKeysDisableBatching() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(new IdentityRow(null, "row-" + i));
+            }
+            session.getTransaction().commit();
+        }
+
+        assertEquals(0, count(batches, "insert into identity_row"));
+        assertEquals(ROWS, count(executions, "insert into identity_row"), "IDENTITY 每条 INSERT 单独执行");
+    }
+
+    /**
+     * 按迁移公式种下号段：已有一条 ID 为 EXISTING_MAX_ID 的记录，next_val = MAX(id) + allocationSize + 1
+     */
+    private void seedExistingRecord(int allocationSize) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO recharge_record (record_id, original_recharge_id, trace_id, anchor_id, "
+                + "audience_id, recharge_amount, recharge_time, recharge_type, settlement_status, received_time, "
+                + "create_time, update_time) VALUES (" + EXISTING_MAX_ID + ", 1, 'existing', 1, 1, 1.00, "
+                + "CURRENT_TIMESTAMP, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+            statement.executeUpdate("DELETE FROM id_sequence WHERE seq_name = 'recharge_record'");
+            statement.executeUpdate("INSERT INTO id_sequence (seq_name, next_val) SELECT 'recharge_record', "
+                + "COALESCE(MAX(record_id), 0) + " + (allocationSize + 1) + " FROM recharge_record");
+        }
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static RechargeRecord newRecord(int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return RechargeRecord.builder()
+            .originalRechargeId((long) i + 1)
+            .traceId("trace-" + i)
+            .anchorId(1L + i % 10)
+            .audienceId(100L + i)
+            .rechargeAmount(BigDecimal.valueOf(10))
+            .rechargeTime(now.plusNanos(i * 1000L))
+            .build();
+    }
+
+    private static Field idField(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Id.class)) {
+                return field;
+            }
+        }
+        throw new AssertionError(type.getSimpleName() + " 没有 @Id 字段");
+    }
+
+    private static int count(Map<String, AtomicInteger> counters, String sqlPrefix) {
+        return counters.entrySet().stream()
+            .filter(e -> e.getKey().toLowerCase().contains(sqlPrefix))
+            .mapToInt(e -> e.getValue().get())
+            .sum();
+    }
+
+    /**
+     * 统计每条 SQL 的执行次数和批量发送次数的数据源代理
+     */
+    private DataSource countingDataSource(DataSource target) {
+        return proxy(DataSource.class, target, (method, args, result) -> {
+            if (result instanceof Connection) {
+                return countingConnection((Connection) result);
+            }
+            return result;
+        });
+    }
+
+    private Connection countingConnection(Connection target) {
+        return proxy(Connection.class, target, (method, args, result) -> {
+            if (result instanceof PreparedStatement && method.equals("prepareStatement")) {
+                String sql = (String) args[0];
+                return proxy(PreparedStatement.class, (PreparedStatement) result, (statementMethod, a, r) -> {
+                    if (statementMethod.equals("executeBatch")) {
+                        batches.computeIfAbsent(sql, k -> new AtomicInteger()).incrementAndGet();
+                    } else if (statementMethod.startsWith("execute")) {
+                        executions.computeIfAbsent(sql, k -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return r;
+                });
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, ResultDecorator decorator) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return decorator.decorate(method.getName(), args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private interface ResultDecorator {
+        Object decorate(String method, Object[] args, Object result);
+    }
+
+    /**
+     * 对照：自增主键实体
+     */
+    @Entity
+    @Table(name = "identity_row")
+    public static class IdentityRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private String name;
+
+        public IdentityRow() {
+        }
+
+        IdentityRow(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package common.bulkhead;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.annotation.Bulkhead;
+import common.constant.ErrorConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 舱壁准入测试
+ *
+ * 1. BulkheadPartition：并发上限、排队上限立即拒绝、等待超时
+ * 2. BulkheadRegistry：高优先级类别排队时低优先级类别让路，反之不受影响
+ * 3. BulkheadInterceptor：按方法/类注解归类，拒绝返回 503 + Retry-After，请求结束或异步开始时归还许可
+ * 4. 报表许可被占满、报表请求排队时，打赏请求仍立即放行
+ */
+class BulkheadInterceptorTest {
+
+    private static final int RETRY_AFTER_SECONDS = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void partitionCapsConcurrencyAndQueue() throws Exception {
+        BulkheadPartition partition = new BulkheadPartition(BulkheadType.REPORTING, 2, 1, 2000, 2);
+        assertEquals(BulkheadPartition.Admission.ADMITTED, partition.acquire());
+        assertEquals(BulkheadPartition.Admission.ADMITTED, partition.acquire());
+        assertEquals(2, partition.getInUse());
+
+        Future<BulkheadPartition.Admission> queued = executor.submit(partition::acquire);
+        awaitWaiting(partition, 1);
+
+        assertEquals(BulkheadPartition.Admission.QUEUE_FULL, partition.acquire());
+        assertEquals(1, partition.getWaiting(), "排队已满应立即拒绝，不进入队列等待");
+
+        partition.release();
+        assertEquals(BulkheadPartition.Admission.ADMITTED, queued.get(5, TimeUnit.SECONDS), "归还许可后排队请求放行");
+        assertEquals(3, partition.getAdmitted());
+        assertEquals(1, partition.getRejected());
+    }
+
+    @Test
+    void waitingLongerThanMaxWaitTimesOut() throws Exception {
+        BulkheadPartition partition = new BulkheadPartition(BulkheadType.TRANSACTIONAL, 1, 10, 50, 1);
+        assertEquals(BulkheadPartition.Admission.ADMITTED, partition.acquire());
+
+        assertEquals(BulkheadPartition.Admission.TIMEOUT, partition.acquire());
+        assertEquals(0, partition.getWaiting());
+        assertEquals(1, partition.getInUse(), "超时不应占用许可");
+    }
+
+    @Test
+    void lowerPriorityYieldsWhileHigherPriorityIsQueued() throws Exception {
+        BulkheadRegistry registry = registry(1, 1, 1);
+        assertEquals(BulkheadPartition.Admission.ADMITTED, registry.acquire(BulkheadType.REALTIME));
+        Future<BulkheadPartition.Admission> queuedTip = executor.submit(() -> registry.acquire(BulkheadType.REALTIME));
+        awaitWaiting(registry.get(BulkheadType.REALTIME), 1);
+
+        assertEquals(BulkheadPartition.Admission.YIELDED, registry.acquire(BulkheadType.REPORTING));
+        assertEquals(BulkheadPartition.Admission.YIELDED, registry.acquire(BulkheadType.TRANSACTIONAL));
+
+        registry.release(BulkheadType.REALTIME);
+        assertEquals(BulkheadPartition.Admission.ADMITTED, queuedTip.get(5, TimeUnit.SECONDS));
+        assertEquals(BulkheadPartition.Admission.ADMITTED, registry.acquire(BulkheadType.REPORTING),
+            "高优先级排队清空后低优先级恢复放行");
+    }
+
+    @Test
+    void reportingSaturationDoesNotDelayRealtime() throws Exception {
+        BulkheadRegistry registry = registry(10, 10, 2);
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(registry, objectMapper, RETRY_AFTER_SECONDS);
+
+        // 两个报表请求占满报表许可并阻塞，另有一个报表请求排队
+        CountDownLatch releaseReports = new CountDownLatch(1);
+        List<Future<?>> reports = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            reports.add(executor.submit(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/statistics");
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                if (interceptor.preHandle(request, response, handler("report"))) {
+                    releaseReports.await(5, TimeUnit.SECONDS);
+                    interceptor.afterCompletion(request, response, handler("report"), null);
+                }
+                return null;
+            }));
+        }
+        awaitWaiting(registry.get(BulkheadType.REPORTING), 1);
+        assertEquals(2, registry.get(BulkheadType.REPORTING).getInUse());
+
+        for (int i = 0; i < 100; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/recharge");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertTrue(interceptor.preHandle(request, response, handler("tip")), "报表占满时打赏仍应放行");
+            interceptor.afterCompletion(request, response, handler("tip"), null);
+        }
+        assertEquals(0, registry.get(BulkheadType.REALTIME).getInUse());
+        assertEquals(100, registry.get(BulkheadType.REALTIME).getAdmitted(), "打赏不应等待报表许可");
+        assertEquals(0, registry.get(BulkheadType.REALTIME).getRejected());
+
+        releaseReports.countDown();
+        for (Future<?> report : reports) {
+            report.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, registry.get(BulkheadType.REPORTING).getInUse(), "报表结束后许可全部归还");
+    }
+
+    @Test
+    void rejectedRequestGets503WithRetryAfter() throws Exception {
+        // 报表只有 1 个许可、没有排队位
+        BulkheadRegistry registry = new BulkheadRegistry(Arrays.asList(
+            new BulkheadPartition(BulkheadType.REALTIME, 1, 1, 50, 0),
+            new BulkheadPartition(BulkheadType.TRANSACTIONAL, 1, 1, 50, 1),
+            new BulkheadPartition(BulkheadType.REPORTING, 1, 0, 50, 2)));
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(registry, objectMapper, RETRY_AFTER_SECONDS);
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/statistics");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), handler("report")));
+
+        MockHttpServletRequest rejected = new MockHttpServletRequest("GET", "/statistics");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(rejected, response, handler("report")));
+        assertEquals(503, response.getStatus());
+        assertEquals(String.valueOf(RETRY_AFTER_SECONDS), response.getHeader("Retry-After"));
+        JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals(ErrorConstants.SERVICE_UNAVAILABLE, body.get("code").asInt());
+
+        // 被拒绝的请求没有许可，afterCompletion 不应多归还
+        interceptor.afterCompletion(rejected, response, handler("report"), null);
+        assertEquals(1, registry.get(BulkheadType.REPORTING).getInUse());
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), handler("report"), null);
+        assertEquals(0, registry.get(BulkheadType.REPORTING).getInUse());
+    }
+
+    @Test
+    void methodAnnotationOverridesClassAndUnannotatedPasses() throws Exception {
+        BulkheadRegistry registry = registry(1, 1, 1);
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(registry, objectMapper, RETRY_AFTER_SECONDS);
+
+        MockHttpServletRequest tip = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(tip, new MockHttpServletResponse(), handler("tip")));
+        assertEquals(1, registry.get(BulkheadType.REALTIME).getInUse());
+        assertEquals(0, registry.get(BulkheadType.REPORTING).getInUse());
+
+        MockHttpServletRequest report = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(report, new MockHttpServletResponse(), handler("report")));
+        assertEquals(1, registry.get(BulkheadType.REPORTING).getInUse(), "未标注的方法继承类上的类别");
+
+        HandlerMethod plain = new HandlerMethod(new PlainController(), PlainController.class.getMethod("health"));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), plain));
+        }
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object()),
+            "非 Controller 方法（静态资源等）不受限制");
+
+        interceptor.afterCompletion(tip, new MockHttpServletResponse(), handler("tip"), null);
+        interceptor.afterCompletion(report, new MockHttpServletResponse(), handler("report"), null);
+        assertEquals(0, registry.get(BulkheadType.REALTIME).getInUse());
+        assertEquals(0, registry.get(BulkheadType.REPORTING).getInUse());
+    }
+
+    @Test
+    void asyncRequestReleasesPermitWhenHandlingStarts() throws Exception {
+        BulkheadRegistry registry = registry(1, 1, 1);
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(registry, objectMapper, RETRY_AFTER_SECONDS);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler("tip")));
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), handler("tip"));
+        assertEquals(0, registry.get(BulkheadType.REALTIME).getInUse(), "SSE 等异步请求不应长期占用许可");
+
+        // 异步结果的二次分派不再申请许可，结束时也不重复归还
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler("tip")));
+        assertEquals(0, registry.get(BulkheadType.REALTIME).getInUse());
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), handler("tip"), null);
+        assertEquals(0, registry.get(BulkheadType.REALTIME).getInUse());
+    }
+
+    private static BulkheadRegistry registry(int realtime, int transactional, int reporting) {
+        return new BulkheadRegistry(Arrays.asList(
+            new BulkheadPartition(BulkheadType.REALTIME, realtime, 10, 2000, 0),
+            new BulkheadPartition(BulkheadType.TRANSACTIONAL, transactional, 10, 2000, 1),
+            new BulkheadPartition(BulkheadType.REPORTING, reporting, 10, 2000, 2)));
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new ReportController(), ReportController.class.getMethod(method));
+    }
+
+    private static void awaitWaiting(BulkheadPartition partition, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (partition.getWaiting() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, partition.getWaiting());
+    }
+
+    @Bulkhead(BulkheadType.REPORTING)
+    public static class ReportController {
+
+        public String report() {
+            return "report";
+        }
+
+        @Bulkhead(BulkheadType.REALTIME)
+        public String tip() {
+            return "tip";
+        }
+    }
+
+    public static class PlainController {
+
+        public String health() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package common.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RechargeBatchCodec 测试：往返一致、null 字段、不可信长度
+ */
+class RechargeBatchCodecTest {
+
+    @Test
+    void roundTripWithDeflate() throws Exception {
+        RechargeBatchCodec.Batch batch = newBatch(500);
+        batch.setBatchTime(1_760_000_000_000L);
+        batch.setTotalAmount(new BigDecimal("12345.67"));
+
+        RechargeBatchCodec.Batch decoded = RechargeBatchCodec.decode(
+                new ByteArrayInputStream(RechargeBatchCodec.encode(batch, true)));
+
+        assertEquals(batch, decoded);
+    }
+
+    @Test
+    void nullBatchTimeAndTotalAmountStayNull() {
+        RechargeBatchCodec.Batch batch = newBatch(3);
+        batch.setBatchTime(null);
+        batch.setTotalAmount(null);
+
+        RechargeBatchCodec.Batch decoded = RechargeBatchCodec.decode(RechargeBatchCodec.encode(batch, false));
+
+        assertNull(decoded.getBatchTime());
+        assertNull(decoded.getTotalAmount());
+        assertEquals(batch.getItems(), decoded.getItems());
+    }
+
+    @Test
+    void declaredRawLengthIsCapped() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('R');
+        out.write('B');
+        out.write(1);
+        out.write(1);
+        // varint 原始长度 2^31-1，后面只有几个字节的数据
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x03, 0x00});
+
+        assertThrows(IllegalArgumentException.class, () -> RechargeBatchCodec.decode(out.toByteArray()));
+    }
+
+    @Test
+    void oversizedStreamIsRejected() {
+        byte[] data = new byte[RechargeBatchCodec.MAX_LENGTH + 1];
+        assertThrows(IllegalArgumentException.class, () -> RechargeBatchCodec.decode(new ByteArrayInputStream(data)));
+    }
+
+    private static RechargeBatchCodec.Batch newBatch(int size) {
+        List<RechargeBatchCodec.Item> items = new ArrayList<>(size);
+        long time = 1_760_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            RechargeBatchCodec.Item item = new RechargeBatchCodec.Item();
+            item.setRechargeId(10_000L + i);
+            item.setTraceId("audience-service-" + (time + i * 37L) + "-" + i);
+            item.setAnchorId(1L + i % 7);
+            item.setAnchorName("anchor-" + i % 7);
+            item.setAudienceId(100L + i % 50);
+            item.setAudienceName("audience-" + i % 50);
+            item.setRechargeAmount(BigDecimal.valueOf(100 + i, 2));
+            item.setRechargeTime(time + i * 37L);
+            item.setRechargeType(i % 3);
+            item.setLiveRoomId(1000L + i % 7);
+            items.add(item);
+        }
+        RechargeBatchCodec.Batch batch = new RechargeBatchCodec.Batch();
+        batch.setBatchId("BATCH-1");
+        batch.setSourceService("audience-service");
+        batch.setItems(items);
+        batch.setTotalCount(size);
+        return batch;
+    }
+}
@@ -0,0 +1,164 @@
+package common.config;
+
+import common.bean.user.Audience;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CompactRedisSerializer 往返、兼容性测试，以及与 GenericJackson2JsonRedisSerializer 的体积对比
+ */
+class CompactRedisSerializerTest {
+
+    private final RedisTypeRegistry registry = RedisTypeRegistry.defaults()
+            .register(900, 1, Profile.class);
+    private final CompactRedisSerializer compact =
+            new CompactRedisSerializer(registry, CompactRedisSerializer.DEFAULT_COMPRESS_THRESHOLD);
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    @Test
+    void registeredEntityRoundTripsWithJavaTimeFields() {
+        Audience audience = sampleAudience(42L);
+
+        Audience restored = (Audience) compact.deserialize(compact.serialize(audience));
+
+        assertEquals(audience.getUserId(), restored.getUserId());
+        assertEquals(audience.getLastRechargeTime(), restored.getLastRechargeTime());
+        assertEquals(0, audience.getTotalRechargeAmount().compareTo(restored.getTotalRechargeAmount()));
+    }
+
+    @Test
+    void optionalFieldsRoundTrip() {
+        Profile present = new Profile(1L, Optional.of("vip"), LocalDateTime.of(2026, 10, 1, 12, 30));
+        Profile empty = new Profile(2L, Optional.empty(), null);
+
+        assertEquals(Optional.of("vip"), ((Profile) compact.deserialize(compact.serialize(present))).getNickname());
+        assertEquals(present.getSeenAt(), ((Profile) compact.deserialize(compact.serialize(present))).getSeenAt());
+        assertEquals(Optional.empty(), ((Profile) compact.deserialize(compact.serialize(empty))).getNickname());
+    }
+
+    @Test
+    void largePayloadIsDeflatedAndRestored() {
+        List<Audience> audiences = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            audiences.add(sampleAudience(i));
+        }
+
+        byte[] bytes = compact.serialize(audiences);
+        byte[] jsonBytes = json.serialize(audiences);
+        assertEquals(0x01, bytes[1] & 0x01, "超过阈值应压缩");
+        assertTrue(bytes.length < jsonBytes.length / 3);
+
+        List<?> restored = (List<?>) compact.deserialize(bytes);
+        assertEquals(200, restored.size());
+    }
+
+    @Test
+    void unknownTypeOrVersionIsTreatedAsMiss() {
+        byte[] bytes = compact.serialize(new Profile(1L, Optional.empty(), null));
+
+        CompactRedisSerializer withoutProfile = new CompactRedisSerializer(RedisTypeRegistry.defaults(), 0);
+        assertNull(withoutProfile.deserialize(bytes));
+
+        CompactRedisSerializer bumped = new CompactRedisSerializer(
+                RedisTypeRegistry.defaults().register(900, 2, Profile.class), 0);
+        assertNull(bumped.deserialize(bytes));
+    }
+
+    @Test
+    void oversizedRawLengthIsTreatedAsMiss() {
+        // MAGIC, DEFLATE 标志, 动态类型ID 0, 解压长度 0x7FFFFFFF
+        byte[] forged = {(byte) 0xC7, 0x01, 0x00, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x00};
+
+        assertNull(compact.deserialize(forged));
+    }
+
+    @Test
+    void legacyJsonValuesAreStillReadable() {
+        Audience audience = sampleAudience(7L);
+        byte[] legacy = json.serialize(audience);
+
+        Audience restored = (Audience) compact.deserialize(legacy);
+        assertEquals(7L, restored.getUserId());
+        // INCR 写入的纯数字值
+        assertEquals(42, ((Number) compact.deserialize("42".getBytes())).intValue());
+    }
+
+    @Test
+    void forCacheFollowsConfiguredFormat() {
+        RedisProperties properties = new RedisProperties();
+        assertTrue(CompactRedisSerializer.forCache(properties, registry) instanceof CompactRedisSerializer);
+
+        properties.setCacheSerializer("json");
+        assertTrue(CompactRedisSerializer.forCache(properties, registry) instanceof GenericJackson2JsonRedisSerializer);
+    }
+
+    @Test
+    void compactIsSmallerThanJson() {
+        Audience audience = sampleAudience(1001L);
+
+        long compactSize = compact.serialize(audience).length;
+        long jsonSize = json.serialize(audience).length;
+        assertTrue(compactSize * 2 < jsonSize, "已注册类型不写类名，体积应不到 JSON 的一半");
+    }
+
+    private static Audience sampleAudience(long userId) {
+        Audience audience = new Audience();
+        audience.setUserId(userId);
+        audience.setNickname("audience-" + userId);
+        audience.setConsumptionLevel(3);
+        audience.setTotalRechargeAmount(new BigDecimal("1288.50"));
+        audience.setTotalRechargeCount(17L);
+        audience.setLastRechargeTime(LocalDateTime.of(2026, 10, 18, 21, 5, 33));
+        audience.setVipLevel(2);
+        return audience;
+    }
+
+    static class Profile {
+        private Long id;
+        private Optional<String> nickname = Optional.empty();
+        private LocalDateTime seenAt;
+
+        Profile() {
+        }
+
+        Profile(Long id, Optional<String> nickname, LocalDateTime seenAt) {
+            this.id = id;
+            this.nickname = nickname;
+            this.seenAt = seenAt;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Optional<String> getNickname() {
+            return nickname;
+        }
+
+        public void setNickname(Optional<String> nickname) {
+            this.nickname = nickname;
+        }
+
+        public LocalDateTime getSeenAt() {
+            return seenAt;
+        }
+
+        public void setSeenAt(LocalDateTime seenAt) {
+            this.seenAt = seenAt;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package common.feign;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.RetryableException;
+import feign.Retryer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * BudgetedRetryer 测试：只重试幂等方法、尝试次数上限、共享重试预算
+ */
+class BudgetedRetryerTest {
+
+    @Test
+    void postIsNeverRetried() {
+        Retryer retryer = newRetryer(3, 0.0, 10).clone();
+        assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(timeout(Request.HttpMethod.POST)));
+    }
+
+    @Test
+    void getIsRetriedUpToMaxAttempts() {
+        Retryer retryer = newRetryer(3, 0.0, 10).clone();
+        RetryableException e = timeout(Request.HttpMethod.GET);
+        assertDoesNotThrow(() -> retryer.continueOrPropagate(e));
+        assertDoesNotThrow(() -> retryer.continueOrPropagate(e));
+        assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(e), "第 3 次尝试后不再重试");
+    }
+
+    @Test
+    void budgetIsSharedAcrossClones() {
+        // 预算只有 2 次且不补充：前两个请求各重试一次，第三个请求直接失败
+        Retryer prototype = newRetryer(5, 0.0, 2);
+        RetryableException e = timeout(Request.HttpMethod.GET);
+        assertDoesNotThrow(() -> prototype.clone().continueOrPropagate(e));
+        assertDoesNotThrow(() -> prototype.clone().continueOrPropagate(e));
+        assertThrows(RetryableException.class, () -> prototype.clone().continueOrPropagate(e), "重试预算耗尽");
+    }
+
+    private static Retryer newRetryer(int maxAttempts, double perSecond, int burst) {
+        FeignTransportProperties.Retry retry = new FeignTransportProperties.Retry();
+        retry.setMaxAttempts(maxAttempts);
+        retry.setInitialBackoffMs(1L);
+        retry.setMaxBackoffMs(2L);
+        retry.setBudgetPerSecond(perSecond);
+        retry.setBudgetBurst(burst);
+        return new BudgetedRetryer(retry);
+    }
+
+    private static RetryableException timeout(Request.HttpMethod method) {
+        Request request = Request.create(method, "http://stub/api", Collections.emptyMap(),
+                null, StandardCharsets.UTF_8, new RequestTemplate());
+        return new RetryableException(-1, "Read timed out", method, null, request);
+    }
+}
@@ -0,0 +1,177 @@
+package common.feign;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.Param;
+import feign.RequestLine;
+import okhttp3.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feign 传输层行为测试
+ * 本地 HttpServer 作为下游桩服务，验证连接池化 OkHttp 传输复用 keep-alive 连接、
+ * 按客户端并发上限和请求体 gzip
+ */
+class FeignTransportBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 500;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private final Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long handlerDelayMs;
+    private volatile String lastEncoding;
+    private volatile String lastBody;
+
+    interface StubApi {
+        @RequestLine("GET /ping?i={i}")
+        String ping(@Param("i") int i);
+
+        @RequestLine("POST /sync")
+        String sync(String body);
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(THREADS * 2);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                remotePorts.add(exchange.getRemoteAddress().getPort());
+                lastEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                InputStream in = exchange.getRequestBody();
+                if ("gzip".equals(lastEncoding)) {
+                    in = new GZIPInputStream(in);
+                }
+                lastBody = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                if (handlerDelayMs > 0) {
+                    TimeUnit.MILLISECONDS.sleep(handlerDelayMs);
+                }
+                byte[] response = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void pooledOkHttpReusesConnections() throws Exception {
+        FeignTransportProperties properties = new FeignTransportProperties();
+
+        StubApi pooledApi = pooledBuilder(properties).target(StubApi.class, baseUrl);
+        run(pooledApi, 50);
+        remotePorts.clear();
+        run(pooledApi, CALLS_PER_THREAD);
+        assertTrue(remotePorts.size() <= THREADS, "连接池应复用 keep-alive 连接，连接数不超过并发数");
+    }
+
+    @Test
+    void concurrentRequestsAreCappedPerClient() throws Exception {
+        FeignTransportProperties properties = new FeignTransportProperties();
+        properties.getDefaults().setMaxConcurrentRequests(2);
+        properties.getDefaults().setAcquireTimeoutMs(5_000L);
+        properties.getRetry().setMaxAttempts(1);
+        handlerDelayMs = 20;
+
+        StubApi api = pooledBuilder(properties).target(StubApi.class, baseUrl);
+        run(api, 5);
+
+        assertTrue(maxInFlight.get() <= 2, "同一客户端同时在途的请求数不超过 max-concurrent-requests");
+    }
+
+    @Test
+    void largeBodiesAreGzippedWhenEnabled() {
+        FeignTransportProperties properties = new FeignTransportProperties();
+        FeignTransportProperties.Client settings = new FeignTransportProperties.Client();
+        settings.setGzipRequests(true);
+        properties.getClients().put(baseUrl, settings);
+
+        StubApi api = pooledBuilder(properties).target(StubApi.class, baseUrl);
+        String small = "{\"items\":[]}";
+        api.sync(small);
+        assertNull(lastEncoding, "小于阈值的请求体不压缩");
+
+        String large = "{\"items\":[" + "{\"id\":1,\"amount\":100},".repeat(500) + "{}]}";
+        api.sync(large);
+        assertEquals("gzip", lastEncoding);
+        assertEquals(large, lastBody);
+    }
+
+    private Feign.Builder pooledBuilder(FeignTransportProperties properties) {
+        okhttp3.OkHttpClient okHttp = new okhttp3.OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(properties.getMaxIdleConnections(),
+                        properties.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .retryOnConnectionFailure(false)
+                .build();
+        return Feign.builder()
+                .client(new feign.okhttp.OkHttpClient(okHttp))
+                .retryer(new BudgetedRetryer(properties.getRetry()))
+                .addCapability(new ClientConcurrencyCapability(properties))
+                .requestInterceptor(new GzipRequestInterceptor(properties));
+    }
+
+    /**
+     * THREADS 个线程各调用 calls 次
+     */
+    private void run(StubApi api, int calls) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < calls; i++) {
+                        api.ping(i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
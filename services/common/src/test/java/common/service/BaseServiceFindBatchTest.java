@@ -0,0 +1,228 @@
+package common.service;
+
+import common.bean.user.Audience;
+import common.repository.AudienceRepository;
+import common.repository.BaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * BaseService.findBatch 批量缓存命中率、往返次数和写后失效测试
+ * Redis 用内存 Map 模拟（MGET / Pipeline MSET / DEL），统计 Redis 和数据库的往返次数
+ */
+class BaseServiceFindBatchTest {
+
+    private static final int BATCH = 200;
+
+    private final Map<String, Object> redis = new ConcurrentHashMap<>();
+    private final AtomicInteger dbRoundTrips = new AtomicInteger();
+    private final AtomicInteger dbRows = new AtomicInteger();
+    private final AtomicInteger redisRoundTrips = new AtomicInteger();
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisSerializer keySerializer = new StringRedisSerializer();
+        JdkSerializationRedisSerializer valueSerializer = new JdkSerializationRedisSerializer();
+
+        redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        doReturn(keySerializer).when(redisTemplate).getKeySerializer();
+        doReturn(valueSerializer).when(redisTemplate).getValueSerializer();
+        when(valueOps.multiGet(anyCollection())).thenAnswer(inv -> {
+            Collection<String> keys = inv.getArgument(0);
+            redisRoundTrips.incrementAndGet();
+            return keys.stream().map(redis::get).collect(Collectors.toList());
+        });
+        when(redisTemplate.delete(anyCollection())).thenAnswer(inv -> {
+            Collection<String> keys = inv.getArgument(0);
+            return keys.stream().filter(k -> redis.remove(k) != null).count();
+        });
+
+        RedisConnection connection = mock(RedisConnection.class);
+        doAnswer(inv -> {
+            Map<byte[], byte[]> tuples = inv.getArgument(0);
+            tuples.forEach((k, v) -> redis.put(keySerializer.deserialize(k), valueSerializer.deserialize(v)));
+            return true;
+        }).when(connection).mSet(any());
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            RedisCallback<Object> callback = inv.getArgument(0);
+            redisRoundTrips.incrementAndGet();
+            callback.doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void warmBatchIsServedFromCacheInOneRoundTrip() {
+        ItemService service = newItemService();
+        List<Long> ids = LongStream.rangeClosed(1, BATCH).boxed().collect(Collectors.toList());
+
+        List<Item> cold = service.findBatch(ids);
+        assertEquals(BATCH, cold.size());
+        assertEquals(1, dbRoundTrips.get(), "冷启动所有未命中应合并为一次 IN 查询");
+        assertEquals(2, redisRoundTrips.get(), "一次 MGET + 一次 Pipeline 回填");
+
+        dbRoundTrips.set(0);
+        dbRows.set(0);
+        redisRoundTrips.set(0);
+        List<Item> warm = service.findBatch(ids);
+        assertEquals(ids, warm.stream().map(Item::getId).collect(Collectors.toList()), "返回顺序与入参一致");
+        assertEquals(0, dbRoundTrips.get(), "热缓存命中率应为 100%");
+        assertEquals(0, dbRows.get());
+        assertEquals(1, redisRoundTrips.get(), "热缓存 " + BATCH + " 个ID只需一次 MGET");
+    }
+
+    @Test
+    void partialMissLoadsOnlyMissingIds() {
+        ItemService service = newItemService();
+        List<Long> ids = LongStream.rangeClosed(1, BATCH).boxed().collect(Collectors.toList());
+        service.findBatch(ids.subList(0, BATCH / 2));
+
+        dbRoundTrips.set(0);
+        dbRows.set(0);
+        service.findBatch(ids);
+
+        assertEquals(1, dbRoundTrips.get());
+        assertEquals(BATCH / 2, dbRows.get(), "命中率 50% 时只回源一半");
+    }
+
+    @Test
+    void evictionInsideTransactionRunsAfterCommit() {
+        ItemService service = newItemService();
+        service.findBatch(List.of(1L, 2L));
+        assertTrue(redis.containsKey("cache:item::1"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.evictBatchCache(List.of(1L));
+        assertTrue(redis.containsKey("cache:item::1"), "提交前不应清除，避免并发读回填旧值");
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertFalse(redis.containsKey("cache:item::1"));
+        assertTrue(redis.containsKey("cache:item::2"));
+    }
+
+    @Test
+    void audienceWritersEvictBatchCache() {
+        AudienceRepository repository = mock(AudienceRepository.class);
+        when(repository.save(any(Audience.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        AudienceService service = new AudienceService(repository);
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+
+        Audience audience = new Audience();
+        audience.setUserId(7L);
+        redis.put("cache:audience::7", "stale");
+        service.updateAudience(audience);
+        assertFalse(redis.containsKey("cache:audience::7"));
+
+        redis.put("cache:audience::7", "stale");
+        service.batchSaveAudience(List.of(audience));
+        assertFalse(redis.containsKey("cache:audience::7"));
+
+        redis.put("cache:audience::7", "stale");
+        service.deleteAudience(7L);
+        assertFalse(redis.containsKey("cache:audience::7"));
+    }
+
+    private ItemService newItemService() {
+        ItemRepository repository = mock(ItemRepository.class);
+        when(repository.findAllById(any())).thenAnswer(inv -> {
+            Iterable<Long> ids = inv.getArgument(0);
+            dbRoundTrips.incrementAndGet();
+            List<Item> rows = new ArrayList<>();
+            ids.forEach(id -> rows.add(new Item(id, "item-" + id)));
+            dbRows.addAndGet(rows.size());
+            return rows;
+        });
+        ItemService service = new ItemService(repository);
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+        return service;
+    }
+
+    interface ItemRepository extends BaseRepository<Item, Long> {
+    }
+
+    static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final Long id;
+        private final String name;
+
+        Item(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        Long getId() {
+            return id;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+
+    static class ItemService extends BaseService<Item, Long, ItemRepository> {
+
+        ItemService(ItemRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        protected String getCachePrefix() {
+            return "item::";
+        }
+
+        @Override
+        protected String getEntityName() {
+            return "Item";
+        }
+
+        @Override
+        protected Long getEntityId(Item entity) {
+            return entity.getId();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package common.service;
+
+import common.constant.SystemConstants;
+import common.repository.MessageRepository;
+import common.service.MessageService.MessageRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 弹幕批量落库的往返次数测试
+ * 落库线程单线程串行执行，每批的数据库和 Redis 往返数决定吞吐上限：
+ * 一批 BATCH 条弹幕（ROOMS 个直播间、每条一个不同的发送者）应只有
+ * 2 次存在性查询 + ceil(BATCH / SystemConstants.BATCH_SIZE) 次多行 INSERT + 1 次多键 DEL，
+ * 与发送者数量无关
+ */
+class MessageServiceBatchInsertTest {
+
+    private static final int BATCH = 1000;
+    private static final int ROOMS = 50;
+
+    private final AtomicInteger dbRoundTrips = new AtomicInteger();
+    private final AtomicInteger redisRoundTrips = new AtomicInteger();
+    private final List<Collection<String>> deletedKeys = new ArrayList<>();
+    private MessageService service;
+    private Cache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenAnswer(inv -> {
+            dbRoundTrips.incrementAndGet();
+            Object[] args = inv.getArguments();
+            return Arrays.stream(args, 2, args.length).map(id -> (Long) id).collect(Collectors.toList());
+        });
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(inv -> {
+            dbRoundTrips.incrementAndGet();
+            return (inv.getArguments().length - 1) / 4;
+        });
+
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.delete(anyCollection())).thenAnswer(inv -> {
+            redisRoundTrips.incrementAndGet();
+            Collection<String> keys = inv.getArgument(0);
+            deletedKeys.add(keys);
+            return (long) keys.size();
+        });
+        cache = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
+
+        service = new MessageService(mock(MessageRepository.class), mock(LiveRoomService.class),
+            mock(AudienceService.class));
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+    }
+
+    @Test
+    void batchFlushCostsConstantRoundTrips() {
+        List<MessageRecord> records = new ArrayList<>(BATCH);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < BATCH; i++) {
+            records.add(new MessageRecord((long) (i % ROOMS) + 1, 10_000L + i, "msg-" + i, now));
+        }
+
+        assertEquals(BATCH, service.batchInsertMessages(records));
+
+        int inserts = (BATCH + SystemConstants.BATCH_SIZE - 1) / SystemConstants.BATCH_SIZE;
+        assertEquals(2 + inserts, dbRoundTrips.get(), "存在性查询 2 次 + 每 BATCH_SIZE 行一条 INSERT");
+        assertEquals(1, redisRoundTrips.get(), "所有直播间的缓存页由一条 DEL 清除");
+        verify(cache, never()).evict(any());
+
+        Set<String> expected = new HashSet<>();
+        for (long room = 1; room <= ROOMS; room++) {
+            for (int page = 0; page < MessageService.CACHED_PAGES; page++) {
+                expected.add(MessageService.CACHE_LIVE_ROOM + "::" + room + "-" + page);
+            }
+        }
+        assertEquals(expected, new HashSet<>(deletedKeys.get(0)), "只清除直播间的缓存页，不清除发送者的");
+    }
+
+    @Test
+    void withoutRedisTemplateFallsBackToCacheEvict() {
+        ReflectionTestUtils.setField(service, "redisTemplate", null);
+        LocalDateTime now = LocalDateTime.now();
+
+        service.batchInsertMessages(List.of(new MessageRecord(1L, 2L, "hi", now), new MessageRecord(1L, 3L, "yo", now)));
+
+        for (int page = 0; page < MessageService.CACHED_PAGES; page++) {
+            verify(cache).evict("1-" + page);
+        }
+        assertEquals(0, redisRoundTrips.get());
+    }
+}
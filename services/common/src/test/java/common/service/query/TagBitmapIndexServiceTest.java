@@ -0,0 +1,197 @@
+package common.service.query;
+
+import common.service.query.TagBitmapIndexService.TagPairStats;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 标签位图索引与 HashSet 的对照测试（H2 内存库，MySQL 模式）
+ *
+ * 关联表按显式ID插入，故意留出空洞模拟未提交的事务；之后补入空洞ID模拟晚提交，
+ * 全量加载、增量追加（含回查晚提交的空洞）和删除后重建，每一步的标签用户数、两两交集、
+ * TOP-K 行和稀疏共现矩阵都应与按 HashSet 求交的结果一致
+ */
+class TagBitmapIndexServiceTest {
+
+    private static final int TAGS = 25;
+    private static final int AUDIENCES = 1500;
+    private static final long ANCHOR_BASE = 100_000L;
+    private static final int ANCHORS = 80;
+
+    private final Random random = new Random(3);
+    private final Map<Long, Set<Long>> model = new HashMap<>();
+    /** 已分配ID的 用户:标签（含被跳过、尚未插入的），避免晚提交时违反唯一键 */
+    private final Set<String> assigned = new HashSet<>();
+    private JdbcTemplate jdbcTemplate;
+    private TagBitmapIndexService index;
+    private long nextAudienceLinkId;
+    private long nextAnchorLinkId;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:tag_index;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE tag (tag_id BIGINT PRIMARY KEY, tag_name VARCHAR(100) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE audience_tag (audience_tag_id BIGINT PRIMARY KEY, "
+            + "audience_id BIGINT NOT NULL, tag_id BIGINT NOT NULL, UNIQUE (audience_id, tag_id))");
+        jdbcTemplate.execute("CREATE TABLE anchor_tag (anchor_tag_id BIGINT PRIMARY KEY, "
+            + "anchor_id BIGINT NOT NULL, tag_id BIGINT NOT NULL, UNIQUE (anchor_id, tag_id))");
+        for (long tagId = 1; tagId <= TAGS; tagId++) {
+            jdbcTemplate.update("INSERT INTO tag (tag_id, tag_name) VALUES (?, ?)", tagId, "tag-" + tagId);
+            model.put(tagId, new HashSet<>());
+        }
+
+        index = new TagBitmapIndexService(jdbcTemplate);
+        ReflectionTestUtils.setField(index, "pageSize", 300);
+        ReflectionTestUtils.setField(index, "maxCachedRows", 500);
+        ReflectionTestUtils.setField(index, "gapTimeoutMs", 600_000L);
+        ReflectionTestUtils.setField(index, "maxGapSpan", 1000);
+        ReflectionTestUtils.setField(index, "maxGapChecks", 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void fullLoadMatchesHashSets() {
+        insertLinks(6000, 200);
+        index.rebuild();
+        assertMatchesModel();
+    }
+
+    @Test
+    void appendedAndLateCommittedLinksMatchHashSets() {
+        List<long[]> skipped = insertLinks(4000, 150);
+        index.rebuild();
+        // 缓存一部分矩阵行，验证增量追加时缓存行同步更新
+        for (long tagId = 1; tagId <= TAGS; tagId += 3) {
+            index.getTopRelatedTags(tagId, TAGS);
+        }
+        assertMatchesModel();
+
+        // 水位之后的新关联（其间再留空洞），以及水位之下晚提交的空洞ID
+        List<long[]> skippedAgain = insertLinks(2000, 100);
+        insertSkipped(skipped.subList(0, skipped.size() / 2));
+        index.applyNewLinks();
+        assertMatchesModel();
+
+        insertSkipped(skipped.subList(skipped.size() / 2, skipped.size()));
+        insertSkipped(skippedAgain);
+        index.applyNewLinks();
+        assertMatchesModel();
+        assertEquals(0, index.applyNewLinks(), "没有新关联和晚提交的关联时不再追加");
+    }
+
+    @Test
+    void rebuildReflectsDeletes() {
+        insertLinks(5000, 0);
+        index.rebuild();
+        for (long tagId = 1; tagId <= TAGS; tagId += 2) {
+            index.getTopRelatedTags(tagId, TAGS);
+        }
+
+        List<Long> audienceIds = jdbcTemplate.queryForList(
+            "SELECT audience_tag_id FROM audience_tag ORDER BY audience_tag_id", Long.class);
+        for (int i = 0; i < audienceIds.size(); i += 4) {
+            Map<String, Object> link = jdbcTemplate.queryForMap(
+                "SELECT audience_id, tag_id FROM audience_tag WHERE audience_tag_id = ?", audienceIds.get(i));
+            model.get(((Number) link.get("tag_id")).longValue()).remove(((Number) link.get("audience_id")).longValue());
+            jdbcTemplate.update("DELETE FROM audience_tag WHERE audience_tag_id = ?", audienceIds.get(i));
+        }
+        index.rebuild();
+        assertMatchesModel();
+    }
+
+    /**
+     * 随机插入关联，其中最多 skip 条随机分配了ID但不插入（模拟未提交的事务）
+     *
+     * @return 被跳过的关联：(是否观众, 关联ID, 用户ID, 标签ID)
+     */
+    private List<long[]> insertLinks(int count, int skip) {
+        List<long[]> skipped = new ArrayList<>();
+        int inserted = 0;
+        while (inserted < count + skip) {
+            boolean audience = random.nextInt(10) < 8;
+            long userId = audience ? 1 + random.nextInt(AUDIENCES) : ANCHOR_BASE + random.nextInt(ANCHORS);
+            // 热门标签更多：标签ID越小被选中的概率越高
+            long tagId = 1 + (long) (TAGS * Math.pow(random.nextDouble(), 2));
+            if (!assigned.add(userId + ":" + tagId)) {
+                continue;
+            }
+            long linkId = audience ? ++nextAudienceLinkId : ++nextAnchorLinkId;
+            long[] link = {audience ? 1 : 0, linkId, userId, tagId};
+            if (skipped.size() < skip && random.nextInt(count + skip) < skip) {
+                skipped.add(link);
+            } else {
+                insert(link);
+            }
+            inserted++;
+        }
+        return skipped;
+    }
+
+    private void insertSkipped(List<long[]> links) {
+        links.forEach(this::insert);
+    }
+
+    private void insert(long[] link) {
+        if (link[0] == 1) {
+            jdbcTemplate.update("INSERT INTO audience_tag (audience_tag_id, audience_id, tag_id) VALUES (?, ?, ?)",
+                link[1], link[2], link[3]);
+        } else {
+            jdbcTemplate.update("INSERT INTO anchor_tag (anchor_tag_id, anchor_id, tag_id) VALUES (?, ?, ?)",
+                link[1], link[2], link[3]);
+        }
+        model.get(link[3]).add(link[2]);
+    }
+
+    private void assertMatchesModel() {
+        List<Long> tagIds = new ArrayList<>(model.keySet());
+        Map<Long, Map<Long, Long>> cooccurrence = index.getCooccurrence(tagIds);
+        for (Long a : tagIds) {
+            assertEquals(model.get(a).size(), index.getTagCount(a), "标签用户数: " + a);
+            assertEquals("tag-" + a, index.getTagName(a));
+
+            Map<Long, Long> expectedRow = new HashMap<>();
+            for (Long b : tagIds) {
+                long expected = intersection(a, b);
+                TagPairStats stats = index.getPairStats(a, b);
+                assertEquals(expected, stats.getIntersectionCount(), "交集: " + a + "," + b);
+                assertEquals(model.get(a).size() + model.get(b).size() - expected, stats.getUnionCount());
+                if (!a.equals(b) && expected > 0) {
+                    expectedRow.put(b, expected);
+                }
+            }
+
+            Map<Long, Long> topRow = new HashMap<>();
+            for (TagPairStats stats : index.getTopRelatedTags(a, TAGS)) {
+                topRow.put(stats.getTagId2(), stats.getIntersectionCount());
+            }
+            assertEquals(expectedRow, topRow, "TOP-K 行: " + a);
+            assertEquals(expectedRow, cooccurrence.get(a), "共现矩阵行: " + a);
+        }
+    }
+
+    private long intersection(Long a, Long b) {
+        Set<Long> common = new HashSet<>(model.get(a));
+        common.retainAll(model.get(b));
+        return common.size();
+    }
+}
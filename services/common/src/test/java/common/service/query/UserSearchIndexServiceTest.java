@@ -0,0 +1,121 @@
+package common.service.query;
+
+import common.service.query.UserSearchIndexService.UserKind;
+import common.util.NgramIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * UserSearchIndexService 后台加载测试
+ * 索引加载完成前搜索立即返回空（调用方回退到数据库），不在请求线程上构建；重复触发只加载一次
+ */
+class UserSearchIndexServiceTest {
+
+    private final CountDownLatch releaseLoad = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+    private UserSearchIndexService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Timestamp.class)))
+            .thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("user_id")).thenReturn(1L, 2L);
+        when(rs.getString("nickname")).thenReturn("小明同学", "大白");
+        when(rs.getString("username")).thenReturn("xiaoming", "dabai");
+        when(rs.getInt("is_deleted")).thenReturn(0);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenAnswer(inv -> {
+            long afterId = inv.getArgument(2);
+            if (afterId > 0) {
+                return List.of();
+            }
+            loads.incrementAndGet();
+            assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+            RowMapper<Object> mapper = inv.getArgument(1);
+            List<Object> rows = new ArrayList<>();
+            rows.add(mapper.mapRow(rs, 0));
+            rows.add(mapper.mapRow(rs, 1));
+            return rows;
+        });
+
+        service = new UserSearchIndexService(jdbcTemplate);
+        ReflectionTestUtils.setField(service, "pageSize", 100);
+        ReflectionTestUtils.setField(service, "overlapSeconds", 5);
+        ReflectionTestUtils.setField(service, "maxCandidates", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseLoad.countDown();
+        service.stop();
+    }
+
+    @Test
+    void searchFallsBackWhileIndexIsLoading() throws Exception {
+        long start = System.nanoTime();
+        Optional<List<NgramIndex.Hit>> first = service.searchAudiences("小明", 10);
+        long firstMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertFalse(first.isPresent(), "索引未就绪时应返回空，由调用方回退到数据库");
+        assertTrue(firstMs < 1000, "搜索不应等待索引加载");
+        assertFalse(service.isReady(UserKind.AUDIENCE));
+        assertEquals(-1, service.getIndexedCount(UserKind.AUDIENCE));
+
+        // 加载期间再次搜索和启动预热都不会重复加载
+        assertFalse(service.searchAudiences("大白", 10).isPresent());
+        service.buildAsync(UserKind.AUDIENCE);
+
+        releaseLoad.countDown();
+        awaitReady(UserKind.AUDIENCE);
+
+        Optional<List<NgramIndex.Hit>> hits = service.searchAudiences("小明", 10);
+        assertTrue(hits.isPresent());
+        assertEquals(1L, hits.get().get(0).getId());
+        assertEquals(2, service.getIndexedCount(UserKind.AUDIENCE));
+        assertEquals(1, loads.get(), "多次触发只加载一次");
+    }
+
+    @Test
+    void kindsAreLoadedIndependently() throws Exception {
+        releaseLoad.countDown();
+        service.buildAsync(UserKind.ANCHOR);
+        awaitReady(UserKind.ANCHOR);
+
+        assertTrue(service.searchAnchors("dabai", 10).isPresent());
+        assertFalse(service.isReady(UserKind.AUDIENCE));
+    }
+
+    private void awaitReady(UserKind kind) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!service.isReady(kind) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(service.isReady(kind), kind + " 索引应在后台加载完成");
+    }
+}
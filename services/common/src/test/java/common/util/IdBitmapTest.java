@@ -0,0 +1,108 @@
+package common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IdBitmap 与 HashSet 的对照测试
+ * 随机增删覆盖数组块、位图块以及两者之间的转换（块内超过 4096 个元素转位图，删到 4096 以下转回数组），
+ * 每一步后基数、成员、交集基数（单个和批量）、交集位图和升序遍历都应与 HashSet 一致
+ */
+class IdBitmapTest {
+
+    /** 块 0 稠密（会转为位图块），块 1 稀疏，块 7 中等，另有少量接近 MAX_ID 的ID */
+    private static final long[][] RANGES = {
+        {0, 9000},
+        {65536, 65536 + 65536},
+        {7L << 16, (7L << 16) + 6000},
+        {IdBitmap.MAX_ID - 100, IdBitmap.MAX_ID + 1},
+    };
+
+    @Test
+    void randomAddRemoveMatchesHashSet() {
+        Random random = new Random(11);
+        int bitmapCount = 4;
+        List<IdBitmap> bitmaps = new ArrayList<>();
+        List<Set<Long>> models = new ArrayList<>();
+        for (int i = 0; i < bitmapCount; i++) {
+            bitmaps.add(new IdBitmap());
+            models.add(new HashSet<>());
+        }
+
+        for (int round = 0; round < 8; round++) {
+            // 前几轮以新增为主，让块 0 越过数组上限；之后以删除为主，让位图块转回数组块
+            double addRatio = round < 4 ? 0.85 : 0.25;
+            for (int step = 0; step < 20000; step++) {
+                int b = random.nextInt(bitmapCount);
+                long id = randomId(random);
+                if (random.nextDouble() < addRatio) {
+                    assertEquals(models.get(b).add(id), bitmaps.get(b).add(id), "add " + id);
+                } else {
+                    assertEquals(models.get(b).remove(id), bitmaps.get(b).remove(id), "remove " + id);
+                }
+            }
+            for (int b = 0; b < bitmapCount; b++) {
+                assertMatches(bitmaps.get(b), models.get(b));
+            }
+            assertIntersectionsMatch(bitmaps, models);
+        }
+    }
+
+    @Test
+    void outOfRangeIdsAreRejectedOrAbsent() {
+        IdBitmap bitmap = new IdBitmap();
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.remove(IdBitmap.MAX_ID + 1));
+        assertTrue(bitmap.add(IdBitmap.MAX_ID));
+        assertFalse(bitmap.add(IdBitmap.MAX_ID));
+        assertTrue(bitmap.contains(IdBitmap.MAX_ID));
+        assertTrue(bitmap.remove(IdBitmap.MAX_ID));
+        assertTrue(bitmap.isEmpty());
+    }
+
+    private static long randomId(Random random) {
+        // 六成落在块 0，保证单个位图在块 0 内越过数组上限
+        long[] range = random.nextInt(10) < 6 ? RANGES[0] : RANGES[1 + random.nextInt(RANGES.length - 1)];
+        return range[0] + (long) (random.nextDouble() * (range[1] - range[0]));
+    }
+
+    private static void assertMatches(IdBitmap bitmap, Set<Long> model) {
+        assertEquals(model.size(), bitmap.getCardinality());
+        assertEquals(model.isEmpty(), bitmap.isEmpty());
+        for (Long id : model) {
+            assertTrue(bitmap.contains(id), "contains " + id);
+        }
+
+        List<Long> iterated = new ArrayList<>();
+        bitmap.forEach(iterated::add);
+        assertEquals(new ArrayList<>(new TreeSet<>(model)), iterated, "forEach 按升序遍历全部ID");
+    }
+
+    private static void assertIntersectionsMatch(List<IdBitmap> bitmaps, List<Set<Long>> models) {
+        IdBitmap[] all = bitmaps.toArray(new IdBitmap[0]);
+        for (int a = 0; a < all.length; a++) {
+            long[] expected = new long[all.length];
+            for (int b = 0; b < all.length; b++) {
+                Set<Long> common = new HashSet<>(models.get(a));
+                common.retainAll(models.get(b));
+                expected[b] = common.size();
+
+                assertEquals(common.size(), all[a].andCardinality(all[b]), "andCardinality " + a + "," + b);
+                IdBitmap and = all[a].and(all[b]);
+                assertMatches(and, common);
+            }
+            assertArrayEquals(expected, all[a].andCardinality(all), "批量 andCardinality " + a);
+        }
+    }
+}
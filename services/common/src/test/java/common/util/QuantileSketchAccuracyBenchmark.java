@@ -0,0 +1,126 @@
+package common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * QuantileSketch 精度与延迟基准（不随单元测试运行）
+ * 1000 万笔对数正态分布的打赏金额：与全量排序的精确分位数比较秩误差，
+ * 并比较按天合并主播草图与合并每日汇总草图的耗时
+ *
+ * 运行：mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=common.util.QuantileSketchAccuracyBenchmark
+ * 或在 IDE 中直接运行 main 方法
+ */
+public class QuantileSketchAccuracyBenchmark {
+
+    private static final int N = 10_000_000;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    public static void main(String[] args) {
+        rankErrorOnTenMillionAmounts();
+        mergingDailyRollups();
+    }
+
+    private static void rankErrorOnTenMillionAmounts() {
+        Random random = new Random(42);
+        double[] values = new double[N];
+        QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K);
+
+        long updateStart = System.nanoTime();
+        for (int i = 0; i < N; i++) {
+            values[i] = amount(random);
+            sketch.update(values[i]);
+        }
+        long updateMs = (System.nanoTime() - updateStart) / 1_000_000;
+
+        long sortStart = System.nanoTime();
+        Arrays.sort(values);
+        long sortMs = (System.nanoTime() - sortStart) / 1_000_000;
+
+        byte[] bytes = sketch.toBytes();
+        QuantileSketch restored = QuantileSketch.fromBytes(bytes);
+
+        double maxRankError = 0;
+        for (double q : QUANTILES) {
+            double estimate = restored.quantile(q);
+            double rank = rankOf(values, estimate) / (double) N;
+            maxRankError = Math.max(maxRankError, Math.abs(rank - q));
+        }
+
+        System.out.printf("KLL k=%d, n=%d: update=%dms, sort=%dms, maxRankError=%.4f%%, size=%dB%n",
+                QuantileSketch.DEFAULT_K, N, updateMs, sortMs, maxRankError * 100, bytes.length);
+    }
+
+    private static void mergingDailyRollups() {
+        int days = 30;
+        int anchors = 200;
+        int tipsPerAnchorDay = 500;
+        Random random = new Random(7);
+
+        List<byte[]> anchorDays = new ArrayList<>(days * anchors);
+        List<byte[]> rollups = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            QuantileSketch rollup = new QuantileSketch();
+            for (int a = 0; a < anchors; a++) {
+                QuantileSketch anchorDay = new QuantileSketch();
+                for (int i = 0; i < tipsPerAnchorDay; i++) {
+                    double value = amount(random);
+                    anchorDay.update(value);
+                    rollup.update(value);
+                }
+                anchorDays.add(anchorDay.toBytes());
+            }
+            rollups.add(rollup.toBytes());
+        }
+
+        long anchorStart = System.nanoTime();
+        QuantileSketch fromAnchorDays = mergeAll(anchorDays);
+        long anchorMs = (System.nanoTime() - anchorStart) / 1_000_000;
+
+        long rollupStart = System.nanoTime();
+        QuantileSketch fromRollups = mergeAll(rollups);
+        long rollupMs = (System.nanoTime() - rollupStart) / 1_000_000;
+
+        System.out.printf("merge %d days x %d anchors: anchor-day sketches=%dms (%d), daily rollups=%dms (%d)%n",
+                days, anchors, anchorMs, anchorDays.size(), rollupMs, rollups.size());
+        for (double q : QUANTILES) {
+            System.out.printf("  p%s: anchor-day=%.2f, rollup=%.2f%n",
+                    q, fromAnchorDays.quantile(q), fromRollups.quantile(q));
+        }
+    }
+
+    private static QuantileSketch mergeAll(List<byte[]> sketches) {
+        QuantileSketch merged = new QuantileSketch();
+        for (byte[] bytes : sketches) {
+            merged.merge(QuantileSketch.fromBytes(bytes));
+        }
+        return merged;
+    }
+
+    /**
+     * 单笔打赏金额：中位数约 20 元的对数正态分布
+     */
+    private static double amount(Random random) {
+        return Math.round(Math.exp(3.0 + 1.2 * random.nextGaussian()) * 100) / 100.0;
+    }
+
+    /**
+     * 有序数组中小于等于 value 的元素个数
+     */
+    private static int rankOf(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
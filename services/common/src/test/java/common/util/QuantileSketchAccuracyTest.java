@@ -0,0 +1,117 @@
+package common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QuantileSketch 精度测试
+ * 20 万笔对数正态分布的打赏金额：与全量排序的精确分位数比较秩误差，
+ * 并验证按天合并主播草图与合并每日汇总草图的秩误差都在同一界内；
+ * 1000 万笔的精度与耗时见 QuantileSketchAccuracyBenchmark
+ */
+class QuantileSketchAccuracyTest {
+
+    private static final int N = 200_000;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    @Test
+    void rankErrorWithinBound() {
+        Random random = new Random(42);
+        double[] values = new double[N];
+        QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K);
+        for (int i = 0; i < N; i++) {
+            values[i] = amount(random);
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+
+        byte[] bytes = sketch.toBytes();
+        QuantileSketch restored = QuantileSketch.fromBytes(bytes);
+        assertEquals(N, restored.getCount());
+
+        for (double q : QUANTILES) {
+            double rank = rankOf(values, restored.quantile(q)) / (double) N;
+            assertTrue(Math.abs(rank - q) < 0.013, "k=200 时归一化秩误差应在 1.3% 以内: p" + q);
+        }
+        assertTrue(bytes.length < 16 * 1024, "草图大小与输入量无关");
+    }
+
+    @Test
+    void mergedSketchesStayWithinBound() {
+        int days = 10;
+        int anchors = 20;
+        int tipsPerAnchorDay = 200;
+        Random random = new Random(7);
+        double[] values = new double[days * anchors * tipsPerAnchorDay];
+        int n = 0;
+
+        List<byte[]> anchorDays = new ArrayList<>(days * anchors);
+        List<byte[]> rollups = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            QuantileSketch rollup = new QuantileSketch();
+            for (int a = 0; a < anchors; a++) {
+                QuantileSketch anchorDay = new QuantileSketch();
+                for (int i = 0; i < tipsPerAnchorDay; i++) {
+                    double value = amount(random);
+                    values[n++] = value;
+                    anchorDay.update(value);
+                    rollup.update(value);
+                }
+                anchorDays.add(anchorDay.toBytes());
+            }
+            rollups.add(rollup.toBytes());
+        }
+
+        Arrays.sort(values);
+        QuantileSketch fromAnchorDays = mergeAll(anchorDays);
+        QuantileSketch fromRollups = mergeAll(rollups);
+
+        assertEquals(n, fromRollups.getCount());
+        assertEquals(fromAnchorDays.getCount(), fromRollups.getCount());
+        for (double q : QUANTILES) {
+            double a = rankOf(values, fromAnchorDays.quantile(q)) / (double) n;
+            double b = rankOf(values, fromRollups.quantile(q)) / (double) n;
+            assertTrue(Math.abs(a - q) < 0.013, "合并主播草图的秩误差应在 1.3% 以内: p" + q);
+            assertTrue(Math.abs(b - q) < 0.013, "合并每日汇总草图的秩误差应在 1.3% 以内: p" + q);
+        }
+    }
+
+    private static QuantileSketch mergeAll(List<byte[]> sketches) {
+        QuantileSketch merged = new QuantileSketch();
+        for (byte[] bytes : sketches) {
+            merged.merge(QuantileSketch.fromBytes(bytes));
+        }
+        return merged;
+    }
+
+    /**
+     * 单笔打赏金额：中位数约 20 元的对数正态分布
+     */
+    private static double amount(Random random) {
+        return Math.round(Math.exp(3.0 + 1.2 * random.nextGaussian()) * 100) / 100.0;
+    }
+
+    /**
+     * 有序数组中小于等于 value 的元素个数
+     */
+    private static int rankOf(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,125 @@
+package common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimeSeriesOps 基准测试：一年小时序列（8760 点）上的 MA / EMA / 增长率，
+ * 与改造前逐窗口累加的 BigDecimal 实现对比
+ *
+ * 运行：mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=common.util.TimeSeriesOpsBenchmark
+ * 或在 IDE 中直接运行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeSeriesOpsBenchmark {
+
+    @Param({"8760"})
+    private int points;
+
+    @Param({"24", "168"})
+    private int window;
+
+    private long[] cents;
+    private BigDecimal[] amounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        cents = new long[points];
+        amounts = new BigDecimal[points];
+        for (int i = 0; i < points; i++) {
+            // 约 20% 的小时没有打赏
+            cents[i] = random.nextInt(5) == 0 ? 0L : (long) (Math.exp(8 + random.nextGaussian()) * 100);
+            amounts[i] = BigDecimal.valueOf(cents[i], 2);
+        }
+    }
+
+    @Benchmark
+    public long[] movingAverage() {
+        return TimeSeriesOps.movingAverage(cents, window);
+    }
+
+    @Benchmark
+    public BigDecimal[] movingAverageBigDecimal() {
+        BigDecimal[] result = new BigDecimal[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            int start = Math.max(0, i - window + 1);
+            BigDecimal sum = BigDecimal.ZERO;
+            for (int j = start; j <= i; j++) {
+                sum = sum.add(amounts[j]);
+            }
+            result[i] = sum.divide(BigDecimal.valueOf(i - start + 1), 2, RoundingMode.HALF_UP);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long[] ema() {
+        return TimeSeriesOps.ema(cents, window);
+    }
+
+    @Benchmark
+    public BigDecimal[] emaBigDecimal() {
+        double alpha = 2.0 / (window + 1);
+        BigDecimal[] result = new BigDecimal[amounts.length];
+        BigDecimal initialSum = BigDecimal.ZERO;
+        int initialCount = Math.min(window, amounts.length);
+        for (int i = 0; i < initialCount; i++) {
+            initialSum = initialSum.add(amounts[i]);
+        }
+        BigDecimal ema = initialSum.divide(BigDecimal.valueOf(initialCount), 2, RoundingMode.HALF_UP);
+        result[0] = ema;
+        for (int i = 1; i < amounts.length; i++) {
+            ema = amounts[i].multiply(BigDecimal.valueOf(alpha))
+                .add(ema.multiply(BigDecimal.valueOf(1 - alpha)))
+                .setScale(2, RoundingMode.HALF_UP);
+            result[i] = ema;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long[] growthRate() {
+        return TimeSeriesOps.growthRate(cents);
+    }
+
+    @Benchmark
+    public BigDecimal[] growthRateBigDecimal() {
+        BigDecimal[] result = new BigDecimal[amounts.length];
+        result[0] = BigDecimal.ZERO;
+        for (int i = 1; i < amounts.length; i++) {
+            BigDecimal prev = amounts[i - 1];
+            result[i] = prev.signum() == 0 ? BigDecimal.ZERO
+                : amounts[i].subtract(prev).divide(prev, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.HALF_UP);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TimeSeriesOpsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,13 +1,26 @@
 package com.liveroom.analysis.config;
 
+import com.liveroom.analysis.dto.AmountQuantileDTO;
+import com.liveroom.analysis.dto.AnchorIncomeAnalysisDTO;
+import com.liveroom.analysis.dto.ConsumptionSegmentationDTO;
+import com.liveroom.analysis.dto.HeatmapDataDTO;
+import com.liveroom.analysis.dto.KeyMetricsDTO;
+import com.liveroom.analysis.dto.RankingItemDTO;
+import com.liveroom.analysis.dto.RetentionAnalysisDTO;
+import com.liveroom.analysis.dto.TagRelationAnalysisDTO;
+import com.liveroom.analysis.dto.TimeSeriesDataDTO;
+import com.liveroom.analysis.dto.UserPortraitDTO;
+import common.config.CompactRedisSerializer;
+import common.config.RedisProperties;
+import common.config.RedisTypeRegistry;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -21,17 +34,38 @@ public class CacheConfig {
 
     /**
      * Redis缓存管理器
+     * 缓存值默认使用紧凑二进制序列化（spring.redis.cache-serializer=json 可切回 JSON）
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory, RedisProperties redisProperties) {
+        RedisSerializer<Object> valueSerializer =
+            CompactRedisSerializer.forCache(redisProperties, analysisTypeRegistry());
+
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
             .entryTtl(Duration.ofHours(1))  // 默认1小时过期
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
             .disableCachingNullValues();
 
         return RedisCacheManager.builder(connectionFactory)
             .cacheDefaults(config)
             .build();
     }
+
+    /**
+     * 分析结果类型注册表（类型ID从100开始，已分配的ID不可复用）
+     */
+    private RedisTypeRegistry analysisTypeRegistry() {
+        return RedisTypeRegistry.defaults()
+            .register(100, 1, TimeSeriesDataDTO.class)
+            .register(101, 1, RankingItemDTO.class)
+            .register(102, 1, KeyMetricsDTO.class)
+            .register(103, 1, ConsumptionSegmentationDTO.class)
+            .register(104, 1, TagRelationAnalysisDTO.class)
+            .register(105, 1, HeatmapDataDTO.class)
+            .register(106, 1, AnchorIncomeAnalysisDTO.class)
+            .register(107, 1, RetentionAnalysisDTO.class)
+            .register(108, 1, UserPortraitDTO.class)
+            .register(109, 1, AmountQuantileDTO.class);
+    }
 }
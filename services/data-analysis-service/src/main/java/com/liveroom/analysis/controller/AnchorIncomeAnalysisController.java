@@ -12,7 +12,10 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -43,6 +46,22 @@ public class AnchorIncomeAnalysisController {
         return ResponseUtil.success(analysis);
     }
 
+    /**
+     * 批量获取主播收入分析（一次查询加载全部主播打赏，并行计算）
+     */
+    @PostMapping("/income/batch")
+    public BaseResponse<List<AnchorIncomeAnalysisDTO>> getAnchorIncomeAnalysisBatch(
+            @RequestBody @NotEmpty @Size(max = 200) List<Long> anchorIds,
+            @RequestParam @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+
+        TraceLogger.info("AnchorIncomeAnalysisController", "getAnchorIncomeAnalysisBatch",
+            null, "anchorCount", anchorIds.size(), "startTime", startTime, "endTime", endTime);
+
+        List<AnchorIncomeAnalysisDTO> analyses = anchorIncomeAnalysisService.getAnchorIncomeAnalysisBatch(anchorIds, startTime, endTime);
+        return ResponseUtil.success(analyses);
+    }
+
     /**
      * 获取主播收入排行榜
      */
@@ -58,4 +77,20 @@ public class AnchorIncomeAnalysisController {
         List<AnchorIncomeAnalysisDTO> rankings = anchorIncomeAnalysisService.getTopAnchorsByIncome(startTime, endTime, limit);
         return ResponseUtil.success(rankings);
     }
+
+    /**
+     * 获取单笔打赏金额分位数（p50/p90/p99），anchorId 为空时统计全部主播
+     */
+    @GetMapping("/amount-quantiles")
+    public BaseResponse<AmountQuantileDTO> getAmountQuantiles(
+            @RequestParam(required = false) Long anchorId,
+            @RequestParam @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        TraceLogger.info("AnchorIncomeAnalysisController", "getAmountQuantiles",
+            anchorId, "startDate", startDate, "endDate", endDate);
+
+        AmountQuantileDTO quantiles = anchorIncomeAnalysisService.getAmountQuantiles(anchorId, startDate, endDate);
+        return ResponseUtil.success(quantiles);
+    }
 }
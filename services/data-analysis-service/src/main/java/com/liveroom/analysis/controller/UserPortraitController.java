@@ -53,4 +53,16 @@ public class UserPortraitController {
         List<UserPortraitDTO> portraits = userPortraitService.batchGetUserPortraits(audienceIds);
         return ResponseUtil.success(portraits);
     }
+
+    /**
+     * 获取观众RFM分层分布
+     */
+    @GetMapping("/segmentation")
+    public BaseResponse<ConsumptionSegmentationDTO> getConsumptionSegmentation() {
+
+        TraceLogger.info("UserPortraitController", "getConsumptionSegmentation", null);
+
+        ConsumptionSegmentationDTO segmentation = userPortraitService.getConsumptionSegmentation();
+        return ResponseUtil.success(segmentation);
+    }
 }
@@ -0,0 +1,44 @@
+package com.liveroom.analysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 单笔打赏金额分位数DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmountQuantileDTO {
+
+    /** 主播ID（为空表示全部主播） */
+    private Long anchorId;
+
+    /** 开始日期 */
+    private LocalDate startDate;
+
+    /** 结束日期 */
+    private LocalDate endDate;
+
+    /** 打赏笔数 */
+    private Long rechargeCount;
+
+    /** 打赏总金额 */
+    private BigDecimal totalAmount;
+
+    /** 最小单笔金额 */
+    private BigDecimal minAmount;
+
+    /** 最大单笔金额 */
+    private BigDecimal maxAmount;
+
+    /** 分位数（p50/p90/p99 -> 金额），由每日草图合并估算 */
+    private Map<String, BigDecimal> quantiles;
+}
@@ -44,4 +44,10 @@ public class TimeSeriesDataDTO {
     
     /** 最小值 */
     private BigDecimal minValue;
+
+    /** 移动平均（按天7日、按小时24小时） */
+    private List<BigDecimal> movingAverage;
+
+    /** 环比增长率（%） */
+    private List<BigDecimal> growthRates;
 }
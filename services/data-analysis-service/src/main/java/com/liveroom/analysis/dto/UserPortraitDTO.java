@@ -70,4 +70,7 @@ public class UserPortraitDTO {
     
     /** 消费的主播数量 */
     private Integer anchorCount;
+
+    /** 衰减消费金额（近期消费权重更高） */
+    private BigDecimal decayedMonetary;
 }
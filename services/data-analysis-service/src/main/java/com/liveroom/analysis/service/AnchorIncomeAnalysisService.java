@@ -1,20 +1,26 @@
 package com.liveroom.analysis.service;
 
+import com.liveroom.analysis.dto.AmountQuantileDTO;
 import com.liveroom.analysis.dto.AnchorIncomeAnalysisDTO;
 import common.bean.user.Anchor;
 import common.bean.Recharge;
 import common.exception.AnalysisException;
 import common.logger.TraceLogger;
-import common.service.AnalysisQueryService.RechargeStats;
+import common.service.AnchorAmountSketchService.AmountQuantiles;
 import common.service.DataAccessFacade;
+import common.util.MoneyUtil;
+import common.util.TimeSeriesOps;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +33,9 @@ public class AnchorIncomeAnalysisService {
 
     private final DataAccessFacade dataAccessFacade;
 
+    /** 多主播分析时按主播拆分任务并行计算 */
+    private final Executor analysisTaskExecutor;
+
     /**
      * 获取主播收入分析
      */
@@ -45,85 +54,7 @@ public class AnchorIncomeAnalysisService {
             List<Recharge> recharges = dataAccessFacade.analysisQuery()
                 .getRechargesByAnchorAndTimeRange(anchorId, startTime, endTime);
 
-            if (recharges.isEmpty()) {
-                return buildEmptyAnalysis(anchorId, anchor.getNickname());
-            }
-
-            // 按日期分组统计收入
-            Map<String, RechargeStats> dailyStats = dataAccessFacade.analysisQuery()
-                .getAnchorRechargeStatsByDay(anchorId, startTime, endTime);
-
-            // 计算总收入（基于打赏金额）
-            BigDecimal totalRechargeAmount = recharges.stream()
-                .map(Recharge::getRechargeAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // 计算打赏次数和唯一付费用户数
-            int rechargeCount = recharges.size();
-            int uniquePayers = (int) recharges.stream()
-                .map(Recharge::getAudienceId)
-                .distinct()
-                .count();
-
-            // 计算每日收入趋势
-            Map<String, BigDecimal> dailyTrend = dailyStats.entrySet().stream()
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    entry -> entry.getValue().getTotalAmount()
-                ));
-
-            // 计算平均日收入
-            BigDecimal avgDailyIncome = dailyTrend.isEmpty() ? BigDecimal.ZERO :
-                totalRechargeAmount.divide(
-                    BigDecimal.valueOf(dailyTrend.size()), 2, RoundingMode.HALF_UP);
-
-            // 计算最高/最低日收入
-            BigDecimal maxDailyIncome = dailyTrend.values().stream()
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-
-            BigDecimal minDailyIncome = dailyTrend.values().stream()
-                .min(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-
-            // 计算收入稳定性（变异系数CV）
-            BigDecimal stabilityScore = calculateStabilityScore(dailyTrend);
-            String stabilityLevel = classifyStabilityLevel(stabilityScore);
-
-            // 计算增长率（与上一时期对比）
-            BigDecimal growthRate = calculateGrowthRate(dailyTrend);
-
-            // 计算人均粉丝价值（需要获取粉丝数）
-            int fansCount = anchor.getFanCount() != null ? anchor.getFanCount().intValue() : 1;
-            BigDecimal fanValue = fansCount > 0 ? 
-                totalRechargeAmount.divide(BigDecimal.valueOf(fansCount), 2, RoundingMode.HALF_UP) :
-                BigDecimal.ZERO;
-
-            // 计算打赏转化率（需要直播间观看数据）
-            BigDecimal conversionRate = BigDecimal.ZERO; // 简化实现
-
-            // 计算移动平均
-            Map<String, BigDecimal> ma7 = calculateMovingAverage(dailyTrend, 7);
-            Map<String, BigDecimal> ma30 = calculateMovingAverage(dailyTrend, 30);
-
-            return AnchorIncomeAnalysisDTO.builder()
-                .anchorId(anchorId)
-                .anchorName(anchor.getNickname())
-                .totalIncome(totalRechargeAmount)
-                .avgDailyIncome(avgDailyIncome)
-                .maxDailyIncome(maxDailyIncome)
-                .minDailyIncome(minDailyIncome)
-                .stabilityScore(stabilityScore)
-                .stabilityLevel(stabilityLevel)
-                .growthRate(growthRate)
-                .rechargeCount(rechargeCount)
-                .uniquePayers(uniquePayers)
-                .fanValue(fanValue)
-                .conversionRate(conversionRate)
-                .dailyTrend(dailyTrend)
-                .ma7(ma7)
-                .ma30(ma30)
-                .build();
+            return buildAnalysis(anchor, recharges);
 
         } catch (AnalysisException e) {
             throw e;
@@ -133,6 +64,87 @@ public class AnchorIncomeAnalysisService {
         }
     }
 
+    /**
+     * 由主播信息和时间范围内的打赏记录计算收入分析（纯计算，不访问数据库）
+     */
+    private AnchorIncomeAnalysisDTO buildAnalysis(Anchor anchor, List<Recharge> recharges) {
+        if (recharges.isEmpty()) {
+            return buildEmptyAnalysis(anchor.getUserId(), anchor.getNickname());
+        }
+
+        // 计算总收入（基于打赏金额）
+        BigDecimal totalRechargeAmount = recharges.stream()
+            .map(Recharge::getRechargeAmount)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // 计算打赏次数和唯一付费用户数
+        int rechargeCount = recharges.size();
+        int uniquePayers = (int) recharges.stream()
+            .map(Recharge::getAudienceId)
+            .distinct()
+            .count();
+
+        // 计算每日收入趋势（由已加载的打赏按日期汇总，不再二次查询）
+        Map<String, BigDecimal> dailyTrend = recharges.stream()
+            .collect(Collectors.groupingBy(
+                r -> r.getRechargeTime().toLocalDate().toString(),
+                Collectors.reducing(BigDecimal.ZERO, Recharge::getRechargeAmount, BigDecimal::add)
+            ));
+
+        // 计算平均日收入
+        BigDecimal avgDailyIncome = dailyTrend.isEmpty() ? BigDecimal.ZERO :
+            totalRechargeAmount.divide(
+                BigDecimal.valueOf(dailyTrend.size()), 2, RoundingMode.HALF_UP);
+
+        // 计算最高/最低日收入
+        BigDecimal maxDailyIncome = dailyTrend.values().stream()
+            .max(BigDecimal::compareTo)
+            .orElse(BigDecimal.ZERO);
+
+        BigDecimal minDailyIncome = dailyTrend.values().stream()
+            .min(BigDecimal::compareTo)
+            .orElse(BigDecimal.ZERO);
+
+        // 计算收入稳定性（变异系数CV）
+        BigDecimal stabilityScore = calculateStabilityScore(dailyTrend);
+        String stabilityLevel = classifyStabilityLevel(stabilityScore);
+
+        // 计算增长率（与上一时期对比）
+        BigDecimal growthRate = calculateGrowthRate(dailyTrend);
+
+        // 计算人均粉丝价值（需要获取粉丝数）
+        int fansCount = anchor.getFanCount() != null ? anchor.getFanCount().intValue() : 1;
+        BigDecimal fanValue = fansCount > 0 ? 
+            totalRechargeAmount.divide(BigDecimal.valueOf(fansCount), 2, RoundingMode.HALF_UP) :
+            BigDecimal.ZERO;
+
+        // 计算打赏转化率（需要直播间观看数据）
+        BigDecimal conversionRate = BigDecimal.ZERO; // 简化实现
+
+        // 计算移动平均
+        Map<String, BigDecimal> ma7 = calculateMovingAverage(dailyTrend, 7);
+        Map<String, BigDecimal> ma30 = calculateMovingAverage(dailyTrend, 30);
+
+        return AnchorIncomeAnalysisDTO.builder()
+            .anchorId(anchor.getUserId())
+            .anchorName(anchor.getNickname())
+            .totalIncome(totalRechargeAmount)
+            .avgDailyIncome(avgDailyIncome)
+            .maxDailyIncome(maxDailyIncome)
+            .minDailyIncome(minDailyIncome)
+            .stabilityScore(stabilityScore)
+            .stabilityLevel(stabilityLevel)
+            .growthRate(growthRate)
+            .rechargeCount(rechargeCount)
+            .uniquePayers(uniquePayers)
+            .fanValue(fanValue)
+            .conversionRate(conversionRate)
+            .dailyTrend(dailyTrend)
+            .ma7(ma7)
+            .ma30(ma30)
+            .build();
+    }
+
     /**
      * 计算收入稳定性（变异系数CV）
      * CV = 标准差 / 平均值
@@ -218,16 +230,15 @@ public class AnchorIncomeAnalysisService {
             .sorted()
             .collect(Collectors.toList());
 
+        long[] cents = new long[keys.size()];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = MoneyUtil.dollarsToCents(data.get(keys.get(i)));
+        }
+        long[] ma = TimeSeriesOps.movingAverage(cents, windowSize);
+
         Map<String, BigDecimal> maMap = new LinkedHashMap<>();
         for (int i = 0; i < keys.size(); i++) {
-            int start = Math.max(0, i - windowSize + 1);
-            BigDecimal sum = BigDecimal.ZERO;
-            for (int j = start; j <= i; j++) {
-                sum = sum.add(data.get(keys.get(j)));
-            }
-            int count = i - start + 1;
-            BigDecimal ma = sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
-            maMap.put(keys.get(i), ma);
+            maMap.put(keys.get(i), BigDecimal.valueOf(ma[i], 2));
         }
         return maMap;
     }
@@ -265,41 +276,119 @@ public class AnchorIncomeAnalysisService {
             TraceLogger.info("AnchorIncomeAnalysisService", "getTopAnchorsByIncome",
                 null, "startTime", startTime, "endTime", endTime, "limit", limit);
 
-            // 获取所有主播的收入数据
-            List<Recharge> allRecharges = dataAccessFacade.analysisQuery()
-                .getRechargesByTimeRange(startTime, endTime);
-
-            // 按主播分组统计收入
-            Map<Long, BigDecimal> anchorIncome = allRecharges.stream()
-                .collect(Collectors.groupingBy(
-                    Recharge::getAnchorId,
-                    Collectors.reducing(
-                        BigDecimal.ZERO,
-                        Recharge::getRechargeAmount,
-                        BigDecimal::add
-                    )
-                ));
-
-            // 获取主播信息并构建分析数据
-            return anchorIncome.entrySet().stream()
+            // 一次扫描时间范围内的打赏，按主播分组
+            Map<Long, List<Recharge>> rechargesByAnchor = dataAccessFacade.analysisQuery()
+                .getRechargesByTimeRange(startTime, endTime).stream()
+                .collect(Collectors.groupingBy(Recharge::getAnchorId));
+
+            // 按收入降序取前 limit 个主播
+            Map<Long, BigDecimal> anchorIncome = new HashMap<>(rechargesByAnchor.size() * 2);
+            rechargesByAnchor.forEach((anchorId, list) -> anchorIncome.put(anchorId, list.stream()
+                .map(Recharge::getRechargeAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+            List<Long> topAnchorIds = anchorIncome.entrySet().stream()
                 .sorted((a, b) -> b.getValue().compareTo(a.getValue())) // 按收入降序
                 .limit(limit)
-                .map(entry -> {
-                    Long anchorId = entry.getKey();
-                    try {
-                        return getAnchorIncomeAnalysis(anchorId, startTime, endTime);
-                    } catch (Exception e) {
-                        TraceLogger.warn("AnchorIncomeAnalysisService", "getTopAnchorsByIncome", 
-                            anchorId, "获取单个主播分析失败", e);
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
 
+            // 复用已分组的打赏并行计算各主播分析，不再逐个主播重新扫描
+            return analyzeInParallel(topAnchorIds, rechargesByAnchor, "getTopAnchorsByIncome");
+
         } catch (Exception e) {
             TraceLogger.error("AnchorIncomeAnalysisService", "getTopAnchorsByIncome", null, e);
             throw new AnalysisException(5042, "获取主播收入排行榜失败: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 批量获取主播收入分析
+     * 一次分组查询加载全部主播的打赏，各主播在分析线程池上并行计算，结果顺序与入参一致
+     */
+    public List<AnchorIncomeAnalysisDTO> getAnchorIncomeAnalysisBatch(List<Long> anchorIds,
+                                                                      LocalDateTime startTime, LocalDateTime endTime) {
+        try {
+            TraceLogger.info("AnchorIncomeAnalysisService", "getAnchorIncomeAnalysisBatch",
+                null, "anchorCount", anchorIds.size(), "startTime", startTime, "endTime", endTime);
+
+            List<Long> distinctIds = anchorIds.stream().distinct().collect(Collectors.toList());
+            Map<Long, List<Recharge>> rechargesByAnchor = dataAccessFacade.analysisQuery()
+                .getRechargesByAnchorsAndTimeRange(distinctIds, startTime, endTime);
+
+            return analyzeInParallel(distinctIds, rechargesByAnchor, "getAnchorIncomeAnalysisBatch");
+
+        } catch (Exception e) {
+            TraceLogger.error("AnchorIncomeAnalysisService", "getAnchorIncomeAnalysisBatch", null, e);
+            throw new AnalysisException(5044, "批量获取主播收入分析失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 并行计算多个主播的收入分析
+     * 每个主播一个任务提交到分析线程池，空闲线程从共享队列取任务，耗时长的主播不会拖住其他主播；
+     * 队列满时由调用线程执行（CallerRunsPolicy）。主播不存在或单个主播计算失败时跳过该主播
+     */
+    private List<AnchorIncomeAnalysisDTO> analyzeInParallel(List<Long> anchorIds,
+                                                            Map<Long, List<Recharge>> rechargesByAnchor,
+                                                            String operation) {
+        // 一次批量加载主播信息（缓存 MGET + 未命中 IN 查询）
+        Map<Long, Anchor> anchors = anchorIds.isEmpty() ? Collections.emptyMap() :
+            dataAccessFacade.anchor().findBatch(anchorIds).stream()
+                .collect(Collectors.toMap(Anchor::getUserId, anchor -> anchor));
+
+        List<CompletableFuture<AnchorIncomeAnalysisDTO>> futures = new ArrayList<>(anchorIds.size());
+        for (Long anchorId : anchorIds) {
+            Anchor anchor = anchors.get(anchorId);
+            if (anchor == null) {
+                TraceLogger.warn("AnchorIncomeAnalysisService", operation, anchorId, "主播不存在");
+                continue;
+            }
+            List<Recharge> recharges = rechargesByAnchor.getOrDefault(anchorId, Collections.emptyList());
+            futures.add(CompletableFuture
+                .supplyAsync(() -> buildAnalysis(anchor, recharges), analysisTaskExecutor)
+                .exceptionally(e -> {
+                    TraceLogger.warn("AnchorIncomeAnalysisService", operation,
+                        anchorId, "获取单个主播分析失败", e);
+                    return null;
+                }));
+        }
+
+        return futures.stream()
+            .map(CompletableFuture::join)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取单笔打赏金额分位数（p50/p90/p99）
+     * 由每日金额草图合并得到，不读取打赏明细
+     *
+     * @param anchorId 主播ID，为空时统计全部主播
+     */
+    @Cacheable(value = "analysis:anchor-income",
+        key = "'quantiles:' + (#anchorId ?: 'all') + ':' + #startDate + ':' + #endDate")
+    public AmountQuantileDTO getAmountQuantiles(Long anchorId, LocalDate startDate, LocalDate endDate) {
+        try {
+            TraceLogger.info("AnchorIncomeAnalysisService", "getAmountQuantiles",
+                anchorId, "startDate", startDate, "endDate", endDate);
+
+            AmountQuantiles quantiles = dataAccessFacade.anchorAmountSketch()
+                .getQuantiles(anchorId, startDate, endDate, 0.5, 0.9, 0.99);
+
+            return AmountQuantileDTO.builder()
+                .anchorId(anchorId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .rechargeCount(quantiles.getTipCount())
+                .totalAmount(quantiles.getSumAmount())
+                .minAmount(quantiles.getMinAmount())
+                .maxAmount(quantiles.getMaxAmount())
+                .quantiles(quantiles.getQuantiles())
+                .build();
+
+        } catch (Exception e) {
+            TraceLogger.error("AnchorIncomeAnalysisService", "getAmountQuantiles", anchorId, e);
+            throw new AnalysisException(5043, "获取打赏金额分位数失败: " + e.getMessage(), e);
+        }
+    }
 }
@@ -4,19 +4,20 @@ import com.liveroom.analysis.dto.TagRelationAnalysisDTO;
 import common.exception.AnalysisException;
 import common.logger.TraceLogger;
 import common.service.DataAccessFacade;
+import common.service.query.TagBitmapIndexService.TagPairStats;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 标签关联分析Service
  * 基于Jaccard相似度计算标签关联度
+ *
+ * 交集、并集均来自标签位图索引（audience_tag / anchor_tag），只做位图交集计数；
+ * 索引在进程内增量维护、毫秒级响应，因此不再经过 Redis 缓存
  */
 @Service
 @RequiredArgsConstructor
@@ -27,58 +28,16 @@ public class TagRelationAnalysisService {
     /**
      * 计算两个标签的关联度
      */
-    @Cacheable(value = "analysis:tag-relation", key = "'relation:' + #tagId1 + ':' + #tagId2")
     public TagRelationAnalysisDTO getTagRelation(Long tagId1, Long tagId2) {
         try {
             TraceLogger.info("TagRelationAnalysisService", "getTagRelation", 
                 null, "tagId1", tagId1, "tagId2", tagId2);
 
-            // 这里需要获取标签相关的用户数据，由于common模块中没有直接的标签关联表，
-            // 我们将使用anchor_tag和audience_tag表的数据进行关联分析
-            // 模拟获取标签相关的用户集合
-            Set<Long> usersWithTag1 = getTaggedUsers(tagId1);
-            Set<Long> usersWithTag2 = getTaggedUsers(tagId2);
-
-            if (usersWithTag1.isEmpty() || usersWithTag2.isEmpty()) {
-                return buildEmptyRelation(tagId1, tagId2);
+            TagPairStats stats = dataAccessFacade.tagBitmapIndex().getPairStats(tagId1, tagId2);
+            if (stats.getTagCount1() == 0 || stats.getTagCount2() == 0) {
+                return buildEmptyRelation(stats);
             }
-
-            // 计算交集和并集
-            Set<Long> intersection = new HashSet<>(usersWithTag1);
-            intersection.retainAll(usersWithTag2);
-
-            Set<Long> union = new HashSet<>(usersWithTag1);
-            union.addAll(usersWithTag2);
-
-            // 计算Jaccard相似度
-            BigDecimal jaccardSimilarity = calculateJaccardSimilarity(
-                usersWithTag1.size(), usersWithTag2.size(), intersection.size());
-
-            // 计算共现频率
-            BigDecimal cooccurrenceFrequency = calculateCooccurrenceFrequency(
-                intersection.size(), Math.min(usersWithTag1.size(), usersWithTag2.size()));
-
-            // 确定关联强度等级
-            String strengthLevel = determineStrengthLevel(jaccardSimilarity, cooccurrenceFrequency);
-
-            // 获取标签名称（这里简化处理）
-            String tagName1 = "Tag" + tagId1;
-            String tagName2 = "Tag" + tagId2;
-
-            return TagRelationAnalysisDTO.builder()
-                .tagId1(tagId1)
-                .tagName1(tagName1)
-                .tagId2(tagId2)
-                .tagName2(tagName2)
-                .jaccardSimilarity(jaccardSimilarity)
-                .cooccurrenceFrequency(cooccurrenceFrequency)
-                .strengthLevel(strengthLevel)
-                .cooccurrenceCount(intersection.size())
-                .tag1TotalCount(usersWithTag1.size())
-                .tag2TotalCount(usersWithTag2.size())
-                .intersectionCount(intersection.size())
-                .unionCount(union.size())
-                .build();
+            return buildRelation(stats);
 
         } catch (Exception e) {
             TraceLogger.error("TagRelationAnalysisService", "getTagRelation", 
@@ -88,21 +47,43 @@ public class TagRelationAnalysisService {
     }
 
     /**
-     * 获取与指定标签关联的用户集合
-     * 这里简化实现，实际应查询anchor_tag和audience_tag表
+     * 由标签对的交集统计构建关联分析
      */
-    private Set<Long> getTaggedUsers(Long tagId) {
-        // 模拟数据 - 实际应查询数据库
-        Set<Long> users = new HashSet<>();
-        
-        // 假设有一些用户与标签关联
-        for (int i = 1; i <= 10; i++) {
-            if (i % 2 == 0) { // 模拟标签关联
-                users.add(tagId * 100L + i);
-            }
-        }
-        
-        return users;
+    private TagRelationAnalysisDTO buildRelation(TagPairStats stats) {
+        int count1 = (int) stats.getTagCount1();
+        int count2 = (int) stats.getTagCount2();
+        int intersection = (int) stats.getIntersectionCount();
+
+        // 计算Jaccard相似度
+        BigDecimal jaccardSimilarity = calculateJaccardSimilarity(count1, count2, intersection);
+
+        // 计算共现频率
+        BigDecimal cooccurrenceFrequency = calculateCooccurrenceFrequency(intersection, Math.min(count1, count2));
+
+        // 确定关联强度等级
+        String strengthLevel = determineStrengthLevel(jaccardSimilarity, cooccurrenceFrequency);
+
+        return TagRelationAnalysisDTO.builder()
+            .tagId1(stats.getTagId1())
+            .tagName1(tagName(stats.getTagId1(), stats.getTagName1()))
+            .tagId2(stats.getTagId2())
+            .tagName2(tagName(stats.getTagId2(), stats.getTagName2()))
+            .jaccardSimilarity(jaccardSimilarity)
+            .cooccurrenceFrequency(cooccurrenceFrequency)
+            .strengthLevel(strengthLevel)
+            .cooccurrenceCount(intersection)
+            .tag1TotalCount(count1)
+            .tag2TotalCount(count2)
+            .intersectionCount(intersection)
+            .unionCount((int) stats.getUnionCount())
+            .build();
+    }
+
+    /**
+     * 标签名称，标签表中不存在时使用 "Tag" + ID
+     */
+    private String tagName(Long tagId, String tagName) {
+        return tagName != null ? tagName : "Tag" + tagId;
     }
 
     /**
@@ -159,18 +140,18 @@ public class TagRelationAnalysisService {
     /**
      * 构建空关联分析
      */
-    private TagRelationAnalysisDTO buildEmptyRelation(Long tagId1, Long tagId2) {
+    private TagRelationAnalysisDTO buildEmptyRelation(TagPairStats stats) {
         return TagRelationAnalysisDTO.builder()
-            .tagId1(tagId1)
-            .tagName1("Tag" + tagId1)
-            .tagId2(tagId2)
-            .tagName2("Tag" + tagId2)
+            .tagId1(stats.getTagId1())
+            .tagName1(tagName(stats.getTagId1(), stats.getTagName1()))
+            .tagId2(stats.getTagId2())
+            .tagName2(tagName(stats.getTagId2(), stats.getTagName2()))
             .jaccardSimilarity(BigDecimal.ZERO)
             .cooccurrenceFrequency(BigDecimal.ZERO)
             .strengthLevel("无关联")
             .cooccurrenceCount(0)
-            .tag1TotalCount(0)
-            .tag2TotalCount(0)
+            .tag1TotalCount((int) stats.getTagCount1())
+            .tag2TotalCount((int) stats.getTagCount2())
             .intersectionCount(0)
             .unionCount(0)
             .build();
@@ -179,25 +160,16 @@ public class TagRelationAnalysisService {
     /**
      * 获取指定标签的TOP关联标签
      */
-    @Cacheable(value = "analysis:tag-relation", key = "'top-relation:' + #tagId + ':' + #limit")
     public List<TagRelationAnalysisDTO> getTopRelatedTags(Long tagId, int limit) {
         try {
             TraceLogger.info("TagRelationAnalysisService", "getTopRelatedTags", 
                 tagId, "limit", limit);
 
-            // 模拟获取TOP关联标签，实际应查询数据库
+            // 按Jaccard相似度取TOP，只包含与该标签有共同用户的标签
             List<TagRelationAnalysisDTO> results = new ArrayList<>();
-            
-            for (int i = 1; i <= limit; i++) {
-                if (i != tagId.intValue()) { // 排除自己
-                    Long relatedTagId = (long) i;
-                    results.add(getTagRelation(tagId, relatedTagId));
-                }
+            for (TagPairStats stats : dataAccessFacade.tagBitmapIndex().getTopRelatedTags(tagId, limit)) {
+                results.add(buildRelation(stats));
             }
-
-            // 按Jaccard相似度排序
-            results.sort((a, b) -> b.getJaccardSimilarity().compareTo(a.getJaccardSimilarity()));
-
             return results;
 
         } catch (Exception e) {
@@ -209,22 +181,30 @@ public class TagRelationAnalysisService {
     /**
      * 获取标签关联热力图矩阵
      */
-    @Cacheable(value = "analysis:tag-relation", key = "'heatmap:' + #tagIds")
     public Map<String, Map<String, BigDecimal>> getTagRelationHeatmap(List<Long> tagIds) {
         try {
             TraceLogger.info("TagRelationAnalysisService", "getTagRelationHeatmap", 
                 null, "tagCount", tagIds.size());
 
+            // 稀疏共现矩阵只包含有共同用户的标签对，其余标签对关联度为 0
+            Map<Long, Map<Long, Long>> cooccurrence = dataAccessFacade.tagBitmapIndex().getCooccurrence(tagIds);
+            Map<Long, Long> tagCounts = new HashMap<>();
+            for (Long tagId : tagIds) {
+                tagCounts.computeIfAbsent(tagId, id -> dataAccessFacade.tagBitmapIndex().getTagCount(id));
+            }
+
             Map<String, Map<String, BigDecimal>> heatmap = new HashMap<>();
 
             for (Long tagId1 : tagIds) {
+                Map<Long, Long> cells = cooccurrence.getOrDefault(tagId1, Collections.emptyMap());
                 Map<String, BigDecimal> row = new HashMap<>();
                 for (Long tagId2 : tagIds) {
                     if (tagId1.equals(tagId2)) {
                         row.put("Tag" + tagId2, new BigDecimal("100")); // 自己与自己的关联度为100%
                     } else {
-                        TagRelationAnalysisDTO relation = getTagRelation(tagId1, tagId2);
-                        row.put("Tag" + tagId2, relation.getJaccardSimilarity());
+                        long intersection = cells.getOrDefault(tagId2, 0L);
+                        row.put("Tag" + tagId2, intersection == 0 ? BigDecimal.ZERO : calculateJaccardSimilarity(
+                            tagCounts.get(tagId1).intValue(), tagCounts.get(tagId2).intValue(), (int) intersection));
                     }
                 }
                 heatmap.put("Tag" + tagId1, row);
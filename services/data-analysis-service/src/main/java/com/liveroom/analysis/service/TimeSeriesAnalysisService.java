@@ -4,16 +4,16 @@ import com.liveroom.analysis.dto.TimeSeriesDataDTO;
 import common.exception.AnalysisException;
 import common.logger.TraceLogger;
 import common.service.DataAccessFacade;
-import common.service.AnalysisQueryService.RechargeStats;
+import common.util.TimeSeriesOps;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 时间序列分析Service
@@ -22,6 +22,12 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class TimeSeriesAnalysisService {
 
+    /** 按天移动平均窗口 */
+    private static final int DAILY_MA_WINDOW = 7;
+
+    /** 按小时移动平均窗口 */
+    private static final int HOURLY_MA_WINDOW = 24;
+
     private final DataAccessFacade dataAccessFacade;
 
     /**
@@ -33,44 +39,9 @@ public class TimeSeriesAnalysisService {
             TraceLogger.info("TimeSeriesAnalysisService", "getDailyTimeSeries", 
                 null, "startTime", startTime, "endTime", endTime);
 
-            Map<String, RechargeStats> statsByDay = dataAccessFacade.analysisQuery()
-                .getRechargeStatsByDay(startTime, endTime);
-
-            List<String> timePoints = new ArrayList<>(statsByDay.keySet());
-            timePoints.sort(String::compareTo);
-
-            List<BigDecimal> values = new ArrayList<>();
-            BigDecimal total = BigDecimal.ZERO;
-            BigDecimal maxValue = BigDecimal.ZERO;
-            BigDecimal minValue = new BigDecimal(Long.MAX_VALUE);
-
-            for (String timePoint : timePoints) {
-                BigDecimal value = statsByDay.get(timePoint).getTotalAmount();
-                values.add(value);
-                total = total.add(value);
-                
-                if (value.compareTo(maxValue) > 0) {
-                    maxValue = value;
-                }
-                if (value.compareTo(minValue) < 0) {
-                    minValue = value;
-                }
-            }
-
-            BigDecimal average = timePoints.isEmpty() ? BigDecimal.ZERO :
-                total.divide(BigDecimal.valueOf(timePoints.size()), 2, BigDecimal.ROUND_HALF_UP);
-
-            return TimeSeriesDataDTO.builder()
-                .timePoints(timePoints)
-                .values(values)
-                .dataType("daily")
-                .startTime(startTime)
-                .endTime(endTime)
-                .total(total)
-                .average(average)
-                .maxValue(maxValue)
-                .minValue(minValue.equals(new BigDecimal(Long.MAX_VALUE)) ? BigDecimal.ZERO : minValue)
-                .build();
+            TimeSeriesOps.Series series = dataAccessFacade.analysisQuery()
+                .getRechargeSeries(startTime, endTime, ChronoUnit.DAYS);
+            return buildTimeSeries(series, "daily", DAILY_MA_WINDOW, startTime, endTime);
 
         } catch (Exception e) {
             TraceLogger.error("TimeSeriesAnalysisService", "getDailyTimeSeries", 
@@ -88,29 +59,9 @@ public class TimeSeriesAnalysisService {
             TraceLogger.info("TimeSeriesAnalysisService", "getHourlyTimeSeries", 
                 null, "startTime", startTime, "endTime", endTime);
 
-            Map<String, RechargeStats> statsByHour = dataAccessFacade.analysisQuery()
-                .getRechargeStatsByHour(startTime, endTime);
-
-            List<String> timePoints = new ArrayList<>(statsByHour.keySet());
-            timePoints.sort(String::compareTo);
-
-            List<BigDecimal> values = new ArrayList<>();
-            BigDecimal total = BigDecimal.ZERO;
-
-            for (String timePoint : timePoints) {
-                BigDecimal value = statsByHour.get(timePoint).getTotalAmount();
-                values.add(value);
-                total = total.add(value);
-            }
-
-            return TimeSeriesDataDTO.builder()
-                .timePoints(timePoints)
-                .values(values)
-                .dataType("hourly")
-                .startTime(startTime)
-                .endTime(endTime)
-                .total(total)
-                .build();
+            TimeSeriesOps.Series series = dataAccessFacade.analysisQuery()
+                .getRechargeSeries(startTime, endTime, ChronoUnit.HOURS);
+            return buildTimeSeries(series, "hourly", HOURLY_MA_WINDOW, startTime, endTime);
 
         } catch (Exception e) {
             TraceLogger.error("TimeSeriesAnalysisService", "getHourlyTimeSeries", 
@@ -118,4 +69,45 @@ public class TimeSeriesAnalysisService {
             throw new AnalysisException(5002, "获取每小时时间序列数据失败: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 由稠密序列（无数据的时段为 0）构建DTO，统计值在 long[] 上单次遍历计算
+     */
+    private TimeSeriesDataDTO buildTimeSeries(TimeSeriesOps.Series series, String dataType, int maWindow,
+                                              LocalDateTime startTime, LocalDateTime endTime) {
+        long[] cents = series.getCents();
+        long total = 0;
+        long max = Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+        for (long value : cents) {
+            total += value;
+            max = Math.max(max, value);
+            min = Math.min(min, value);
+        }
+
+        return TimeSeriesDataDTO.builder()
+            .timePoints(series.labels())
+            .values(toAmounts(cents))
+            .dataType(dataType)
+            .startTime(startTime)
+            .endTime(endTime)
+            .total(BigDecimal.valueOf(total, 2))
+            .average(BigDecimal.valueOf(TimeSeriesOps.divideHalfUp(total, cents.length), 2))
+            .maxValue(BigDecimal.valueOf(max, 2))
+            .minValue(BigDecimal.valueOf(min, 2))
+            .movingAverage(toAmounts(TimeSeriesOps.movingAverage(cents, maWindow)))
+            .growthRates(toAmounts(TimeSeriesOps.growthRate(cents)))
+            .build();
+    }
+
+    /**
+     * 以 1/100 为单位的整数序列（分、0.01%）转换为两位小数
+     */
+    private static List<BigDecimal> toAmounts(long[] values) {
+        List<BigDecimal> result = new ArrayList<>(values.length);
+        for (long value : values) {
+            result.add(BigDecimal.valueOf(value, 2));
+        }
+        return result;
+    }
 }
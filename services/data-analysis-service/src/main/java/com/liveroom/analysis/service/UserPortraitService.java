@@ -1,10 +1,13 @@
 package com.liveroom.analysis.service;
 
+import com.liveroom.analysis.dto.ConsumptionSegmentationDTO;
 import com.liveroom.analysis.dto.UserPortraitDTO;
 import common.bean.user.Audience;
+import common.bean.user.AudienceRfm;
 import common.bean.Recharge;
 import common.exception.AnalysisException;
 import common.logger.TraceLogger;
+import common.service.AudienceRfmService;
 import common.service.DataAccessFacade;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
@@ -14,12 +17,17 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * 用户画像分析Service
  * 基于RFM模型进行用户分层和画像分析
+ *
+ * RFM指标读取增量维护的 audience_rfm 画像表，画像表尚未覆盖的观众（新观众或轮询滞后）回退为按打赏明细计算
  */
 @Service
 @RequiredArgsConstructor
@@ -40,85 +48,11 @@ public class UserPortraitService {
                 .findById(audienceId)
                 .orElseThrow(() -> new AnalysisException(5020, "用户不存在"));
 
-            // 获取用户打赏记录
-            List<Recharge> recharges = dataAccessFacade.recharge()
-                .findByAudienceId(audienceId);
-
-            if (recharges.isEmpty()) {
-                return buildEmptyPortrait(audience);
+            Optional<AudienceRfm> profile = dataAccessFacade.audienceRfm().findProfile(audienceId);
+            if (profile.isPresent()) {
+                return buildFromProfile(audience, profile.get());
             }
-
-            // 计算RFM指标
-            LocalDateTime now = LocalDateTime.now();
-            
-            // R - Recency（最近消费）
-            LocalDateTime lastRechargeTime = recharges.stream()
-                .map(Recharge::getRechargeTime)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-            
-            int recencyDays = (int) ChronoUnit.DAYS.between(lastRechargeTime, now);
-            int recencyScore = calculateRecencyScore(recencyDays);
-
-            // F - Frequency（消费频次）
-            int frequency = recharges.size();
-            int frequencyScore = calculateFrequencyScore(frequency);
-
-            // M - Monetary（消费金额）
-            BigDecimal monetary = recharges.stream()
-                .map(Recharge::getRechargeAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            int monetaryScore = calculateMonetaryScore(monetary);
-
-            // 计算RFM综合得分
-            BigDecimal rfmScore = calculateRFMScore(recencyScore, frequencyScore, monetaryScore);
-
-            // 用户分层
-            String userLevel = classifyUserLevel(rfmScore);
-
-            // 消费分层
-            Integer consumptionLevel = audience.getConsumptionLevel();
-
-            // 活跃度评分
-            BigDecimal activityScore = calculateActivityScore(recencyDays, frequency);
-
-            // 预测LTV
-            BigDecimal predictedLTV = predictLTV(monetary, frequency, recencyDays);
-
-            // 其他统计
-            LocalDateTime firstRechargeTime = recharges.stream()
-                .map(Recharge::getRechargeTime)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-
-            BigDecimal avgAmount = monetary.divide(
-                BigDecimal.valueOf(frequency), 2, RoundingMode.HALF_UP);
-
-            int anchorCount = (int) recharges.stream()
-                .map(Recharge::getAnchorId)
-                .distinct()
-                .count();
-
-            return UserPortraitDTO.builder()
-                .userId(audienceId)
-                .userName(audience.getNickname())
-                .recencyDays(recencyDays)
-                .recencyScore(recencyScore)
-                .frequency(frequency)
-                .frequencyScore(frequencyScore)
-                .monetary(monetary)
-                .monetaryScore(monetaryScore)
-                .rfmScore(rfmScore)
-                .userLevel(userLevel)
-                .consumptionLevel(consumptionLevel)
-                .activityScore(activityScore)
-                .predictedLTV(predictedLTV)
-                .lastRechargeTime(lastRechargeTime)
-                .firstRechargeTime(firstRechargeTime)
-                .totalAmount(monetary)
-                .avgAmount(avgAmount)
-                .anchorCount(anchorCount)
-                .build();
+            return buildFromRecharges(audience);
 
         } catch (AnalysisException e) {
             throw e;
@@ -129,73 +63,103 @@ public class UserPortraitService {
     }
 
     /**
-     * 计算R得分（最近消费）
-     * 5分: 7天内
-     * 4分: 8-14天
-     * 3分: 15-30天
-     * 2分: 31-60天
-     * 1分: 60天以上
+     * 基于 audience_rfm 画像构建（索引查询，不扫描打赏明细）
      */
-    private int calculateRecencyScore(int recencyDays) {
-        if (recencyDays <= 7) return 5;
-        if (recencyDays <= 14) return 4;
-        if (recencyDays <= 30) return 3;
-        if (recencyDays <= 60) return 2;
-        return 1;
-    }
+    private UserPortraitDTO buildFromProfile(Audience audience, AudienceRfm profile) {
+        LocalDateTime now = LocalDateTime.now();
+        int recencyDays = (int) ChronoUnit.DAYS.between(profile.getLastTipTime(), now);
+        int frequency = profile.getTipCount().intValue();
+        BigDecimal monetary = BigDecimal.valueOf(profile.getSumCents(), 2);
 
-    /**
-     * 计算F得分（消费频次）
-     * 5分: >= 20次
-     * 4分: 10-19次
-     * 3分: 5-9次
-     * 2分: 2-4次
-     * 1分: 1次
-     */
-    private int calculateFrequencyScore(int frequency) {
-        if (frequency >= 20) return 5;
-        if (frequency >= 10) return 4;
-        if (frequency >= 5) return 3;
-        if (frequency >= 2) return 2;
-        return 1;
-    }
+        int recencyScore = AudienceRfmService.recencyScore(recencyDays);
+        int frequencyScore = AudienceRfmService.frequencyScore(frequency);
+        int monetaryScore = AudienceRfmService.monetaryScore(monetary);
+        BigDecimal rfmScore = AudienceRfmService.rfmScore(recencyScore, frequencyScore, monetaryScore);
 
-    /**
-     * 计算M得分（消费金额）
-     * 根据消费金额在所有用户中的百分位数
-     */
-    private int calculateMonetaryScore(BigDecimal monetary) {
-        // 简化实现，实际应查询所有用户的消费分位数
-        if (monetary.compareTo(new BigDecimal("1000")) >= 0) return 5;
-        if (monetary.compareTo(new BigDecimal("500")) >= 0) return 4;
-        if (monetary.compareTo(new BigDecimal("200")) >= 0) return 3;
-        if (monetary.compareTo(new BigDecimal("50")) >= 0) return 2;
-        return 1;
-    }
+        double decayed = dataAccessFacade.audienceRfm().decayedScoreAt(profile, now);
+        int anchorCount = (int) dataAccessFacade.recharge().countDistinctAnchorsByAudience(audience.getUserId());
 
-    /**
-     * 计算RFM综合得分
-     * RFM = R × 0.3 + F × 0.3 + M × 0.4
-     */
-    private BigDecimal calculateRFMScore(int rScore, int fScore, int mScore) {
-        return BigDecimal.valueOf(rScore * 0.3 + fScore * 0.3 + mScore * 0.4)
-            .setScale(2, RoundingMode.HALF_UP);
+        return UserPortraitDTO.builder()
+            .userId(audience.getUserId())
+            .userName(audience.getNickname())
+            .recencyDays(recencyDays)
+            .recencyScore(recencyScore)
+            .frequency(frequency)
+            .frequencyScore(frequencyScore)
+            .monetary(monetary)
+            .monetaryScore(monetaryScore)
+            .rfmScore(rfmScore)
+            .userLevel(AudienceRfmService.segmentName(AudienceRfmService.segmentOf(rfmScore)))
+            .consumptionLevel(audience.getConsumptionLevel())
+            .activityScore(calculateActivityScore(recencyDays, frequency))
+            .predictedLTV(predictLTV(monetary, frequency, recencyDays))
+            .lastRechargeTime(profile.getLastTipTime())
+            .firstRechargeTime(profile.getFirstTipTime())
+            .totalAmount(monetary)
+            .avgAmount(monetary.divide(BigDecimal.valueOf(frequency), 2, RoundingMode.HALF_UP))
+            .anchorCount(anchorCount)
+            .decayedMonetary(BigDecimal.valueOf(decayed).setScale(2, RoundingMode.HALF_UP))
+            .build();
     }
 
     /**
-     * 用户分层
-     * 高价值用户: RFM >= 4.0
-     * 中价值用户: 3.0 <= RFM < 4.0
-     * 低价值用户: RFM < 3.0
+     * 按打赏明细计算（画像表未覆盖时的回退路径）
      */
-    private String classifyUserLevel(BigDecimal rfmScore) {
-        if (rfmScore.compareTo(new BigDecimal("4.0")) >= 0) {
-            return "高价值用户";
-        } else if (rfmScore.compareTo(new BigDecimal("3.0")) >= 0) {
-            return "中价值用户";
-        } else {
-            return "低价值用户";
+    private UserPortraitDTO buildFromRecharges(Audience audience) {
+        List<Recharge> recharges = dataAccessFacade.recharge()
+            .findByAudienceId(audience.getUserId());
+
+        if (recharges.isEmpty()) {
+            return buildEmptyPortrait(audience);
         }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lastRechargeTime = null;
+        LocalDateTime firstRechargeTime = null;
+        BigDecimal monetary = BigDecimal.ZERO;
+        for (Recharge recharge : recharges) {
+            LocalDateTime time = recharge.getRechargeTime();
+            if (lastRechargeTime == null || time.isAfter(lastRechargeTime)) {
+                lastRechargeTime = time;
+            }
+            if (firstRechargeTime == null || time.isBefore(firstRechargeTime)) {
+                firstRechargeTime = time;
+            }
+            monetary = monetary.add(recharge.getRechargeAmount());
+        }
+
+        int recencyDays = (int) ChronoUnit.DAYS.between(lastRechargeTime, now);
+        int frequency = recharges.size();
+        int recencyScore = AudienceRfmService.recencyScore(recencyDays);
+        int frequencyScore = AudienceRfmService.frequencyScore(frequency);
+        int monetaryScore = AudienceRfmService.monetaryScore(monetary);
+        BigDecimal rfmScore = AudienceRfmService.rfmScore(recencyScore, frequencyScore, monetaryScore);
+
+        int anchorCount = (int) recharges.stream()
+            .map(Recharge::getAnchorId)
+            .distinct()
+            .count();
+
+        return UserPortraitDTO.builder()
+            .userId(audience.getUserId())
+            .userName(audience.getNickname())
+            .recencyDays(recencyDays)
+            .recencyScore(recencyScore)
+            .frequency(frequency)
+            .frequencyScore(frequencyScore)
+            .monetary(monetary)
+            .monetaryScore(monetaryScore)
+            .rfmScore(rfmScore)
+            .userLevel(AudienceRfmService.segmentName(AudienceRfmService.segmentOf(rfmScore)))
+            .consumptionLevel(audience.getConsumptionLevel())
+            .activityScore(calculateActivityScore(recencyDays, frequency))
+            .predictedLTV(predictLTV(monetary, frequency, recencyDays))
+            .lastRechargeTime(lastRechargeTime)
+            .firstRechargeTime(firstRechargeTime)
+            .totalAmount(monetary)
+            .avgAmount(monetary.divide(BigDecimal.valueOf(frequency), 2, RoundingMode.HALF_UP))
+            .anchorCount(anchorCount)
+            .build();
     }
 
     /**
@@ -271,6 +235,54 @@ public class UserPortraitService {
             .build();
     }
 
+    /**
+     * 获取观众分层分布（基于 audience_rfm 预计算的分层，按 segment 分组统计）
+     */
+    @Cacheable(value = "analysis:segmentation", key = "'rfm'")
+    public ConsumptionSegmentationDTO getConsumptionSegmentation() {
+        try {
+            TraceLogger.info("UserPortraitService", "getConsumptionSegmentation", null);
+
+            Map<Integer, AudienceRfmService.SegmentStat> bySegment = new HashMap<>();
+            long totalCount = 0L;
+            for (AudienceRfmService.SegmentStat stat : dataAccessFacade.audienceRfm().getSegmentHistogram()) {
+                bySegment.put(stat.getSegment(), stat);
+                totalCount += stat.getAudienceCount();
+            }
+
+            AudienceRfmService.SegmentStat empty = new AudienceRfmService.SegmentStat(0, 0L, 0L);
+            AudienceRfmService.SegmentStat high = bySegment.getOrDefault(AudienceRfmService.SEGMENT_HIGH, empty);
+            AudienceRfmService.SegmentStat medium = bySegment.getOrDefault(AudienceRfmService.SEGMENT_MEDIUM, empty);
+            AudienceRfmService.SegmentStat low = bySegment.getOrDefault(AudienceRfmService.SEGMENT_LOW, empty);
+
+            Map<String, BigDecimal> percentages = new HashMap<>();
+            percentages.put("high", percentage(high.getAudienceCount(), totalCount));
+            percentages.put("medium", percentage(medium.getAudienceCount(), totalCount));
+            percentages.put("low", percentage(low.getAudienceCount(), totalCount));
+
+            return ConsumptionSegmentationDTO.builder()
+                .highLevelCount(high.getAudienceCount().intValue())
+                .mediumLevelCount(medium.getAudienceCount().intValue())
+                .lowLevelCount(low.getAudienceCount().intValue())
+                .highLevelAmount(BigDecimal.valueOf(high.getSumCents(), 2))
+                .mediumLevelAmount(BigDecimal.valueOf(medium.getSumCents(), 2))
+                .lowLevelAmount(BigDecimal.valueOf(low.getSumCents(), 2))
+                .percentages(percentages)
+                .build();
+
+        } catch (Exception e) {
+            TraceLogger.error("UserPortraitService", "getConsumptionSegmentation", null, e);
+            throw new AnalysisException(5023, "获取观众分层失败: " + e.getMessage(), e);
+        }
+    }
+
+    private BigDecimal percentage(long count, long total) {
+        if (total == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(count * 100.0 / total).setScale(2, RoundingMode.HALF_UP);
+    }
+
     /**
      * 批量获取用户画像
      */
@@ -0,0 +1,68 @@
+package com.liveroom.analysis.task;
+
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 主播打赏金额草图维护任务
+ * 1. 按打赏ID水位增量消费新打赏，写入 anchor_daily_amount_sketch 和每日汇总 daily_amount_sketch
+ * 2. 为汇总表上线前已有的主播日草图补齐每日汇总草图
+ */
+@Component
+@RequiredArgsConstructor
+public class AnchorAmountSketchTask {
+
+    private final DataAccessFacade dataAccessFacade;
+
+    @Value("${analysis.sketch.batch-size:2000}")
+    private int batchSize;
+
+    /** 单次轮询最多消费的批次数，避免长时间占用调度线程 */
+    @Value("${analysis.sketch.max-batches-per-poll:50}")
+    private int maxBatchesPerPoll;
+
+    /** 每轮最多补齐的汇总草图天数 */
+    @Value("${analysis.sketch.backfill-days-per-run:30}")
+    private int backfillDaysPerRun;
+
+    /**
+     * 增量更新草图，追平水位或达到批次上限后结束本轮
+     */
+    @Scheduled(fixedDelayString = "${analysis.sketch.poll-interval-ms:10000}")
+    public void applyNewRecharges() {
+        try {
+            int total = 0;
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                int applied = dataAccessFacade.anchorAmountSketch().applyNewRecharges(batchSize);
+                total += applied;
+                if (applied < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                TraceLogger.debug("AnchorAmountSketchTask", "applyNewRecharges", "本轮计入打赏笔数: " + total);
+            }
+        } catch (Exception e) {
+            TraceLogger.error("AnchorAmountSketchTask", "applyNewRecharges", null, e);
+        }
+    }
+
+    /**
+     * 补齐缺少的每日汇总草图，没有缺失时只执行一次索引查询
+     */
+    @Scheduled(initialDelayString = "${analysis.sketch.backfill-initial-delay-ms:60000}",
+        fixedDelayString = "${analysis.sketch.backfill-interval-ms:3600000}")
+    public void backfillRollups() {
+        try {
+            while (dataAccessFacade.anchorAmountSketch().backfillRollups(backfillDaysPerRun) == backfillDaysPerRun) {
+                TraceLogger.debug("AnchorAmountSketchTask", "backfillRollups", "继续补齐每日汇总草图");
+            }
+        } catch (Exception e) {
+            TraceLogger.error("AnchorAmountSketchTask", "backfillRollups", null, e);
+        }
+    }
+}
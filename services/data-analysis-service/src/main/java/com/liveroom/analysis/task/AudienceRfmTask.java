@@ -0,0 +1,64 @@
+package com.liveroom.analysis.task;
+
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 观众RFM画像维护任务
+ * 1. 按打赏ID水位增量消费新打赏，更新 audience_rfm
+ * 2. 每天按当前时间重算分层（最近消费得分随时间下降）
+ */
+@Component
+@RequiredArgsConstructor
+public class AudienceRfmTask {
+
+    private final DataAccessFacade dataAccessFacade;
+
+    @Value("${analysis.rfm.batch-size:2000}")
+    private int batchSize;
+
+    /** 单次轮询最多消费的批次数，避免长时间占用调度线程 */
+    @Value("${analysis.rfm.max-batches-per-poll:50}")
+    private int maxBatchesPerPoll;
+
+    @Value("${analysis.rfm.refresh-page-size:1000}")
+    private int refreshPageSize;
+
+    /**
+     * 增量更新画像，追平水位或达到批次上限后结束本轮
+     */
+    @Scheduled(fixedDelayString = "${analysis.rfm.poll-interval-ms:10000}")
+    public void applyNewRecharges() {
+        try {
+            int total = 0;
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                int applied = dataAccessFacade.audienceRfm().applyNewRecharges(batchSize);
+                total += applied;
+                if (applied < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                TraceLogger.debug("AudienceRfmTask", "applyNewRecharges", "本轮计入打赏笔数: " + total);
+            }
+        } catch (Exception e) {
+            TraceLogger.error("AudienceRfmTask", "applyNewRecharges", null, e);
+        }
+    }
+
+    /**
+     * 每天凌晨3点重算分层
+     */
+    @Scheduled(cron = "${analysis.rfm.refresh-cron:0 0 3 * * *}")
+    public void refreshSegments() {
+        try {
+            dataAccessFacade.audienceRfm().refreshSegments(refreshPageSize);
+        } catch (Exception e) {
+            TraceLogger.error("AudienceRfmTask", "refreshSegments", null, e);
+        }
+    }
+}
@@ -71,9 +71,8 @@ public class DailyStatisticsTask {
             TraceLogger.info("DailyStatisticsTask", "processTagRelationCalculation", 
                 null, "message", "开始执行标签关联度计算任务");
 
-            // TODO: 实现标签关联度计算逻辑
-            // 1. 重新计算标签共现矩阵
-            // 2. 更新 tag_relation 表
+            // 全量重建标签位图索引（增量任务只追加新关联，删除在这里对齐），共现矩阵行随之清空按需重算
+            dataAccessFacade.tagBitmapIndex().rebuild();
 
             TraceLogger.info("DailyStatisticsTask", "processTagRelationCalculation", 
                 null, "message", "标签关联度计算任务执行完成");
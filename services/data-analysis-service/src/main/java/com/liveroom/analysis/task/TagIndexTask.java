@@ -0,0 +1,30 @@
+package com.liveroom.analysis.task;
+
+import common.logger.TraceLogger;
+import common.service.DataAccessFacade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 标签位图索引增量任务
+ * 按 audience_tag / anchor_tag 自增ID水位追加新增的标签关联，并回查水位之下晚提交的关联
+ */
+@Component
+@RequiredArgsConstructor
+public class TagIndexTask {
+
+    private final DataAccessFacade dataAccessFacade;
+
+    /**
+     * 追加新增关联，首次执行时全量加载
+     */
+    @Scheduled(fixedDelayString = "${analysis.tag-index.poll-interval-ms:30000}")
+    public void applyNewLinks() {
+        try {
+            dataAccessFacade.tagBitmapIndex().applyNewLinks();
+        } catch (Exception e) {
+            TraceLogger.error("TagIndexTask", "applyNewLinks", null, e);
+        }
+    }
+}
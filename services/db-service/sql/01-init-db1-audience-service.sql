@@ -33,7 +33,8 @@ CREATE TABLE IF NOT EXISTS user (
     INDEX idx_user_type (user_type),
     INDEX idx_username (username),
     INDEX idx_account_status (account_status),
-    INDEX idx_create_time (create_time)
+    INDEX idx_create_time (create_time),
+    INDEX idx_update_time (update_time)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '用户基础表';
 
 -- ============================================================
@@ -97,7 +98,7 @@ CREATE TABLE IF NOT EXISTS live_room (
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     FOREIGN KEY (anchor_id) REFERENCES anchor (user_id) ON DELETE CASCADE,
     INDEX idx_anchor_id (anchor_id),
-    INDEX idx_room_status (room_status),
+    INDEX idx_status_viewers (room_status, total_viewers),
     INDEX idx_category (category),
     INDEX idx_start_time (start_time)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '直播间基础表';
@@ -155,39 +156,63 @@ CREATE TABLE IF NOT EXISTS message (
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     FOREIGN KEY (live_room_id) REFERENCES live_room (live_room_id) ON DELETE CASCADE,
     FOREIGN KEY (sender_id) REFERENCES audience (user_id) ON DELETE CASCADE,
-    INDEX idx_live_room_id (live_room_id),
+    INDEX idx_live_room_time (live_room_id, create_time),
     INDEX idx_sender_id (sender_id),
     INDEX idx_create_time (create_time)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '弹幕消息表';
 
 -- ============================================================
 -- 8. recharge - 打赏明细记录表（核心业务表）
+-- 按 recharge_time 月分区：主键和唯一键必须包含分区列，分区表不支持外键（由业务层保证引用完整）
+-- p_future 只作兜底，由 db-service 的分区维护任务提前拆出未来月份，并把过期月份交换到归档表
 -- ============================================================
 CREATE TABLE IF NOT EXISTS recharge (
-    recharge_id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '打赏ID',
+    recharge_id BIGINT NOT NULL AUTO_INCREMENT COMMENT '打赏ID',
     live_room_id BIGINT NOT NULL COMMENT '直播间ID',
     anchor_id BIGINT NOT NULL COMMENT '主播ID',
     audience_id BIGINT NOT NULL COMMENT '观众ID',
     recharge_amount DECIMAL(15, 2) NOT NULL COMMENT '打赏金额',
     recharge_type INT NOT NULL DEFAULT 0 COMMENT '打赏类型：0-普通、1-礼物、2-特殊',
     message VARCHAR(500) COMMENT '打赏消息',
-    trace_id VARCHAR(64) NOT NULL UNIQUE COMMENT 'traceId(链路追踪&幂等控制)',
+    trace_id VARCHAR(64) NOT NULL COMMENT 'traceId(链路追踪&幂等控制，全局唯一由 recharge_trace 保证)',
     status INT NOT NULL DEFAULT 0 COMMENT '状态：0-已入账、1-待结算、2-已结算、3-已退款',
     settlement_id BIGINT COMMENT '对应的结算ID',
     recharge_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '打赏时间',
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    FOREIGN KEY (live_room_id) REFERENCES live_room (live_room_id) ON DELETE CASCADE,
-    FOREIGN KEY (anchor_id) REFERENCES anchor (user_id) ON DELETE CASCADE,
-    FOREIGN KEY (audience_id) REFERENCES audience (user_id) ON DELETE CASCADE,
-    UNIQUE KEY uk_trace_id (trace_id),
+    PRIMARY KEY (recharge_id, recharge_time),
+    UNIQUE KEY uk_trace_time (trace_id, recharge_time),
     INDEX idx_live_room_id (live_room_id),
-    INDEX idx_anchor_id (anchor_id),
-    INDEX idx_audience_id (audience_id),
+    INDEX idx_anchor_time (anchor_id, recharge_time),
+    INDEX idx_audience_time (audience_id, recharge_time),
     INDEX idx_recharge_time (recharge_time),
-    INDEX idx_status (status),
+    INDEX idx_status_create_time (status, create_time),
     INDEX idx_settlement_id (settlement_id)
-) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏明细记录表，核心业务表';
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏明细记录表，核心业务表'
+PARTITION BY RANGE COLUMNS (recharge_time) (
+    PARTITION p_history VALUES LESS THAN ('2026-10-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- ============================================================
+-- 8.1 recharge_trace - 打赏 traceId 幂等表
+-- 分区后 recharge 的唯一键只能是 (trace_id, recharge_time)，traceId 的全局唯一由这张表保证，
+-- 并记下打赏时间，按 traceId 查询时只访问一个分区
+-- ============================================================
+CREATE TABLE IF NOT EXISTS recharge_trace (
+    trace_id VARCHAR(64) PRIMARY KEY COMMENT 'traceId',
+    recharge_time DATETIME NOT NULL COMMENT '打赏时间（定位 recharge 分区）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    INDEX idx_recharge_time (recharge_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏traceId幂等表，归档后转入 recharge_trace_archive';
+
+-- ============================================================
+-- 8.2 recharge_trace_archive - 已归档打赏的 traceId 去重记录
+-- 分区归档时 traceId 从 recharge_trace 转入这里，只存 MD5（16 字节），归档后旧 traceId 仍不能重复入账
+-- ============================================================
+CREATE TABLE IF NOT EXISTS recharge_trace_archive (
+    trace_hash BINARY(16) PRIMARY KEY COMMENT 'UNHEX(MD5(trace_id))'
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED COMMENT = '已归档打赏的traceId去重记录';
 
 -- ============================================================
 -- 9. tag - 标签表
@@ -282,7 +307,7 @@ CREATE TABLE IF NOT EXISTS live_room_tag (
 -- ============================================================
 CREATE TABLE IF NOT EXISTS sync_progress (
     progress_id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '进度ID',
-    sync_type INT NOT NULL COMMENT '同步类型：0-打赏数据同步、1-用户数据同步',
+    sync_type INT NOT NULL COMMENT '同步类型：0-打赏数据同步、1-用户数据同步、2-观众RFM画像、3-主播金额分位数草图',
     source_service VARCHAR(50) NOT NULL COMMENT '数据源服务',
     target_service VARCHAR(50) NOT NULL COMMENT '目标服务',
     last_sync_recharge_id BIGINT NOT NULL DEFAULT 0 COMMENT '最后同步的打赏记录ID',
@@ -301,6 +326,104 @@ CREATE TABLE IF NOT EXISTS sync_progress (
     INDEX idx_status (sync_status)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '数据同步进度表，记录观众服务和财务分析服务的同步状态';
 
+-- ============================================================
+-- 15. live_room_rank_snapshot - 直播间场次贡献榜快照表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS live_room_rank_snapshot (
+    snapshot_id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '快照ID',
+    live_room_id BIGINT NOT NULL COMMENT '直播间ID',
+    session_start_time DATETIME NOT NULL COMMENT '场次开播时间',
+    rank_no INT NOT NULL COMMENT '名次',
+    audience_id BIGINT NOT NULL COMMENT '观众ID',
+    total_amount DECIMAL(15, 2) NOT NULL COMMENT '本场累计打赏金额',
+    snapshot_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '快照时间',
+    FOREIGN KEY (live_room_id) REFERENCES live_room (live_room_id) ON DELETE CASCADE,
+    UNIQUE KEY uk_session_rank (live_room_id, session_start_time, rank_no),
+    INDEX idx_audience_id (audience_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '直播间场次贡献榜快照表，关播时由主播服务写入';
+
+-- ============================================================
+-- 16. audience_rfm - 观众RFM画像表（增量维护）
+-- ============================================================
+CREATE TABLE IF NOT EXISTS audience_rfm (
+    audience_id BIGINT PRIMARY KEY COMMENT '观众ID',
+    first_tip_time DATETIME NOT NULL COMMENT '首次打赏时间',
+    last_tip_time DATETIME NOT NULL COMMENT '最近打赏时间',
+    tip_count BIGINT NOT NULL DEFAULT 0 COMMENT '累计打赏笔数',
+    sum_cents BIGINT NOT NULL DEFAULT 0 COMMENT '累计打赏金额(分)',
+    decayed_score DOUBLE NOT NULL DEFAULT 0 COMMENT '按半衰期衰减的打赏金额(元)，以score_time为基准',
+    score_time DATETIME NOT NULL COMMENT '衰减得分基准时间',
+    rfm_score DECIMAL(4, 2) NOT NULL DEFAULT 0 COMMENT 'RFM综合得分',
+    segment TINYINT NOT NULL DEFAULT 1 COMMENT '分层：1-低价值、2-中价值、3-高价值',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_segment (segment),
+    INDEX idx_last_tip_time (last_tip_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '观众RFM画像表，由数据分析服务按打赏ID水位增量更新';
+
+-- RFM画像水位（sync_type = 2），last_sync_recharge_id 为已计入画像的最大打赏ID
+INSERT INTO sync_progress (sync_type, source_service, target_service, sync_status)
+SELECT 2, 'recharge', 'audience_rfm', 0 FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM sync_progress WHERE sync_type = 2 AND target_service = 'audience_rfm');
+
+-- ============================================================
+-- 17. anchor_daily_amount_sketch - 主播每日打赏金额分位数草图表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS anchor_daily_amount_sketch (
+    anchor_id BIGINT NOT NULL COMMENT '主播ID',
+    stat_date DATE NOT NULL COMMENT '统计日期（按打赏时间）',
+    tip_count BIGINT NOT NULL DEFAULT 0 COMMENT '打赏笔数',
+    sum_amount DECIMAL(15, 2) NOT NULL DEFAULT 0 COMMENT '打赏总金额',
+    sketch MEDIUMBLOB NOT NULL COMMENT '单笔打赏金额的KLL分位数草图（QuantileSketch序列化）',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (anchor_id, stat_date),
+    INDEX idx_stat_date (stat_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '主播每日打赏金额分位数草图表，区间分位数查询合并各天草图';
+
+-- 金额草图水位（sync_type = 3），last_sync_recharge_id 为已计入草图的最大打赏ID
+INSERT INTO sync_progress (sync_type, source_service, target_service, sync_status)
+SELECT 3, 'recharge', 'anchor_amount_sketch', 0 FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM sync_progress WHERE sync_type = 3 AND target_service = 'anchor_amount_sketch');
+
+-- ============================================================
+-- 18. id_sequence - 主键号段表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS id_sequence (
+    seq_name VARCHAR(64) PRIMARY KEY COMMENT '序列名（实体 @TableGenerator 的 pkColumnValue）',
+    next_val BIGINT NOT NULL COMMENT '下一号段上界，Hibernate pooled 优化器每次取 allocationSize 个ID'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '主键号段表，替代自增主键以便 Hibernate 批量插入（user、tag）';
+
+-- ============================================================
+-- 19. live_room_delta_flush - 直播间实时增量落库记录表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS live_room_delta_flush (
+    drain_key VARCHAR(128) PRIMARY KEY COMMENT '已落库的Redis排空key',
+    live_room_id BIGINT NOT NULL COMMENT '直播间ID',
+    flush_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '落库时间',
+    INDEX idx_flush_time (flush_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '直播间实时增量落库记录表，与增量同一事务写入，用于判断遗留排空key是否已落库';
+
+-- ============================================================
+-- 20. recharge_watermark_gap - 打赏水位空洞表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS recharge_watermark_gap (
+    consumer VARCHAR(50) NOT NULL COMMENT '水位消费者（sync_progress.target_service）',
+    recharge_id BIGINT NOT NULL COMMENT '被水位越过、尚未出现的打赏ID',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发现时间',
+    PRIMARY KEY (consumer, recharge_id),
+    INDEX idx_consumer_time (consumer, create_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏水位空洞表，记录晚于较大ID提交的打赏ID，增量消费时回查';
+
+-- ============================================================
+-- 21. daily_amount_sketch - 每日打赏金额分位数汇总草图表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS daily_amount_sketch (
+    stat_date DATE PRIMARY KEY COMMENT '统计日期（按打赏时间）',
+    tip_count BIGINT NOT NULL DEFAULT 0 COMMENT '打赏笔数',
+    sum_amount DECIMAL(15, 2) NOT NULL DEFAULT 0 COMMENT '打赏总金额',
+    sketch MEDIUMBLOB NOT NULL COMMENT '当天全部主播单笔打赏金额的KLL分位数草图（QuantileSketch序列化）',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '每日打赏金额分位数汇总草图表，不指定主播的区间分位数查询每天只合并一个草图';
+
 -- ============================================================
 -- 创建索引完成
 -- ============================================================
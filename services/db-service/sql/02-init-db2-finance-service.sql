@@ -93,7 +93,7 @@ CREATE TABLE IF NOT EXISTS withdrawal (
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     UNIQUE KEY uk_trace_id (trace_id),
-    INDEX idx_anchor_id (anchor_id),
+    INDEX idx_anchor_applied_time (anchor_id, applied_time),
     INDEX idx_status (status),
     INDEX idx_applied_time (applied_time)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '提现记录表';
@@ -158,11 +158,13 @@ CREATE TABLE IF NOT EXISTS audience_portrait (
 
 -- ============================================================
 -- 7. recharge_record - 打赏记录表（财务服务持久化）
+-- 按 recharge_time 月分区，主键和唯一键包含分区列；recharge_time 取自原始打赏，
+-- 同一 traceId 重复同步时 (trace_id, recharge_time) 相同，唯一键仍能防重
 -- ============================================================
 CREATE TABLE IF NOT EXISTS recharge_record (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '记录ID',
+    id BIGINT NOT NULL AUTO_INCREMENT COMMENT '记录ID',
     original_recharge_id BIGINT NOT NULL COMMENT '原始打赏记录ID(来自DB1)',
-    trace_id VARCHAR(64) NOT NULL UNIQUE COMMENT 'traceId(全局唯一，幂等性控制)',
+    trace_id VARCHAR(64) NOT NULL COMMENT 'traceId(幂等性控制)',
     anchor_id BIGINT NOT NULL COMMENT '主播ID',
     anchor_name VARCHAR(128) NOT NULL COMMENT '主播名称',
     audience_id BIGINT NOT NULL COMMENT '观众ID',
@@ -180,14 +182,20 @@ CREATE TABLE IF NOT EXISTS recharge_record (
     received_time DATETIME NOT NULL COMMENT '接收时间',
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    UNIQUE KEY uk_trace_id (trace_id),
+    PRIMARY KEY (id, recharge_time),
+    UNIQUE KEY uk_trace_time (trace_id, recharge_time),
     INDEX idx_original_recharge_id (original_recharge_id),
-    INDEX idx_anchor_id (anchor_id),
+    INDEX idx_anchor_status_time (anchor_id, settlement_status, recharge_time),
+    INDEX idx_anchor_time_amount (anchor_id, recharge_time, recharge_amount, audience_id),
     INDEX idx_audience_id (audience_id),
-    INDEX idx_recharge_time (recharge_time),
+    INDEX idx_time_anchor_amount (recharge_time, anchor_id, anchor_name, recharge_amount),
     INDEX idx_sync_batch_id (sync_batch_id),
-    INDEX idx_settlement_status (settlement_status)
-) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏记录表（财务服务持久化），用于结算计算和统计分析';
+    INDEX idx_status_time (settlement_status, recharge_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏记录表（财务服务持久化），用于结算计算和统计分析'
+PARTITION BY RANGE COLUMNS (recharge_time) (
+    PARTITION p_history VALUES LESS THAN ('2026-10-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
 
 -- ============================================================
 -- 8. sync_progress - 数据同步进度表
@@ -211,6 +219,14 @@ CREATE TABLE IF NOT EXISTS sync_progress (
     INDEX idx_last_sync_time (last_sync_time)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '数据同步进度表，记录观众服务和财务分析服务的同步状态';
 
+-- ============================================================
+-- 9. id_sequence - 主键号段表
+-- ============================================================
+CREATE TABLE IF NOT EXISTS id_sequence (
+    seq_name VARCHAR(64) PRIMARY KEY COMMENT '序列名（实体 @TableGenerator 的 pkColumnValue）',
+    next_val BIGINT NOT NULL COMMENT '下一号段上界，Hibernate pooled 优化器每次取 allocationSize 个ID'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '主键号段表，替代自增主键以便 Hibernate 批量插入（recharge_record、settlement_detail、withdrawal）';
+
 -- ============================================================
 -- 创建索引完成
 -- ============================================================
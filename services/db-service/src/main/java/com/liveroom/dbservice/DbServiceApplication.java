@@ -9,7 +9,7 @@ import common.logger.AppLogger;
  * 数据库服务启动类
  * 
  * 功能：
- * 1. 初始化数据库表结构（通过Flyway自动迁移）
+ * 1. 初始化数据库表结构（初始化脚本建表；Flyway 迁移只在 migrate profile 下执行）
  * 2. 提供数据库管理接口（REST API）
  * 3. 执行数据库健康检查
  * 4. 支持数据导入导出等工具
@@ -0,0 +1,100 @@
+package com.liveroom.dbservice.controller;
+
+import com.liveroom.dbservice.service.IndexAdvisorService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import common.logger.AppLogger;
+import common.logger.TraceLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 索引顾问REST API
+ * 分析热点查询的执行计划、生成索引迁移脚本、应用迁移并对比前后延迟
+ * 延迟测量会真实执行查询，只应在本地或压测库上调用
+ */
+@RestController
+@RequestMapping("/api/database/index-advisor")
+@RequiredArgsConstructor
+public class IndexAdvisorController {
+
+    private final IndexAdvisorService indexAdvisorService;
+
+    /**
+     * 分析热点查询并给出索引建议
+     *
+     * @param measure 是否测量延迟
+     */
+    @GetMapping("/report")
+    public ResponseEntity<Map<String, Object>> report(@RequestParam(defaultValue = "true") boolean measure) {
+        try {
+            AppLogger.info("执行索引分析, measure={}", measure);
+            TraceLogger.info("database", "index_advisor_report_requested");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", indexAdvisorService.advise(measure));
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            AppLogger.error("索引分析失败", e);
+            TraceLogger.error("database", "index_advisor_report_failed", null, e);
+            return error("索引分析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 生成索引迁移脚本（Flyway 版本化迁移）
+     */
+    @GetMapping("/migration")
+    public ResponseEntity<Map<String, Object>> migration() {
+        try {
+            AppLogger.info("生成索引迁移脚本");
+            TraceLogger.info("database", "index_advisor_migration_requested");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", indexAdvisorService.renderMigration());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            AppLogger.error("生成索引迁移脚本失败", e);
+            TraceLogger.error("database", "index_advisor_migration_failed", null, e);
+            return error("生成索引迁移脚本失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 执行待执行的迁移，返回每个 Repository 方法迁移前后的执行计划和延迟对比
+     */
+    @PostMapping("/apply")
+    public ResponseEntity<Map<String, Object>> apply() {
+        try {
+            AppLogger.info("收到索引迁移请求");
+            TraceLogger.info("database", "index_advisor_apply_requested");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", indexAdvisorService.apply());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            AppLogger.error("索引迁移失败", e);
+            TraceLogger.error("database", "index_advisor_apply_failed", null, e);
+            return error("索引迁移失败: " + e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", message);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(500).body(response);
+    }
+}
@@ -0,0 +1,96 @@
+package com.liveroom.dbservice.controller;
+
+import com.liveroom.dbservice.service.PartitionMaintenanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import common.logger.AppLogger;
+import common.logger.TraceLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 打赏表分区管理REST API
+ * 查看分区和裁剪情况、补齐未来分区、归档过期分区
+ */
+@RestController
+@RequestMapping("/api/database/partitions")
+@RequiredArgsConstructor
+public class PartitionController {
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+
+    /**
+     * 查看各分区表的分区、行数估算和本月范围查询访问的分区
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> status() {
+        try {
+            AppLogger.info("查询打赏表分区状态");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", partitionMaintenanceService.status());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            AppLogger.error("查询打赏表分区状态失败", e);
+            TraceLogger.error("database", "partition_status_failed", null, e);
+            return error("查询分区状态失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 补齐未来分区
+     */
+    @PostMapping("/maintain")
+    public ResponseEntity<Map<String, Object>> maintain() {
+        try {
+            AppLogger.info("收到补齐打赏表分区请求");
+            TraceLogger.info("database", "partition_maintain_requested");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", partitionMaintenanceService.ensureFuturePartitions());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            AppLogger.error("补齐打赏表分区失败", e);
+            TraceLogger.error("database", "partition_maintain_failed", null, e);
+            return error("补齐分区失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 归档早于保留期的分区
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Object>> archive() {
+        try {
+            AppLogger.info("收到打赏表分区归档请求");
+            TraceLogger.info("database", "partition_archive_requested");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", partitionMaintenanceService.archiveExpired());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            AppLogger.error("打赏表分区归档失败", e);
+            TraceLogger.error("database", "partition_archive_failed", null, e);
+            return error("分区归档失败: " + e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", message);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(500).body(response);
+    }
+}
@@ -87,7 +87,7 @@ public class DatabaseInitializeService implements CommandLineRunner {
                     AppLogger.logTableCheck(tableName, true, "已存在");
                     existCount++;
                 } else {
-                    AppLogger.logTableCheck(tableName, false, "不存在，将由Flyway自动创建");
+                    AppLogger.logTableCheck(tableName, false, "不存在，将由初始化脚本创建");
                 }
             }
 
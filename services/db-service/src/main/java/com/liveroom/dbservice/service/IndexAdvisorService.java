@@ -0,0 +1,577 @@
+package com.liveroom.dbservice.service;
+
+import com.liveroom.dbservice.service.QueryShape.Database;
+import common.constant.ErrorConstants;
+import common.exception.SystemException;
+import common.logger.AppLogger;
+import common.logger.TraceLogger;
+import lombok.Data;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 索引顾问服务
+ *
+ * 对 QueryShapeCatalog 中的每条热点查询：
+ * 1. 用现有数据取一组真实参数，EXPLAIN 查看实际使用的索引、扫描行数和 Extra
+ *    （全表扫描、Using filesort、Using temporary、是否覆盖）
+ * 2. 按 "等值列 → 范围列/排序列 → 覆盖列" 推导所需索引，与表上已有索引的最左前缀比较，
+ *    缺少时给出建议；同一张表的建议互为前缀时只保留最长的一条
+ * 3. 找出被建议索引最左前缀覆盖的普通索引，作为可删除的冗余索引
+ * 4. 建议渲染为 Flyway 版本化迁移脚本；apply() 执行待执行的迁移，前后各测一次延迟，按 Repository 方法对比
+ *
+ * 延迟测量会真实执行查询，只应在本地或压测库上调用。
+ */
+@Service
+public class IndexAdvisorService {
+
+    private static final int WARMUP_RUNS = 2;
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private static final String SELECT_INDEXES_SQL =
+        "SELECT index_name, column_name, non_unique FROM information_schema.statistics " +
+        "WHERE table_schema = DATABASE() AND table_name = ? ORDER BY index_name, seq_in_index";
+
+    private final Map<Database, JdbcTemplate> jdbcTemplates = new EnumMap<>(Database.class);
+
+    private final ObjectProvider<Flyway> flywayProvider;
+
+    private final int measureRuns;
+
+    private final String migrationOutputDir;
+
+    public IndexAdvisorService(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                               @Qualifier("secondaryDataSource") DataSource secondaryDataSource,
+                               ObjectProvider<Flyway> flywayProvider,
+                               @Value("${db.index-advisor.measure-runs:20}") int measureRuns,
+                               @Value("${db.index-advisor.query-timeout-seconds:30}") int queryTimeoutSeconds,
+                               @Value("${db.index-advisor.migration-output-dir:}") String migrationOutputDir) {
+        this.jdbcTemplates.put(Database.PRIMARY, newJdbcTemplate(primaryDataSource, queryTimeoutSeconds));
+        this.jdbcTemplates.put(Database.SECONDARY, newJdbcTemplate(secondaryDataSource, queryTimeoutSeconds));
+        this.flywayProvider = flywayProvider;
+        this.measureRuns = Math.max(1, measureRuns);
+        this.migrationOutputDir = migrationOutputDir;
+    }
+
+    /**
+     * 分析全部热点查询，给出索引建议
+     *
+     * @param measure 是否测量延迟
+     */
+    public AdvisorReport advise(boolean measure) {
+        long start = System.currentTimeMillis();
+        Map<String, List<IndexInfo>> indexCache = new LinkedHashMap<>();
+        List<ShapeReport> shapes = new ArrayList<>();
+        for (QueryShape shape : QueryShapeCatalog.all()) {
+            shapes.add(analyze(shape, measure, indexCache));
+        }
+
+        AdvisorReport report = new AdvisorReport();
+        report.setShapes(shapes);
+        report.setProposals(mergeProposals(shapes));
+        report.setRedundantIndexes(findRedundant(report.getProposals(), indexCache));
+        report.setElapsedMs(System.currentTimeMillis() - start);
+
+        TraceLogger.info("IndexAdvisor", "advise", null,
+            String.format("分析查询=%d, 建议索引=%d, 冗余索引=%d, 耗时%dms",
+                shapes.size(), report.getProposals().size(), report.getRedundantIndexes().size(),
+                report.getElapsedMs()));
+        return report;
+    }
+
+    /**
+     * 把当前建议渲染为 Flyway 版本化迁移脚本
+     * 配置了 db.index-advisor.migration-output-dir 时同时写入该目录
+     */
+    public MigrationScript renderMigration() {
+        AdvisorReport report = advise(false);
+        MigrationScript script = new MigrationScript();
+        script.setFileName("V" + LocalDateTime.now().format(VERSION_FORMAT) + "__index_advisor.sql");
+        script.setProposals(report.getProposals());
+        script.setRedundantIndexes(report.getRedundantIndexes());
+        script.setContent(renderSql(report));
+
+        if (!report.getProposals().isEmpty() && migrationOutputDir != null && !migrationOutputDir.isBlank()) {
+            Path target = Paths.get(migrationOutputDir, script.getFileName());
+            try {
+                Files.createDirectories(target.getParent());
+                Files.write(target, script.getContent().getBytes(StandardCharsets.UTF_8));
+                script.setWrittenTo(target.toAbsolutePath().toString());
+                AppLogger.info("索引顾问迁移脚本已生成: {}", script.getWrittenTo());
+            } catch (IOException e) {
+                throw new SystemException(ErrorConstants.SYSTEM_ERROR, "写入迁移脚本失败: " + target, e);
+            }
+        }
+        return script;
+    }
+
+    /**
+     * 执行待执行的 Flyway 迁移，并按 Repository 方法对比迁移前后的执行计划和延迟
+     * 只有以 migrate profile 启动（spring.flyway.enabled=true）时才有 Flyway 实例
+     */
+    public ApplyReport apply() {
+        Flyway flyway = flywayProvider.getIfAvailable();
+        if (flyway == null) {
+            throw new SystemException(ErrorConstants.SYSTEM_ERROR, "Flyway 未启用（以 migrate profile 启动才会开启），无法应用索引迁移");
+        }
+
+        AdvisorReport before = advise(true);
+        MigrateResult result = flyway.migrate();
+        AdvisorReport after = advise(true);
+
+        Map<String, ShapeReport> afterByMethod = after.getShapes().stream()
+            .collect(Collectors.toMap(ShapeReport::getMethod, s -> s, (a, b) -> a, LinkedHashMap::new));
+        List<LatencyComparison> comparisons = new ArrayList<>();
+        for (ShapeReport b : before.getShapes()) {
+            ShapeReport a = afterByMethod.get(b.getMethod());
+            LatencyComparison comparison = new LatencyComparison();
+            comparison.setMethod(b.getMethod());
+            comparison.setKeyBefore(b.getPlan() == null ? null : b.getPlan().getKey());
+            comparison.setKeyAfter(a == null || a.getPlan() == null ? null : a.getPlan().getKey());
+            comparison.setRowsBefore(b.getPlan() == null ? null : b.getPlan().getRows());
+            comparison.setRowsAfter(a == null || a.getPlan() == null ? null : a.getPlan().getRows());
+            comparison.setBefore(b.getLatency());
+            comparison.setAfter(a == null ? null : a.getLatency());
+            if (b.getLatency() != null && a != null && a.getLatency() != null && a.getLatency().getP50Ms() > 0) {
+                comparison.setSpeedup(round(b.getLatency().getP50Ms() / a.getLatency().getP50Ms()));
+            }
+            comparisons.add(comparison);
+        }
+
+        ApplyReport report = new ApplyReport();
+        report.setMigrationsExecuted(result.migrationsExecuted);
+        report.setTargetVersion(result.targetSchemaVersion);
+        report.setComparisons(comparisons);
+        report.setRemainingProposals(after.getProposals());
+
+        TraceLogger.info("IndexAdvisor", "apply", null,
+            String.format("执行迁移=%d, 目标版本=%s, 剩余建议=%d",
+                result.migrationsExecuted, result.targetSchemaVersion, after.getProposals().size()));
+        return report;
+    }
+
+    private ShapeReport analyze(QueryShape shape, boolean measure, Map<String, List<IndexInfo>> indexCache) {
+        JdbcTemplate jdbc = jdbcTemplates.get(shape.getDatabase());
+        ShapeReport report = new ShapeReport();
+        report.setMethod(shape.getMethod());
+        report.setDatabase(shape.getDatabase());
+        report.setTable(shape.getTable());
+        report.setSql(shape.getSql());
+        report.setRequiredColumns(shape.indexColumns());
+
+        List<IndexInfo> indexes = indexCache.computeIfAbsent(shape.getDatabase() + "." + shape.getTable(),
+            key -> loadIndexes(jdbc, shape.getTable()));
+        IndexInfo satisfiedBy = indexes.stream()
+            .filter(index -> startsWith(index.getColumns(), shape.indexColumns()))
+            .findFirst()
+            .orElse(null);
+        report.setSatisfiedBy(satisfiedBy == null ? null : satisfiedBy.getName());
+
+        try {
+            Object[] params = sampleParams(jdbc, shape);
+            if (params == null) {
+                report.setNote("表中没有可取样的数据，跳过执行计划和延迟测量");
+                return report;
+            }
+            report.setPlan(explain(jdbc, shape, params));
+            if (measure) {
+                report.setLatency(measure(jdbc, shape.getSql(), params));
+            }
+        } catch (Exception e) {
+            report.setNote("分析失败: " + e.getMessage());
+            TraceLogger.warn("IndexAdvisor", "analyze", shape.getMethod(), e.getMessage());
+        }
+        return report;
+    }
+
+    private static Object[] sampleParams(JdbcTemplate jdbc, QueryShape shape) {
+        if (shape.getSampleSql() == null) {
+            return new Object[0];
+        }
+        List<Map<String, Object>> rows = jdbc.queryForList(shape.getSampleSql());
+        if (rows.isEmpty() || rows.get(0).values().stream().anyMatch(value -> value == null)) {
+            return null;
+        }
+        return rows.get(0).values().toArray();
+    }
+
+    private static ExplainPlan explain(JdbcTemplate jdbc, QueryShape shape, Object[] params) {
+        List<Map<String, Object>> rows = jdbc.queryForList("EXPLAIN " + shape.getSql(), params);
+        Map<String, Object> row = rows.stream()
+            .filter(r -> shape.getTable().equals(r.get("table")))
+            .findFirst()
+            .orElse(rows.isEmpty() ? Collections.emptyMap() : rows.get(0));
+
+        ExplainPlan plan = new ExplainPlan();
+        plan.setAccessType(stringOf(row.get("type")));
+        plan.setKey(stringOf(row.get("key")));
+        plan.setPossibleKeys(stringOf(row.get("possible_keys")));
+        plan.setRows(row.get("rows") == null ? null : ((Number) row.get("rows")).longValue());
+        plan.setFiltered(row.get("filtered") == null ? null : ((Number) row.get("filtered")).doubleValue());
+        String extra = stringOf(row.get("Extra"));
+        plan.setExtra(extra);
+
+        List<String> issues = new ArrayList<>();
+        if ("ALL".equals(plan.getAccessType())) {
+            issues.add("全表扫描");
+        } else if ("index".equals(plan.getAccessType())) {
+            issues.add("全索引扫描");
+        }
+        if (extra != null && extra.contains("Using filesort")) {
+            issues.add("文件排序");
+        }
+        if (extra != null && extra.contains("Using temporary")) {
+            issues.add("临时表");
+        }
+        plan.setIssues(issues);
+        plan.setCovering(extra != null && extra.matches(".*Using index(;.*|$)"));
+        return plan;
+    }
+
+    private LatencyStats measure(JdbcTemplate jdbc, String sql, Object[] params) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            execute(jdbc, sql, params);
+        }
+        double[] samples = new double[measureRuns];
+        int rows = 0;
+        for (int i = 0; i < measureRuns; i++) {
+            long start = System.nanoTime();
+            rows = execute(jdbc, sql, params);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+
+        LatencyStats stats = new LatencyStats();
+        stats.setRuns(measureRuns);
+        stats.setResultRows(rows);
+        stats.setP50Ms(round(samples[(samples.length - 1) / 2]));
+        stats.setP95Ms(round(samples[(int) Math.ceil(samples.length * 0.95) - 1]));
+        stats.setMaxMs(round(samples[samples.length - 1]));
+        return stats;
+    }
+
+    /**
+     * 执行查询并读完结果集，返回行数
+     */
+    private static int execute(JdbcTemplate jdbc, String sql, Object[] params) {
+        Integer rows = jdbc.query(sql, rs -> {
+            int count = 0;
+            while (rs.next()) {
+                count++;
+            }
+            return count;
+        }, params);
+        return rows == null ? 0 : rows;
+    }
+
+    private static List<IndexInfo> loadIndexes(JdbcTemplate jdbc, String table) {
+        Map<String, IndexInfo> indexes = new LinkedHashMap<>();
+        jdbc.query(SELECT_INDEXES_SQL, rs -> {
+            String name = rs.getString("index_name");
+            IndexInfo index = indexes.computeIfAbsent(name, key -> {
+                IndexInfo info = new IndexInfo();
+                info.setName(key);
+                info.setColumns(new ArrayList<>());
+                return info;
+            });
+            index.setUnique(rs.getInt("non_unique") == 0);
+            index.getColumns().add(rs.getString("column_name").toLowerCase(Locale.ROOT));
+        }, table);
+        return new ArrayList<>(indexes.values());
+    }
+
+    /**
+     * 未被已有索引满足的建议，同一张表内互为最左前缀的只保留最长的一条
+     */
+    private static List<IndexProposal> mergeProposals(List<ShapeReport> shapes) {
+        List<IndexProposal> proposals = new ArrayList<>();
+        for (ShapeReport shape : shapes) {
+            if (shape.getSatisfiedBy() != null) {
+                continue;
+            }
+            IndexProposal merged = null;
+            for (IndexProposal proposal : proposals) {
+                if (proposal.getDatabase() != shape.getDatabase() || !proposal.getTable().equals(shape.getTable())) {
+                    continue;
+                }
+                if (startsWith(proposal.getColumns(), shape.getRequiredColumns())) {
+                    merged = proposal;
+                    break;
+                }
+                if (startsWith(shape.getRequiredColumns(), proposal.getColumns())) {
+                    proposal.setColumns(shape.getRequiredColumns());
+                    proposal.setIndexName(indexName(shape.getRequiredColumns()));
+                    merged = proposal;
+                    break;
+                }
+            }
+            if (merged == null) {
+                merged = new IndexProposal();
+                merged.setDatabase(shape.getDatabase());
+                merged.setTable(shape.getTable());
+                merged.setColumns(shape.getRequiredColumns());
+                merged.setIndexName(indexName(shape.getRequiredColumns()));
+                merged.setMethods(new ArrayList<>());
+                proposals.add(merged);
+            }
+            merged.getMethods().add(shape.getMethod());
+        }
+        return proposals;
+    }
+
+    /**
+     * 被建议索引最左前缀覆盖的非唯一索引
+     */
+    private static List<RedundantIndex> findRedundant(List<IndexProposal> proposals,
+                                                      Map<String, List<IndexInfo>> indexCache) {
+        List<RedundantIndex> redundant = new ArrayList<>();
+        for (IndexProposal proposal : proposals) {
+            List<IndexInfo> indexes = indexCache.getOrDefault(proposal.getDatabase() + "." + proposal.getTable(),
+                Collections.emptyList());
+            for (IndexInfo index : indexes) {
+                if (index.isUnique() || "PRIMARY".equals(index.getName())
+                    || !startsWith(proposal.getColumns(), index.getColumns())) {
+                    continue;
+                }
+                boolean listed = redundant.stream().anyMatch(r -> r.getDatabase() == proposal.getDatabase()
+                    && r.getTable().equals(proposal.getTable()) && r.getIndexName().equals(index.getName()));
+                if (!listed) {
+                    RedundantIndex r = new RedundantIndex();
+                    r.setDatabase(proposal.getDatabase());
+                    r.setTable(proposal.getTable());
+                    r.setIndexName(index.getName());
+                    r.setColumns(index.getColumns());
+                    r.setCoveredBy(proposal.getIndexName());
+                    redundant.add(r);
+                }
+            }
+        }
+        return redundant;
+    }
+
+    /**
+     * 与 V20261019__composite_covering_indexes.sql 相同的写法：表不存在或索引已存在时跳过，在线建索引
+     */
+    private static String renderSql(AdvisorReport report) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("-- ============================================================\n");
+        sql.append("-- 索引顾问生成的索引迁移\n");
+        for (IndexProposal proposal : report.getProposals()) {
+            sql.append("--   ").append(proposal.getTable()).append('.').append(proposal.getIndexName())
+                .append(" <- ").append(String.join(", ", proposal.getMethods())).append('\n');
+        }
+        sql.append("-- ============================================================\n\n");
+        if (report.getProposals().isEmpty()) {
+            sql.append("-- 所有热点查询都已有合适的索引\n");
+            return sql.toString();
+        }
+
+        sql.append("DROP PROCEDURE IF EXISTS advisor_add_index;\n");
+        sql.append("DROP PROCEDURE IF EXISTS advisor_drop_index;\n\n");
+        sql.append("DELIMITER //\n\n");
+        sql.append("CREATE PROCEDURE advisor_add_index(IN p_schema VARCHAR(64), IN p_table VARCHAR(64),\n");
+        sql.append("                                   IN p_index VARCHAR(64), IN p_columns VARCHAR(255))\n");
+        sql.append("BEGIN\n");
+        sql.append("    IF EXISTS (SELECT 1 FROM information_schema.tables\n");
+        sql.append("               WHERE table_schema = p_schema AND table_name = p_table)\n");
+        sql.append("       AND NOT EXISTS (SELECT 1 FROM information_schema.statistics\n");
+        sql.append("                       WHERE table_schema = p_schema AND table_name = p_table AND index_name = p_index) THEN\n");
+        sql.append("        SET @advisor_ddl = CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` ADD INDEX `', p_index,\n");
+        sql.append("                                  '` (', p_columns, '), ALGORITHM=INPLACE, LOCK=NONE');\n");
+        sql.append("        PREPARE advisor_stmt FROM @advisor_ddl;\n");
+        sql.append("        EXECUTE advisor_stmt;\n");
+        sql.append("        DEALLOCATE PREPARE advisor_stmt;\n");
+        sql.append("    END IF;\n");
+        sql.append("END //\n\n");
+        sql.append("CREATE PROCEDURE advisor_drop_index(IN p_schema VARCHAR(64), IN p_table VARCHAR(64), IN p_index VARCHAR(64))\n");
+        sql.append("BEGIN\n");
+        sql.append("    IF EXISTS (SELECT 1 FROM information_schema.statistics\n");
+        sql.append("               WHERE table_schema = p_schema AND table_name = p_table AND index_name = p_index) THEN\n");
+        sql.append("        SET @advisor_ddl = CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` DROP INDEX `', p_index,\n");
+        sql.append("                                  '`, ALGORITHM=INPLACE, LOCK=NONE');\n");
+        sql.append("        PREPARE advisor_stmt FROM @advisor_ddl;\n");
+        sql.append("        EXECUTE advisor_stmt;\n");
+        sql.append("        DEALLOCATE PREPARE advisor_stmt;\n");
+        sql.append("    END IF;\n");
+        sql.append("END //\n\n");
+        sql.append("DELIMITER ;\n\n");
+
+        for (IndexProposal proposal : report.getProposals()) {
+            sql.append("CALL advisor_add_index('").append(placeholder(proposal.getDatabase())).append("', '")
+                .append(proposal.getTable()).append("', '").append(proposal.getIndexName()).append("', '")
+                .append(String.join(", ", proposal.getColumns())).append("');\n");
+        }
+        for (RedundantIndex index : report.getRedundantIndexes()) {
+            sql.append("CALL advisor_drop_index('").append(placeholder(index.getDatabase())).append("', '")
+                .append(index.getTable()).append("', '").append(index.getIndexName()).append("');\n");
+        }
+        sql.append("\nDROP PROCEDURE IF EXISTS advisor_add_index;\n");
+        sql.append("DROP PROCEDURE IF EXISTS advisor_drop_index;\n");
+        return sql.toString();
+    }
+
+    private static String placeholder(Database database) {
+        return database == Database.PRIMARY ? "${db1}" : "${db2}";
+    }
+
+    private static String indexName(List<String> columns) {
+        String name = "idx_" + String.join("_", columns);
+        return name.length() <= 64 ? name : name.substring(0, 64);
+    }
+
+    private static boolean startsWith(List<String> columns, List<String> prefix) {
+        return columns.size() >= prefix.size() && columns.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private static String stringOf(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static JdbcTemplate newJdbcTemplate(DataSource dataSource, int queryTimeoutSeconds) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+        return jdbcTemplate;
+    }
+
+    /**
+     * 分析报告
+     */
+    @Data
+    public static class AdvisorReport {
+        private List<ShapeReport> shapes;
+        private List<IndexProposal> proposals;
+        private List<RedundantIndex> redundantIndexes;
+        private long elapsedMs;
+    }
+
+    /**
+     * 单条查询的分析结果
+     */
+    @Data
+    public static class ShapeReport {
+        private String method;
+        private Database database;
+        private String table;
+        private String sql;
+        /** 推导出的索引列 */
+        private List<String> requiredColumns;
+        /** 以推导列为最左前缀的已有索引，为空表示需要新建 */
+        private String satisfiedBy;
+        private ExplainPlan plan;
+        private LatencyStats latency;
+        private String note;
+    }
+
+    /**
+     * EXPLAIN 中目标表对应的一行
+     */
+    @Data
+    public static class ExplainPlan {
+        private String accessType;
+        private String possibleKeys;
+        private String key;
+        private Long rows;
+        private Double filtered;
+        private String extra;
+        /** 只读索引不回表 */
+        private boolean covering;
+        private List<String> issues;
+    }
+
+    @Data
+    public static class LatencyStats {
+        private int runs;
+        private int resultRows;
+        private double p50Ms;
+        private double p95Ms;
+        private double maxMs;
+    }
+
+    @Data
+    public static class IndexProposal {
+        private Database database;
+        private String table;
+        private String indexName;
+        private List<String> columns;
+        /** 受益的 Repository 方法 */
+        private List<String> methods;
+    }
+
+    @Data
+    public static class RedundantIndex {
+        private Database database;
+        private String table;
+        private String indexName;
+        private List<String> columns;
+        private String coveredBy;
+    }
+
+    @Data
+    public static class MigrationScript {
+        private String fileName;
+        private String content;
+        /** 写入的文件路径，未写入时为空 */
+        private String writtenTo;
+        private List<IndexProposal> proposals;
+        private List<RedundantIndex> redundantIndexes;
+    }
+
+    /**
+     * 单个 Repository 方法迁移前后的对比
+     */
+    @Data
+    public static class LatencyComparison {
+        private String method;
+        private String keyBefore;
+        private String keyAfter;
+        private Long rowsBefore;
+        private Long rowsAfter;
+        private LatencyStats before;
+        private LatencyStats after;
+        /** 迁移前 p50 / 迁移后 p50 */
+        private Double speedup;
+    }
+
+    @Data
+    public static class ApplyReport {
+        private int migrationsExecuted;
+        private String targetVersion;
+        private List<LatencyComparison> comparisons;
+        private List<IndexProposal> remainingProposals;
+    }
+
+    @Data
+    private static class IndexInfo {
+        private String name;
+        private List<String> columns;
+        private boolean unique;
+    }
+}
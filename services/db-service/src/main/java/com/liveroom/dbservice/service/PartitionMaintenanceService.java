@@ -0,0 +1,363 @@
+package com.liveroom.dbservice.service;
+
+import com.liveroom.dbservice.service.QueryShape.Database;
+import common.logger.AppLogger;
+import common.logger.TraceLogger;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 打赏表月分区维护服务
+ *
+ * recharge (DB1) 和 recharge_record (DB2) 按 recharge_time 做 RANGE COLUMNS 月分区
+ * （新库由初始化脚本建成分区表，已有库在维护窗口手动执行 db/partition 中的迁移），分区名 pYYYYMM，最后一个是兜底的 p_future：
+ * 1. 提前建分区：把 p_future 拆出未来 ahead-months 个月。p_future 保持为空，拆分只改元数据
+ * 2. 归档：早于 retention-months 的分区用 EXCHANGE PARTITION 换到同结构的归档表 {table}_archive_{YYYYMM}，
+ *    交换只改元数据，热表只短暂加锁；随后删除空分区，归档表再转为压缩行格式
+ *    recharge 归档后把对应月份的 traceId 从 recharge_trace 转入 recharge_trace_archive（只存 MD5），
+ *    先写入归档去重表再删除，任何时刻 traceId 至少在其中一张表，归档后旧 traceId 仍不能重复入账
+ *
+ * 时间范围查询的条件都直接写在 recharge_time 上（>=、<、BETWEEN），优化器据此裁剪分区，
+ * 只访问涉及的月份；status() 中的 pruning 一项用 EXPLAIN 验证最近一个月的范围查询只访问了哪些分区。
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private static final String SELECT_PARTITIONS_SQL =
+        "SELECT partition_name, partition_description, table_rows, data_length, index_length " +
+        "FROM information_schema.partitions WHERE table_schema = DATABASE() AND table_name = ? " +
+        "AND partition_name IS NOT NULL ORDER BY partition_ordinal_position";
+
+    private static final String COUNT_TABLE_SQL =
+        "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?";
+
+    private static final String SELECT_EXPIRED_TRACE_SQL =
+        "SELECT trace_id FROM recharge_trace WHERE recharge_time < ? LIMIT ?";
+
+    private static final String ARCHIVE_TRACE_SQL =
+        "INSERT IGNORE INTO recharge_trace_archive (trace_hash) VALUES (UNHEX(MD5(?)))";
+
+    private static final int TRACE_ARCHIVE_BATCH = 10000;
+
+    /**
+     * 分区表
+     */
+    private enum PartitionedTable {
+        RECHARGE(Database.PRIMARY, "recharge", true),
+        RECHARGE_RECORD(Database.SECONDARY, "recharge_record", false);
+
+        private final Database database;
+        private final String table;
+        /** 归档时是否把 recharge_trace 转入 recharge_trace_archive */
+        private final boolean purgeTrace;
+
+        PartitionedTable(Database database, String table, boolean purgeTrace) {
+            this.database = database;
+            this.table = table;
+            this.purgeTrace = purgeTrace;
+        }
+    }
+
+    private final Map<Database, JdbcTemplate> jdbcTemplates = new EnumMap<>(Database.class);
+
+    /** 是否启用分区维护 */
+    @Value("${db.partition.enabled:true}")
+    private boolean enabled;
+
+    /** 提前建好的未来月份数 */
+    @Value("${db.partition.ahead-months:3}")
+    private int aheadMonths;
+
+    /** 热表保留的月份数，更早的分区归档 */
+    @Value("${db.partition.retention-months:24}")
+    private int retentionMonths;
+
+    /** 定时任务是否执行归档 */
+    @Value("${db.partition.archive-enabled:false}")
+    private boolean archiveEnabled;
+
+    /** 归档表的行格式 */
+    @Value("${db.partition.archive-row-format:COMPRESSED}")
+    private String archiveRowFormat;
+
+    public PartitionMaintenanceService(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                       @Qualifier("secondaryDataSource") DataSource secondaryDataSource) {
+        this.jdbcTemplates.put(Database.PRIMARY, new JdbcTemplate(primaryDataSource));
+        this.jdbcTemplates.put(Database.SECONDARY, new JdbcTemplate(secondaryDataSource));
+    }
+
+    /**
+     * 启动后补齐未来分区
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensureFuturePartitions();
+        } catch (Exception e) {
+            AppLogger.error("启动时补齐打赏表分区失败", e);
+        }
+    }
+
+    /**
+     * 每天补齐未来分区，开启归档时归档过期分区
+     */
+    @Scheduled(cron = "${db.partition.cron:0 30 2 * * ?}")
+    public void scheduledMaintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensureFuturePartitions();
+            if (archiveEnabled) {
+                archiveExpired();
+            }
+        } catch (Exception e) {
+            AppLogger.error("打赏表分区维护失败", e);
+            TraceLogger.error("PartitionMaintenance", "scheduledMaintain", null, e);
+        }
+    }
+
+    /**
+     * 为所有分区表拆出未来分区
+     *
+     * @return 新建的分区名
+     */
+    public List<String> ensureFuturePartitions() {
+        List<String> created = new ArrayList<>();
+        for (PartitionedTable table : PartitionedTable.values()) {
+            created.addAll(ensureFuturePartitions(table));
+        }
+        return created;
+    }
+
+    /**
+     * 归档所有分区表中早于保留期的分区
+     */
+    public List<ArchiveResult> archiveExpired() {
+        List<ArchiveResult> results = new ArrayList<>();
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+        for (PartitionedTable table : PartitionedTable.values()) {
+            results.addAll(archive(table, cutoff));
+        }
+        return results;
+    }
+
+    /**
+     * 各分区表的分区、行数估算和最近一个月范围查询的分区裁剪情况
+     */
+    public List<TableStatus> status() {
+        List<TableStatus> statuses = new ArrayList<>();
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        for (PartitionedTable table : PartitionedTable.values()) {
+            JdbcTemplate jdbc = jdbcTemplates.get(table.database);
+            TableStatus status = new TableStatus();
+            status.setDatabase(table.database);
+            status.setTable(table.table);
+            status.setPartitions(loadPartitions(jdbc, table.table));
+            status.setPartitioned(!status.getPartitions().isEmpty());
+            if (status.isPartitioned()) {
+                List<Map<String, Object>> plan = jdbc.queryForList(
+                    "EXPLAIN SELECT COUNT(*) FROM " + table.table + " WHERE recharge_time >= ? AND recharge_time < ?",
+                    Timestamp.valueOf(monthStart.atStartOfDay()),
+                    Timestamp.valueOf(monthStart.plusMonths(1).atStartOfDay()));
+                status.setPruning(plan.isEmpty() ? null : (String) plan.get(0).get("partitions"));
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    private List<String> ensureFuturePartitions(PartitionedTable table) {
+        JdbcTemplate jdbc = jdbcTemplates.get(table.database);
+        List<PartitionInfo> partitions = loadPartitions(jdbc, table.table);
+        if (partitions.isEmpty()) {
+            TraceLogger.warn("PartitionMaintenance", "ensureFuturePartitions", table.table, "表未分区，跳过");
+            return new ArrayList<>();
+        }
+        PartitionInfo last = partitions.get(partitions.size() - 1);
+        if (!FUTURE_PARTITION.equals(last.getName())) {
+            TraceLogger.warn("PartitionMaintenance", "ensureFuturePartitions", table.table,
+                "最后一个分区不是 " + FUTURE_PARTITION + "，跳过");
+            return new ArrayList<>();
+        }
+
+        LocalDate target = LocalDate.now().withDayOfMonth(1).plusMonths(aheadMonths + 1L);
+        LocalDate bound = partitions.size() > 1
+            ? partitions.get(partitions.size() - 2).getUpperBound()
+            : LocalDate.now().withDayOfMonth(1);
+        List<String> created = new ArrayList<>();
+        StringBuilder definitions = new StringBuilder();
+        while (bound.isBefore(target)) {
+            String name = "p" + bound.format(MONTH_FORMAT);
+            LocalDate next = bound.plusMonths(1);
+            definitions.append("PARTITION ").append(name)
+                .append(" VALUES LESS THAN ('").append(next).append("'), ");
+            created.add(name);
+            bound = next;
+        }
+        if (created.isEmpty()) {
+            return created;
+        }
+
+        long start = System.currentTimeMillis();
+        jdbc.execute("ALTER TABLE " + table.table + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+            definitions + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+        TraceLogger.info("PartitionMaintenance", "ensureFuturePartitions", table.table,
+            String.format("新建分区 %s, 耗时%dms", created, System.currentTimeMillis() - start));
+        return created;
+    }
+
+    private List<ArchiveResult> archive(PartitionedTable table, LocalDate cutoff) {
+        JdbcTemplate jdbc = jdbcTemplates.get(table.database);
+        List<ArchiveResult> results = new ArrayList<>();
+        for (PartitionInfo partition : loadPartitions(jdbc, table.table)) {
+            LocalDate upperBound = partition.getUpperBound();
+            if (upperBound == null || upperBound.isAfter(cutoff)) {
+                break;
+            }
+            results.add(archivePartition(jdbc, table, partition));
+        }
+        return results;
+    }
+
+    /**
+     * 把一个分区交换到空的归档表，再删除热表上的空分区
+     */
+    private ArchiveResult archivePartition(JdbcTemplate jdbc, PartitionedTable table, PartitionInfo partition) {
+        long start = System.currentTimeMillis();
+        String archiveTable = table.table + "_archive_" + partition.getName().substring(1).replace("_", "");
+
+        Integer exists = jdbc.queryForObject(COUNT_TABLE_SQL, Integer.class, archiveTable);
+        if (exists != null && exists > 0) {
+            Long archivedRows = jdbc.queryForObject("SELECT COUNT(*) FROM " + archiveTable, Long.class);
+            if (archivedRows != null && archivedRows > 0) {
+                throw new IllegalStateException("归档表 " + archiveTable + " 已有数据，请人工确认后再归档分区 "
+                    + partition.getName());
+            }
+        } else {
+            jdbc.execute("CREATE TABLE " + archiveTable + " LIKE " + table.table);
+            jdbc.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+        }
+
+        jdbc.execute("ALTER TABLE " + table.table + " EXCHANGE PARTITION " + partition.getName()
+            + " WITH TABLE " + archiveTable);
+        jdbc.execute("ALTER TABLE " + table.table + " DROP PARTITION " + partition.getName());
+        jdbc.execute("ALTER TABLE " + archiveTable + " ROW_FORMAT=" + archiveRowFormat);
+
+        long purged = 0;
+        if (table.purgeTrace) {
+            purged = archiveTraces(jdbc, Timestamp.valueOf(partition.getUpperBound().atStartOfDay()));
+        }
+
+        ArchiveResult result = new ArchiveResult();
+        result.setTable(table.table);
+        result.setPartition(partition.getName());
+        result.setArchiveTable(archiveTable);
+        result.setRows(jdbc.queryForObject("SELECT COUNT(*) FROM " + archiveTable, Long.class));
+        result.setPurgedTraces(purged);
+        result.setElapsedMs(System.currentTimeMillis() - start);
+
+        TraceLogger.info("PartitionMaintenance", "archivePartition", table.table,
+            String.format("分区 %s 归档到 %s: 行数=%d, 转入去重表的traceId=%d, 耗时%dms",
+                partition.getName(), archiveTable, result.getRows(), purged, result.getElapsedMs()));
+        return result;
+    }
+
+    /**
+     * 把早于 bound 的 traceId 分批转入 recharge_trace_archive：每批先写入去重表再从 recharge_trace 删除
+     *
+     * @return 转移的 traceId 数
+     */
+    private static long archiveTraces(JdbcTemplate jdbc, Timestamp bound) {
+        long moved = 0;
+        List<String> traceIds;
+        do {
+            traceIds = jdbc.queryForList(SELECT_EXPIRED_TRACE_SQL, String.class, bound, TRACE_ARCHIVE_BATCH);
+            if (traceIds.isEmpty()) {
+                break;
+            }
+            List<Object[]> args = new ArrayList<>(traceIds.size());
+            traceIds.forEach(traceId -> args.add(new Object[] {traceId}));
+            jdbc.batchUpdate(ARCHIVE_TRACE_SQL, args);
+            jdbc.update("DELETE FROM recharge_trace WHERE trace_id IN ("
+                + String.join(",", Collections.nCopies(traceIds.size(), "?")) + ")", traceIds.toArray());
+            moved += traceIds.size();
+        } while (traceIds.size() == TRACE_ARCHIVE_BATCH);
+        return moved;
+    }
+
+    private static List<PartitionInfo> loadPartitions(JdbcTemplate jdbc, String table) {
+        return jdbc.query(SELECT_PARTITIONS_SQL, (rs, rowNum) -> {
+            PartitionInfo info = new PartitionInfo();
+            info.setName(rs.getString("partition_name"));
+            info.setUpperBound(parseBound(rs.getString("partition_description")));
+            info.setEstimatedRows(rs.getLong("table_rows"));
+            info.setDataBytes(rs.getLong("data_length") + rs.getLong("index_length"));
+            return info;
+        }, table);
+    }
+
+    /**
+     * RANGE COLUMNS 的分区描述形如 '2026-11-01' 或 '2026-11-01 00:00:00'，MAXVALUE 返回空
+     */
+    private static LocalDate parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        return LocalDate.parse(value.substring(0, Math.min(10, value.length())));
+    }
+
+    @Data
+    public static class PartitionInfo {
+        private String name;
+        /** 分区上界（不含），p_future 为空 */
+        private LocalDate upperBound;
+        /** 来自 information_schema 的估算值 */
+        private long estimatedRows;
+        private long dataBytes;
+    }
+
+    @Data
+    public static class TableStatus {
+        private Database database;
+        private String table;
+        private boolean partitioned;
+        private List<PartitionInfo> partitions;
+        /** 本月范围查询 EXPLAIN 中访问的分区 */
+        private String pruning;
+    }
+
+    @Data
+    public static class ArchiveResult {
+        private String table;
+        private String partition;
+        private String archiveTable;
+        private Long rows;
+        private long purgedTraces;
+        private long elapsedMs;
+    }
+}
@@ -0,0 +1,141 @@
+package com.liveroom.dbservice.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 热点查询形态
+ *
+ * 一条 Repository 查询在数据库上实际执行的 SQL（JPQL 翻译后的等价原生 SQL），
+ * 以及按 "等值列 → 范围列（无范围时为排序列）→ 覆盖列" 规则推导索引所需的列角色。
+ * sampleSql 从现有数据中取一组真实参数，保证 EXPLAIN 和延迟测量走到有数据的分支。
+ */
+@Getter
+public class QueryShape {
+
+    /**
+     * 查询所在的数据库
+     */
+    public enum Database {
+        /** DB1: live_audience_db */
+        PRIMARY,
+        /** DB2: live_finance_db */
+        SECONDARY
+    }
+
+    /** Repository 方法，如 RechargeRecordRepository.findUnsettledRecordsByAnchor */
+    private final String method;
+
+    private final Database database;
+
+    private final String table;
+
+    /** 带 ? 占位符的查询 SQL */
+    private final String sql;
+
+    /** 取样参数 SQL，返回一行，列顺序与 sql 中的占位符一致 */
+    private final String sampleSql;
+
+    private final List<String> equalityColumns;
+
+    /** 范围条件列，没有时为空 */
+    private final String rangeColumn;
+
+    /** ORDER BY / GROUP BY 列，有范围列时无法用索引顺序消除排序，不参与推导 */
+    private final List<String> sortColumns;
+
+    /** 需要从索引直接读出的其余列，为空表示查询需要回表（SELECT *） */
+    private final List<String> coveringColumns;
+
+    private QueryShape(Builder builder) {
+        this.method = builder.method;
+        this.database = builder.database;
+        this.table = builder.table;
+        this.sql = builder.sql;
+        this.sampleSql = builder.sampleSql;
+        this.equalityColumns = Collections.unmodifiableList(builder.equalityColumns);
+        this.rangeColumn = builder.rangeColumn;
+        this.sortColumns = Collections.unmodifiableList(builder.sortColumns);
+        this.coveringColumns = Collections.unmodifiableList(builder.coveringColumns);
+    }
+
+    /**
+     * 推导出的索引列：等值列，再接范围列（无范围时接排序列），最后补覆盖列，去重保序
+     */
+    public List<String> indexColumns() {
+        List<String> columns = new ArrayList<>(equalityColumns);
+        if (rangeColumn != null) {
+            addIfAbsent(columns, rangeColumn);
+        } else {
+            sortColumns.forEach(column -> addIfAbsent(columns, column));
+        }
+        coveringColumns.forEach(column -> addIfAbsent(columns, column));
+        return columns;
+    }
+
+    private static void addIfAbsent(List<String> columns, String column) {
+        if (!columns.contains(column)) {
+            columns.add(column);
+        }
+    }
+
+    public static Builder builder(String method, Database database, String table) {
+        return new Builder(method, database, table);
+    }
+
+    public static class Builder {
+        private final String method;
+        private final Database database;
+        private final String table;
+        private String sql;
+        private String sampleSql;
+        private List<String> equalityColumns = new ArrayList<>();
+        private String rangeColumn;
+        private List<String> sortColumns = new ArrayList<>();
+        private List<String> coveringColumns = new ArrayList<>();
+
+        private Builder(String method, Database database, String table) {
+            this.method = method;
+            this.database = database;
+            this.table = table;
+        }
+
+        public Builder sql(String sql) {
+            this.sql = sql;
+            return this;
+        }
+
+        public Builder sampleSql(String sampleSql) {
+            this.sampleSql = sampleSql;
+            return this;
+        }
+
+        public Builder equality(String... columns) {
+            this.equalityColumns = new ArrayList<>(Arrays.asList(columns));
+            return this;
+        }
+
+        public Builder range(String column) {
+            this.rangeColumn = column;
+            return this;
+        }
+
+        public Builder sort(String... columns) {
+            this.sortColumns = new ArrayList<>(Arrays.asList(columns));
+            return this;
+        }
+
+        public Builder covering(String... columns) {
+            this.coveringColumns = new ArrayList<>(Arrays.asList(columns));
+            return this;
+        }
+
+        public QueryShape build() {
+            return new QueryShape(this);
+        }
+    }
+}
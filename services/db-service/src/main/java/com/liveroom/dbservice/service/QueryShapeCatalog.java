@@ -0,0 +1,153 @@
+package com.liveroom.dbservice.service;
+
+import com.liveroom.dbservice.service.QueryShape.Database;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 热点查询形态目录
+ *
+ * 收录各服务 Repository 中调用最频繁、数据量最大的查询，SQL 与 Hibernate 生成的语句等价。
+ * 新增或修改这些 Repository 查询时，同步更新这里的形态，索引顾问才能给出对应的索引建议。
+ */
+public final class QueryShapeCatalog {
+
+    private static final List<QueryShape> SHAPES = Collections.unmodifiableList(Arrays.asList(
+
+        // ========== DB2 recharge_record（finance-service） ==========
+        QueryShape.builder("RechargeRecordRepository.findUnsettledRecordsByAnchor", Database.SECONDARY, "recharge_record")
+            .sql("SELECT * FROM recharge_record WHERE anchor_id = ? AND settlement_status = 0 " +
+                 "ORDER BY recharge_time ASC")
+            .sampleSql("SELECT anchor_id FROM recharge_record WHERE settlement_status = 0 LIMIT 1")
+            .equality("anchor_id", "settlement_status")
+            .sort("recharge_time")
+            .build(),
+
+        QueryShape.builder("RechargeRecordRepository.findUnsettledRecords", Database.SECONDARY, "recharge_record")
+            .sql("SELECT * FROM recharge_record WHERE settlement_status = 0 " +
+                 "ORDER BY recharge_time ASC LIMIT 100")
+            .equality("settlement_status")
+            .sort("recharge_time")
+            .build(),
+
+        QueryShape.builder("RechargeRecordRepository.sumAmountByAnchorAndTime", Database.SECONDARY, "recharge_record")
+            .sql("SELECT COALESCE(SUM(recharge_amount), 0) FROM recharge_record " +
+                 "WHERE anchor_id = ? AND recharge_time >= ? AND recharge_time < ?")
+            .sampleSql("SELECT anchor_id, recharge_time - INTERVAL 30 DAY, recharge_time FROM recharge_record " +
+                       "ORDER BY recharge_time DESC LIMIT 1")
+            .equality("anchor_id")
+            .range("recharge_time")
+            .covering("recharge_amount")
+            .build(),
+
+        QueryShape.builder("RechargeRecordRepository.getAnchorDailyStats", Database.SECONDARY, "recharge_record")
+            .sql("SELECT DATE(recharge_time), COUNT(*), SUM(recharge_amount), AVG(recharge_amount), " +
+                 "MAX(recharge_amount), MIN(recharge_amount), COUNT(DISTINCT audience_id) " +
+                 "FROM recharge_record WHERE anchor_id = ? AND recharge_time BETWEEN ? AND ? " +
+                 "GROUP BY DATE(recharge_time) ORDER BY DATE(recharge_time)")
+            .sampleSql("SELECT anchor_id, recharge_time - INTERVAL 30 DAY, recharge_time FROM recharge_record " +
+                       "ORDER BY recharge_time DESC LIMIT 1")
+            .equality("anchor_id")
+            .range("recharge_time")
+            .covering("recharge_amount", "audience_id")
+            .build(),
+
+        QueryShape.builder("RechargeRecordRepository.getTopAnchorsByRevenue", Database.SECONDARY, "recharge_record")
+            .sql("SELECT anchor_id, anchor_name, SUM(recharge_amount), COUNT(*) FROM recharge_record " +
+                 "WHERE recharge_time BETWEEN ? AND ? GROUP BY anchor_id, anchor_name " +
+                 "ORDER BY SUM(recharge_amount) DESC LIMIT 10")
+            .sampleSql("SELECT MAX(recharge_time) - INTERVAL 7 DAY, MAX(recharge_time) FROM recharge_record")
+            .range("recharge_time")
+            .sort("anchor_id", "anchor_name")
+            .covering("anchor_id", "anchor_name", "recharge_amount")
+            .build(),
+
+        // ========== DB1 recharge（audience-service） ==========
+        QueryShape.builder("RechargeRepository.findTop10ByAnchorAndTimeRange", Database.PRIMARY, "recharge")
+            .sql("SELECT * FROM recharge WHERE anchor_id = ? AND recharge_time BETWEEN ? AND ? " +
+                 "ORDER BY recharge_amount DESC LIMIT 10")
+            .sampleSql("SELECT anchor_id, recharge_time - INTERVAL 30 DAY, recharge_time FROM recharge " +
+                       "ORDER BY recharge_id DESC LIMIT 1")
+            .equality("anchor_id")
+            .range("recharge_time")
+            .sort("recharge_amount")
+            .build(),
+
+        QueryShape.builder("RechargeRepository.findUnsyncedRecharges", Database.PRIMARY, "recharge")
+            .sql("SELECT * FROM recharge WHERE status = 0 ORDER BY create_time ASC LIMIT 100")
+            .equality("status")
+            .sort("create_time")
+            .build(),
+
+        QueryShape.builder("RechargeRepository.seekByAnchorId", Database.PRIMARY, "recharge")
+            .sql("SELECT * FROM recharge WHERE anchor_id = ? " +
+                 "AND (recharge_time < ? OR (recharge_time = ? AND recharge_id < ?)) " +
+                 "ORDER BY recharge_time DESC, recharge_id DESC LIMIT 21")
+            .sampleSql("SELECT anchor_id, recharge_time, recharge_time, recharge_id FROM recharge " +
+                       "ORDER BY recharge_id DESC LIMIT 1")
+            .equality("anchor_id")
+            .sort("recharge_time")
+            .build(),
+
+        QueryShape.builder("RechargeRepository.seekByAudienceId", Database.PRIMARY, "recharge")
+            .sql("SELECT * FROM recharge WHERE audience_id = ? " +
+                 "AND (recharge_time < ? OR (recharge_time = ? AND recharge_id < ?)) " +
+                 "ORDER BY recharge_time DESC, recharge_id DESC LIMIT 21")
+            .sampleSql("SELECT audience_id, recharge_time, recharge_time, recharge_id FROM recharge " +
+                       "ORDER BY recharge_id DESC LIMIT 1")
+            .equality("audience_id")
+            .sort("recharge_time")
+            .build(),
+
+        // ========== DB1 live_room（anchor-service） ==========
+        QueryShape.builder("LiveRoomRepository.seekLiveRooms", Database.PRIMARY, "live_room")
+            .sql("SELECT * FROM live_room WHERE room_status = 1 " +
+                 "AND (total_viewers < ? OR (total_viewers = ? AND live_room_id < ?)) " +
+                 "ORDER BY total_viewers DESC, live_room_id DESC LIMIT 21")
+            .sampleSql("SELECT total_viewers, total_viewers, live_room_id FROM live_room " +
+                       "WHERE room_status = 1 ORDER BY total_viewers DESC, live_room_id DESC LIMIT 1")
+            .equality("room_status")
+            .sort("total_viewers")
+            .build(),
+
+        // ========== DB1 message（audience-service） ==========
+        QueryShape.builder("MessageRepository.seekByLiveRoomId", Database.PRIMARY, "message")
+            .sql("SELECT * FROM message WHERE live_room_id = ? " +
+                 "AND (create_time < ? OR (create_time = ? AND message_id < ?)) " +
+                 "ORDER BY create_time DESC, message_id DESC LIMIT 20")
+            .sampleSql("SELECT live_room_id, create_time, create_time, message_id FROM message " +
+                       "ORDER BY message_id DESC LIMIT 1")
+            .equality("live_room_id")
+            .sort("create_time")
+            .build(),
+
+        QueryShape.builder("MessageRepository.findByLiveRoomIdAndTimeRange", Database.PRIMARY, "message")
+            .sql("SELECT * FROM message WHERE live_room_id = ? AND create_time BETWEEN ? AND ? " +
+                 "ORDER BY create_time DESC")
+            .sampleSql("SELECT live_room_id, create_time - INTERVAL 1 HOUR, create_time FROM message " +
+                       "ORDER BY message_id DESC LIMIT 1")
+            .equality("live_room_id")
+            .range("create_time")
+            .build(),
+
+        // ========== DB2 withdrawal（finance-service） ==========
+        QueryShape.builder("WithdrawalRepository.seekByAnchorIdAndStatus", Database.SECONDARY, "withdrawal")
+            .sql("SELECT * FROM withdrawal WHERE anchor_id = ? " +
+                 "AND (applied_time < ? OR (applied_time = ? AND withdrawal_id < ?)) " +
+                 "ORDER BY applied_time DESC, withdrawal_id DESC LIMIT 21")
+            .sampleSql("SELECT anchor_id, applied_time, applied_time, withdrawal_id FROM withdrawal " +
+                       "ORDER BY withdrawal_id DESC LIMIT 1")
+            .equality("anchor_id")
+            .sort("applied_time")
+            .build()
+    ));
+
+    private QueryShapeCatalog() {
+    }
+
+    public static List<QueryShape> all() {
+        return SHAPES;
+    }
+}
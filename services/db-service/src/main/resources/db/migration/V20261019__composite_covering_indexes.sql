@@ -0,0 +1,70 @@
+-- ============================================================
+-- 热点查询的复合索引和覆盖索引
+-- 由索引顾问（/api/database/index-advisor）根据各 Repository 查询的执行计划给出
+--
+-- DB2 recharge_record:
+--   findUnsettledRecordsByAnchor      anchor_id = ? AND settlement_status = 0 ORDER BY recharge_time
+--                                     -> idx_anchor_status_time，替代 idx_anchor_id
+--   findUnsettledRecords              settlement_status = 0 ORDER BY recharge_time LIMIT n
+--                                     -> idx_status_time，替代 idx_settlement_status
+--   sumAmountByAnchorAndTime 等       anchor_id = ? AND recharge_time 范围，只读金额和观众
+--                                     -> idx_anchor_time_amount（覆盖索引，不回表）
+--   getTopAnchorsByRevenue            recharge_time 范围后按 anchor_id, anchor_name 分组求和
+--                                     -> idx_time_anchor_amount（覆盖索引），替代 idx_recharge_time
+-- DB1 recharge:
+--   findUnsyncedRecharges             status = 0 ORDER BY create_time LIMIT n
+--                                     -> idx_status_create_time，替代 idx_status
+--
+-- 新建的库由 01/02 初始化脚本直接建好这些索引，这里只对已有的库补齐；
+-- 表不存在或索引已存在时跳过，可重复执行。索引在线创建（INPLACE, LOCK=NONE），不阻塞读写。
+-- ============================================================
+
+DROP PROCEDURE IF EXISTS advisor_add_index;
+DROP PROCEDURE IF EXISTS advisor_drop_index;
+
+DELIMITER //
+
+CREATE PROCEDURE advisor_add_index(IN p_schema VARCHAR(64), IN p_table VARCHAR(64),
+                                   IN p_index VARCHAR(64), IN p_columns VARCHAR(255))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = p_schema AND table_name = p_table)
+       AND NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                       WHERE table_schema = p_schema AND table_name = p_table AND index_name = p_index) THEN
+        SET @advisor_ddl = CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` ADD INDEX `', p_index,
+                                  '` (', p_columns, '), ALGORITHM=INPLACE, LOCK=NONE');
+        PREPARE advisor_stmt FROM @advisor_ddl;
+        EXECUTE advisor_stmt;
+        DEALLOCATE PREPARE advisor_stmt;
+    END IF;
+END //
+
+CREATE PROCEDURE advisor_drop_index(IN p_schema VARCHAR(64), IN p_table VARCHAR(64), IN p_index VARCHAR(64))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.statistics
+               WHERE table_schema = p_schema AND table_name = p_table AND index_name = p_index) THEN
+        SET @advisor_ddl = CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` DROP INDEX `', p_index,
+                                  '`, ALGORITHM=INPLACE, LOCK=NONE');
+        PREPARE advisor_stmt FROM @advisor_ddl;
+        EXECUTE advisor_stmt;
+        DEALLOCATE PREPARE advisor_stmt;
+    END IF;
+END //
+
+DELIMITER ;
+
+-- DB2 recharge_record：先建新索引，再删被其最左前缀覆盖的单列索引
+CALL advisor_add_index('${db2}', 'recharge_record', 'idx_anchor_status_time', 'anchor_id, settlement_status, recharge_time');
+CALL advisor_add_index('${db2}', 'recharge_record', 'idx_anchor_time_amount', 'anchor_id, recharge_time, recharge_amount, audience_id');
+CALL advisor_add_index('${db2}', 'recharge_record', 'idx_time_anchor_amount', 'recharge_time, anchor_id, anchor_name, recharge_amount');
+CALL advisor_add_index('${db2}', 'recharge_record', 'idx_status_time', 'settlement_status, recharge_time');
+CALL advisor_drop_index('${db2}', 'recharge_record', 'idx_anchor_id');
+CALL advisor_drop_index('${db2}', 'recharge_record', 'idx_recharge_time');
+CALL advisor_drop_index('${db2}', 'recharge_record', 'idx_settlement_status');
+
+-- DB1 recharge
+CALL advisor_add_index('${db1}', 'recharge', 'idx_status_create_time', 'status, create_time');
+CALL advisor_drop_index('${db1}', 'recharge', 'idx_status');
+
+DROP PROCEDURE IF EXISTS advisor_add_index;
+DROP PROCEDURE IF EXISTS advisor_drop_index;
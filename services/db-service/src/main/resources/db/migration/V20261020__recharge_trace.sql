@@ -0,0 +1,36 @@
+-- ============================================================
+-- recharge_trace：打赏 traceId 幂等表
+--
+-- RechargeService.createRecharge 先插入 traceId，主键冲突即为重复请求，并记下打赏时间，
+-- 按 traceId 查询时只访问 recharge 的一个分区。recharge 是否已分区都使用这张表：
+-- 分区转换（ALGORITHM=COPY，阻塞写入）单独放在 db/partition，维护窗口手动执行。
+--
+-- 从现有数据回填（未分区时 recharge 的 trace_id 唯一键保证不重复）；表已存在时只补缺失的 traceId，可重复执行。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `${db1}`.recharge_trace (
+    trace_id VARCHAR(64) PRIMARY KEY COMMENT 'traceId',
+    recharge_time DATETIME NOT NULL COMMENT '打赏时间（定位 recharge 分区）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    INDEX idx_recharge_time (recharge_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏traceId幂等表，归档后转入 recharge_trace_archive';
+
+-- 回填 traceId 幂等表
+DROP PROCEDURE IF EXISTS recharge_trace_backfill;
+
+DELIMITER //
+
+CREATE PROCEDURE recharge_trace_backfill()
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = '${db1}' AND table_name = 'recharge') THEN
+        INSERT IGNORE INTO `${db1}`.recharge_trace (trace_id, recharge_time)
+        SELECT trace_id, recharge_time FROM `${db1}`.recharge;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL recharge_trace_backfill();
+
+DROP PROCEDURE IF EXISTS recharge_trace_backfill;
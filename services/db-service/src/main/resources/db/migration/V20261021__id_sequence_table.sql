@@ -0,0 +1,52 @@
+-- ============================================================
+-- 主键号段表 id_sequence
+--
+-- user、tag (DB1) 和 recharge_record、settlement_detail、withdrawal (DB2) 的主键
+-- 从 IDENTITY 改为 @TableGenerator(table = "id_sequence")：IDENTITY 要求每条 INSERT 立即执行
+-- 才能拿到主键，Hibernate 会因此关闭 JDBC 批量插入；号段表一次分配 allocationSize 个ID，
+-- saveAll 的 INSERT 可以按 hibernate.jdbc.batch_size 合并发送。
+--
+-- pooled 优化器取到 next_val = N 时使用 (N - allocationSize, N] 区间的ID，
+-- 所以初始值设为 MAX(id) + allocationSize + 1，保证第一个号段落在已有数据之后。
+-- allocationSize 必须和实体上的注解保持一致。已存在的序列只会调大不会调小，可重复执行。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `${db1}`.id_sequence (
+    seq_name VARCHAR(64) PRIMARY KEY COMMENT '序列名（实体 @TableGenerator 的 pkColumnValue）',
+    next_val BIGINT NOT NULL COMMENT '下一号段上界，Hibernate pooled 优化器每次取 allocationSize 个ID'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '主键号段表，替代自增主键以便 Hibernate 批量插入（user、tag）';
+
+CREATE TABLE IF NOT EXISTS `${db2}`.id_sequence (
+    seq_name VARCHAR(64) PRIMARY KEY COMMENT '序列名（实体 @TableGenerator 的 pkColumnValue）',
+    next_val BIGINT NOT NULL COMMENT '下一号段上界，Hibernate pooled 优化器每次取 allocationSize 个ID'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '主键号段表，替代自增主键以便 Hibernate 批量插入（recharge_record、settlement_detail、withdrawal）';
+
+DROP PROCEDURE IF EXISTS id_sequence_seed;
+
+DELIMITER //
+
+CREATE PROCEDURE id_sequence_seed(IN p_schema VARCHAR(64), IN p_table VARCHAR(64), IN p_id_column VARCHAR(64),
+                                  IN p_seq_name VARCHAR(64), IN p_allocation_size INT)
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = p_schema AND table_name = p_table) THEN
+        SET @id_sequence_sql = CONCAT(
+            'INSERT INTO `', p_schema, '`.id_sequence (seq_name, next_val) ',
+            'SELECT ''', p_seq_name, ''', COALESCE(MAX(`', p_id_column, '`), 0) + ', p_allocation_size + 1,
+            ' FROM `', p_schema, '`.`', p_table, '` ',
+            'ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))');
+        PREPARE id_sequence_stmt FROM @id_sequence_sql;
+        EXECUTE id_sequence_stmt;
+        DEALLOCATE PREPARE id_sequence_stmt;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL id_sequence_seed('${db1}', 'user', 'user_id', 'user', 100);
+CALL id_sequence_seed('${db1}', 'tag', 'tag_id', 'tag', 100);
+CALL id_sequence_seed('${db2}', 'recharge_record', 'id', 'recharge_record', 1000);
+CALL id_sequence_seed('${db2}', 'settlement_detail', 'detail_id', 'settlement_detail', 100);
+CALL id_sequence_seed('${db2}', 'withdrawal', 'withdrawal_id', 'withdrawal', 100);
+
+DROP PROCEDURE IF EXISTS id_sequence_seed;
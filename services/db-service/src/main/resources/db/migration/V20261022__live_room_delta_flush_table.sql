@@ -0,0 +1,17 @@
+-- ============================================================
+-- 直播间实时增量落库记录表 live_room_delta_flush
+--
+-- 主播服务刷新实时计数时，先把 Redis 增量 Hash 原子地换成排空key，再在一个事务里更新
+-- live_room / live_room_realtime。实例在换出之后、提交之前宕机时排空key会遗留下来；
+-- 刷新任务按排空key是否出现在本表中判断：已记录则说明已落库，直接删除，否则合并回增量 Hash 重放。
+-- 记录与增量在同一事务写入，超过排空key有效期（24小时）的记录由主播服务定时清理。
+--
+-- 新建的库由 01 初始化脚本直接建表，这里只对已有的库补齐，可重复执行。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `${db1}`.live_room_delta_flush (
+    drain_key VARCHAR(128) PRIMARY KEY COMMENT '已落库的Redis排空key',
+    live_room_id BIGINT NOT NULL COMMENT '直播间ID',
+    flush_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '落库时间',
+    INDEX idx_flush_time (flush_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '直播间实时增量落库记录表，与增量同一事务写入，用于判断遗留排空key是否已落库';
@@ -0,0 +1,17 @@
+-- ============================================================
+-- 打赏水位空洞表 recharge_watermark_gap
+--
+-- RFM画像、金额草图按 recharge_id 水位增量消费打赏。自增ID在插入时分配、提交时才可见，
+-- 较小的ID可能晚于较大的ID提交；水位越过的空洞ID记入本表，之后每批回查，出现后补充消费并删除，
+-- 超时仍未出现的视为已回滚删除（common.service.RechargeWatermarkService）。
+--
+-- 新建的库由 01 初始化脚本直接建表，这里只对已有的库补齐，可重复执行。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `${db1}`.recharge_watermark_gap (
+    consumer VARCHAR(50) NOT NULL COMMENT '水位消费者（sync_progress.target_service）',
+    recharge_id BIGINT NOT NULL COMMENT '被水位越过、尚未出现的打赏ID',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发现时间',
+    PRIMARY KEY (consumer, recharge_id),
+    INDEX idx_consumer_time (consumer, create_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '打赏水位空洞表，记录晚于较大ID提交的打赏ID，增量消费时回查';
@@ -0,0 +1,17 @@
+-- ============================================================
+-- 每日打赏金额分位数汇总草图表 daily_amount_sketch
+--
+-- anchor_daily_amount_sketch 按 (主播, 日期) 存储草图，不指定主播的区间分位数查询需要合并
+-- 主播数 × 天数个草图；本表按日期汇总全部主播，与主播日草图在同一事务中增量维护。
+-- 已有的主播日草图由 data-analysis-service 的补齐任务合并生成汇总行。
+--
+-- 新建的库由 01 初始化脚本直接建表，这里只对已有的库补齐，可重复执行。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `${db1}`.daily_amount_sketch (
+    stat_date DATE PRIMARY KEY COMMENT '统计日期（按打赏时间）',
+    tip_count BIGINT NOT NULL DEFAULT 0 COMMENT '打赏笔数',
+    sum_amount DECIMAL(15, 2) NOT NULL DEFAULT 0 COMMENT '打赏总金额',
+    sketch MEDIUMBLOB NOT NULL COMMENT '当天全部主播单笔打赏金额的KLL分位数草图（QuantileSketch序列化）',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '每日打赏金额分位数汇总草图表，不指定主播的区间分位数查询每天只合并一个草图';
@@ -0,0 +1,82 @@
+-- ============================================================
+-- Keyset 游标分页（/scroll 接口）的复合索引
+-- 游标查询按 (排序列, 主键) 倒序读取 "上一页最后一行之后" 的 size + 1 行，
+-- 等值条件 + 排序列组成的复合索引可以直接按索引顺序定位和扫描，不回表排序（无 filesort），
+-- 第 1 页和第 1 万页代价相同。InnoDB 二级索引自带主键，(排序列, 主键) 的平局也由索引解决。
+--
+-- DB1 message:
+--   seekByLiveRoomId                  live_room_id = ? ORDER BY create_time DESC, message_id DESC
+--                                     -> idx_live_room_time，替代 idx_live_room_id
+-- DB1 recharge:
+--   seekByAnchorId                    anchor_id = ? ORDER BY recharge_time DESC, recharge_id DESC
+--                                     -> idx_anchor_time，替代 idx_anchor_id
+--   seekByAudienceId                  audience_id = ? ORDER BY recharge_time DESC, recharge_id DESC
+--                                     -> idx_audience_time，替代 idx_audience_id
+-- DB1 live_room:
+--   seekLiveRooms                     room_status = 1 ORDER BY total_viewers DESC, live_room_id DESC
+--                                     -> idx_status_viewers，替代 idx_room_status
+-- DB2 withdrawal:
+--   seekByAnchorIdAndStatus           anchor_id = ? ORDER BY applied_time DESC, withdrawal_id DESC
+--                                     -> idx_anchor_applied_time，替代 idx_anchor_id
+--
+-- 被替代的单列索引是新索引的最左前缀，外键（message.live_room_id 等）仍有可用索引；
+-- 必须先建新索引再删旧索引，否则 MySQL 拒绝删除外键依赖的索引。
+--
+-- 新建的库由 01/02 初始化脚本直接建好这些索引，这里只对已有的库补齐；
+-- 表不存在或索引已存在时跳过，可重复执行。索引在线创建（INPLACE, LOCK=NONE），不阻塞读写。
+-- ============================================================
+
+DROP PROCEDURE IF EXISTS advisor_add_index;
+DROP PROCEDURE IF EXISTS advisor_drop_index;
+
+DELIMITER //
+
+CREATE PROCEDURE advisor_add_index(IN p_schema VARCHAR(64), IN p_table VARCHAR(64),
+                                   IN p_index VARCHAR(64), IN p_columns VARCHAR(255))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = p_schema AND table_name = p_table)
+       AND NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                       WHERE table_schema = p_schema AND table_name = p_table AND index_name = p_index) THEN
+        SET @advisor_ddl = CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` ADD INDEX `', p_index,
+                                  '` (', p_columns, '), ALGORITHM=INPLACE, LOCK=NONE');
+        PREPARE advisor_stmt FROM @advisor_ddl;
+        EXECUTE advisor_stmt;
+        DEALLOCATE PREPARE advisor_stmt;
+    END IF;
+END //
+
+CREATE PROCEDURE advisor_drop_index(IN p_schema VARCHAR(64), IN p_table VARCHAR(64), IN p_index VARCHAR(64))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.statistics
+               WHERE table_schema = p_schema AND table_name = p_table AND index_name = p_index) THEN
+        SET @advisor_ddl = CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` DROP INDEX `', p_index,
+                                  '`, ALGORITHM=INPLACE, LOCK=NONE');
+        PREPARE advisor_stmt FROM @advisor_ddl;
+        EXECUTE advisor_stmt;
+        DEALLOCATE PREPARE advisor_stmt;
+    END IF;
+END //
+
+DELIMITER ;
+
+-- DB1 message
+CALL advisor_add_index('${db1}', 'message', 'idx_live_room_time', 'live_room_id, create_time');
+CALL advisor_drop_index('${db1}', 'message', 'idx_live_room_id');
+
+-- DB1 recharge：先建两个新索引，再删被其最左前缀覆盖的单列索引
+CALL advisor_add_index('${db1}', 'recharge', 'idx_anchor_time', 'anchor_id, recharge_time');
+CALL advisor_add_index('${db1}', 'recharge', 'idx_audience_time', 'audience_id, recharge_time');
+CALL advisor_drop_index('${db1}', 'recharge', 'idx_anchor_id');
+CALL advisor_drop_index('${db1}', 'recharge', 'idx_audience_id');
+
+-- DB1 live_room
+CALL advisor_add_index('${db1}', 'live_room', 'idx_status_viewers', 'room_status, total_viewers');
+CALL advisor_drop_index('${db1}', 'live_room', 'idx_room_status');
+
+-- DB2 withdrawal
+CALL advisor_add_index('${db2}', 'withdrawal', 'idx_anchor_applied_time', 'anchor_id, applied_time');
+CALL advisor_drop_index('${db2}', 'withdrawal', 'idx_anchor_id');
+
+DROP PROCEDURE IF EXISTS advisor_add_index;
+DROP PROCEDURE IF EXISTS advisor_drop_index;
@@ -0,0 +1,12 @@
+-- ============================================================
+-- recharge_trace_archive：已归档打赏的 traceId 去重记录
+--
+-- recharge 分区归档时，PartitionMaintenanceService 把对应月份的 traceId 从 recharge_trace
+-- 转入这张表（先写入这里再从 recharge_trace 删除），只保存 traceId 的 MD5（16 字节），压缩行格式。
+-- RechargeService.createRecharge 插入 recharge_trace 成功后再查这张表，命中即为已归档打赏的重复请求，
+-- 归档后旧 traceId 仍然不能重复入账。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `${db1}`.recharge_trace_archive (
+    trace_hash BINARY(16) PRIMARY KEY COMMENT 'UNHEX(MD5(trace_id))'
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED COMMENT = '已归档打赏的traceId去重记录';
@@ -0,0 +1,110 @@
+-- ============================================================
+-- recharge (DB1) 和 recharge_record (DB2) 按 recharge_time 月分区
+--
+-- 这个脚本不在默认迁移位置 db/migration 中：转换分区需要整表复制（ALGORITHM=COPY），
+-- 期间阻塞写入，只能在维护窗口手动执行：
+--   java -jar db-service.jar --spring.profiles.active=migrate,partition
+-- partition profile（application-partition.yml）把 classpath:db/partition 加入迁移位置并允许乱序执行。
+-- 新建的库由 01/02 初始化脚本直接建成分区表，不需要执行。
+--
+-- 分区表的限制决定了下面的改动：
+--   1. 主键和所有唯一键都必须包含分区列：主键改为 (id, recharge_time)，
+--      traceId 唯一键改为 uk_trace_time (trace_id, recharge_time)
+--   2. 分区表不支持外键：删除 recharge 上的外键，引用完整性由业务层保证
+--   3. recharge 的 traceId 全局唯一改由 recharge_trace 表保证（RechargeService.createRecharge），
+--      该表由默认迁移 V20261020__recharge_trace.sql 建好并回填
+--
+-- 分区从最早一条记录所在月份开始，每月一个分区（pYYYYMM），建到下下个月，最后是兜底的 p_future；
+-- 之后由 db-service 的 PartitionMaintenanceService 每天提前拆出未来月份，并把过期月份交换到归档表。
+--
+-- 表不存在或已经分区时跳过，可重复执行。
+-- ============================================================
+
+DROP PROCEDURE IF EXISTS partition_exec;
+DROP PROCEDURE IF EXISTS partition_by_month;
+
+DELIMITER //
+
+CREATE PROCEDURE partition_exec(IN p_sql TEXT)
+BEGIN
+    SET @partition_ddl = p_sql;
+    PREPARE partition_stmt FROM @partition_ddl;
+    EXECUTE partition_stmt;
+    DEALLOCATE PREPARE partition_stmt;
+END //
+
+CREATE PROCEDURE partition_by_month(IN p_schema VARCHAR(64), IN p_table VARCHAR(64), IN p_id_column VARCHAR(64))
+BEGIN
+    DECLARE v_done INT DEFAULT 0;
+    DECLARE v_name VARCHAR(64);
+    DECLARE v_drop_fks TEXT DEFAULT '';
+    DECLARE v_drop_uks TEXT DEFAULT '';
+    DECLARE v_month DATE;
+    DECLARE v_last DATE;
+    DECLARE v_parts TEXT DEFAULT '';
+    DECLARE fk_cursor CURSOR FOR
+        SELECT constraint_name FROM information_schema.referential_constraints
+        WHERE constraint_schema = p_schema AND table_name = p_table;
+    DECLARE uk_cursor CURSOR FOR
+        SELECT DISTINCT index_name FROM information_schema.statistics
+        WHERE table_schema = p_schema AND table_name = p_table AND non_unique = 0 AND index_name <> 'PRIMARY';
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET v_done = 1;
+
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = p_schema AND table_name = p_table)
+       AND NOT EXISTS (SELECT 1 FROM information_schema.partitions
+                       WHERE table_schema = p_schema AND table_name = p_table AND partition_name IS NOT NULL) THEN
+
+        -- 1. 外键
+        OPEN fk_cursor;
+        fk_loop: LOOP
+            FETCH fk_cursor INTO v_name;
+            IF v_done = 1 THEN
+                LEAVE fk_loop;
+            END IF;
+            SET v_drop_fks = CONCAT(v_drop_fks, IF(v_drop_fks = '', '', ', '), 'DROP FOREIGN KEY `', v_name, '`');
+        END LOOP;
+        CLOSE fk_cursor;
+        IF v_drop_fks <> '' THEN
+            CALL partition_exec(CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` ', v_drop_fks));
+        END IF;
+
+        -- 2. 主键和唯一键带上分区列
+        SET v_done = 0;
+        OPEN uk_cursor;
+        uk_loop: LOOP
+            FETCH uk_cursor INTO v_name;
+            IF v_done = 1 THEN
+                LEAVE uk_loop;
+            END IF;
+            SET v_drop_uks = CONCAT(v_drop_uks, 'DROP INDEX `', v_name, '`, ');
+        END LOOP;
+        CLOSE uk_cursor;
+        CALL partition_exec(CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` ', v_drop_uks,
+            'DROP PRIMARY KEY, ADD PRIMARY KEY (`', p_id_column, '`, recharge_time), ',
+            'ADD UNIQUE KEY uk_trace_time (trace_id, recharge_time)'));
+
+        -- 3. 从最早的月份到下下个月逐月建分区
+        SET @partition_min_time = NULL;
+        CALL partition_exec(CONCAT('SELECT MIN(recharge_time) INTO @partition_min_time FROM `',
+            p_schema, '`.`', p_table, '`'));
+        SET v_month = DATE_FORMAT(COALESCE(@partition_min_time, NOW()), '%Y-%m-01');
+        SET v_last = DATE_ADD(DATE_FORMAT(NOW(), '%Y-%m-01'), INTERVAL 2 MONTH);
+        WHILE v_month <= v_last DO
+            SET v_parts = CONCAT(v_parts, 'PARTITION p', DATE_FORMAT(v_month, '%Y%m'),
+                ' VALUES LESS THAN (''', DATE_ADD(v_month, INTERVAL 1 MONTH), '''), ');
+            SET v_month = DATE_ADD(v_month, INTERVAL 1 MONTH);
+        END WHILE;
+        CALL partition_exec(CONCAT('ALTER TABLE `', p_schema, '`.`', p_table, '` ',
+            'PARTITION BY RANGE COLUMNS (recharge_time) (', v_parts,
+            'PARTITION p_future VALUES LESS THAN (MAXVALUE))'));
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL partition_by_month('${db1}', 'recharge', 'recharge_id');
+CALL partition_by_month('${db2}', 'recharge_record', 'id');
+
+DROP PROCEDURE IF EXISTS partition_by_month;
+DROP PROCEDURE IF EXISTS partition_exec;
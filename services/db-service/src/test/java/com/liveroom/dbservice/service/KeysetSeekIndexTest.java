@@ -0,0 +1,201 @@
+package com.liveroom.dbservice.service;
+
+import com.liveroom.dbservice.service.IndexAdvisorService.AdvisorReport;
+import com.liveroom.dbservice.service.IndexAdvisorService.ShapeReport;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Keyset 游标分页的索引和执行计划测试
+ *
+ * 1. 静态检查：每条 seek 查询推导出的索引，在 V20261025 迁移和 01/02 初始化脚本中都存在同名同列的索引，
+ *    迁移中被替代的单列索引在新索引建好之后才删除（外键依赖）
+ * 2. 执行计划：指定 -Ddb.it.primary-url / -Ddb.it.secondary-url（已执行迁移、有数据的 MySQL）时，
+ *    用索引顾问 EXPLAIN 每条 seek 查询，要求走预期索引、无全表扫描和文件排序；
+ *    按索引顺序定位游标、不排序，深分页的代价因此与第一页相同
+ */
+class KeysetSeekIndexTest {
+
+    private static final String MIGRATION = "db/migration/V20261025__keyset_seek_indexes.sql";
+
+    private static final int LATENCY_RUNS = 20;
+
+    private static final Pattern ADD_INDEX = Pattern.compile(
+        "CALL advisor_add_index\\('[^']+', '(\\w+)', '(\\w+)', '([^']+)'\\)");
+    private static final Pattern DROP_INDEX = Pattern.compile(
+        "CALL advisor_drop_index\\('[^']+', '(\\w+)', '(\\w+)'\\)");
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "CREATE TABLE IF NOT EXISTS (\\w+) \\((.*?)\\) ENGINE", Pattern.DOTALL);
+    private static final Pattern TABLE_INDEX = Pattern.compile("INDEX (\\w+) \\(([^)]+)\\)");
+
+    /** seek 查询 -> 期望使用的索引 */
+    private static final Map<String, String> EXPECTED_INDEX = new LinkedHashMap<>();
+
+    static {
+        EXPECTED_INDEX.put("MessageRepository.seekByLiveRoomId", "idx_live_room_time");
+        EXPECTED_INDEX.put("RechargeRepository.seekByAnchorId", "idx_anchor_time");
+        EXPECTED_INDEX.put("RechargeRepository.seekByAudienceId", "idx_audience_time");
+        EXPECTED_INDEX.put("LiveRoomRepository.seekLiveRooms", "idx_status_viewers");
+        EXPECTED_INDEX.put("WithdrawalRepository.seekByAnchorIdAndStatus", "idx_anchor_applied_time");
+    }
+
+    /** 被替代的单列索引 -> 以其列为最左前缀的复合索引 */
+    private static final Map<String, String> REPLACED_BY = new LinkedHashMap<>();
+
+    static {
+        REPLACED_BY.put("message.idx_live_room_id", "message.idx_live_room_time");
+        REPLACED_BY.put("recharge.idx_anchor_id", "recharge.idx_anchor_time");
+        REPLACED_BY.put("recharge.idx_audience_id", "recharge.idx_audience_time");
+        REPLACED_BY.put("live_room.idx_room_status", "live_room.idx_status_viewers");
+        REPLACED_BY.put("withdrawal.idx_anchor_id", "withdrawal.idx_anchor_applied_time");
+    }
+
+    @Test
+    void migrationCreatesIndexForEverySeekQuery() throws IOException {
+        String migration = readClasspath(MIGRATION);
+        Map<String, List<String>> added = new LinkedHashMap<>();
+        Matcher add = ADD_INDEX.matcher(migration);
+        while (add.find()) {
+            added.put(add.group(1) + "." + add.group(2), columns(add.group(3)));
+        }
+
+        for (QueryShape shape : seekShapes()) {
+            String index = EXPECTED_INDEX.get(shape.getMethod());
+            List<String> columns = added.get(shape.getTable() + "." + index);
+            assertNotNull(columns, shape.getMethod() + " 缺少迁移索引 " + index);
+            assertEquals(shape.indexColumns(), columns.subList(0, shape.indexColumns().size()),
+                shape.getMethod() + " 的推导列应是 " + index + " 的最左前缀");
+        }
+    }
+
+    @Test
+    void initScriptsMatchMigration() throws IOException {
+        Map<String, List<String>> initIndexes = new LinkedHashMap<>();
+        for (String script : Arrays.asList("sql/01-init-db1-audience-service.sql", "sql/02-init-db2-finance-service.sql")) {
+            Matcher table = CREATE_TABLE.matcher(new String(Files.readAllBytes(Paths.get(script)), StandardCharsets.UTF_8));
+            while (table.find()) {
+                Matcher index = TABLE_INDEX.matcher(table.group(2));
+                while (index.find()) {
+                    initIndexes.put(table.group(1) + "." + index.group(1), columns(index.group(2)));
+                }
+            }
+        }
+
+        String migration = readClasspath(MIGRATION);
+        Matcher add = ADD_INDEX.matcher(migration);
+        while (add.find()) {
+            String key = add.group(1) + "." + add.group(2);
+            assertEquals(columns(add.group(3)), initIndexes.get(key), "初始化脚本与迁移的索引不一致: " + key);
+        }
+        Matcher drop = DROP_INDEX.matcher(migration);
+        while (drop.find()) {
+            String key = drop.group(1) + "." + drop.group(2);
+            assertFalse(initIndexes.containsKey(key), "初始化脚本仍保留已替代的索引: " + key);
+        }
+    }
+
+    @Test
+    void replacedIndexesAreDroppedAfterCompositeExists() throws IOException {
+        String migration = readClasspath(MIGRATION);
+        Map<String, Integer> addedAt = new LinkedHashMap<>();
+        Matcher add = ADD_INDEX.matcher(migration);
+        while (add.find()) {
+            addedAt.put(add.group(1) + "." + add.group(2), add.start());
+        }
+        Map<String, Integer> droppedAt = new LinkedHashMap<>();
+        Matcher drop = DROP_INDEX.matcher(migration);
+        while (drop.find()) {
+            droppedAt.put(drop.group(1) + "." + drop.group(2), drop.start());
+        }
+
+        assertEquals(REPLACED_BY.keySet(), droppedAt.keySet());
+        REPLACED_BY.forEach((replaced, composite) -> {
+            Integer created = addedAt.get(composite);
+            assertNotNull(created, "缺少替代索引 " + composite);
+            assertTrue(created < droppedAt.get(replaced), replaced + " 删除前应先建好 " + composite);
+        });
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "db.it.primary-url", matches = ".+")
+    void seekQueriesUseCompositeIndexWithoutFilesort() {
+        IndexAdvisorService advisor = new IndexAdvisorService(
+            dataSource("db.it.primary-url"), dataSource("db.it.secondary-url"), noFlyway(), LATENCY_RUNS, 30, "");
+        AdvisorReport report = advisor.advise(true);
+        Map<String, ShapeReport> byMethod = report.getShapes().stream()
+            .collect(Collectors.toMap(ShapeReport::getMethod, s -> s));
+
+        for (Map.Entry<String, String> expected : EXPECTED_INDEX.entrySet()) {
+            ShapeReport shape = byMethod.get(expected.getKey());
+            assertNotNull(shape, "目录中缺少查询形态 " + expected.getKey());
+            assertNotNull(shape.getSatisfiedBy(), expected.getKey() + " 未被已有索引满足");
+            if (shape.getPlan() == null) {
+                // 表中没有数据时无法生成样例参数，只检查索引满足关系
+                assertTrue(shape.getNote() != null && shape.getNote().startsWith("表中没有可取样的数据"),
+                    expected.getKey() + ": " + shape.getNote());
+                continue;
+            }
+            assertEquals(expected.getValue(), shape.getPlan().getKey(), expected.getKey() + " 未走复合索引");
+            assertFalse(shape.getPlan().getIssues().contains("全表扫描"), expected.getKey() + " 全表扫描");
+            assertFalse(shape.getPlan().getIssues().contains("文件排序"), expected.getKey() + " 需要文件排序");
+        }
+    }
+
+    private static List<QueryShape> seekShapes() {
+        List<QueryShape> shapes = QueryShapeCatalog.all().stream()
+            .filter(shape -> EXPECTED_INDEX.containsKey(shape.getMethod()))
+            .collect(Collectors.toList());
+        assertEquals(EXPECTED_INDEX.size(), shapes.size(), "seek 查询应全部收录到 QueryShapeCatalog");
+        return shapes;
+    }
+
+    private static List<String> columns(String list) {
+        List<String> columns = new ArrayList<>();
+        for (String column : list.split(",")) {
+            columns.add(column.trim());
+        }
+        return columns;
+    }
+
+    private static String readClasspath(String path) throws IOException {
+        try (InputStream in = KeysetSeekIndexTest.class.getClassLoader().getResourceAsStream(path)) {
+            assertNotNull(in, "找不到 " + path);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static DriverManagerDataSource dataSource(String urlProperty) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty(urlProperty),
+            System.getProperty("db.it.username", "root"), System.getProperty("db.it.password", "root"));
+        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        return dataSource;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<Flyway> noFlyway() {
+        return mock(ObjectProvider.class);
+    }
+}
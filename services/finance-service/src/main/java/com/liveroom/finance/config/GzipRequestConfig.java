@@ -0,0 +1,35 @@
+package com.liveroom.finance.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.codec.RechargeBatchCodec;
+import common.config.GzipRequestFilter;
+import common.logger.AppLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * gzip 请求体解压配置
+ * 只对内部同步接口（观众服务批量推送打赏，Feign 请求体 gzip 压缩）注册解压过滤器，
+ * 其他接口不接受 gzip 请求体
+ */
+@Configuration
+public class GzipRequestConfig {
+
+    /** 解压后的请求体上限，默认与批量打赏二进制格式的上限一致 */
+    @Value("${finance.sync.max-inflated-bytes:" + RechargeBatchCodec.MAX_LENGTH + "}")
+    private int maxInflatedBytes;
+
+    @Bean
+    public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter(ObjectMapper objectMapper) {
+        AppLogger.logConfiguration("finance.sync.max-inflated-bytes", String.valueOf(maxInflatedBytes));
+
+        FilterRegistrationBean<GzipRequestFilter> registration =
+                new FilterRegistrationBean<>(new GzipRequestFilter(maxInflatedBytes, objectMapper));
+        registration.addUrlPatterns("/internal/sync/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
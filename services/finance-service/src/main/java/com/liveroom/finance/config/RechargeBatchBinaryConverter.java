@@ -0,0 +1,81 @@
+package com.liveroom.finance.config;
+
+import com.liveroom.finance.dto.BatchRechargeDTO;
+import common.codec.RechargeBatchCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量打赏二进制格式（application/x-recharge-batch）消息转换器
+ * 观众服务优先以二进制格式推送批量打赏数据，JSON 仍由默认转换器处理
+ * 以 Bean 形式注册，Spring Boot 会将其加入 MVC 消息转换器列表
+ */
+@Component
+public class RechargeBatchBinaryConverter extends AbstractHttpMessageConverter<BatchRechargeDTO> {
+
+    public RechargeBatchBinaryConverter() {
+        super(MediaType.parseMediaType(RechargeBatchCodec.MEDIA_TYPE_VALUE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BatchRechargeDTO.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        // 只用于接收，响应仍返回 JSON
+        return false;
+    }
+
+    @Override
+    protected BatchRechargeDTO readInternal(Class<? extends BatchRechargeDTO> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        RechargeBatchCodec.Batch batch;
+        try {
+            batch = RechargeBatchCodec.decode(inputMessage.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException("批量打赏二进制数据解析失败: " + e.getMessage(), e, inputMessage);
+        }
+
+        List<BatchRechargeDTO.RechargeItemDTO> items = new ArrayList<>(batch.getItems().size());
+        for (RechargeBatchCodec.Item item : batch.getItems()) {
+            items.add(BatchRechargeDTO.RechargeItemDTO.builder()
+                    .rechargeId(item.getRechargeId())
+                    .traceId(item.getTraceId())
+                    .anchorId(item.getAnchorId())
+                    .anchorName(item.getAnchorName())
+                    .audienceId(item.getAudienceId())
+                    .audienceName(item.getAudienceName())
+                    .rechargeAmount(item.getRechargeAmount())
+                    .rechargeTime(item.getRechargeTime())
+                    .rechargeType(item.getRechargeType())
+                    .liveRoomId(item.getLiveRoomId())
+                    .build());
+        }
+
+        return BatchRechargeDTO.builder()
+                .batchId(batch.getBatchId())
+                .sourceService(batch.getSourceService())
+                .batchTime(batch.getBatchTime())
+                .totalAmount(batch.getTotalAmount())
+                .totalCount(batch.getTotalCount())
+                .recharges(items)
+                .build();
+    }
+
+    @Override
+    protected void writeInternal(BatchRechargeDTO batchRechargeDTO, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        throw new HttpMessageNotWritableException("批量打赏二进制格式只支持读取");
+    }
+}
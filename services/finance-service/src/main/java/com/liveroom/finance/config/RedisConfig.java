@@ -0,0 +1,33 @@
+package com.liveroom.finance.config;
+
+import com.liveroom.finance.dto.BatchRechargeDTO;
+import com.liveroom.finance.dto.CommissionRateDTO;
+import com.liveroom.finance.vo.BalanceVO;
+import common.config.RedisTypeRegistry;
+import common.dto.WithdrawalDTO;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Redis配置类
+ * RedisTemplate 由 common 的 RedisConditionalConfig 创建（紧凑序列化），
+ * 这里只注册财务服务缓存的 DTO 类型
+ *
+ * @author Team
+ * @version 1.0.0
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * 财务服务缓存类型注册表（类型ID从200开始，已分配的ID不可复用）
+     */
+    @Bean
+    public RedisTypeRegistry financeTypeRegistry() {
+        return RedisTypeRegistry.defaults()
+                .register(200, 1, BalanceVO.class)
+                .register(201, 1, WithdrawalDTO.class)
+                .register(202, 1, CommissionRateDTO.class)
+                .register(203, 1, BatchRechargeDTO.RechargeItemDTO.class);
+    }
+}
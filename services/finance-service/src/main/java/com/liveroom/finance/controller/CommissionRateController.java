@@ -2,8 +2,10 @@ package com.liveroom.finance.controller;
 
 import com.liveroom.finance.dto.CommissionRateDTO;
 import com.liveroom.finance.service.CommissionRateService;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
 import common.annotation.ValidateParam;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.response.BaseResponse;
 import common.response.PageResponse;
@@ -59,6 +61,7 @@ public class CommissionRateController {
      */
     @GetMapping("/{anchorId}/history")
     @Log("查询分成比例历史")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<CommissionRateDTO>> getCommissionRateHistory(
             @PathVariable Long anchorId,
             @RequestParam(defaultValue = "1") Integer page,
@@ -3,7 +3,9 @@ package com.liveroom.finance.controller;
 import com.liveroom.finance.service.SettlementService;
 import com.liveroom.finance.vo.BalanceVO;
 import com.liveroom.finance.vo.SettlementDetailVO;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.response.BaseResponse;
 import common.response.PageResponse;
@@ -47,6 +49,7 @@ public class SettlementController {
      */
     @GetMapping("/{anchorId}/details")
     @Log("查询结算明细")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<SettlementDetailVO>> getSettlementDetails(
             @PathVariable Long anchorId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
@@ -75,6 +78,7 @@ public class SettlementController {
      */
     @PostMapping("/trigger")
     @Log("手动触发结算")
+    @Bulkhead(BulkheadType.TRANSACTIONAL)
     public BaseResponse<Void> triggerSettlement(@RequestParam Long anchorId) {
         if (anchorId == null || anchorId <= 0) {
             throw new ValidationException("主播ID不合法");
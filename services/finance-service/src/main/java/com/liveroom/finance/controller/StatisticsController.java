@@ -4,7 +4,9 @@ import com.liveroom.finance.service.StatisticsService;
 import com.liveroom.finance.vo.AnchorRevenueVO;
 import com.liveroom.finance.vo.HourlyStatisticsVO;
 import com.liveroom.finance.vo.TopAudienceVO;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.exception.ValidationException;
 import common.logger.TraceLogger;
 import common.response.BaseResponse;
@@ -29,6 +31,7 @@ import java.util.List;
 @RequestMapping("/api/v1/statistics")
 @Slf4j
 @Validated
+@Bulkhead(BulkheadType.REPORTING)
 public class StatisticsController {
 
     @Autowired
@@ -2,7 +2,9 @@ package com.liveroom.finance.controller;
 
 import com.liveroom.finance.dto.BatchRechargeDTO;
 import com.liveroom.finance.service.SyncReceiveService;
+import common.annotation.Bulkhead;
 import common.annotation.Log;
+import common.bulkhead.BulkheadType;
 import common.bean.SyncProgress;
 import common.response.BaseResponse;
 import common.response.ResponseUtil;
@@ -30,6 +32,7 @@ public class SyncController {
      */
     @PostMapping("/recharges")
     @Log("接收批量打赏数据")
+    @Bulkhead(BulkheadType.TRANSACTIONAL)
     public BaseResponse<Void> receiveBatchRecharges(@Valid @RequestBody BatchRechargeDTO batchRechargeDTO) {
         syncReceiveService.receiveBatchRecharges(batchRechargeDTO);
         return ResponseUtil.success( "数据接收成功",null);
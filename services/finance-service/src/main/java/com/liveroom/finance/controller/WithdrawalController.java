@@ -2,12 +2,15 @@ package com.liveroom.finance.controller;
 
 import com.liveroom.finance.dto.WithdrawalRequestDTO;
 import com.liveroom.finance.service.WithdrawalService;
+import common.annotation.Bulkhead;
 import common.annotation.Idempotent;
 import common.annotation.Log;
 import common.annotation.ValidateParam;
+import common.bulkhead.BulkheadType;
 import common.dto.WithdrawalDTO;
 import common.exception.ValidationException;
 import common.response.BaseResponse;
+import common.response.CursorPageResponse;
 import common.response.PageResponse;
 import common.response.ResponseUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +39,7 @@ public class WithdrawalController {
     @Log("申请提现")
     @ValidateParam
     @Idempotent(key = "#withdrawalDTO.traceId", timeout = 60)
+    @Bulkhead(BulkheadType.TRANSACTIONAL)
     public BaseResponse<WithdrawalDTO> applyWithdrawal(
             @Valid @RequestBody WithdrawalRequestDTO withdrawalDTO) {
         WithdrawalDTO result = withdrawalService.applyWithdrawal(withdrawalDTO);
@@ -48,6 +52,7 @@ public class WithdrawalController {
      */
     @GetMapping("/{anchorId}")
     @Log("查询提现记录")
+    @Bulkhead(BulkheadType.REPORTING)
     public BaseResponse<PageResponse<WithdrawalDTO>> listWithdrawals(
             @PathVariable Long anchorId,
             @RequestParam(required = false) Integer status,
@@ -69,6 +74,28 @@ public class WithdrawalController {
                 pageResult.getTotalElements(), page, size));
     }
 
+    /**
+     * 按游标分页查询提现记录
+     * GET /api/v1/withdrawal/{anchorId}/scroll?cursor=xxx&size=20
+     * 首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/{anchorId}/scroll")
+    @Log("游标查询提现记录")
+    public BaseResponse<CursorPageResponse<WithdrawalDTO>> scrollWithdrawals(
+            @PathVariable Long anchorId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size) {
+        if (anchorId == null || anchorId <= 0) {
+            throw new ValidationException("主播ID不合法");
+        }
+        if (size == null || size < 1 || size > 100) {
+            throw new ValidationException("每页大小必须在1-100之间");
+        }
+
+        return ResponseUtil.success(withdrawalService.scrollWithdrawals(anchorId, status, cursor, size));
+    }
+
     /**
      * 根据traceId查询提现记录
      * GET /api/v1/withdrawal/by-trace-id/{traceId}
@@ -89,6 +116,7 @@ public class WithdrawalController {
      */
     @PutMapping("/{withdrawalId}/approve")
     @Log("审核通过提现")
+    @Bulkhead(BulkheadType.TRANSACTIONAL)
     public BaseResponse<Void> approveWithdrawal(@PathVariable Long withdrawalId) {
         if (withdrawalId == null || withdrawalId <= 0) {
             throw new ValidationException("提现ID不合法");
@@ -103,6 +131,7 @@ public class WithdrawalController {
      */
     @PutMapping("/{withdrawalId}/reject")
     @Log("拒绝提现")
+    @Bulkhead(BulkheadType.TRANSACTIONAL)
     public BaseResponse<Void> rejectWithdrawal(
             @PathVariable Long withdrawalId,
             @RequestParam String reason) {
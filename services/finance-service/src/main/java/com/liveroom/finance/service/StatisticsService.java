@@ -16,6 +16,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -150,7 +151,11 @@ public class StatisticsService {
     }
 
     /**
-     * 批量查询多个主播的收入统计（并发优化）
+     * 批量查询多个主播的收入统计
+     * 1. 一次 MGET 读取全部主播的缓存（Key 与单个查询一致）
+     * 2. 未命中的主播通过一条 GROUP BY 查询统计
+     * 3. 回源结果逐个写回缓存
+     * 返回顺序与入参一致
      */
     public List<AnchorRevenueVO> batchGetAnchorRevenue(List<Long> anchorIds, 
                                                          LocalDateTime startTime, 
@@ -158,8 +163,49 @@ public class StatisticsService {
         TraceLogger.info("StatisticsService", "batchGetAnchorRevenue",
                 "批量查询主播收入，数量: " + anchorIds.size());
 
+        List<Long> distinctIds = anchorIds.stream().distinct().collect(Collectors.toList());
+        List<String> keys = distinctIds.stream()
+                .map(anchorId -> STATISTICS_CACHE_KEY + "anchor:" + anchorId + ":" +
+                        startTime.toLocalDate() + ":" + endTime.toLocalDate())
+                .collect(Collectors.toList());
+
+        Map<Long, AnchorRevenueVO> found = new HashMap<>(distinctIds.size() * 2);
+        Map<Long, String> missKeys = new HashMap<>();
+        List<Object> cached = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Object value = cached != null ? cached.get(i) : null;
+            if (value != null) {
+                found.put(distinctIds.get(i), (AnchorRevenueVO) value);
+            } else {
+                missKeys.put(distinctIds.get(i), keys.get(i));
+            }
+        }
+
+        if (!missKeys.isEmpty()) {
+            Map<Long, Object[]> stats = new HashMap<>(missKeys.size() * 2);
+            rechargeRecordRepository.sumAndCountByAnchorsAndTime(missKeys.keySet(), startTime, endTime)
+                    .forEach(row -> stats.put((Long) row[0], row));
+
+            LocalDateTime queryTime = LocalDateTime.now();
+            for (Long anchorId : missKeys.keySet()) {
+                Object[] row = stats.get(anchorId);
+                AnchorRevenueVO vo = AnchorRevenueVO.builder()
+                        .anchorId(anchorId)
+                        .totalAmount(row != null ? (BigDecimal) row[1] : BigDecimal.ZERO)
+                        .totalCount(row != null ? ((Number) row[2]).longValue() : 0L)
+                        .startTime(startTime)
+                        .endTime(endTime)
+                        .queryTime(queryTime)
+                        .build();
+                found.put(anchorId, vo);
+
+                // 缓存1小时
+                redisTemplate.opsForValue().set(missKeys.get(anchorId), vo, 1, TimeUnit.HOURS);
+            }
+        }
+
         return anchorIds.stream()
-                .map(anchorId -> getAnchorRevenue(anchorId, startTime, endTime))
+                .map(found::get)
                 .collect(Collectors.toList());
     }
 
@@ -10,6 +10,8 @@ import common.exception.BusinessException;
 import common.exception.SystemException;
 import common.logger.TraceLogger;
 import common.repository.WithdrawalRepository;
+import common.response.CursorPageResponse;
+import common.service.DataAccessFacade;
 import common.util.EncryptUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +40,9 @@ public class WithdrawalService {
     @Autowired
     private SettlementService settlementService;
 
+    @Autowired
+    private DataAccessFacade dataAccessFacade;
+
     @Autowired
     private RedisLockUtil redisLockUtil;
 
@@ -159,6 +164,15 @@ public class WithdrawalService {
         return withdrawalPage.map(this::convertToDTO);
     }
 
+    /**
+     * 按游标分页查询提现记录（申请时间倒序）
+     */
+    public CursorPageResponse<WithdrawalDTO> scrollWithdrawals(Long anchorId, Integer status, String cursor, Integer size) {
+        return dataAccessFacade.withdrawal()
+                .seekByAnchorId(anchorId, status, cursor, size)
+                .map(this::convertToDTO);
+    }
+
     /**
      * 根据traceId查询提现记录
      */
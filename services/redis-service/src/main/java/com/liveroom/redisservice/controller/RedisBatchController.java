@@ -0,0 +1,186 @@
+package com.liveroom.redisservice.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.liveroom.redisservice.dto.BatchCommand;
+import com.liveroom.redisservice.dto.MsetRequest;
+import com.liveroom.redisservice.service.RedisBatchService;
+import common.constant.ErrorConstants;
+import common.response.BaseResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Redis 批量操作 REST API 控制器
+ * 调用方一次 HTTP 请求处理多个键，服务端一次 Redis 往返完成；
+ * 结果随 N 增长的接口（mget、incr、pipeline）边序列化边写出响应，不在内存中拼出完整 JSON
+ *
+ * 响应结构与 BaseResponse 一致：{"code":0,"message":"操作成功","data":...,"timestamp":...}
+ */
+@RestController
+@RequestMapping("/redis/api/v1/cache/batch")
+@AllArgsConstructor
+@Slf4j
+public class RedisBatchController {
+
+    private final RedisBatchService batchService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 批量获取缓存
+     *
+     * @param keys 缓存键列表
+     * @return 与 keys 顺序一致的值数组，不存在的键为 null
+     */
+    @PostMapping("/mget")
+    public ResponseEntity<StreamingResponseBody> mget(@RequestBody List<String> keys) {
+        return execute(() -> {
+            List<Object> values = batchService.mget(keys);
+            return gen -> {
+                gen.writeStartArray();
+                for (Object value : values) {
+                    gen.writeObject(value);
+                }
+                gen.writeEndArray();
+            };
+        });
+    }
+
+    /**
+     * 批量设置缓存（所有键使用同一过期时间）
+     *
+     * @param request 键值对和过期时间
+     * @return 设置的键数量；请求体或 entries 为空、键值不合法时返回 400
+     */
+    @PostMapping("/mset")
+    public ResponseEntity<BaseResponse<Integer>> mset(@RequestBody(required = false) MsetRequest request) {
+        if (request == null) {
+            return ResponseEntity.badRequest()
+                    .body(BaseResponse.error(ErrorConstants.VALIDATION_FAILED, "Request body is required"));
+        }
+        try {
+            int count = batchService.mset(request.getEntries(), request.getTtl());
+            return ResponseEntity.ok(BaseResponse.success(count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(BaseResponse.error(ErrorConstants.VALIDATION_FAILED, e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to set multiple caches", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(BaseResponse.error(ErrorConstants.SYSTEM_ERROR, "Redis batch failed"));
+        }
+    }
+
+    /**
+     * 批量自增
+     *
+     * @param deltas 键和增加量
+     * @return 键和增加后的值
+     */
+    @PostMapping("/incr")
+    public ResponseEntity<StreamingResponseBody> multiIncrement(@RequestBody Map<String, Long> deltas) {
+        return execute(() -> {
+            Map<String, Object> values = batchService.multiIncrement(deltas);
+            return gen -> {
+                gen.writeStartObject();
+                for (Map.Entry<String, Object> entry : values.entrySet()) {
+                    gen.writeFieldName(entry.getKey());
+                    gen.writeObject(entry.getValue());
+                }
+                gen.writeEndObject();
+            };
+        });
+    }
+
+    /**
+     * 批量删除缓存
+     *
+     * @param keys 缓存键列表
+     * @return 删除的数量
+     */
+    @PostMapping("/delete")
+    public ResponseEntity<BaseResponse<Long>> multiDelete(@RequestBody List<String> keys) {
+        try {
+            long deleted = batchService.multiDelete(keys);
+            return ResponseEntity.ok(BaseResponse.success(deleted));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(BaseResponse.error(ErrorConstants.VALIDATION_FAILED, e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to delete multiple caches", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(BaseResponse.error(ErrorConstants.SYSTEM_ERROR, "Redis batch failed"));
+        }
+    }
+
+    /**
+     * 通用命令批次（一个管道内执行）
+     *
+     * @param commands 命令列表
+     * @return 与 commands 顺序一致的结果数组，失败的命令为 {"error": "..."}
+     */
+    @PostMapping("/pipeline")
+    public ResponseEntity<StreamingResponseBody> pipeline(@RequestBody List<BatchCommand> commands) {
+        return execute(() -> {
+            List<Object> results = batchService.pipeline(commands);
+            return gen -> {
+                gen.writeStartArray();
+                for (Object result : results) {
+                    gen.writeObject(result);
+                }
+                gen.writeEndArray();
+            };
+        });
+    }
+
+    /**
+     * 写出 data 字段的回调
+     */
+    @FunctionalInterface
+    private interface DataWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    /**
+     * 先同步执行 Redis 操作（失败时还能返回错误状态码），再流式写出响应
+     */
+    private ResponseEntity<StreamingResponseBody> execute(Supplier<DataWriter> operation) {
+        DataWriter data;
+        try {
+            data = operation.get();
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, ErrorConstants.VALIDATION_FAILED, e.getMessage());
+        } catch (Exception e) {
+            log.error("Redis batch operation failed", e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, ErrorConstants.SYSTEM_ERROR, "Redis batch failed");
+        }
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartObject();
+                gen.writeNumberField("code", ErrorConstants.SUCCESS);
+                gen.writeStringField("message", "操作成功");
+                gen.writeFieldName("data");
+                data.write(gen);
+                gen.writeNumberField("timestamp", System.currentTimeMillis());
+                gen.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> error(HttpStatus status, int code, String message) {
+        BaseResponse<Object> response = BaseResponse.error(code, message);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, response));
+    }
+}
@@ -0,0 +1,28 @@
+package com.liveroom.redisservice.dto;
+
+import lombok.Data;
+
+/**
+ * 批量管道中的单条命令
+ * 不同操作使用的字段：
+ * - GET / EXISTS / TTL / DEL：key
+ * - SET：key、value、ttl（秒，0 表示永不过期）
+ * - INCR：key、delta（默认 1）
+ * - EXPIRE：key、ttl
+ */
+@Data
+public class BatchCommand {
+
+    /**
+     * 支持的操作
+     */
+    public enum Op {
+        GET, SET, DEL, EXISTS, INCR, EXPIRE, TTL
+    }
+
+    private Op op;
+    private String key;
+    private String value;
+    private long ttl;
+    private long delta = 1;
+}
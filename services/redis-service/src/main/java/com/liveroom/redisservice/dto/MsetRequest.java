@@ -0,0 +1,19 @@
+package com.liveroom.redisservice.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量设置缓存请求
+ */
+@Data
+public class MsetRequest {
+
+    /** 键值对 */
+    private Map<String, String> entries = new LinkedHashMap<>();
+
+    /** 过期时间（秒），0 表示永不过期，对所有键生效 */
+    private long ttl;
+}
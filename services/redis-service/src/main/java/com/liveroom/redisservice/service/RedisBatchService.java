@@ -0,0 +1,273 @@
+package com.liveroom.redisservice.service;
+
+import com.liveroom.redisservice.dto.BatchCommand;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import common.logger.AppLogger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 批量操作服务
+ * N 个键只占用一次 HTTP 调用和一次 Redis 往返：
+ * - mget / 批量删除 直接使用 MGET / DEL 多键命令
+ * - 带过期时间的批量设置、批量自增、通用命令批次通过 executePipelined 管道发送
+ *
+ * 批量操作不逐键记录日志，按 redis.batch.log-sample-rate 抽样记录一条汇总
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RedisBatchService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${redis.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${redis.batch.log-sample-rate:0.01}")
+    private double logSampleRate;
+
+    /**
+     * 批量获取缓存（MGET）
+     *
+     * @param keys 缓存键列表
+     * @return 与 keys 顺序一致的值列表，不存在的键为 null
+     */
+    public List<Object> mget(List<String> keys) {
+        checkSize(keys);
+        long start = System.nanoTime();
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        logSampled("MGET", keys.size(), start);
+        return values != null ? values : new ArrayList<>();
+    }
+
+    /**
+     * 批量设置缓存
+     * 无过期时间时使用一条 MSET；有过期时间时 MSET 无法带 TTL，改为管道发送 N 条 SET EX
+     *
+     * @param entries 键值对
+     * @param ttl     过期时间（秒），0 表示永不过期
+     * @return 设置的键数量
+     * @throws IllegalArgumentException entries 为空、超过批量上限、有空键或空值，或 ttl 为负数
+     */
+    public int mset(Map<String, String> entries, long ttl) {
+        if (entries == null) {
+            throw new IllegalArgumentException("Entries must not be null");
+        }
+        checkSize(entries.keySet());
+        validateEntries(entries, ttl);
+        long start = System.nanoTime();
+        if (ttl > 0) {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    entries.forEach((key, value) -> ops.opsForValue().set(key, value, ttl, TimeUnit.SECONDS));
+                    return null;
+                }
+            });
+        } else if (!entries.isEmpty()) {
+            redisTemplate.opsForValue().multiSet(entries);
+        }
+        logSampled("MSET", entries.size(), start);
+        return entries.size();
+    }
+
+    /**
+     * 批量自增（管道发送 N 条 INCRBY）
+     *
+     * @param deltas 键和增加量
+     * @return 键和增加后的值，顺序与请求一致；值不是整数的键返回错误信息
+     */
+    public Map<String, Object> multiIncrement(Map<String, Long> deltas) {
+        checkSize(deltas.keySet());
+        long start = System.nanoTime();
+        List<String> keys = new ArrayList<>(deltas.keySet());
+        List<Object> results = pipelined(ops -> {
+            for (String key : keys) {
+                Long delta = deltas.get(key);
+                ops.opsForValue().increment(key, delta != null ? delta : 1L);
+            }
+        });
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            values.put(keys.get(i), results.get(i));
+        }
+        logSampled("INCR_MULTIPLE", keys.size(), start);
+        return values;
+    }
+
+    /**
+     * 批量删除缓存（一条 DEL）
+     *
+     * @param keys 缓存键列表
+     * @return 删除的数量
+     */
+    public long multiDelete(List<String> keys) {
+        checkSize(keys);
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Long deleted = redisTemplate.delete(keys);
+        logSampled("DELETE_MULTIPLE", keys.size(), start);
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * 通用命令批次：所有命令在一个管道中发送
+     * 单条命令失败（如对非整数值 INCR）不影响其他命令，该位置返回错误信息
+     *
+     * @param commands 命令列表
+     * @return 与 commands 顺序一致的结果列表
+     */
+    public List<Object> pipeline(List<BatchCommand> commands) {
+        checkSize(commands);
+        for (int i = 0; i < commands.size(); i++) {
+            validate(i, commands.get(i));
+        }
+
+        long start = System.nanoTime();
+        List<Object> results = pipelined(ops -> {
+            for (BatchCommand command : commands) {
+                String key = command.getKey();
+                switch (command.getOp()) {
+                    case GET:
+                        ops.opsForValue().get(key);
+                        break;
+                    case SET:
+                        if (command.getTtl() > 0) {
+                            ops.opsForValue().set(key, command.getValue(), command.getTtl(), TimeUnit.SECONDS);
+                        } else {
+                            ops.opsForValue().set(key, command.getValue());
+                        }
+                        break;
+                    case DEL:
+                        ops.delete(key);
+                        break;
+                    case EXISTS:
+                        ops.hasKey(key);
+                        break;
+                    case INCR:
+                        ops.opsForValue().increment(key, command.getDelta());
+                        break;
+                    case EXPIRE:
+                        ops.expire(key, command.getTtl(), TimeUnit.SECONDS);
+                        break;
+                    case TTL:
+                        ops.getExpire(key, TimeUnit.SECONDS);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported op: " + command.getOp());
+                }
+            }
+        });
+        logSampled("PIPELINE", commands.size(), start);
+        return results;
+    }
+
+    /**
+     * 在一个管道中执行命令
+     * 有命令失败时 Spring 抛出 RedisPipelineException，其中带有全部命令的原始结果，
+     * 这里把失败的位置换成错误信息、成功的位置按模板的值序列化器反序列化
+     */
+    private List<Object> pipelined(PipelineBody body) {
+        try {
+            return redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    body.run((RedisOperations<String, Object>) operations);
+                    return null;
+                }
+            });
+        } catch (RedisPipelineException e) {
+            RedisSerializer<?> valueSerializer = redisTemplate.getValueSerializer();
+            List<Object> results = new ArrayList<>(e.getResults().size());
+            for (Object result : e.getResults()) {
+                if (result instanceof Throwable) {
+                    results.add(Map.of("error", String.valueOf(((Throwable) result).getMessage())));
+                } else if (result instanceof byte[] && valueSerializer != null) {
+                    results.add(valueSerializer.deserialize((byte[]) result));
+                } else {
+                    results.add(result);
+                }
+            }
+            log.warn("Redis pipeline completed with errors: {}", e.getMessage());
+            return results;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PipelineBody {
+        void run(RedisOperations<String, Object> ops);
+    }
+
+    private void checkSize(Collection<?> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("Batch must not be null");
+        }
+        if (items.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Batch size " + items.size() + " exceeds limit " + maxBatchSize);
+        }
+    }
+
+    private static void validateEntries(Map<String, String> entries, long ttl) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            if (entry.getKey() == null || entry.getKey().isEmpty()) {
+                throw new IllegalArgumentException("Entry key is required");
+            }
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Entry[" + entry.getKey() + "]: value is required");
+            }
+        }
+    }
+
+    private static void validate(int index, BatchCommand command) {
+        if (command == null || command.getOp() == null) {
+            throw new IllegalArgumentException("Command[" + index + "]: op is required");
+        }
+        if (command.getKey() == null || command.getKey().isEmpty()) {
+            throw new IllegalArgumentException("Command[" + index + "]: key is required");
+        }
+        if (command.getOp() == BatchCommand.Op.SET && command.getValue() == null) {
+            throw new IllegalArgumentException("Command[" + index + "]: value is required for SET");
+        }
+        if (command.getOp() == BatchCommand.Op.EXPIRE && command.getTtl() <= 0) {
+            throw new IllegalArgumentException("Command[" + index + "]: ttl must be positive for EXPIRE");
+        }
+    }
+
+    /**
+     * 抽样记录批量操作汇总日志
+     */
+    private void logSampled(String operation, int count, long startNanos) {
+        if (logSampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= logSampleRate) {
+            return;
+        }
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        AppLogger.logCacheOperation(operation, "batch",
+                String.format("Count: %d, Cost: %dms, Sampled: %.2f", count, costMs, logSampleRate));
+    }
+}
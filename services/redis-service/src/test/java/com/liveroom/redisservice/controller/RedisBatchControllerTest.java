@@ -0,0 +1,103 @@
+package com.liveroom.redisservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liveroom.redisservice.service.RedisBatchService;
+import common.constant.ErrorConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 批量设置缓存接口的请求校验测试
+ * 请求体或 entries 为空、键值不合法、超过批量上限时返回 400 + VALIDATION_FAILED，不访问 Redis；
+ * 合法请求按有无过期时间走 MSET 或管道
+ */
+class RedisBatchControllerTest {
+
+    private static final String MSET = "/redis/api/v1/cache/batch/mset";
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ValueOperations<String, Object> valueOps;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+
+        RedisBatchService batchService = new RedisBatchService(redisTemplate);
+        ReflectionTestUtils.setField(batchService, "maxBatchSize", 2);
+        ReflectionTestUtils.setField(batchService, "logSampleRate", 0.0);
+        mockMvc = MockMvcBuilders.standaloneSetup(new RedisBatchController(batchService, new ObjectMapper())).build();
+    }
+
+    @Test
+    void missingBodyIsRejected() throws Exception {
+        expectValidationFailure(mockMvc.perform(post(MSET).contentType(MediaType.APPLICATION_JSON)));
+        expectValidationFailure(mset("null"));
+    }
+
+    @Test
+    void nullEntriesAreRejected() throws Exception {
+        expectValidationFailure(mset("{\"entries\": null, \"ttl\": 60}"));
+    }
+
+    @Test
+    void invalidEntriesAreRejected() throws Exception {
+        expectValidationFailure(mset("{\"entries\": {\"a\": null}}"));
+        expectValidationFailure(mset("{\"entries\": {\"\": \"x\"}}"));
+        expectValidationFailure(mset("{\"entries\": {\"a\": \"1\"}, \"ttl\": -1}"));
+        expectValidationFailure(mset("{\"entries\": {\"a\": \"1\", \"b\": \"2\", \"c\": \"3\"}}"));
+    }
+
+    @Test
+    void validEntriesAreWritten() throws Exception {
+        mset("{\"entries\": {\"a\": \"1\", \"b\": \"2\"}}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.code").value(ErrorConstants.SUCCESS))
+            .andExpect(jsonPath("$.data").value(2));
+        verify(valueOps).multiSet(Map.of("a", "1", "b", "2"));
+
+        mset("{\"entries\": {\"a\": \"1\"}, \"ttl\": 60}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data").value(1));
+        verify(redisTemplate).executePipelined(any(SessionCallback.class));
+
+        mset("{\"entries\": {}}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data").value(0));
+    }
+
+    private ResultActions mset(String body) throws Exception {
+        return mockMvc.perform(post(MSET).contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private void expectValidationFailure(ResultActions result) throws Exception {
+        result.andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.code").value(ErrorConstants.VALIDATION_FAILED));
+        verifyNoInteractions(redisTemplate);
+        verify(valueOps, never()).multiSet(anyMap());
+    }
+}